@@ -0,0 +1,84 @@
+package quickdt.benchmarks;
+
+import java.io.PrintStream;
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import quickdt.crossValidation.WeightedAUCCrossValLossFunction;
+import quickdt.data.Attributes;
+import quickdt.data.Instance;
+import quickdt.predictiveModels.PredictiveModel;
+
+/**
+ * Computes the AUC loss of a model that costs almost nothing to score, so that the loss function dominates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class AUCLossBenchmark {
+    @Param({"1000", "100000"})
+    public int rows;
+
+    private List<Instance> instances;
+    private final WeightedAUCCrossValLossFunction lossFunction = new WeightedAUCCrossValLossFunction(BenchmarkData.POSITIVE);
+    private final PredictiveModel predictiveModel = new FirstAttributeModel();
+
+    @Setup
+    public void setUp() {
+        instances = BenchmarkData.createInstances(rows, 2, 10, 1);
+    }
+
+    @Benchmark
+    public double getLoss() {
+        return lossFunction.getLoss(instances, predictiveModel);
+    }
+
+    /**
+     * Predicts the positive classification with the probability given by the first, numeric, attribute.
+     */
+    private static final class FirstAttributeModel implements PredictiveModel {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public double getProbability(Attributes attributes, Serializable classification) {
+            final double probability = ((Number) attributes.get("n0")).doubleValue();
+            return BenchmarkData.POSITIVE.equals(classification) ? probability : 1 - probability;
+        }
+
+        @Override
+        public Map<Serializable, Double> getProbabilitiesByClassification(Attributes attributes) {
+            final Map<Serializable, Double> probabilities = new HashMap<>();
+            probabilities.put(BenchmarkData.POSITIVE, getProbability(attributes, BenchmarkData.POSITIVE));
+            probabilities.put(BenchmarkData.NEGATIVE, getProbability(attributes, BenchmarkData.NEGATIVE));
+            return probabilities;
+        }
+
+        @Override
+        public void dump(PrintStream printStream) {
+            printStream.println("n0");
+        }
+
+        @Override
+        public Serializable getClassificationByMaxProb(Attributes attributes) {
+            return getProbability(attributes, BenchmarkData.POSITIVE) > 0.5 ? BenchmarkData.POSITIVE : BenchmarkData.NEGATIVE;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package quickdt.benchmarks;
+
+import java.util.List;
+
+import quickdt.data.Instance;
+import quickdt.syntheticData.SyntheticDataGenerator;
+
+/**
+ * The synthetic training data shared by the benchmarks: half numeric and half categorical attributes, with Zipfian
+ * categorical values and two classes.
+ */
+final class BenchmarkData {
+    static final String POSITIVE = "class1";
+    static final String NEGATIVE = "class0";
+
+    private BenchmarkData() {
+    }
+
+    static SyntheticDataGenerator createGenerator(int attributes, int cardinality, long seed) {
+        return new SyntheticDataGenerator().numericAttributes(attributes / 2)
+                .categoricalAttributes(attributes - attributes / 2).cardinality(cardinality, 1).seed(seed);
+    }
+
+    /**
+     * @param cardinality the number of values of each categorical attribute
+     */
+    static List<Instance> createInstances(int rows, int attributes, int cardinality, long seed) {
+        return createGenerator(attributes, cardinality, seed).generate(rows);
+    }
+}
@@ -0,0 +1,22 @@
+package quickdt.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks selected by the usual JMH command line, always with the GC profiler, so that allocation rates
+ * (gc.alloc.rate.norm is bytes per operation) are reported next to the times.  For example
+ * <code>java -jar target/benchmarks.jar ScoringBenchmark -p maxDepth=10</code>.  Use
+ * <code>java -cp target/benchmarks.jar org.openjdk.jmh.Main -l</code> to list the benchmarks.
+ */
+public final class BenchmarkRunner {
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        final CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+        new Runner(new OptionsBuilder().parent(commandLineOptions).addProfiler(GCProfiler.class).build()).run();
+    }
+}
@@ -0,0 +1,79 @@
+package quickdt.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import quickdt.data.HashMapAttributes;
+import quickdt.data.Instance;
+import quickdt.predictiveModels.decisionTree.tree.ClassCounter;
+
+/**
+ * The ClassCounter operations the tree builder runs for every candidate split.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ClassCounterBenchmark {
+    @Param({"2", "10"})
+    public int classifications;
+
+    @Param({"1000"})
+    public int rows;
+
+    private List<Instance> instances;
+    private ClassCounter counter;
+    private ClassCounter other;
+
+    @Setup
+    public void setUp() {
+        final SplittableRandom random = new SplittableRandom(1);
+        instances = new ArrayList<>(rows);
+        for (int x = 0; x < rows; x++) {
+            instances.add(new Instance(new HashMapAttributes(), "c" + random.nextInt(classifications)));
+        }
+        counter = ClassCounter.countAll(instances);
+        other = ClassCounter.countAll(instances.subList(0, rows / 3));
+    }
+
+    @Benchmark
+    public ClassCounter countAll() {
+        return ClassCounter.countAll(instances);
+    }
+
+    @Benchmark
+    public ClassCounter add() {
+        return counter.add(other);
+    }
+
+    @Benchmark
+    public ClassCounter subtract() {
+        return counter.subtract(other);
+    }
+
+    @Benchmark
+    public ClassCounter merge() {
+        return ClassCounter.merge(counter, other);
+    }
+
+    @Benchmark
+    public double getTotal() {
+        return counter.getTotal();
+    }
+}
@@ -0,0 +1,97 @@
+package quickdt.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import quickdt.data.Attributes;
+import quickdt.data.Instance;
+import quickdt.predictiveModels.PredictiveModel;
+import quickdt.predictiveModels.decisionTree.TreeBuilder;
+import quickdt.predictiveModels.instrumentedPredictiveModel.InstrumentedPredictiveModel;
+import quickdt.predictiveModels.instrumentedPredictiveModel.ScoringMetrics;
+import quickdt.predictiveModels.instrumentedPredictiveModel.StripedHistogram;
+import quickdt.predictiveModels.randomForest.RandomForest;
+import quickdt.predictiveModels.randomForest.RandomForestBuilder;
+
+/**
+ * The overhead of {@link InstrumentedPredictiveModel}: scores an 8 tree forest bare, instrumented, and instrumented with
+ * path lengths, and records into a {@link StripedHistogram} from one and from four threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class InstrumentedScoringBenchmark {
+    private static final int BATCH_SIZE = 1000;
+
+    @Param({"5", "2147483647"})
+    public int maxDepth;
+
+    private Attributes[] scoringAttributes;
+    private RandomForest randomForest;
+    private PredictiveModel instrumented;
+    private PredictiveModel instrumentedWithPathLengths;
+    private final StripedHistogram histogram = new StripedHistogram();
+    private int next;
+
+    @Setup
+    public void setUp() {
+        final List<Instance> instances = BenchmarkData.createInstances(10000, 20, 100, 1);
+        randomForest = new RandomForestBuilder(new TreeBuilder().maxDepth(maxDepth).ignoreAttributeAtNodeProbability(0.5))
+                .numTrees(8).seed(1).buildPredictiveModel(instances);
+        instrumented = new InstrumentedPredictiveModel(randomForest, "benchmark", new ScoringMetrics());
+        instrumentedWithPathLengths = new InstrumentedPredictiveModel(randomForest, "benchmark", "randomForest",
+                new ScoringMetrics(), true);
+        scoringAttributes = new Attributes[BATCH_SIZE];
+        final List<Instance> scoringInstances = BenchmarkData.createInstances(BATCH_SIZE, 20, 100, 2);
+        for (int x = 0; x < BATCH_SIZE; x++) {
+            scoringAttributes[x] = scoringInstances.get(x).getAttributes();
+        }
+    }
+
+    private Attributes nextAttributes() {
+        next = next + 1 == BATCH_SIZE ? 0 : next + 1;
+        return scoringAttributes[next];
+    }
+
+    @Benchmark
+    public double scoreRandomForest() {
+        return randomForest.getProbability(nextAttributes(), BenchmarkData.POSITIVE);
+    }
+
+    @Benchmark
+    public double scoreInstrumented() {
+        return instrumented.getProbability(nextAttributes(), BenchmarkData.POSITIVE);
+    }
+
+    @Benchmark
+    public double scoreInstrumentedWithPathLengths() {
+        return instrumentedWithPathLengths.getProbability(nextAttributes(), BenchmarkData.POSITIVE);
+    }
+
+    @Benchmark
+    public void record() {
+        histogram.record(next++ & 0xFFFFF);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void recordFromFourThreads() {
+        histogram.record(System.nanoTime() & 0xFFFFF);
+    }
+}
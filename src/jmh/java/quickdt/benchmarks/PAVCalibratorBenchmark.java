@@ -0,0 +1,60 @@
+package quickdt.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import quickdt.predictiveModels.calibratedPredictiveModel.PAVCalibrator;
+
+/**
+ * Corrects probabilities with a calibrator fitted to noisy observations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PAVCalibratorBenchmark {
+    private static final int INPUT_COUNT = 1024;
+
+    @Param({"1000", "100000"})
+    public int observations;
+
+    private PAVCalibrator calibrator;
+    private final double[] inputs = new double[INPUT_COUNT];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        final SplittableRandom random = new SplittableRandom(1);
+        final List<PAVCalibrator.Observation> calibrationObservations = new ArrayList<>(observations);
+        for (int x = 0; x < observations; x++) {
+            final double input = random.nextDouble();
+            calibrationObservations.add(new PAVCalibrator.Observation(input, random.nextDouble() < input ? 1 : 0));
+        }
+        calibrator = new PAVCalibrator(calibrationObservations);
+        for (int x = 0; x < INPUT_COUNT; x++) {
+            inputs[x] = random.nextDouble();
+        }
+    }
+
+    @Benchmark
+    public double correct() {
+        next = (next + 1) & (INPUT_COUNT - 1);
+        return calibrator.correct(inputs[next]);
+    }
+}
@@ -0,0 +1,62 @@
+package quickdt.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import quickdt.data.Instance;
+import quickdt.predictiveModels.decisionTree.TreeBuilder;
+import quickdt.predictiveModels.randomForest.RandomForest;
+import quickdt.predictiveModels.randomForest.RandomForestBuilder;
+
+/**
+ * Builds a 16 tree forest with bagging on a varying number of threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class RandomForestBuilderBenchmark {
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    @Param({"10000"})
+    public int rows;
+
+    @Param({"20"})
+    public int attributes;
+
+    @Param({"20"})
+    public int cardinality;
+
+    @Param({"10"})
+    public int maxDepth;
+
+    private List<Instance> instances;
+    private RandomForestBuilder randomForestBuilder;
+
+    @Setup
+    public void setUp() {
+        instances = BenchmarkData.createInstances(rows, attributes, cardinality, 1);
+        randomForestBuilder = new RandomForestBuilder(new TreeBuilder().maxDepth(maxDepth).ignoreAttributeAtNodeProbability(0.5))
+                .numTrees(16).withBagging(rows / 2).executorThreadCount(threads).seed(1);
+    }
+
+    @Benchmark
+    public RandomForest buildRandomForest() {
+        return randomForestBuilder.buildPredictiveModel(instances);
+    }
+}
@@ -0,0 +1,78 @@
+package quickdt.benchmarks;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import quickdt.predictiveModels.decisionTree.Scorer;
+import quickdt.predictiveModels.decisionTree.scorers.GiniImpurityScorer;
+import quickdt.predictiveModels.decisionTree.scorers.InformationGainScorer;
+import quickdt.predictiveModels.decisionTree.scorers.MSEScorer;
+import quickdt.predictiveModels.decisionTree.scorers.SplitDiffScorer;
+import quickdt.predictiveModels.decisionTree.tree.ClassCounter;
+
+/**
+ * Scores a split of randomly counted classifications.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ScorerBenchmark {
+    @Param({"mse", "mseCorrected", "splitDiff", "gini", "informationGain"})
+    public String scorerName;
+
+    @Param({"2", "10"})
+    public int classifications;
+
+    private Scorer scorer;
+    private ClassCounter a;
+    private ClassCounter b;
+
+    @Setup
+    public void setUp() {
+        scorer = createScorer(scorerName);
+        final SplittableRandom random = new SplittableRandom(1);
+        a = new ClassCounter();
+        b = new ClassCounter();
+        for (int x = 0; x < classifications; x++) {
+            a.addClassification("c" + x, 1 + random.nextInt(1000));
+            b.addClassification("c" + x, 1 + random.nextInt(1000));
+        }
+    }
+
+    private static Scorer createScorer(String name) {
+        switch (name) {
+            case "mse":
+                return new MSEScorer(MSEScorer.CrossValidationCorrection.FALSE);
+            case "mseCorrected":
+                return new MSEScorer(MSEScorer.CrossValidationCorrection.TRUE);
+            case "splitDiff":
+                return new SplitDiffScorer();
+            case "gini":
+                return new GiniImpurityScorer();
+            case "informationGain":
+                return new InformationGainScorer();
+            default:
+                throw new IllegalArgumentException("Unknown scorer " + name);
+        }
+    }
+
+    @Benchmark
+    public double scoreSplit() {
+        return scorer.scoreSplit(a, b);
+    }
+}
@@ -0,0 +1,105 @@
+package quickdt.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import quickdt.data.Attributes;
+import quickdt.data.Instance;
+import quickdt.predictiveModels.decisionTree.TreeBuilder;
+import quickdt.predictiveModels.decisionTree.tree.Tree;
+import quickdt.predictiveModels.randomForest.RandomForest;
+import quickdt.predictiveModels.randomForest.RandomForestBuilder;
+
+/**
+ * Scores a tree and an 8 tree forest, one instance at a time and in batches of {@link #BATCH_SIZE}.  Times are per
+ * instance scored.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ScoringBenchmark {
+    private static final int BATCH_SIZE = 1000;
+
+    @Param({"10000"})
+    public int rows;
+
+    @Param({"10", "40"})
+    public int attributes;
+
+    @Param({"10", "100"})
+    public int cardinality;
+
+    @Param({"5", "10", "2147483647"})
+    public int maxDepth;
+
+    private Attributes[] scoringAttributes;
+    private Tree tree;
+    private RandomForest randomForest;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        final List<Instance> instances = BenchmarkData.createInstances(rows, attributes, cardinality, 1);
+        tree = new TreeBuilder().maxDepth(maxDepth).seed(1).buildPredictiveModel(instances);
+        randomForest = new RandomForestBuilder(new TreeBuilder().maxDepth(maxDepth).ignoreAttributeAtNodeProbability(0.5))
+                .numTrees(8).seed(1).buildPredictiveModel(instances);
+        scoringAttributes = new Attributes[BATCH_SIZE];
+        final List<Instance> scoringInstances = BenchmarkData.createInstances(BATCH_SIZE, attributes, cardinality, 2);
+        for (int x = 0; x < BATCH_SIZE; x++) {
+            scoringAttributes[x] = scoringInstances.get(x).getAttributes();
+        }
+    }
+
+    private Attributes nextAttributes() {
+        next = next + 1 == BATCH_SIZE ? 0 : next + 1;
+        return scoringAttributes[next];
+    }
+
+    @Benchmark
+    public double scoreTree() {
+        return tree.getProbability(nextAttributes(), BenchmarkData.POSITIVE);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void scoreTreeBatch(Blackhole blackhole) {
+        for (Attributes attributes : scoringAttributes) {
+            blackhole.consume(tree.getProbability(attributes, BenchmarkData.POSITIVE));
+        }
+    }
+
+    @Benchmark
+    public double scoreRandomForest() {
+        return randomForest.getProbability(nextAttributes(), BenchmarkData.POSITIVE);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void scoreRandomForestBatch(Blackhole blackhole) {
+        for (Attributes attributes : scoringAttributes) {
+            blackhole.consume(randomForest.getProbability(attributes, BenchmarkData.POSITIVE));
+        }
+    }
+
+    @Benchmark
+    public Object scoreRandomForestAllClassifications() {
+        return randomForest.getProbabilitiesByClassification(nextAttributes());
+    }
+}
@@ -0,0 +1,90 @@
+package quickdt.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import quickdt.data.Instance;
+import quickdt.modelSerialization.BinaryInstanceReader;
+import quickdt.predictiveModels.decisionTree.TreeBuilder;
+import quickdt.predictiveModels.decisionTree.tree.Tree;
+import quickdt.syntheticData.SyntheticDataGenerator;
+
+/**
+ * Builds a single tree, from instances in memory, generated as they're iterated over, or streamed from a binary file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TreeBuilderBenchmark {
+    @Param({"1000", "10000"})
+    public int rows;
+
+    @Param({"10", "40"})
+    public int attributes;
+
+    @Param({"10", "100"})
+    public int cardinality;
+
+    @Param({"5", "2147483647"})
+    public int maxDepth;
+
+    /**
+     * memory, generated or binary
+     */
+    @Param({"memory"})
+    public String source;
+
+    private Iterable<Instance> instances;
+    private TreeBuilder treeBuilder;
+    private File file;
+
+    @Setup
+    public void setUp() throws IOException {
+        final SyntheticDataGenerator generator = BenchmarkData.createGenerator(attributes, cardinality, 1);
+        switch (source) {
+            case "memory":
+                instances = generator.generate(rows);
+                break;
+            case "generated":
+                instances = generator.stream(rows);
+                break;
+            case "binary":
+                file = File.createTempFile("instances", ".bin");
+                generator.writeBinary(rows, file);
+                instances = BinaryInstanceReader.read(file);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown source " + source);
+        }
+        treeBuilder = new TreeBuilder().maxDepth(maxDepth).seed(1);
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (file != null) {
+            file.delete();
+        }
+    }
+
+    @Benchmark
+    public Tree buildTree() {
+        return treeBuilder.buildPredictiveModel(instances);
+    }
+}
@@ -0,0 +1,121 @@
+package quickdt.collections;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+
+import com.google.common.base.Preconditions;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+/**
+ * A HyperLogLog sketch estimating the number of distinct values added to it in
+ * a fixed <code>2^precision</code> bytes. The standard error of the estimate is
+ * about <code>1.04 / sqrt(2^precision)</code>, e.g. 1.6% for a precision of 12.
+ *
+ * Sketches with the same precision can be merged, the result estimating the
+ * number of distinct values in the union of what was added to both.
+ */
+public final class HyperLogLog implements Serializable {
+	private static final long serialVersionUID = -3265419720418465532L;
+
+	public static final int MIN_PRECISION = 4;
+	public static final int MAX_PRECISION = 16;
+
+	private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+	private final int    precision;
+	private final byte[] registers;
+
+	public HyperLogLog(int precision) {
+		Preconditions.checkArgument(precision >= MIN_PRECISION && precision <= MAX_PRECISION,
+				"Precision must be between %s and %s, got %s", MIN_PRECISION, MAX_PRECISION,
+				precision);
+		this.precision = precision;
+		this.registers = new byte[1 << precision];
+	}
+
+	private HyperLogLog(HyperLogLog other) {
+		this.precision = other.precision;
+		this.registers = other.registers.clone();
+	}
+
+	public int getPrecision() {
+		return precision;
+	}
+
+	public void add(Object value) {
+		addHash(hash(value));
+	}
+
+	private void addHash(long hash) {
+		int register = (int) (hash >>> (Long.SIZE - precision));
+		// the guard bit bounds the rank by the bits left after the register index
+		long remaining = (hash << precision) | (1L << (precision - 1));
+		byte rank = (byte) (Long.numberOfLeadingZeros(remaining) + 1);
+		if (rank > registers[register]) {
+			registers[register] = rank;
+		}
+	}
+
+	/**
+	 * Adds everything added to <code>other</code> to this sketch.
+	 */
+	public HyperLogLog merge(HyperLogLog other) {
+		Preconditions.checkArgument(other.precision == precision,
+				"Can't merge a sketch of precision %s into one of precision %s", other.precision,
+				precision);
+		for (int x = 0; x < registers.length; x++) {
+			if (other.registers[x] > registers[x]) {
+				registers[x] = other.registers[x];
+			}
+		}
+		return this;
+	}
+
+	public HyperLogLog copy() {
+		return new HyperLogLog(this);
+	}
+
+	public long estimate() {
+		final int m = registers.length;
+		double sum = 0;
+		int zeros = 0;
+		for (byte register : registers) {
+			sum += 1.0 / (1L << register);
+			if (register == 0) {
+				zeros++;
+			}
+		}
+		final double estimate = alpha(m) * m * m / sum;
+		// small range correction: linear counting is more accurate while many
+		// registers are still empty
+		if (estimate <= 2.5 * m && zeros > 0) {
+			return Math.round(m * Math.log((double) m / zeros));
+		}
+		return Math.round(estimate);
+	}
+
+	private static double alpha(int m) {
+		switch (m) {
+		case 16:
+			return 0.673;
+		case 32:
+			return 0.697;
+		case 64:
+			return 0.709;
+		default:
+			return 0.7213 / (1 + 1.079 / m);
+		}
+	}
+
+	private static long hash(Object value) {
+		if (value instanceof String) {
+			return HASH_FUNCTION.hashString((String) value, StandardCharsets.UTF_8).asLong();
+		}
+		if (value instanceof Long || value instanceof Integer || value instanceof Short
+				|| value instanceof Byte) {
+			return HASH_FUNCTION.hashLong(((Number) value).longValue()).asLong();
+		}
+		return HASH_FUNCTION.hashInt(value == null ? 0 : value.hashCode()).asLong();
+	}
+}
@@ -103,6 +103,17 @@ public class ValueSummingMap<K> implements Map<K, Number>, Serializable {
 		return delegateMap.entrySet();
 	}
 
+	@Override
+	public boolean equals(final Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (o == null || getClass() != o.getClass()) {
+			return false;
+		}
+		return delegateMap.equals(((ValueSummingMap<?>) o).delegateMap);
+	}
+
 	@Override
 	public int hashCode() {
 		return new HashCodeBuilder(17, 37).append(delegateMap).toHashCode();
@@ -1,5 +1,7 @@
 package quickdt.crossValidation;
 
+import java.io.Serializable;
+
 import quickdt.data.AbstractInstance;
 import quickdt.predictiveModels.PredictiveModel;
 
@@ -8,6 +10,6 @@ import java.util.List;
 /**
  * Created by alexanderhawk on 4/24/14.
  */
-public interface CrossValLossFunction {
+public interface CrossValLossFunction extends Serializable {
     public abstract double getLoss(List<? extends AbstractInstance> crossValSet, PredictiveModel predictiveModel);
 }
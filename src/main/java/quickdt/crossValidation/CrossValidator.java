@@ -1,12 +1,52 @@
 package quickdt.crossValidation;
 
+import java.io.Serializable;
+
+import com.google.common.base.Preconditions;
+
 import quickdt.data.AbstractInstance;
+import quickdt.predictiveModels.CancellationToken;
 import quickdt.predictiveModels.PredictiveModel;
 import quickdt.predictiveModels.PredictiveModelBuilder;
 
 /**
  * Created by alexanderhawk on 5/5/14.
  */
-public abstract class CrossValidator {
+public abstract class CrossValidator implements Serializable {
+    private static final long serialVersionUID = -2256391045611683071L;
+
     public abstract double getCrossValidatedLoss(PredictiveModelBuilder<? extends PredictiveModel> predictiveModelBuilder, Iterable<? extends AbstractInstance> allTrainingData);
-}
\ No newline at end of file
+
+    /**
+     * Like {@link #getCrossValidatedLoss(PredictiveModelBuilder, Iterable)}, but gives up once
+     * <code>cancellationToken</code> is cancelled, returning {@link Double#MAX_VALUE} rather than the loss of models cut
+     * short.  The token is set on the builder for the duration of the cross validation.
+     */
+    public double getCrossValidatedLoss(PredictiveModelBuilder<? extends PredictiveModel> predictiveModelBuilder, Iterable<? extends AbstractInstance> allTrainingData, CancellationToken cancellationToken) {
+        predictiveModelBuilder.cancellationToken(cancellationToken);
+        try {
+            final double loss = getCrossValidatedLoss(predictiveModelBuilder, allTrainingData);
+            return cancellationToken.isCancelled() ? Double.MAX_VALUE : loss;
+        } finally {
+            predictiveModelBuilder.cancellationToken(null);
+        }
+    }
+
+    /**
+     * @return the number of folds that {@link #getFoldLoss(PredictiveModelBuilder, Iterable, int)} can evaluate
+     *         independently of each other, the cross validated loss being the mean of their losses.  By default the
+     *         whole cross validation is one fold.
+     */
+    public int getFoldCount() {
+        return 1;
+    }
+
+    /**
+     * @return the loss of fold <code>fold</code> alone, so that the folds can be evaluated in parallel or in other
+     *         processes
+     */
+    public double getFoldLoss(PredictiveModelBuilder<? extends PredictiveModel> predictiveModelBuilder, Iterable<? extends AbstractInstance> allTrainingData, int fold) {
+        Preconditions.checkElementIndex(fold, getFoldCount(), "fold");
+        return getCrossValidatedLoss(predictiveModelBuilder, allTrainingData);
+    }
+}
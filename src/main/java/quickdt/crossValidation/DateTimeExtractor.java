@@ -1,10 +1,12 @@
 package quickdt.crossValidation;
+
+import java.io.Serializable;
 import org.joda.time.DateTime;
 import quickdt.data.AbstractInstance;
 
 /**
  * Created by alexanderhawk on 5/6/14.
  */
-public interface DateTimeExtractor {
+public interface DateTimeExtractor extends Serializable {
        DateTime extractDateTime(AbstractInstance instance);
 }
@@ -6,6 +6,7 @@ import com.google.common.base.Preconditions;
  * Created by alexanderhawk on 4/10/14.
  */
 public class LogCrossValLossFunction extends OnlineCrossValLossFunction<LogCrossValLossFunction> {
+    private static final long serialVersionUID = 6723371790142919965L;
     private static final double DEFAULT_MIN_PROBABILITY = 10E-16;
     public  double minProbability;
     public  double maxError;
@@ -6,6 +6,7 @@ import com.google.common.base.Preconditions;
  * Created by ian on 2/28/14.
  */
 public class MSECrossValLossFunction extends OnlineCrossValLossFunction<MSECrossValLossFunction> {
+    private static final long serialVersionUID = 3305324297932759750L;
 
     @Override
     public double getLossFromInstance(double probabilityOfCorrectInstance, double weight) {
@@ -8,6 +8,7 @@ import java.util.List;
  * Created by alexanderhawk on 5/17/14.
  */
 public class NonWeightedAUCCrossValLossFunction implements CrossValLossFunction {
+    private static final long serialVersionUID = -482595133771685215L;
 
     @Override
     public double getLoss(List<? extends AbstractInstance> crossValSet, PredictiveModel predictiveModel) {
@@ -9,17 +9,25 @@ import java.util.List;
  * Created by ian on 2/28/14.
  */
 public abstract class OnlineCrossValLossFunction<S extends CrossValLossFunction> implements Comparable<S>, CrossValLossFunction {
-    double totalLoss = 0;
-    double weightOfAllInstances = 0;
-    protected abstract double getLossFromInstance(double probabilityOfCorrectInstance, double weight);
+    /**
+     * The totals of the most recent call to {@link #getLoss}, for {@link #compareTo} and {@link #toString}.  They are not
+     * thread-safe: when getLoss is called concurrently they may come from different calls, so a loss function
+     * shared between threads should only be compared by the values getLoss returns.
+     */
+    volatile double totalLoss = 0;
+    volatile double weightOfAllInstances = 0;
+    public abstract double getLossFromInstance(double probabilityOfCorrectInstance, double weight);
     public double getLoss(List<? extends AbstractInstance> crossValSet, PredictiveModel predictiveModel) {
-        totalLoss = 0;
-        weightOfAllInstances = 0;
+        // accumulate in locals so that concurrent calls on the same loss function don't interfere
+        double loss = 0;
+        double weight = 0;
         for (AbstractInstance instance : crossValSet) {
-            totalLoss += getLossFromInstance(predictiveModel.getProbability(instance.getAttributes(), instance.getClassification()), instance.getWeight());
-            weightOfAllInstances += instance.getWeight();
+            loss += getLossFromInstance(predictiveModel.getProbability(instance.getAttributes(), instance.getClassification()), instance.getWeight());
+            weight += instance.getWeight();
         }
-        return totalLoss / weightOfAllInstances;
+        totalLoss = loss;
+        weightOfAllInstances = weight;
+        return loss / weight;
     }
 
 }
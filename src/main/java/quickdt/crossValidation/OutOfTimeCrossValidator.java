@@ -17,12 +17,13 @@ import java.util.List;
  * Created by alexanderhawk on 5/5/14.
  */
 public class OutOfTimeCrossValidator extends CrossValidator {
+    private static final long serialVersionUID = 6700503343400078670L;
 
     private static final Logger logger = LoggerFactory.getLogger(OutOfTimeCrossValidator.class);
 
-    List<AbstractInstance> allTrainingData;
-    List<AbstractInstance> trainingDataToAddToPredictiveModel;
-    List<AbstractInstance> validationSet;
+    transient List<AbstractInstance> allTrainingData;
+    transient List<AbstractInstance> trainingDataToAddToPredictiveModel;
+    transient List<AbstractInstance> validationSet;
 
     final private CrossValLossFunction crossValLossFunction;
     private double fractionOfDataForCrossValidation = 0.25;
@@ -9,6 +9,7 @@ import java.util.List;
  * Created by ian on 2/28/14.
  */
 public class RMSECrossValLossFunction extends OnlineCrossValLossFunction<RMSECrossValLossFunction> {
+    private static final long serialVersionUID = -8871632122742833838L;
 
     private MSECrossValLossFunction mseCrossValLoss = new MSECrossValLossFunction();
 
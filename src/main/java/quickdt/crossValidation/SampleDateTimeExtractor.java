@@ -9,6 +9,8 @@ import quickdt.data.Attributes;
  * Created by alexanderhawk on 5/6/14.
  */
 public class SampleDateTimeExtractor implements DateTimeExtractor {
+    private static final long serialVersionUID = -5992343277117725831L;
+
     @Override
     public DateTime extractDateTime(AbstractInstance instance){
         Attributes attributes = instance.getAttributes();
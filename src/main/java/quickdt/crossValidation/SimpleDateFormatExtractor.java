@@ -16,6 +16,7 @@ import java.util.Date;
  * Created by alexanderhawk on 6/22/14.
  */
 public class SimpleDateFormatExtractor implements DateTimeExtractor {
+    private static final long serialVersionUID = 5194871577401408618L;
     private static final Logger logger = LoggerFactory.getLogger(SimpleDateFormatExtractor.class);
     DateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
     String dateAttribute = "created_at";
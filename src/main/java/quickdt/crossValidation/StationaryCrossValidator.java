@@ -9,6 +9,7 @@ import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
 
 import quickdt.data.AbstractInstance;
+import quickdt.predictiveModels.CancellationToken;
 import quickdt.predictiveModels.PredictiveModel;
 import quickdt.predictiveModels.PredictiveModelBuilder;
 
@@ -18,6 +19,7 @@ import quickdt.predictiveModels.PredictiveModelBuilder;
  * Created by ian on 2/28/14.
  */
 public class StationaryCrossValidator extends CrossValidator {
+	private static final long serialVersionUID = 4153024640347516562L;
 	private static final Logger logger = LoggerFactory.getLogger(StationaryCrossValidator.class);
 
 	private static final int     DEFAULT_NUMBER_OF_FOLDS = 4;
@@ -66,13 +68,39 @@ public class StationaryCrossValidator extends CrossValidator {
 	public double getCrossValidatedLoss(
 			PredictiveModelBuilder<? extends PredictiveModel> predictiveModelBuilder,
 			Iterable<? extends AbstractInstance> allTrainingData) {
+		return crossValidate(predictiveModelBuilder, allTrainingData, null);
+	}
+
+	/**
+	 * Also checks <code>cancellationToken</code> between folds, so that no more
+	 * folds are built once it is cancelled.
+	 */
+	@Override
+	public double getCrossValidatedLoss(
+			PredictiveModelBuilder<? extends PredictiveModel> predictiveModelBuilder,
+			Iterable<? extends AbstractInstance> allTrainingData,
+			CancellationToken cancellationToken) {
+		predictiveModelBuilder.cancellationToken(cancellationToken);
+		try {
+			return crossValidate(predictiveModelBuilder, allTrainingData, cancellationToken);
+		} finally {
+			predictiveModelBuilder.cancellationToken(null);
+		}
+	}
+
+	private double crossValidate(
+			PredictiveModelBuilder<? extends PredictiveModel> predictiveModelBuilder,
+			Iterable<? extends AbstractInstance> allTrainingData,
+			CancellationToken cancellationToken) {
 		double runningLoss = 0;
-		DataSplit dataSplit;
 		for (int currentFold = 0; currentFold < foldsUsed; currentFold++) {
-			dataSplit = setTrainingAndValidationSets(currentFold, allTrainingData);
-			PredictiveModel predictiveModel = predictiveModelBuilder
-					.buildPredictiveModel(dataSplit.training);
-			runningLoss += lossFunction.getLoss(dataSplit.validation, predictiveModel);
+			final double foldLoss = getFoldLoss(predictiveModelBuilder, allTrainingData,
+					currentFold, cancellationToken);
+			if (cancellationToken != null && cancellationToken.isCancelled()) {
+				logger.info("Cross validation cancelled after " + currentFold + " folds");
+				return Double.MAX_VALUE;
+			}
+			runningLoss += foldLoss;
 			logger.info("running loss: " + runningLoss);
 
 		}
@@ -81,6 +109,32 @@ public class StationaryCrossValidator extends CrossValidator {
 		return averageLoss;
 	}
 
+	@Override
+	public int getFoldCount() {
+		return foldsUsed;
+	}
+
+	@Override
+	public double getFoldLoss(
+			PredictiveModelBuilder<? extends PredictiveModel> predictiveModelBuilder,
+			Iterable<? extends AbstractInstance> allTrainingData, int fold) {
+		Preconditions.checkElementIndex(fold, foldsUsed, "fold");
+		return getFoldLoss(predictiveModelBuilder, allTrainingData, fold, null);
+	}
+
+	private double getFoldLoss(
+			PredictiveModelBuilder<? extends PredictiveModel> predictiveModelBuilder,
+			Iterable<? extends AbstractInstance> allTrainingData, int fold,
+			CancellationToken cancellationToken) {
+		final DataSplit dataSplit = setTrainingAndValidationSets(fold, allTrainingData);
+		final PredictiveModel predictiveModel = predictiveModelBuilder
+				.buildPredictiveModel(dataSplit.training);
+		if (cancellationToken != null && cancellationToken.isCancelled()) {
+			return Double.MAX_VALUE;
+		}
+		return lossFunction.getLoss(dataSplit.validation, predictiveModel);
+	}
+
 	private DataSplit setTrainingAndValidationSets(int foldNumber,
 			Iterable<? extends AbstractInstance> data) {
 		DataSplit dataSplit = new DataSplit();
@@ -8,6 +8,8 @@ import quickdt.data.Attributes;
  * Created by alexanderhawk on 5/6/14.
  */
 public class TestDateTimeExtractor implements DateTimeExtractor {
+    private static final long serialVersionUID = 4913934990003322857L;
+
     @Override
     public DateTime extractDateTime(AbstractInstance instance){
         Attributes attributes = instance.getAttributes();
@@ -12,6 +12,7 @@ import java.util.*;
  * Created by Chris on 5/5/2014.
  */
 public class WeightedAUCCrossValLossFunction implements CrossValLossFunction {
+    private static final long serialVersionUID = -5020045584830712016L;
     private final Serializable positiveClassification;
 
     public WeightedAUCCrossValLossFunction(Serializable positiveClassification) {
@@ -0,0 +1,70 @@
+package quickdt.data;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import com.google.common.collect.Maps;
+
+/**
+ * A read-only view of another {@link Attributes} which only exposes the
+ * attributes named in a white list. Use it instead of copying the attributes
+ * into a new {@link HashMapAttributes} when only some of them should be visible
+ * to a model builder.
+ */
+public final class FilteredAttributes extends AbstractMap<String, Serializable>
+		implements Attributes, Serializable {
+
+	private static final long serialVersionUID = 4310865512736416521L;
+
+	private final Attributes  attributes;
+	/**
+	 * The white listed names the attributes have, found once rather than on each
+	 * call to {@link #size()} or {@link #entrySet()}
+	 */
+	private final Set<String> keys = new HashSet<>();
+
+	public FilteredAttributes(final Attributes attributes, final Set<String> whiteList) {
+		this.attributes = attributes;
+		if (whiteList.size() < attributes.size()) {
+			for (String key : whiteList) {
+				if (attributes.containsKey(key)) {
+					keys.add(key);
+				}
+			}
+		} else {
+			for (String key : attributes.keySet()) {
+				if (whiteList.contains(key)) {
+					keys.add(key);
+				}
+			}
+		}
+	}
+
+	@Override
+	public Serializable get(final Object key) {
+		return keys.contains(key) ? attributes.get(key) : null;
+	}
+
+	@Override
+	public boolean containsKey(final Object key) {
+		return keys.contains(key);
+	}
+
+	@Override
+	public int size() {
+		return keys.size();
+	}
+
+	@Override
+	public Set<Entry<String, Serializable>> entrySet() {
+		return Collections.unmodifiableSet(Maps.asMap(keys, attributes::get).entrySet());
+	}
+
+	@Override
+	public Instance classification(final Serializable cls) {
+		return new Instance(this, cls);
+	}
+}
@@ -45,7 +45,9 @@ public class Instance extends AbstractInstance implements Serializable {
     }
 
     public Instance reweight(double newWeight){
-        return new Instance(getAttributes(), getClassification(), newWeight);
+        final Instance reweighted = new Instance(getAttributes(), getClassification(), newWeight);
+        reweighted.index = index;
+        return reweighted;
     }
 
     @Override
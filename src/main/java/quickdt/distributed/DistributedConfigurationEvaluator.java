@@ -0,0 +1,137 @@
+package quickdt.distributed;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import quickdt.crossValidation.CrossValidator;
+import quickdt.data.Instance;
+import quickdt.predictiveModelOptimizer.ConfigurationEvaluator;
+import quickdt.predictiveModels.CancellationToken;
+import quickdt.predictiveModels.PredictiveModelBuilder;
+import quickdt.predictiveModels.PredictiveModelBuilderBuilder;
+
+/**
+ * Cross validates the configurations of a {@link quickdt.predictiveModelOptimizer.PredictiveModelOptimizer} on the
+ * workers of a {@link WorkerPool}, each fold of {@link CrossValidator#getFoldCount()} being a task of its own.  The
+ * task sent for each fold is the builder builder and the configuration, the builder's seed, the cross validator, the
+ * fold's number and the path of the training data, written by {@link quickdt.modelSerialization.BinaryInstanceWriter},
+ * which each worker reads once.  The optimizer tests the values of a field one after another, as each value it
+ * recommends depends on the losses of the values before it, so the folds of each configuration are what is spread over
+ * the workers.  If a worker dies, its fold is evaluated by another one.
+ *
+ * As the folds' losses are summed in order, a configuration's loss is the same as in this process for the same
+ * training data, builder builder and cross validator, all of which must be {@link java.io.Serializable}.  The file must
+ * be at the same path for every worker, which it is for local workers.
+ */
+public class DistributedConfigurationEvaluator implements ConfigurationEvaluator {
+    private static final Logger logger = LoggerFactory.getLogger(DistributedConfigurationEvaluator.class);
+
+    private final WorkerPool workerPool;
+    private final CrossValidator crossValidator;
+    private final String trainingDataPath;
+
+    /**
+     * @param trainingData a file written by {@link quickdt.modelSerialization.BinaryInstanceWriter}, at the same path
+     *                     for every worker
+     */
+    public DistributedConfigurationEvaluator(WorkerPool workerPool, CrossValidator crossValidator, File trainingData) {
+        this.workerPool = workerPool;
+        this.crossValidator = crossValidator;
+        this.trainingDataPath = trainingData.getAbsolutePath();
+    }
+
+    /**
+     * Each fold's build is given the time limit on its worker, from when the fold starts, and the loss is given up on
+     * here once the limit has passed since the first fold was submitted.
+     */
+    @Override
+    public double getCrossValidatedLoss(PredictiveModelBuilderBuilder<?, ?> predictiveModelBuilderBuilder, Map<String, Object> configuration, Long seed, long timeLimitNanos) {
+        final long deadline = System.nanoTime() + timeLimitNanos;
+        final int foldCount = crossValidator.getFoldCount();
+        final List<Future<Double>> futures = new ArrayList<>(foldCount);
+        for (int fold = 0; fold < foldCount; fold++) {
+            futures.add(workerPool.submit(new FoldLossTask(predictiveModelBuilderBuilder, new HashMap<>(configuration),
+                    seed, crossValidator, trainingDataPath, fold, timeLimitNanos)));
+        }
+        try {
+            double runningLoss = 0;
+            for (Future<Double> future : futures) {
+                final double foldLoss = timeLimitNanos > 0 ? future.get(Math.max(0, deadline - System.nanoTime()),
+                        TimeUnit.NANOSECONDS) : future.get();
+                if (foldLoss == Double.MAX_VALUE) {
+                    return cutOff(configuration, timeLimitNanos, futures);
+                }
+                runningLoss += foldLoss;
+            }
+            return runningLoss / foldCount;
+        } catch (TimeoutException e) {
+            return cutOff(configuration, timeLimitNanos, futures);
+        } catch (InterruptedException | ExecutionException e) {
+            for (Future<Double> future : futures) {
+                future.cancel(false);
+            }
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static double cutOff(Map<String, Object> configuration, long timeLimitNanos, List<Future<Double>> futures) {
+        for (Future<Double> future : futures) {
+            future.cancel(false);
+        }
+        logger.info("Cut off configuration " + configuration + " after " + TimeUnit.NANOSECONDS.toMillis(timeLimitNanos) + " ms");
+        return Double.MAX_VALUE;
+    }
+
+    /**
+     * Builds and evaluates one fold of a configuration on a worker.
+     */
+    private static final class FoldLossTask implements Task<Double> {
+        private static final long serialVersionUID = 2637914207765802283L;
+
+        private final PredictiveModelBuilderBuilder<?, ?> predictiveModelBuilderBuilder;
+        private final HashMap<String, Object> configuration;
+        private final Long seed;
+        private final CrossValidator crossValidator;
+        private final String trainingDataPath;
+        private final int fold;
+        private final long timeLimitNanos;
+
+        private FoldLossTask(PredictiveModelBuilderBuilder<?, ?> predictiveModelBuilderBuilder, HashMap<String, Object> configuration,
+                             Long seed, CrossValidator crossValidator, String trainingDataPath, int fold, long timeLimitNanos) {
+            this.predictiveModelBuilderBuilder = predictiveModelBuilderBuilder;
+            this.configuration = configuration;
+            this.seed = seed;
+            this.crossValidator = crossValidator;
+            this.trainingDataPath = trainingDataPath;
+            this.fold = fold;
+            this.timeLimitNanos = timeLimitNanos;
+        }
+
+        @Override
+        public Double run(WorkerContext context) throws IOException {
+            final PredictiveModelBuilder<?> predictiveModelBuilder = predictiveModelBuilderBuilder.buildBuilder(configuration);
+            if (seed != null) {
+                predictiveModelBuilder.seed(seed);
+            }
+            final List<Instance> trainingData = context.getDataset(trainingDataPath);
+            if (timeLimitNanos <= 0) {
+                return crossValidator.getFoldLoss(predictiveModelBuilder, trainingData, fold);
+            }
+            final CancellationToken cancellationToken = new CancellationToken().cancelAfter(timeLimitNanos, TimeUnit.NANOSECONDS);
+            predictiveModelBuilder.cancellationToken(cancellationToken);
+            final double foldLoss = crossValidator.getFoldLoss(predictiveModelBuilder, trainingData, fold);
+            return cancellationToken.isCancelled() ? Double.MAX_VALUE : foldLoss;
+        }
+    }
+}
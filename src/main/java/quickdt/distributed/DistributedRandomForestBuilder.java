@@ -0,0 +1,171 @@
+package quickdt.distributed;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+
+import quickdt.data.AbstractInstance;
+import quickdt.modelSerialization.BinaryInstanceWriter;
+import quickdt.modelSerialization.BinaryModelReader;
+import quickdt.modelSerialization.BinaryModelWriter;
+import quickdt.predictiveModels.PredictiveModelBuilder;
+import quickdt.predictiveModels.decisionTree.TreeBuilder;
+import quickdt.predictiveModels.decisionTree.tree.Tree;
+import quickdt.predictiveModels.randomForest.RandomForest;
+import quickdt.predictiveModels.randomForest.RandomForestBuilder;
+
+/**
+ * Builds a random forest on the workers of a {@link WorkerPool}, each tree being a task of its own, so that a forest
+ * can use more cores and memory than one JVM has.  The task sent for each tree is the configured {@link TreeBuilder},
+ * the tree's bag and build seeds, and the path of the training data, written by {@link BinaryInstanceWriter}.  The
+ * workers read that file through a memory mapping, once each, and send each tree back in the compact format of
+ * {@link BinaryModelWriter}.  If a worker dies, its tree is built by another one.
+ *
+ * The file must be at the same path for every worker, which it is for local workers.  Each tree is seeded from the
+ * forest's seed alone, so a seeded forest doesn't depend on the number of workers, or on which of them built which
+ * tree.  Leaves don't keep unique id counts, and forests can't be updated.
+ */
+public class DistributedRandomForestBuilder implements PredictiveModelBuilder<RandomForest> {
+    private static final Logger logger = LoggerFactory.getLogger(DistributedRandomForestBuilder.class);
+
+    private final WorkerPool workerPool;
+    private final TreeBuilder treeBuilder;
+    private int numTrees = 20;
+    private int baggingSampleSize = 0;
+    private Serializable id;
+    private Long seed = null;
+
+    public DistributedRandomForestBuilder(WorkerPool workerPool) {
+        this(workerPool, new TreeBuilder().ignoreAttributeAtNodeProbability(0.5));
+    }
+
+    public DistributedRandomForestBuilder(WorkerPool workerPool, TreeBuilder treeBuilder) {
+        this.workerPool = workerPool;
+        this.treeBuilder = treeBuilder;
+    }
+
+    public DistributedRandomForestBuilder numTrees(int numTrees) {
+        this.numTrees = numTrees;
+        return this;
+    }
+
+    /**
+     * See {@link RandomForestBuilder#withBagging(int)}.
+     */
+    public DistributedRandomForestBuilder withBagging(int sampleSize) {
+        Preconditions.checkArgument(sampleSize > -1, "Sample size must not be negative");
+        this.baggingSampleSize = sampleSize;
+        return this;
+    }
+
+    @Override
+    public DistributedRandomForestBuilder seed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    @Override
+    public DistributedRandomForestBuilder updatable(boolean updatable) {
+        Preconditions.checkArgument(!updatable, "Distributed forests can't be updated");
+        return this;
+    }
+
+    @Override
+    public void setID(Serializable id) {
+        this.id = id;
+    }
+
+    /**
+     * Writes the training data to a temporary file for the workers to read, so it only suits local workers.
+     */
+    @Override
+    public RandomForest buildPredictiveModel(Iterable<? extends AbstractInstance> trainingData) {
+        return buildPredictiveModel(trainingData, id);
+    }
+
+    @Override
+    public RandomForest buildPredictiveModel(Iterable<? extends AbstractInstance> trainingData, Serializable id) {
+        File file = null;
+        try {
+            file = File.createTempFile("quickdt-training-data", ".bin");
+            try (BinaryInstanceWriter writer = new BinaryInstanceWriter(file)) {
+                writer.writeAll(trainingData);
+            }
+            return buildPredictiveModel(file, id);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            if (file != null && !file.delete()) {
+                logger.warn("Failed to delete {}", file);
+            }
+        }
+    }
+
+    /**
+     * @param trainingData a file written by {@link BinaryInstanceWriter}, at the same path for every worker
+     */
+    public RandomForest buildPredictiveModel(File trainingData, Serializable id) {
+        logger.info("Building random forest with {} trees on {} workers", numTrees, workerPool.getLiveWorkers());
+        final SplittableRandom random = seed != null ? new SplittableRandom(seed) : new SplittableRandom();
+        final List<Future<byte[]>> treeFutures = new ArrayList<>(numTrees);
+        for (int treeIndex = 0; treeIndex < numTrees; treeIndex++) {
+            final SplittableRandom treeRandom = random.split();
+            treeFutures.add(workerPool.submit(new TreeBuildTask(trainingData.getAbsolutePath(), treeBuilder,
+                    baggingSampleSize, id, treeRandom.nextLong(), treeRandom.nextLong())));
+        }
+
+        final List<Tree> trees = new ArrayList<>(numTrees);
+        try {
+            for (Future<byte[]> treeFuture : treeFutures) {
+                trees.add((Tree) BinaryModelReader.read(treeFuture.get()));
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            for (Future<byte[]> treeFuture : treeFutures) {
+                treeFuture.cancel(false);
+            }
+            throw new RuntimeException(e);
+        }
+        return new RandomForest(trees);
+    }
+
+    /**
+     * Builds one tree of a forest on a worker.
+     */
+    private static final class TreeBuildTask implements Task<byte[]> {
+        private static final long serialVersionUID = -1429731876504129632L;
+
+        private final String trainingDataPath;
+        private final TreeBuilder treeBuilder;
+        private final int baggingSampleSize;
+        private final Serializable id;
+        private final long bagSeed;
+        private final long treeSeed;
+
+        private TreeBuildTask(String trainingDataPath, TreeBuilder treeBuilder, int baggingSampleSize, Serializable id,
+                              long bagSeed, long treeSeed) {
+            this.trainingDataPath = trainingDataPath;
+            this.treeBuilder = treeBuilder;
+            this.baggingSampleSize = baggingSampleSize;
+            this.id = id;
+            this.bagSeed = bagSeed;
+            this.treeSeed = treeSeed;
+        }
+
+        @Override
+        public byte[] run(WorkerContext context) throws IOException {
+            final Iterable<? extends AbstractInstance> bag = RandomForestBuilder.bag(
+                    context.getDataset(trainingDataPath), baggingSampleSize, new SplittableRandom(bagSeed));
+            return BinaryModelWriter.toByteArray(treeBuilder.buildSeededPredictiveModel(bag, id, treeSeed));
+        }
+    }
+}
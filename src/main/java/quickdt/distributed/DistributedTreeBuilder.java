@@ -0,0 +1,244 @@
+package quickdt.distributed;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+
+import quickdt.data.AbstractInstance;
+import quickdt.data.Instance;
+import quickdt.modelSerialization.BinaryInstanceReader;
+import quickdt.modelSerialization.BinaryInstanceWriter;
+import quickdt.predictiveModels.BuildBudget;
+import quickdt.predictiveModels.CancellationToken;
+import quickdt.predictiveModels.PredictiveModelBuilder;
+import quickdt.predictiveModels.decisionTree.LevelHistograms;
+import quickdt.predictiveModels.decisionTree.LevelPlan;
+import quickdt.predictiveModels.decisionTree.LevelWiseShard;
+import quickdt.predictiveModels.decisionTree.LevelWiseTreeBuilder;
+import quickdt.predictiveModels.decisionTree.TrainingDataSummary;
+import quickdt.predictiveModels.decisionTree.tree.Tree;
+
+/**
+ * Builds one tree from training data sharded over the workers of a {@link WorkerPool}, so that the tree can be grown
+ * from more rows than one JVM can hold.  The training data, written by {@link BinaryInstanceWriter}, is divided here into
+ * a contiguous range of rows per worker, with one pass over the file that doesn't decode the values, and each worker
+ * reads only its range into a {@link LevelWiseShard}, which it keeps until the tree is built.  The tree is grown
+ * by a {@link LevelWiseTreeBuilder} a level at a time: each worker counts its rows at each node of the level, the
+ * counts are summed here and the splits chosen from them with the builder's {@link
+ * quickdt.predictiveModels.decisionTree.Scorer}, and the splits are sent with the next level's task, for each worker
+ * to move its rows to the children of their nodes.
+ *
+ * Apart from the thresholds of numeric attributes, which are sampled from each shard and merged, the tree is the one
+ * the {@link LevelWiseTreeBuilder} would grow from all the rows in one process.  The file must be at the same path for
+ * every worker, which it is for local workers.  As each shard is only held by its worker, the build fails if a worker
+ * dies.
+ */
+public class DistributedTreeBuilder implements PredictiveModelBuilder<Tree> {
+    private static final Logger logger = LoggerFactory.getLogger(DistributedTreeBuilder.class);
+
+    private final WorkerPool workerPool;
+    private final LevelWiseTreeBuilder treeBuilder;
+
+    public DistributedTreeBuilder(WorkerPool workerPool) {
+        this(workerPool, new LevelWiseTreeBuilder());
+    }
+
+    public DistributedTreeBuilder(WorkerPool workerPool, LevelWiseTreeBuilder treeBuilder) {
+        this.workerPool = workerPool;
+        this.treeBuilder = treeBuilder;
+    }
+
+    @Override
+    public DistributedTreeBuilder seed(long seed) {
+        treeBuilder.seed(seed);
+        return this;
+    }
+
+    @Override
+    public DistributedTreeBuilder budget(BuildBudget budget) {
+        treeBuilder.budget(budget);
+        return this;
+    }
+
+    @Override
+    public DistributedTreeBuilder cancellationToken(CancellationToken cancellationToken) {
+        treeBuilder.cancellationToken(cancellationToken);
+        return this;
+    }
+
+    @Override
+    public DistributedTreeBuilder updatable(boolean updatable) {
+        treeBuilder.updatable(updatable);
+        return this;
+    }
+
+    @Override
+    public void setID(Serializable id) {
+    }
+
+    /**
+     * Writes the training data to a temporary file for the workers to read, so it only suits local workers.
+     */
+    @Override
+    public Tree buildPredictiveModel(Iterable<? extends AbstractInstance> trainingData) {
+        File file = null;
+        try {
+            file = File.createTempFile("quickdt-training-data", ".bin");
+            try (BinaryInstanceWriter writer = new BinaryInstanceWriter(file)) {
+                writer.writeAll(trainingData);
+            }
+            return buildPredictiveModel(file);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            if (file != null && !file.delete()) {
+                logger.warn("Failed to delete {}", file);
+            }
+        }
+    }
+
+    /**
+     * @param trainingData a file written by {@link BinaryInstanceWriter}, at the same path for every worker
+     */
+    public Tree buildPredictiveModel(File trainingData) {
+        final String buildId = UUID.randomUUID().toString();
+        final String path = trainingData.getAbsolutePath();
+        final int shardCount = workerPool.size();
+        final List<BinaryInstanceReader.Range> ranges;
+        try {
+            ranges = BinaryInstanceReader.split(trainingData, shardCount);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        logger.info("Building tree from {} shards", shardCount);
+        try {
+            return treeBuilder.buildPredictiveModel(new LevelWiseTreeBuilder.HistogramSource() {
+                @Override
+                public TrainingDataSummary summarize(long seed) {
+                    final List<Future<TrainingDataSummary>> futures = new ArrayList<>();
+                    for (int shard = 0; shard < shardCount; shard++) {
+                        futures.add(workerPool.submit(shard,
+                                new LoadShardTask(buildId, path, ranges.get(shard), seed + shard)));
+                    }
+                    final List<TrainingDataSummary> summaries = getAll(futures);
+                    final SplittableRandom mergeRandom = new SplittableRandom(~seed);
+                    final TrainingDataSummary summary = summaries.get(0);
+                    for (int shard = 1; shard < shardCount; shard++) {
+                        summary.merge(summaries.get(shard), mergeRandom.nextLong());
+                    }
+                    return summary;
+                }
+
+                @Override
+                public LevelHistograms count(LevelPlan plan) {
+                    final List<Future<LevelHistograms>> futures = new ArrayList<>();
+                    for (int shard = 0; shard < shardCount; shard++) {
+                        futures.add(workerPool.submit(shard, new CountTask(buildId, plan)));
+                    }
+                    final List<LevelHistograms> histograms = getAll(futures);
+                    for (int shard = 1; shard < shardCount; shard++) {
+                        histograms.get(0).merge(histograms.get(shard));
+                    }
+                    return histograms.get(0);
+                }
+            });
+        } finally {
+            for (int shard = 0; shard < shardCount; shard++) {
+                workerPool.submit(shard, new ReleaseShardTask(buildId));
+            }
+        }
+    }
+
+    private static <R> List<R> getAll(List<Future<R>> futures) {
+        final List<R> results = new ArrayList<>(futures.size());
+        try {
+            for (Future<R> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            for (Future<R> future : futures) {
+                future.cancel(false);
+            }
+            throw new RuntimeException(e);
+        }
+        return results;
+    }
+
+    /**
+     * Reads a worker's shard of the training data and summarizes it.
+     */
+    private static final class LoadShardTask implements Task<TrainingDataSummary> {
+        private static final long serialVersionUID = -7120946830557131468L;
+
+        private final String buildId;
+        private final String trainingDataPath;
+        private final BinaryInstanceReader.Range range;
+        private final long seed;
+
+        private LoadShardTask(String buildId, String trainingDataPath, BinaryInstanceReader.Range range, long seed) {
+            this.buildId = buildId;
+            this.trainingDataPath = trainingDataPath;
+            this.range = range;
+            this.seed = seed;
+        }
+
+        @Override
+        public TrainingDataSummary run(WorkerContext context) {
+            final List<Instance> rows = new ArrayList<>();
+            for (Instance instance : BinaryInstanceReader.read(new File(trainingDataPath), range)) {
+                rows.add(instance);
+            }
+            final LevelWiseShard levelWiseShard = new LevelWiseShard(rows);
+            context.getState().put(buildId, levelWiseShard);
+            return levelWiseShard.summarize(seed);
+        }
+    }
+
+    /**
+     * Counts a worker's shard at the nodes of a level.
+     */
+    private static final class CountTask implements Task<LevelHistograms> {
+        private static final long serialVersionUID = -5288164218036573915L;
+
+        private final String buildId;
+        private final LevelPlan plan;
+
+        private CountTask(String buildId, LevelPlan plan) {
+            this.buildId = buildId;
+            this.plan = plan;
+        }
+
+        @Override
+        public LevelHistograms run(WorkerContext context) {
+            final LevelWiseShard shard = (LevelWiseShard) context.getState().get(buildId);
+            Preconditions.checkState(shard != null, "This worker has no shard for build %s", buildId);
+            return shard.count(plan);
+        }
+    }
+
+    private static final class ReleaseShardTask implements Task<Boolean> {
+        private static final long serialVersionUID = 8171519370420947658L;
+
+        private final String buildId;
+
+        private ReleaseShardTask(String buildId) {
+            this.buildId = buildId;
+        }
+
+        @Override
+        public Boolean run(WorkerContext context) {
+            return context.getState().remove(buildId) != null;
+        }
+    }
+}
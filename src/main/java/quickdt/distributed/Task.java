@@ -0,0 +1,14 @@
+package quickdt.distributed;
+
+import java.io.Serializable;
+
+/**
+ * A unit of work sent to a {@link Worker} by a {@link WorkerPool}.  The task is serialized with everything it refers
+ * to, so it should carry configuration and file paths rather than training data, and its classes must be on the
+ * worker's classpath.
+ *
+ * @param <R> the result, which is serialized back to the pool
+ */
+public interface Task<R extends Serializable> extends Serializable {
+    R run(WorkerContext context) throws Exception;
+}
@@ -0,0 +1,261 @@
+package quickdt.distributed;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A process that runs {@link Task}s sent to it by a {@link WorkerPool}, one at a time, over a socket.  Start it with
+ * <code>java -cp quickdt.jar:... quickdt.distributed.Worker [port] [--bind address] [--max-task-bytes n]
+ * [--exit-on-disconnect]</code> on each machine to be used, with the secret shared with the pool in the
+ * <code>QUICKDT_WORKER_SECRET</code> environment variable, or let {@link WorkerPool#startLocal(int, String...)} start it
+ * on this one.  Port 0, the default, listens on any free port; the port is printed to standard output as
+ * <code>quickdt worker listening on port N</code>.  Without <code>--bind</code> the worker listens on all interfaces.
+ *
+ * A task runs whatever code it was serialized with, so the worker only serves pools that know the secret: it sends each
+ * pool that connects a random challenge, and closes the connection unless the pool answers with the challenge's
+ * HMAC-SHA256 under the secret.  Tasks are only deserialized into quickdt and Guava classes, the classes of
+ * <code>java.lang</code> and <code>java.util</code> and {@link File}, and tasks longer than
+ * <code>--max-task-bytes</code> (64MB by default) are refused.
+ *
+ * The worker serves one pool at a time, and goes on to serve the next pool to connect once a pool disconnects, unless
+ * <code>--exit-on-disconnect</code> is given, as it is for local workers.
+ *
+ * Each task is sent as an int length followed by the serialized task.  Each result is sent back as a status byte, an
+ * int length, and either the serialized value returned by the task or the UTF-8 stack trace of the exception it threw,
+ * which is sent as text because the exception itself might not be serializable.
+ */
+public final class Worker {
+    static final String LISTENING = "quickdt worker listening on port ";
+    static final String EXIT_ON_DISCONNECT = "--exit-on-disconnect";
+    static final String BIND = "--bind";
+    static final String MAX_TASK_BYTES = "--max-task-bytes";
+    static final String SECRET_VARIABLE = "QUICKDT_WORKER_SECRET";
+    static final byte OK = 0;
+    static final byte FAILED = 1;
+    static final int CHALLENGE_BYTES = 32;
+
+    private static final Logger logger = LoggerFactory.getLogger(Worker.class);
+    /**
+     * the packages, subpackages included, of the classes a task or its result may be made of
+     */
+    private static final String[] DESERIALIZABLE_PACKAGES = {"quickdt.", "com.google.common."};
+    /**
+     * the JDK packages, subpackages excluded, of the classes a task or its result may be made of
+     */
+    private static final Set<String> DESERIALIZABLE_JDK_PACKAGES = new HashSet<>(Arrays.asList(
+            "java.lang", "java.util", "java.util.concurrent", "java.util.concurrent.atomic"));
+    /**
+     * JDK classes outside of those packages that a task or its result may be made of
+     */
+    private static final Set<String> DESERIALIZABLE_JDK_CLASSES = Collections.singleton(File.class.getName());
+
+    private final WorkerContext context = new WorkerContext();
+    private final SecureRandom random = new SecureRandom();
+    private final String secret;
+    private final int maxTaskBytes;
+
+    private Worker(String secret, int maxTaskBytes) {
+        this.secret = secret;
+        this.maxTaskBytes = maxTaskBytes;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = 0;
+        InetAddress bindAddress = null;
+        int maxTaskBytes = 64 << 20;
+        boolean exitOnDisconnect = false;
+        for (int x = 0; x < args.length; x++) {
+            if (args[x].equals(EXIT_ON_DISCONNECT)) {
+                exitOnDisconnect = true;
+            } else if (args[x].equals(BIND)) {
+                bindAddress = InetAddress.getByName(args[++x]);
+            } else if (args[x].equals(MAX_TASK_BYTES)) {
+                maxTaskBytes = Integer.parseInt(args[++x]);
+            } else {
+                port = Integer.parseInt(args[x]);
+            }
+        }
+        final String secret = System.getenv(SECRET_VARIABLE);
+        if (secret == null || secret.isEmpty()) {
+            System.err.println("Set " + SECRET_VARIABLE + " to the secret shared with the pool");
+            System.exit(1);
+        }
+        final Worker worker = new Worker(secret, maxTaskBytes);
+        try (ServerSocket serverSocket = new ServerSocket(port, 50, bindAddress)) {
+            System.out.println(LISTENING + serverSocket.getLocalPort());
+            System.out.flush();
+            boolean served = false;
+            do {
+                try (Socket socket = serverSocket.accept()) {
+                    served = worker.serve(socket);
+                } catch (IOException e) {
+                    logger.warn("Lost the connection to the pool", e);
+                    served = true;
+                }
+            } while (!(exitOnDisconnect && served));
+        }
+        System.exit(0);
+    }
+
+    /**
+     * @return false if the peer wasn't a pool that knows the secret
+     */
+    private boolean serve(Socket socket) throws IOException {
+        socket.setTcpNoDelay(true);
+        final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        final DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        if (!authenticate(in, out)) {
+            logger.warn("Refused {}, which doesn't know the secret", socket.getRemoteSocketAddress());
+            return false;
+        }
+        logger.info("Serving {}", socket.getRemoteSocketAddress());
+        while (true) {
+            final int length;
+            try {
+                length = in.readInt();
+            } catch (EOFException e) {
+                logger.info("The pool disconnected");
+                return true;
+            }
+            if (length < 0 || length > maxTaskBytes) {
+                throw new IOException("Refused a task of " + length + " bytes, the limit is " + maxTaskBytes);
+            }
+            final byte[] task = new byte[length];
+            in.readFully(task);
+            byte status = OK;
+            byte[] result;
+            try {
+                result = serialize(((Task<?>) deserialize(task)).run(context));
+            } catch (Exception e) {
+                logger.warn("Task failed", e);
+                final StringWriter stackTrace = new StringWriter();
+                e.printStackTrace(new PrintWriter(stackTrace));
+                status = FAILED;
+                result = stackTrace.toString().getBytes(StandardCharsets.UTF_8);
+            }
+            out.writeByte(status);
+            out.writeInt(result.length);
+            out.write(result);
+            out.flush();
+        }
+    }
+
+    private boolean authenticate(DataInputStream in, DataOutputStream out) throws IOException {
+        final byte[] challenge = new byte[CHALLENGE_BYTES];
+        random.nextBytes(challenge);
+        out.write(challenge);
+        out.flush();
+        final byte[] response = new byte[CHALLENGE_BYTES];
+        try {
+            in.readFully(response);
+        } catch (EOFException e) {
+            return false;
+        }
+        if (!MessageDigest.isEqual(respond(secret, challenge), response)) {
+            return false;
+        }
+        out.writeByte(OK);
+        out.flush();
+        return true;
+    }
+
+    /**
+     * @return the answer to a worker's <code>challenge</code> from a pool that knows <code>secret</code>
+     */
+    static byte[] respond(String secret, byte[] challenge) {
+        try {
+            final Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return mac.doFinal(challenge);
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    static byte[] serialize(Object object) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(object);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Reads an object made only of quickdt, Guava and the allowed JDK classes.  This is an allow list in
+     * <code>resolveClass</code> rather than an <code>ObjectInputFilter</code>, which Java 8 doesn't have.
+     */
+    static Object deserialize(byte[] bytes) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes)) {
+            @Override
+            protected Class<?> resolveClass(ObjectStreamClass description) throws IOException, ClassNotFoundException {
+                if (!isDeserializable(description.getName())) {
+                    throw new InvalidClassException(description.getName(), "not allowed in a task or its result");
+                }
+                return super.resolveClass(description);
+            }
+
+            @Override
+            protected Class<?> resolveProxyClass(String[] interfaces) throws IOException, ClassNotFoundException {
+                for (String name : interfaces) {
+                    if (!isDeserializable(name)) {
+                        throw new InvalidClassException(name, "not allowed in a task or its result");
+                    }
+                }
+                return super.resolveProxyClass(interfaces);
+            }
+        }) {
+            return in.readObject();
+        }
+    }
+
+    static boolean isDeserializable(String className) {
+        String name = className;
+        if (name.startsWith("[")) {
+            // arrays are named by their component type, such as [I or [[Ljava.lang.String;
+            name = name.replaceFirst("^\\[+", "");
+            if (!name.startsWith("L")) {
+                return true;
+            }
+            name = name.substring(1, name.length() - 1);
+        }
+        for (String allowedPackage : DESERIALIZABLE_PACKAGES) {
+            if (name.startsWith(allowedPackage)) {
+                return true;
+            }
+        }
+        // java.lang.invoke, java.lang.reflect, java.rmi and java.beans are full of gadgets, so only the classes
+        // directly in a few JDK packages are allowed
+        final int packageEnd = name.lastIndexOf('.');
+        return DESERIALIZABLE_JDK_CLASSES.contains(name)
+                || packageEnd > 0 && DESERIALIZABLE_JDK_PACKAGES.contains(name.substring(0, packageEnd));
+    }}
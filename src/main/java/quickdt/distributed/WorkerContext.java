@@ -0,0 +1,68 @@
+package quickdt.distributed;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import quickdt.data.Instance;
+import quickdt.modelSerialization.BinaryInstanceReader;
+
+/**
+ * What a {@link Task} running in a {@link Worker} can keep between tasks: the datasets it has read, and any state of
+ * its own, such as the rows of a dataset it has been given.  A worker runs one task at a time.
+ */
+public final class WorkerContext {
+    private static final Logger logger = LoggerFactory.getLogger(WorkerContext.class);
+
+    private final Map<String, Dataset> datasets = new HashMap<>();
+    private final Map<String, Object> state = new HashMap<>();
+
+    /**
+     * @param path a file written by {@link quickdt.modelSerialization.BinaryInstanceWriter}
+     * @return the instances in the file, as a list backed by a memory mapping of it that decodes each instance as
+     *         it's asked for (see {@link BinaryInstanceReader#mapList(File)}), and kept until the file is modified or
+     *         {@link #releaseDataset(String)} is called
+     */
+    public List<Instance> getDataset(String path) throws IOException {
+        final File file = new File(path);
+        final long lastModified = file.lastModified();
+        final long length = file.length();
+        Dataset dataset = datasets.get(path);
+        if (dataset == null || dataset.lastModified != lastModified || dataset.length != length) {
+            final long start = System.currentTimeMillis();
+            dataset = new Dataset(BinaryInstanceReader.mapList(file), lastModified, length);
+            datasets.put(path, dataset);
+            logger.info("Mapped {} instances from {} in {} ms", dataset.instances.size(), path,
+                    System.currentTimeMillis() - start);
+        }
+        return dataset.instances;
+    }
+
+    public void releaseDataset(String path) {
+        datasets.remove(path);
+    }
+
+    /**
+     * @return state kept by tasks between runs, by a key of their choosing
+     */
+    public Map<String, Object> getState() {
+        return state;
+    }
+
+    private static final class Dataset {
+        private final List<Instance> instances;
+        private final long lastModified;
+        private final long length;
+
+        private Dataset(List<Instance> instances, long lastModified, long length) {
+            this.instances = instances;
+            this.lastModified = lastModified;
+            this.length = length;
+        }
+    }
+}
@@ -0,0 +1,378 @@
+package quickdt.distributed;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Serializable;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.security.SecureRandom;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Runs {@link Task}s on a set of {@link Worker} processes, each running one task at a time.  Tasks submitted with
+ * {@link #submit(Task)} go to whichever worker is free first, and if a worker dies while running one, the task is run
+ * again on another worker, up to {@link #maxAttempts(int)} times in all.  Tasks submitted with
+ * {@link #submit(int, Task)} run on the given worker, for tasks that depend on state kept by earlier tasks, and fail
+ * if it dies.
+ */
+public final class WorkerPool implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(WorkerPool.class);
+
+    private final String secret;
+    private final List<Connection> connections = new ArrayList<>();
+    private final List<Process> processes = new ArrayList<>();
+    private final Deque<PendingTask<?>> tasks = new ArrayDeque<>();
+    private int liveWorkers;
+    private int maxAttempts = 3;
+    private boolean closed;
+
+    private WorkerPool(String secret) {
+        this.secret = secret;
+    }
+
+    /**
+     * Start <code>workerCount</code> worker processes on this machine, with the classpath of this process.  They only
+     * listen on the loopback interface, and only serve this pool: it passes them a random secret.
+     *
+     * @param jvmArgs arguments for the workers' JVMs, such as <code>-Xmx4g</code>
+     */
+    public static WorkerPool startLocal(int workerCount, String... jvmArgs) throws IOException {
+        Preconditions.checkArgument(workerCount > 0, "A pool needs at least one worker");
+        final byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        final WorkerPool pool = new WorkerPool(Base64.getEncoder().encodeToString(secret));
+        try {
+            final List<InetSocketAddress> addresses = new ArrayList<>();
+            for (int x = 0; x < workerCount; x++) {
+                final List<String> command = new ArrayList<>();
+                command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+                command.addAll(Arrays.asList(jvmArgs));
+                command.addAll(Arrays.asList("-cp", System.getProperty("java.class.path"), Worker.class.getName(), "0",
+                        Worker.BIND, InetAddress.getLoopbackAddress().getHostAddress(), Worker.EXIT_ON_DISCONNECT));
+                // the secret goes in the environment rather than on the command line, which other users can see
+                final ProcessBuilder processBuilder = new ProcessBuilder(command).redirectErrorStream(true);
+                processBuilder.environment().put(Worker.SECRET_VARIABLE, pool.secret);
+                final Process process = processBuilder.start();
+                pool.processes.add(process);
+                addresses.add(new InetSocketAddress(InetAddress.getLoopbackAddress(), readPort(process, x)));
+            }
+            pool.connectTo(addresses);
+        } catch (IOException | RuntimeException e) {
+            pool.close();
+            throw e;
+        }
+        return pool;
+    }
+
+    /**
+     * Connect to workers already running, on this machine or others.
+     *
+     * @param secret the secret the workers were started with, in their <code>QUICKDT_WORKER_SECRET</code> environment
+     *               variable
+     */
+    public static WorkerPool connect(List<InetSocketAddress> addresses, String secret) throws IOException {
+        Preconditions.checkArgument(!addresses.isEmpty(), "A pool needs at least one worker");
+        Preconditions.checkArgument(secret != null && !secret.isEmpty(), "The workers need a secret");
+        final WorkerPool pool = new WorkerPool(secret);
+        try {
+            pool.connectTo(addresses);
+        } catch (IOException | RuntimeException e) {
+            pool.close();
+            throw e;
+        }
+        return pool;
+    }
+
+    /**
+     * Reads the port the worker prints once it's listening, and then passes the rest of its output on to the log.
+     */
+    private static int readPort(Process process, int worker) throws IOException {
+        final BufferedReader reader = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null && !line.startsWith(Worker.LISTENING)) {
+            logger.debug("worker {}: {}", worker, line);
+        }
+        if (line == null) {
+            throw new RuntimeException("Worker " + worker + " exited before it started listening");
+        }
+        final Thread output = new Thread(() -> {
+            try {
+                String outputLine;
+                while ((outputLine = reader.readLine()) != null) {
+                    logger.debug("worker {}: {}", worker, outputLine);
+                }
+            } catch (IOException e) {
+                // the worker has exited
+            }
+        }, "quickdt-worker-" + worker + "-output");
+        output.setDaemon(true);
+        output.start();
+        return Integer.parseInt(line.substring(Worker.LISTENING.length()).trim());
+    }
+
+    private void connectTo(List<InetSocketAddress> addresses) throws IOException {
+        for (InetSocketAddress address : addresses) {
+            connections.add(new Connection(connections.size(), address));
+        }
+        liveWorkers = connections.size();
+        for (Connection connection : connections) {
+            connection.start();
+        }
+    }
+
+    /**
+     * @param maxAttempts the number of workers a task is given to before it fails, if each dies running it (defaults
+     *                    to 3)
+     */
+    public WorkerPool maxAttempts(int maxAttempts) {
+        Preconditions.checkArgument(maxAttempts > 0, "A task needs at least one attempt");
+        this.maxAttempts = maxAttempts;
+        return this;
+    }
+
+    public int size() {
+        return connections.size();
+    }
+
+    public synchronized int getLiveWorkers() {
+        return liveWorkers;
+    }
+
+    /**
+     * Run <code>task</code> on the first worker free.
+     */
+    public <R extends Serializable> Future<R> submit(Task<R> task) {
+        return submit(new PendingTask<>(serialize(task), null));
+    }
+
+    /**
+     * Run <code>task</code> on worker <code>worker</code>, after the tasks already submitted to it.
+     */
+    public <R extends Serializable> Future<R> submit(int worker, Task<R> task) {
+        Preconditions.checkElementIndex(worker, connections.size(), "worker");
+        return submit(new PendingTask<>(serialize(task), connections.get(worker)));
+    }
+
+    private static byte[] serialize(Task<?> task) {
+        try {
+            return Worker.serialize(task);
+        } catch (IOException e) {
+            throw new RuntimeException("Can't serialize " + task, e);
+        }
+    }
+
+    private synchronized <R extends Serializable> Future<R> submit(PendingTask<R> pendingTask) {
+        if (closed) {
+            pendingTask.future.completeExceptionally(new RuntimeException("The pool is closed"));
+        } else if (pendingTask.worker != null && !pendingTask.worker.alive) {
+            pendingTask.future.completeExceptionally(
+                    new RuntimeException("Worker " + pendingTask.worker.index + " has died"));
+        } else if (liveWorkers == 0) {
+            pendingTask.future.completeExceptionally(new RuntimeException("All the workers have died"));
+        } else {
+            tasks.addLast(pendingTask);
+            notifyAll();
+        }
+        return pendingTask.future;
+    }
+
+    /**
+     * @return the next task for <code>connection</code>, waiting until there is one, or null once the pool is closed
+     */
+    private synchronized PendingTask<?> take(Connection connection) throws InterruptedException {
+        while (!closed) {
+            for (PendingTask<?> pendingTask : tasks) {
+                if (pendingTask.worker == null || pendingTask.worker == connection) {
+                    tasks.remove(pendingTask);
+                    return pendingTask;
+                }
+            }
+            wait();
+        }
+        return null;
+    }
+
+    private synchronized void died(Connection connection, PendingTask<?> running, Exception cause) {
+        connection.alive = false;
+        liveWorkers--;
+        if (closed) {
+            running.future.completeExceptionally(new RuntimeException("The pool is closed"));
+            return;
+        }
+        logger.warn("Worker {} at {} died running a task, {} workers left", connection.index, connection.address,
+                liveWorkers, cause);
+        if (running.worker == null && running.attempts < maxAttempts && liveWorkers > 0) {
+            logger.info("Reassigning the task of worker {}", connection.index);
+            tasks.addFirst(running);
+        } else {
+            running.future.completeExceptionally(
+                    new RuntimeException("Worker " + connection.index + " died running the task", cause));
+        }
+        for (PendingTask<?> pendingTask : new ArrayList<>(tasks)) {
+            if (pendingTask.worker == connection || liveWorkers == 0) {
+                tasks.remove(pendingTask);
+                pendingTask.future.completeExceptionally(
+                        new RuntimeException("Worker " + connection.index + " has died"));
+            }
+        }
+        notifyAll();
+    }
+
+    /**
+     * Disconnect from the workers, failing the tasks not run yet, and stop the workers this pool started.
+     */
+    @Override
+    public void close() {
+        final List<PendingTask<?>> notRun;
+        synchronized (this) {
+            closed = true;
+            notRun = new ArrayList<>(tasks);
+            tasks.clear();
+            notifyAll();
+        }
+        for (PendingTask<?> pendingTask : notRun) {
+            pendingTask.future.completeExceptionally(new RuntimeException("The pool is closed"));
+        }
+        for (Connection connection : connections) {
+            connection.close();
+        }
+        for (Process process : processes) {
+            process.destroy();
+        }
+    }
+
+    private static final class PendingTask<R extends Serializable> {
+        private final byte[] task;
+        /**
+         * the worker the task must run on, or null for any
+         */
+        private final Connection worker;
+        private final CompletableFuture<R> future = new CompletableFuture<>();
+        private int attempts;
+
+        private PendingTask(byte[] task, Connection worker) {
+            this.task = task;
+            this.worker = worker;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void complete(byte status, byte[] result, int worker) {
+            if (status == Worker.OK) {
+                try {
+                    future.complete((R) Worker.deserialize(result));
+                } catch (IOException | ClassNotFoundException | RuntimeException e) {
+                    future.completeExceptionally(new RuntimeException("Can't read the result from worker " + worker, e));
+                }
+            } else {
+                future.completeExceptionally(new RuntimeException("Task failed on worker " + worker + ": "
+                        + new String(result, StandardCharsets.UTF_8)));
+            }
+        }
+    }
+
+    /**
+     * The connection to one worker, and the thread sending it tasks.
+     */
+    private final class Connection extends Thread {
+        private final int index;
+        private final InetSocketAddress address;
+        private final Socket socket;
+        private final DataOutputStream out;
+        private final DataInputStream in;
+        private volatile boolean alive = true;
+
+        private Connection(int index, InetSocketAddress address) throws IOException {
+            super("quickdt-worker-" + index);
+            setDaemon(true);
+            this.index = index;
+            this.address = address;
+            socket = new Socket(address.getAddress(), address.getPort());
+            try {
+                socket.setTcpNoDelay(true);
+                out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+                in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                authenticate();
+            } catch (IOException | RuntimeException e) {
+                socket.close();
+                throw e;
+            }
+        }
+
+        /**
+         * Answers the worker's challenge with the secret, see {@link Worker}.
+         */
+        private void authenticate() throws IOException {
+            final byte[] challenge = new byte[Worker.CHALLENGE_BYTES];
+            in.readFully(challenge);
+            out.write(Worker.respond(secret, challenge));
+            out.flush();
+            try {
+                in.readByte();
+            } catch (EOFException e) {
+                throw new IOException("Worker " + index + " at " + address + " refused the secret", e);
+            }
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                final PendingTask<?> pendingTask;
+                try {
+                    pendingTask = take(this);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (pendingTask == null) {
+                    return;
+                }
+                pendingTask.attempts++;
+                final byte status;
+                final byte[] result;
+                try {
+                    out.writeInt(pendingTask.task.length);
+                    out.write(pendingTask.task);
+                    out.flush();
+                    status = in.readByte();
+                    result = new byte[in.readInt()];
+                    in.readFully(result);
+                } catch (IOException e) {
+                    died(this, pendingTask, e);
+                    close();
+                    return;
+                }
+                pendingTask.complete(status, result, index);
+            }
+        }
+
+        private void close() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                logger.debug("Failed to close the connection to worker {}", index, e);
+            }
+        }
+    }
+}
@@ -1,12 +1,14 @@
 package quickdt.inspection;
 
 import com.google.common.base.Function;
+import com.google.common.base.Preconditions;
 import com.google.common.collect.*;
 import com.twitter.common.stats.ReservoirSampler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import quickdt.Misc;
+import quickdt.crossValidation.CrossValLossFunction;
 import quickdt.crossValidation.CrossValidator;
+import quickdt.crossValidation.RMSECrossValLossFunction;
 import quickdt.crossValidation.StationaryCrossValidator;
 import quickdt.data.*;
 import quickdt.predictiveModels.PredictiveModel;
@@ -15,14 +17,39 @@ import quickdt.predictiveModels.decisionTree.TreeBuilder;
 
 import java.io.Serializable;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class AttributeImportanceFinder {
     private static final  Logger logger =  LoggerFactory.getLogger(AttributeImportanceFinder.class);
 
+    private int executorThreadCount = Runtime.getRuntime().availableProcessors();
+    private Long seed = null;
+
     public AttributeImportanceFinder() {
 
     }
 
+    /**
+     * The number of attributes scored concurrently by {@link #determinePermutationImportance}.
+     */
+    public AttributeImportanceFinder executorThreadCount(int executorThreadCount) {
+        Preconditions.checkArgument(executorThreadCount > 0, "executorThreadCount must be positive");
+        this.executorThreadCount = executorThreadCount;
+        return this;
+    }
+
+    /**
+     * Seed the scrambling and permuting of attribute values, so that the same data always gets the same scores.  The
+     * builder should be seeded too.
+     */
+    public AttributeImportanceFinder seed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
     public TreeSet<AttributeScore> determineAttributeImportance(final Iterable<AbstractInstance> trainingData) {
         return determineAttributeImportance(new TreeBuilder(), trainingData);
     }
@@ -34,29 +61,19 @@ public class AttributeImportanceFinder {
 
     public TreeSet<AttributeScore> determineAttributeImportance(CrossValidator crossValidator, PredictiveModelBuilder predictiveModelBuilder, final Iterable<AbstractInstance> trainingData) {
 
-        Set<String> attributes = Sets.newHashSet();
-        for (AbstractInstance instance : trainingData) {
-            attributes.addAll(instance.getAttributes().keySet());
-        }
-
         TreeSet<AttributeScore> scores = Sets.newTreeSet();
 
         LinkedList<AbstractInstance> trainingSet = Lists.newLinkedList();
         LinkedList<AbstractInstance> testingSet = Lists.newLinkedList();
-        for (AbstractInstance instance : trainingData) {
-            if (Math.abs(instance.getAttributes().hashCode()) % 10 == 0) {
-                testingSet.add(instance);
-            } else {
-                trainingSet.add(instance);
-            }
-        }
+        Set<String> attributes = splitTrainingData(trainingData, trainingSet, testingSet);
 
+        final SplittableRandom random = createRandom();
         Map<String, ReservoirSampler<Serializable>> samplesPerAttribute = Maps.newHashMap();
         for (AbstractInstance instance : trainingData) {
             for (Map.Entry<String,Serializable> attributeKeyValue : instance.getAttributes().entrySet()) {
                 ReservoirSampler<Serializable> sampler = samplesPerAttribute.get(attributeKeyValue.getKey());
                 if (sampler == null) {
-                    sampler = new ReservoirSampler<Serializable>(1000);
+                    sampler = new ReservoirSampler<Serializable>(1000, com.twitter.common.util.Random.Util.fromSystemRandom(new Random(random.nextLong())));
                     samplesPerAttribute.put(attributeKeyValue.getKey(), sampler);
                 }
                 sampler.sample(attributeKeyValue.getValue());
@@ -67,7 +84,7 @@ public class AttributeImportanceFinder {
             final ReservoirSampler<Serializable> samplerForAttributeToExclude = samplesPerAttribute.get(attributeToExclude);
             final ArrayList<Serializable> samplesForAttribute = Lists.newArrayList(samplerForAttributeToExclude.getSamples());
             if (samplesForAttribute.size() < 2) continue;
-            Iterable<AbstractInstance> scrambledTestingSet = Lists.newLinkedList(Iterables.transform(testingSet, new AttributeScrambler(attributeToExclude, samplesForAttribute)));
+            Iterable<AbstractInstance> scrambledTestingSet = Lists.newLinkedList(Iterables.transform(testingSet, new AttributeScrambler(attributeToExclude, samplesForAttribute, random.split())));
             double score = crossValidator.getCrossValidatedLoss(predictiveModelBuilder, scrambledTestingSet);
             logger.info("Attribute \""+attributeToExclude+"\" score is "+score);
             scores.add(new AttributeScore(attributeToExclude, score));
@@ -76,21 +93,159 @@ public class AttributeImportanceFinder {
         return scores;
     }
 
+    /**
+     * Permutation importance: trains a single model on the training part of the data, and then scores each attribute by the
+     * loss of that model on the held out part with the attribute's values permuted between instances.  The more the model
+     * relies on an attribute the higher its score.  Attributes are scored in parallel, so the cost is one training and a
+     * scoring pass per attribute.
+     */
+    public TreeSet<AttributeScore> determinePermutationImportance(PredictiveModelBuilder<? extends PredictiveModel> predictiveModelBuilder, final Iterable<AbstractInstance> trainingData) {
+        return determinePermutationImportance(predictiveModelBuilder, trainingData, new RMSECrossValLossFunction());
+    }
+
+    public TreeSet<AttributeScore> determinePermutationImportance(PredictiveModelBuilder<? extends PredictiveModel> predictiveModelBuilder, final Iterable<AbstractInstance> trainingData, final CrossValLossFunction lossFunction) {
+        final List<AbstractInstance> trainingSet = Lists.newArrayList();
+        final List<AbstractInstance> testingSet = Lists.newArrayList();
+        final Set<String> attributes = splitTrainingData(trainingData, trainingSet, testingSet);
+        Preconditions.checkArgument(!testingSet.isEmpty(), "Not enough data to hold out a testing set");
+
+        final PredictiveModel predictiveModel = predictiveModelBuilder.buildPredictiveModel(trainingSet);
+        logger.info("Loss without permutation is " + lossFunction.getLoss(testingSet, predictiveModel));
+
+        final ExecutorService executorService = Executors.newFixedThreadPool(executorThreadCount);
+        try {
+            final SplittableRandom random = createRandom();
+            final Map<String, Future<Double>> futures = Maps.newHashMap();
+            for (final String attribute : attributes) {
+                // split on this thread so that the permutations don't depend on the order the tasks run in, but permute
+                // in the task so that only the columns being scored are held in memory
+                final SplittableRandom attributeRandom = random.split();
+                futures.put(attribute, executorService.submit(() -> lossFunction.getLoss(
+                        permuteColumn(testingSet, attribute, attributeRandom), predictiveModel)));
+            }
+
+            final TreeSet<AttributeScore> scores = Sets.newTreeSet();
+            for (Map.Entry<String, Future<Double>> future : futures.entrySet()) {
+                final double score = future.getValue().get();
+                logger.info("Attribute \""+future.getKey()+"\" score is "+score);
+                scores.add(new AttributeScore(future.getKey(), score));
+            }
+            return scores;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    private SplittableRandom createRandom() {
+        return seed != null ? new SplittableRandom(seed) : new SplittableRandom();
+    }
+
+    /**
+     * Puts a tenth of the data, chosen by the hash of its attributes, in the testing set.
+     *
+     * @return the names of all of the attributes in the data
+     */
+    private static Set<String> splitTrainingData(final Iterable<AbstractInstance> trainingData, List<AbstractInstance> trainingSet, List<AbstractInstance> testingSet) {
+        Set<String> attributes = Sets.newHashSet();
+        for (AbstractInstance instance : trainingData) {
+            attributes.addAll(instance.getAttributes().keySet());
+            if (Math.abs(instance.getAttributes().hashCode()) % 10 == 0) {
+                testingSet.add(instance);
+            } else {
+                trainingSet.add(instance);
+            }
+        }
+        return attributes;
+    }
+
+    /**
+     * @return a copy of the testing set in which one attribute takes its value from a permutation of the values of the
+     * instances, without copying any of the instances' other attributes
+     */
+    private static List<AbstractInstance> permuteColumn(List<AbstractInstance> instances, String attribute, SplittableRandom random) {
+        final Serializable[] column = new Serializable[instances.size()];
+        for (int x = 0; x < column.length; x++) {
+            column[x] = instances.get(x).getAttributes().get(attribute);
+        }
+        for (int x = column.length - 1; x > 0; x--) {
+            final int swapWith = random.nextInt(x + 1);
+            final Serializable value = column[x];
+            column[x] = column[swapWith];
+            column[swapWith] = value;
+        }
+        final List<AbstractInstance> permuted = new ArrayList<>(column.length);
+        for (int x = 0; x < column.length; x++) {
+            final AbstractInstance instance = instances.get(x);
+            permuted.add(new Instance(new ReplacedAttributes(instance.getAttributes(), attribute, column[x]), instance.getClassification(), instance.getWeight()));
+        }
+        return permuted;
+    }
+
+    private static class ReplacedAttributes extends AbstractMap<String, Serializable> implements Attributes {
+        private final Attributes attributes;
+        private final String attribute;
+        private final Serializable value;
+
+        private ReplacedAttributes(Attributes attributes, String attribute, Serializable value) {
+            this.attributes = attributes;
+            this.attribute = attribute;
+            this.value = value;
+        }
+
+        @Override
+        public Serializable get(final Object key) {
+            return attribute.equals(key) ? value : attributes.get(key);
+        }
+
+        @Override
+        public boolean containsKey(final Object key) {
+            return attribute.equals(key) ? value != null : attributes.containsKey(key);
+        }
+
+        @Override
+        public Set<Entry<String, Serializable>> entrySet() {
+            final Set<Entry<String, Serializable>> otherEntries = Sets.filter(attributes.entrySet(), entry -> !attribute.equals(entry.getKey()));
+            if (value == null) {
+                return Collections.unmodifiableSet(otherEntries);
+            }
+            return Collections.unmodifiableSet(Sets.union(otherEntries, Collections.<Entry<String, Serializable>>singleton(new SimpleImmutableEntry<>(attribute, value))));
+        }
+
+        @Override
+        public Instance classification(final Serializable cls) {
+            return new Instance(this, cls);
+        }
+    }
+
     public static class AttributeScrambler implements Function<AbstractInstance, AbstractInstance> {
 
         public AttributeScrambler(final String attributeToExclude, ArrayList<Serializable> attributeValueSamples) {
+            this(attributeToExclude, attributeValueSamples, new SplittableRandom());
+        }
+
+        /**
+         * @param random chooses the values, so a scrambler must only be used by one thread
+         */
+        public AttributeScrambler(final String attributeToExclude, ArrayList<Serializable> attributeValueSamples, SplittableRandom random) {
             this.attributeToExclude = attributeToExclude;
             this.attributeValueSamples = attributeValueSamples;
+            this.random = random;
         }
 
         private final String attributeToExclude;
         private final ArrayList<Serializable> attributeValueSamples;
+        private final SplittableRandom random;
 
         @Override
         public AbstractInstance apply(final AbstractInstance instance) {
             Attributes randomizedAttributes = new HashMapAttributes();
             randomizedAttributes.putAll(instance.getAttributes());
-            final Serializable randomValue = attributeValueSamples.get(Misc.random.nextInt(attributeValueSamples.size()));
+            final Serializable randomValue = attributeValueSamples.get(random.nextInt(attributeValueSamples.size()));
             randomizedAttributes.put(attributeToExclude, randomValue);
             return new Instance(randomizedAttributes, instance.getClassification());
         }
@@ -14,7 +14,9 @@ public class AttributeScore implements Comparable<AttributeScore> {
 
     @Override
     public int compareTo(final AttributeScore o) {
-        return Double.compare(score, o.score);
+        final int scoreComparison = Double.compare(score, o.score);
+        // attributes with the same score mustn't be treated as duplicates in a TreeSet
+        return scoreComparison != 0 ? scoreComparison : attribute.compareTo(o.attribute);
     }
 
     public String getAttribute() {
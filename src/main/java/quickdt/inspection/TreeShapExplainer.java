@@ -0,0 +1,267 @@
+package quickdt.inspection;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import quickdt.data.Attributes;
+import quickdt.predictiveModels.decisionTree.tree.Branch;
+import quickdt.predictiveModels.decisionTree.tree.Leaf;
+import quickdt.predictiveModels.decisionTree.tree.Node;
+import quickdt.predictiveModels.decisionTree.tree.Tree;
+import quickdt.predictiveModels.randomForest.RandomForest;
+
+import java.io.Serializable;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Exact path-dependent TreeSHAP (Lundberg et al., "Consistent Individualized Feature Attribution for Tree Ensembles")
+ * for a {@link Tree} or {@link RandomForest}.  Explains the probability the model gives a classification as the sum of
+ * its expected value over the training data and a contribution per attribute, using the number of training examples
+ * that reached each node as the background distribution.  An explanation costs O(trees x leaves x depth^2) rather than
+ * the many model evaluations needed to estimate it by perturbing attributes.
+ */
+public class TreeShapExplainer {
+    private final List<Tree> trees;
+    private final List<Map<Node, Double>> coversPerTree = Lists.newArrayList();
+    private final Map<String, Integer> attributeIndexes = new LinkedHashMap<>();
+    private int executorThreadCount = Runtime.getRuntime().availableProcessors();
+
+    public TreeShapExplainer(Tree tree) {
+        this(Collections.singletonList(tree));
+    }
+
+    public TreeShapExplainer(RandomForest randomForest) {
+        this(randomForest.trees);
+    }
+
+    public TreeShapExplainer(List<Tree> trees) {
+        Preconditions.checkArgument(!trees.isEmpty(), "Need at least one tree to explain");
+        this.trees = trees;
+        for (Tree tree : trees) {
+            final Map<Node, Double> covers = new IdentityHashMap<>();
+            calculateCovers(tree.node, covers);
+            coversPerTree.add(covers);
+        }
+    }
+
+    /**
+     * The number of rows explained concurrently by {@link #explain(List, Serializable)}.
+     */
+    public TreeShapExplainer executorThreadCount(int executorThreadCount) {
+        Preconditions.checkArgument(executorThreadCount > 0, "executorThreadCount must be positive");
+        this.executorThreadCount = executorThreadCount;
+        return this;
+    }
+
+    /**
+     * @return the mean probability of the classification over the training data, which the contributions of
+     * {@link #explain(Attributes, Serializable)} are relative to
+     */
+    public double getExpectedValue(Serializable classification) {
+        double total = 0;
+        for (int treeIndex = 0; treeIndex < trees.size(); treeIndex++) {
+            final Map<Node, Double> covers = coversPerTree.get(treeIndex);
+            final Node root = trees.get(treeIndex).node;
+            for (Leaf leaf : root.collectLeaves()) {
+                total += leaf.getProbability(classification) * covers.get(leaf) / covers.get(root);
+            }
+        }
+        return total / trees.size();
+    }
+
+    /**
+     * @return the contribution of each attribute the model splits on to the probability of <code>classification</code>
+     * for <code>attributes</code>.  The contributions sum to the model's probability less the
+     * {@link #getExpectedValue(Serializable) expected value}.
+     */
+    public Map<String, Double> explain(Attributes attributes, Serializable classification) {
+        final double[] contributions = new double[attributeIndexes.size()];
+        for (int treeIndex = 0; treeIndex < trees.size(); treeIndex++) {
+            new PathExplainer(attributes, classification, coversPerTree.get(treeIndex), contributions)
+                    .recurse(trees.get(treeIndex).node, Path.EMPTY, 0, 1, 1, -1);
+        }
+        final Map<String, Double> contributionsByAttribute = new LinkedHashMap<>();
+        for (Map.Entry<String, Integer> attributeIndex : attributeIndexes.entrySet()) {
+            contributionsByAttribute.put(attributeIndex.getKey(), contributions[attributeIndex.getValue()] / trees.size());
+        }
+        return contributionsByAttribute;
+    }
+
+    /**
+     * Explains each of the rows, in parallel.
+     */
+    public List<Map<String, Double>> explain(List<? extends Attributes> rows, final Serializable classification) {
+        final ExecutorService executorService = Executors.newFixedThreadPool(executorThreadCount);
+        try {
+            final List<Future<Map<String, Double>>> futures = Lists.newArrayListWithCapacity(rows.size());
+            for (final Attributes row : rows) {
+                futures.add(executorService.submit(() -> explain(row, classification)));
+            }
+            final List<Map<String, Double>> explanations = Lists.newArrayListWithCapacity(rows.size());
+            for (Future<Map<String, Double>> future : futures) {
+                explanations.add(future.get());
+            }
+            return explanations;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    private double calculateCovers(Node node, Map<Node, Double> covers) {
+        final double cover;
+        if (node instanceof Leaf) {
+            cover = ((Leaf) node).exampleCount;
+        } else {
+            final Branch branch = (Branch) node;
+            if (!attributeIndexes.containsKey(branch.attribute)) {
+                attributeIndexes.put(branch.attribute, attributeIndexes.size());
+            }
+            cover = calculateCovers(branch.trueChild, covers) + calculateCovers(branch.falseChild, covers);
+        }
+        covers.put(node, cover);
+        return cover;
+    }
+
+    /**
+     * The unique attributes split on from the root to a node.  For each the fraction of the training data that
+     * followed the path (zero fraction), whether the explained row follows it (one fraction), and the proportion of
+     * attribute subsets of each size that the path's weight is spread over.
+     */
+    private static final class Path {
+        private static final Path EMPTY = new Path(0);
+
+        private final int[] attributes;
+        private final double[] zeroFractions;
+        private final double[] oneFractions;
+        private final double[] weights;
+
+        private Path(int length) {
+            attributes = new int[length];
+            zeroFractions = new double[length];
+            oneFractions = new double[length];
+            weights = new double[length];
+        }
+
+        /**
+         * @return a copy of the first <code>uniqueDepth</code> elements of this path extended by the given attribute
+         */
+        private Path extend(int uniqueDepth, double zeroFraction, double oneFraction, int attribute) {
+            final Path path = new Path(uniqueDepth + 1);
+            System.arraycopy(attributes, 0, path.attributes, 0, uniqueDepth);
+            System.arraycopy(zeroFractions, 0, path.zeroFractions, 0, uniqueDepth);
+            System.arraycopy(oneFractions, 0, path.oneFractions, 0, uniqueDepth);
+            System.arraycopy(weights, 0, path.weights, 0, uniqueDepth);
+            path.attributes[uniqueDepth] = attribute;
+            path.zeroFractions[uniqueDepth] = zeroFraction;
+            path.oneFractions[uniqueDepth] = oneFraction;
+            path.weights[uniqueDepth] = uniqueDepth == 0 ? 1 : 0;
+            for (int i = uniqueDepth - 1; i >= 0; i--) {
+                path.weights[i + 1] += oneFraction * path.weights[i] * (i + 1) / (uniqueDepth + 1);
+                path.weights[i] = zeroFraction * path.weights[i] * (uniqueDepth - i) / (uniqueDepth + 1);
+            }
+            return path;
+        }
+
+        /**
+         * Undoes the extension by the attribute at <code>pathIndex</code>, in place.
+         */
+        private void unwind(int uniqueDepth, int pathIndex) {
+            final double oneFraction = oneFractions[pathIndex];
+            final double zeroFraction = zeroFractions[pathIndex];
+            double nextOnePortion = weights[uniqueDepth];
+            for (int i = uniqueDepth - 1; i >= 0; i--) {
+                if (oneFraction != 0) {
+                    final double weight = weights[i];
+                    weights[i] = nextOnePortion * (uniqueDepth + 1) / ((i + 1) * oneFraction);
+                    nextOnePortion = weight - weights[i] * zeroFraction * (uniqueDepth - i) / (uniqueDepth + 1);
+                } else {
+                    weights[i] = weights[i] * (uniqueDepth + 1) / (zeroFraction * (uniqueDepth - i));
+                }
+            }
+            for (int i = pathIndex; i < uniqueDepth; i++) {
+                attributes[i] = attributes[i + 1];
+                zeroFractions[i] = zeroFractions[i + 1];
+                oneFractions[i] = oneFractions[i + 1];
+            }
+        }
+
+        /**
+         * @return the total weight the path would have if the attribute at <code>pathIndex</code> were unwound
+         */
+        private double unwoundSum(int uniqueDepth, int pathIndex) {
+            final double oneFraction = oneFractions[pathIndex];
+            final double zeroFraction = zeroFractions[pathIndex];
+            double nextOnePortion = weights[uniqueDepth];
+            double total = 0;
+            for (int i = uniqueDepth - 1; i >= 0; i--) {
+                if (oneFraction != 0) {
+                    final double weight = nextOnePortion * (uniqueDepth + 1) / ((i + 1) * oneFraction);
+                    total += weight;
+                    nextOnePortion = weights[i] - weight * zeroFraction * (uniqueDepth - i) / (uniqueDepth + 1);
+                } else {
+                    total += weights[i] * (uniqueDepth + 1) / (zeroFraction * (uniqueDepth - i));
+                }
+            }
+            return total;
+        }
+    }
+
+    private final class PathExplainer {
+        private final Attributes attributes;
+        private final Serializable classification;
+        private final Map<Node, Double> covers;
+        private final double[] contributions;
+
+        private PathExplainer(Attributes attributes, Serializable classification, Map<Node, Double> covers, double[] contributions) {
+            this.attributes = attributes;
+            this.classification = classification;
+            this.covers = covers;
+            this.contributions = contributions;
+        }
+
+        private void recurse(Node node, Path parentPath, int uniqueDepth, double parentZeroFraction, double parentOneFraction, int parentAttribute) {
+            final Path path = parentPath.extend(uniqueDepth, parentZeroFraction, parentOneFraction, parentAttribute);
+            if (node instanceof Leaf) {
+                final double value = ((Leaf) node).getProbability(classification);
+                for (int i = 1; i <= uniqueDepth; i++) {
+                    final double weight = path.unwoundSum(uniqueDepth, i);
+                    contributions[path.attributes[i]] += weight * (path.oneFractions[i] - path.zeroFractions[i]) * value;
+                }
+                return;
+            }
+
+            final Branch branch = (Branch) node;
+            final int attribute = attributeIndexes.get(branch.attribute);
+            final boolean followsTrueChild = branch.decide(attributes);
+            final Node hotChild = followsTrueChild ? branch.trueChild : branch.falseChild;
+            final Node coldChild = followsTrueChild ? branch.falseChild : branch.trueChild;
+
+            // an attribute split on again further down the path is only counted once
+            double incomingZeroFraction = 1;
+            double incomingOneFraction = 1;
+            int pathIndex = 0;
+            while (pathIndex <= uniqueDepth && path.attributes[pathIndex] != attribute) {
+                pathIndex++;
+            }
+            int childUniqueDepth = uniqueDepth + 1;
+            if (pathIndex <= uniqueDepth) {
+                incomingZeroFraction = path.zeroFractions[pathIndex];
+                incomingOneFraction = path.oneFractions[pathIndex];
+                path.unwind(uniqueDepth, pathIndex);
+                childUniqueDepth--;
+            }
+
+            final double cover = covers.get(node);
+            recurse(hotChild, path, childUniqueDepth, incomingZeroFraction * covers.get(hotChild) / cover, incomingOneFraction, attribute);
+            recurse(coldChild, path, childUniqueDepth, incomingZeroFraction * covers.get(coldChild) / cover, 0, attribute);
+        }
+    }
+}
@@ -0,0 +1,347 @@
+package quickdt.modelSerialization;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+import com.google.common.base.Preconditions;
+import com.google.common.primitives.Ints;
+
+import quickdt.data.HashMapAttributes;
+import quickdt.data.Instance;
+
+import static quickdt.modelSerialization.BinaryInstanceWriter.*;
+
+/**
+ * Streams instances from a file written by {@link BinaryInstanceWriter}, holding one record in memory at a time, so
+ * that files of any size can be used as training data.  The reader closes its stream once the last instance has been
+ * read.
+ */
+public final class BinaryInstanceReader implements Iterator<Instance>, Closeable {
+    private final DataInputStream in;
+    private final List<String> names = new ArrayList<>();
+    private byte[] record = new byte[256];
+    private Instance next;
+    private boolean finished;
+    /**
+     * The bytes of records left to read before the end of the range being read, if any
+     */
+    private long remaining = Long.MAX_VALUE;
+
+    public BinaryInstanceReader(InputStream in) throws IOException {
+        this.in = new DataInputStream(in);
+        checkHeader(this.in.readInt(), this.in.readInt());
+    }
+
+    /**
+     * @param in positioned at the start of <code>range</code>
+     */
+    private BinaryInstanceReader(InputStream in, Range range) {
+        this.in = new DataInputStream(in);
+        names.addAll(range.names);
+        remaining = range.end - range.start;
+    }
+
+    private static void checkHeader(int magic, int version) {
+        if (magic != MAGIC) {
+            throw new RuntimeException("Not a binary instance file, starts with " + Integer.toHexString(magic));
+        }
+        if (version != VERSION) {
+            throw new RuntimeException("Unsupported binary instance file version " + version);
+        }
+    }
+
+    /**
+     * @return the instances in the file, read again each time they're iterated over, as a tree builder does many times
+     */
+    public static Iterable<Instance> read(final File file) {
+        return () -> {
+            try {
+                return new BinaryInstanceReader(new BufferedInputStream(new FileInputStream(file), 1 << 16));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    /**
+     * Like {@link #read(File)}, but reads the file through a memory mapping, so that processes on the same machine
+     * reading the same file share one copy of it in the page cache.  Files must be smaller than 2GB.
+     */
+    public static Iterable<Instance> map(final File file) throws IOException {
+        final MappedByteBuffer buffer = mapFile(file);
+        return () -> {
+            try {
+                return new BinaryInstanceReader(new ByteBufferInputStream(buffer.duplicate()));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    /**
+     * Like {@link #map(File)}, but as a list that decodes an instance from the mapping each time it's asked for, so
+     * that of the file only the offsets of its records are kept on the heap.  The file is read through once, without
+     * decoding its values, to find them.
+     */
+    public static List<Instance> mapList(final File file) throws IOException {
+        return new MappedInstanceList(mapFile(file));
+    }
+
+    /**
+     * Divides the records of the file into <code>count</code> ranges of about the same number of bytes, for each range
+     * to be read on its own by {@link #read(File, Range)}.  The file is read through once, without decoding its values,
+     * to find the records the ranges start at and the attribute names written before them.  Files of fewer records
+     * than <code>count</code> are divided into as many ranges as they have records, followed by empty ones.
+     */
+    public static List<Range> split(File file, int count) throws IOException {
+        Preconditions.checkArgument(count > 0, "count must be positive");
+        final long size = file.length();
+        final List<Range> ranges = new ArrayList<>(count);
+        final List<String> names = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16))) {
+            checkHeader(in.readInt(), in.readInt());
+            long offset = 8;
+            long start = offset;
+            List<String> namesBefore = new ArrayList<>();
+            byte[] record = new byte[256];
+            for (int length = in.readInt(); length != END; length = in.readInt()) {
+                if (ranges.size() < count - 1 && offset > start && offset >= size * (ranges.size() + 1) / count) {
+                    ranges.add(new Range(start, offset, namesBefore));
+                    start = offset;
+                    namesBefore = new ArrayList<>(names);
+                }
+                if (length > record.length) {
+                    record = new byte[Math.max(length, record.length * 2)];
+                }
+                in.readFully(record, 0, length);
+                final ByteBuffer buffer = ByteBuffer.wrap(record, 0, length);
+                final int attributeCount = buffer.getInt();
+                for (int x = 0; x < attributeCount; x++) {
+                    if (buffer.getInt() == names.size()) {
+                        names.add((String) ValueCodec.read(buffer));
+                    }
+                    ValueCodec.skip(buffer);
+                }
+                offset += 4 + length;
+            }
+            ranges.add(new Range(start, offset, namesBefore));
+            while (ranges.size() < count) {
+                ranges.add(new Range(offset, offset, names));
+            }
+        }
+        return ranges;
+    }
+
+    /**
+     * @return the instances in <code>range</code> of the file, read again each time they're iterated over
+     */
+    public static Iterable<Instance> read(final File file, final Range range) {
+        return () -> {
+            try {
+                final FileInputStream in = new FileInputStream(file);
+                try {
+                    in.getChannel().position(range.start);
+                } catch (IOException e) {
+                    in.close();
+                    throw e;
+                }
+                return new BinaryInstanceReader(new BufferedInputStream(in, 1 << 16), range);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    private static MappedByteBuffer mapFile(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new RuntimeException(file + " is too large to map, at " + channel.size() + " bytes");
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            next = readInstance();
+        }
+        return next != null;
+    }
+
+    @Override
+    public Instance next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        final Instance instance = next;
+        next = null;
+        return instance;
+    }
+
+    private Instance readInstance() {
+        if (finished) {
+            return null;
+        }
+        try {
+            final int length = remaining > 0 ? in.readInt() : END;
+            if (length == END) {
+                finished = true;
+                close();
+                return null;
+            }
+            if (length > record.length) {
+                record = new byte[Math.max(length, record.length * 2)];
+            }
+            in.readFully(record, 0, length);
+            remaining -= 4 + length;
+            final ByteBuffer buffer = ByteBuffer.wrap(record, 0, length);
+            final int attributeCount = buffer.getInt();
+            final HashMapAttributes attributes = new HashMapAttributes();
+            for (int x = 0; x < attributeCount; x++) {
+                final int nameIndex = buffer.getInt();
+                if (nameIndex == names.size()) {
+                    names.add((String) ValueCodec.read(buffer));
+                }
+                attributes.put(names.get(nameIndex), ValueCodec.read(buffer));
+            }
+            final Serializable classification = ValueCodec.read(buffer);
+            return new Instance(attributes, classification, buffer.getDouble());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * A run of consecutive records of a file, from the byte offset <code>start</code> to <code>end</code>, and the
+     * attribute names written before it, which its records use without writing them again.
+     */
+    public static final class Range implements Serializable {
+        private static final long serialVersionUID = 6054218410352961873L;
+
+        private final long start;
+        private final long end;
+        private final ArrayList<String> names;
+
+        private Range(long start, long end, List<String> names) {
+            this.start = start;
+            this.end = end;
+            this.names = new ArrayList<>(names);
+        }
+
+        public long getStart() {
+            return start;
+        }
+
+        public long getEnd() {
+            return end;
+        }
+    }
+
+    private static final class MappedInstanceList extends AbstractList<Instance> implements RandomAccess {
+        private final ByteBuffer buffer;
+        private final int[] offsets;
+        private final List<String> names = new ArrayList<>();
+        /**
+         * The record each name is first used in, and written in after its index
+         */
+        private final int[] nameRecords;
+
+        private MappedInstanceList(ByteBuffer buffer) {
+            this.buffer = buffer;
+            final ByteBuffer in = buffer.duplicate();
+            checkHeader(in.getInt(), in.getInt());
+            int[] offsets = new int[1024];
+            int count = 0;
+            final List<Integer> nameRecords = new ArrayList<>();
+            for (int length = in.getInt(); length != END; length = in.getInt()) {
+                if (count == offsets.length) {
+                    offsets = Arrays.copyOf(offsets, count * 2);
+                }
+                offsets[count] = in.position();
+                final int next = in.position() + length;
+                final int attributeCount = in.getInt();
+                for (int x = 0; x < attributeCount; x++) {
+                    if (in.getInt() == names.size()) {
+                        names.add((String) ValueCodec.read(in));
+                        nameRecords.add(count);
+                    }
+                    ValueCodec.skip(in);
+                }
+                in.position(next);
+                count++;
+            }
+            this.offsets = Arrays.copyOf(offsets, count);
+            this.nameRecords = Ints.toArray(nameRecords);
+        }
+
+        @Override
+        public Instance get(int index) {
+            Preconditions.checkElementIndex(index, offsets.length);
+            final ByteBuffer in = buffer.duplicate();
+            in.position(offsets[index]);
+            final int attributeCount = in.getInt();
+            final HashMapAttributes attributes = new HashMapAttributes();
+            for (int x = 0; x < attributeCount; x++) {
+                final int nameIndex = in.getInt();
+                if (nameRecords[nameIndex] == index) {
+                    ValueCodec.skip(in);
+                }
+                attributes.put(names.get(nameIndex), ValueCodec.read(in));
+            }
+            final Serializable classification = ValueCodec.read(in);
+            return new Instance(attributes, classification, in.getDouble());
+        }
+
+        @Override
+        public int size() {
+            return offsets.length;
+        }
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            final int read = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, read);
+            return read;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package quickdt.modelSerialization;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+import quickdt.data.AbstractInstance;
+
+/**
+ * Streams instances to a compact binary file, to be read back with {@link BinaryInstanceReader}.  The file is
+ * <code>MAGIC</code> and <code>VERSION</code> ints followed by one record per instance, each an int length and then
+ * the attribute count, each attribute's name index and {@link ValueCodec value}, the classification and the weight.
+ * Attribute names are numbered in the order they first appear, a name being written after its index the first time
+ * it's used.  The file ends with a length of -1, written by {@link #close()}.
+ */
+public final class BinaryInstanceWriter implements Closeable {
+    static final int MAGIC = 0x51445449;
+    static final int VERSION = 1;
+    static final int END = -1;
+
+    private final DataOutputStream out;
+    private final Map<String, Integer> names = new HashMap<>();
+    private final ByteArrayOutputStream record = new ByteArrayOutputStream();
+    private final DataOutputStream recordOut = new DataOutputStream(record);
+
+    public BinaryInstanceWriter(File file) throws IOException {
+        this(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+    }
+
+    public BinaryInstanceWriter(OutputStream out) throws IOException {
+        this.out = new DataOutputStream(out);
+        this.out.writeInt(MAGIC);
+        this.out.writeInt(VERSION);
+    }
+
+    public BinaryInstanceWriter write(AbstractInstance instance) throws IOException {
+        record.reset();
+        recordOut.writeInt(instance.getAttributes().size());
+        for (Map.Entry<String, Serializable> attribute : instance.getAttributes().entrySet()) {
+            final Integer index = names.get(attribute.getKey());
+            if (index == null) {
+                recordOut.writeInt(names.size());
+                ValueCodec.write(recordOut, attribute.getKey());
+                names.put(attribute.getKey(), names.size());
+            } else {
+                recordOut.writeInt(index);
+            }
+            ValueCodec.write(recordOut, attribute.getValue());
+        }
+        ValueCodec.write(recordOut, instance.getClassification());
+        recordOut.writeDouble(instance.getWeight());
+        out.writeInt(record.size());
+        record.writeTo(out);
+        return this;
+    }
+
+    public BinaryInstanceWriter writeAll(Iterable<? extends AbstractInstance> instances) throws IOException {
+        for (AbstractInstance instance : instances) {
+            write(instance);
+        }
+        return this;
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.writeInt(END);
+        out.close();
+    }
+}
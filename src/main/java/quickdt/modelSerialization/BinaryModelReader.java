@@ -0,0 +1,208 @@
+package quickdt.modelSerialization;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.io.ByteStreams;
+
+import quickdt.predictiveModels.PredictiveModel;
+import quickdt.predictiveModels.calibratedPredictiveModel.CalibratedPredictiveModel;
+import quickdt.predictiveModels.calibratedPredictiveModel.Calibrator;
+import quickdt.predictiveModels.decisionTree.tree.Branch;
+import quickdt.predictiveModels.decisionTree.tree.CategoricalBranch;
+import quickdt.predictiveModels.decisionTree.tree.ClassCounter;
+import quickdt.predictiveModels.decisionTree.tree.Leaf;
+import quickdt.predictiveModels.decisionTree.tree.Node;
+import quickdt.predictiveModels.decisionTree.tree.NumericBranch;
+import quickdt.predictiveModels.decisionTree.tree.Tree;
+import quickdt.predictiveModels.downsamplingPredictiveModel.DownsamplingPredictiveModel;
+import quickdt.predictiveModels.featureEngineering.AttributesEnricher;
+import quickdt.predictiveModels.featureEngineering.FeatureEngineeredPredictiveModel;
+import quickdt.predictiveModels.randomForest.RandomForest;
+import quickdt.predictiveModels.splitOnAttributePredictiveModel.SplitOnAttributePM;
+import quickdt.predictiveModels.temporallyWeightPredictiveModel.TemporallyReweightedPM;
+
+import static quickdt.modelSerialization.ModelFormat.*;
+
+/**
+ * Reads predictive models written by {@link BinaryModelWriter} back onto the heap.  See {@link MappedModelLoader} to
+ * score directly against a mapped file instead.
+ */
+public class BinaryModelReader {
+    final ByteBuffer in;
+    final Serializable[] dictionary;
+
+    BinaryModelReader(ByteBuffer in, Serializable[] dictionary) {
+        this.in = in;
+        this.dictionary = dictionary;
+    }
+
+    public static PredictiveModel read(File file) throws IOException {
+        return read(Files.readAllBytes(file.toPath()));
+    }
+
+    public static PredictiveModel read(InputStream in) throws IOException {
+        return read(ByteStreams.toByteArray(in));
+    }
+
+    public static PredictiveModel read(byte[] bytes) {
+        return read(ByteBuffer.wrap(bytes));
+    }
+
+    public static PredictiveModel read(ByteBuffer in) {
+        final ByteBuffer buffer = in.slice();
+        return new BinaryModelReader(buffer, readHeader(buffer)).readModel();
+    }
+
+    /**
+     * Checks the magic number and version, leaving the buffer positioned at the first model.
+     *
+     * @return the dictionary
+     */
+    static Serializable[] readHeader(ByteBuffer in) {
+        if (in.remaining() < 10 || in.getInt() != MAGIC) {
+            throw new RuntimeException("Not a binary model");
+        }
+        final short version = in.getShort();
+        if (version != VERSION) {
+            throw new RuntimeException("Unsupported binary model version " + version + ", expected " + VERSION);
+        }
+        final Serializable[] dictionary = new Serializable[in.getInt()];
+        for (int x = 0; x < dictionary.length; x++) {
+            dictionary[x] = ValueCodec.read(in);
+        }
+        return dictionary;
+    }
+
+    PredictiveModel readModel() {
+        final byte tag = in.get();
+        final int length = in.getInt();
+        final int end = in.position() + length;
+        final PredictiveModel predictiveModel;
+        switch (tag) {
+            case TREE:
+                predictiveModel = readTree(end);
+                break;
+            case RANDOM_FOREST:
+                predictiveModel = readRandomForest(end);
+                break;
+            case CALIBRATED:
+                final Serializable positiveClassification = dictionary[in.getInt()];
+                final Calibrator calibrator = (Calibrator) ValueCodec.deserialize(in, in.getInt());
+                predictiveModel = new CalibratedPredictiveModel(readModel(), calibrator, positiveClassification);
+                break;
+            case SPLIT_ON_ATTRIBUTE:
+                final String attributeKey = (String) dictionary[in.getInt()];
+                final int segmentCount = in.getInt();
+                final Map<Serializable, PredictiveModel> splitModels = new LinkedHashMap<>();
+                for (int x = 0; x < segmentCount; x++) {
+                    final Serializable value = dictionary[in.getInt()];
+                    splitModels.put(value, readSegment());
+                }
+                predictiveModel = new SplitOnAttributePM(attributeKey, splitModels, readSegment());
+                break;
+            case FEATURE_ENGINEERED:
+                @SuppressWarnings("unchecked")
+                final List<AttributesEnricher> enrichers = (List<AttributesEnricher>) ValueCodec.deserialize(in, in.getInt());
+                predictiveModel = new FeatureEngineeredPredictiveModel(readModel(), enrichers);
+                break;
+            case DOWNSAMPLING:
+                final Serializable majority = dictionary[in.getInt()];
+                final Serializable minority = dictionary[in.getInt()];
+                final double dropProbability = in.getDouble();
+                predictiveModel = new DownsamplingPredictiveModel(readModel(), majority, minority, dropProbability);
+                break;
+            case TEMPORALLY_REWEIGHTED:
+                predictiveModel = new TemporallyReweightedPM(readModel());
+                break;
+            case SERIALIZED:
+                predictiveModel = (PredictiveModel) ValueCodec.deserialize(in, length);
+                break;
+            default:
+                throw new RuntimeException("Unknown model type " + tag);
+        }
+        if (in.position() != end) {
+            throw new RuntimeException("Corrupt binary model, model of type " + tag + " ended at " + in.position()
+                    + " rather than " + end);
+        }
+        return predictiveModel;
+    }
+
+    /**
+     * @param end the position the tree's block ends at
+     */
+    PredictiveModel readTree(int end) {
+        final Serializable[] classifications = new Serializable[in.getInt()];
+        for (int x = 0; x < classifications.length; x++) {
+            classifications[x] = dictionary[in.getInt()];
+        }
+        final boolean floatCounts = in.get() == 4;
+        return new Tree(readNode(null, classifications, floatCounts));
+    }
+
+    PredictiveModel readRandomForest(int end) {
+        final int treeCount = in.getInt();
+        final List<Tree> trees = new ArrayList<>(treeCount);
+        for (int x = 0; x < treeCount; x++) {
+            trees.add((Tree) readModel());
+        }
+        return new RandomForest(trees);
+    }
+
+    /**
+     * Reads the model of one segment of a {@link SplitOnAttributePM}.
+     */
+    PredictiveModel readSegment() {
+        return readModel();
+    }
+
+    private Node readNode(Branch parent, Serializable[] classifications, boolean floatCounts) {
+        final byte tag = in.get();
+        if (tag == LEAF || tag == COUNTED_LEAF) {
+            final int depth = in.getShort();
+            final double exampleCount = tag == COUNTED_LEAF ? in.getDouble() : Double.NaN;
+            final ClassCounter classCounter = new ClassCounter();
+            for (Serializable classification : classifications) {
+                final double count = floatCounts ? in.getFloat() : in.getDouble();
+                if (!Double.isNaN(count)) {
+                    classCounter.addClassification(classification, count);
+                }
+            }
+            final Leaf leaf = new Leaf(parent, classCounter, depth);
+            if (tag == COUNTED_LEAF) {
+                leaf.exampleCount = exampleCount;
+            }
+            return leaf;
+        }
+
+        final String attribute = (String) dictionary[in.getInt()];
+        final double splitGain = in.getDouble();
+        in.getInt(); // the false child follows the true subtree
+        final Branch branch;
+        if (tag == NUMERIC_BRANCH) {
+            branch = new NumericBranch(parent, attribute, in.getDouble(), splitGain);
+        } else if (tag == CATEGORICAL_BRANCH) {
+            final int inSetSize = in.getInt();
+            final Set<Serializable> inSet = new HashSet<>();
+            for (int x = 0; x < inSetSize; x++) {
+                inSet.add(dictionary[in.getInt()]);
+            }
+            branch = new CategoricalBranch(parent, attribute, inSet, splitGain);
+        } else {
+            throw new RuntimeException("Unknown node type " + tag + " at " + (in.position() - 1));
+        }
+        branch.trueChild = readNode(branch, classifications, floatCounts);
+        branch.falseChild = readNode(branch, classifications, floatCounts);
+        return branch;
+    }
+}
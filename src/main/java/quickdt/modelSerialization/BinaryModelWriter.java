@@ -0,0 +1,290 @@
+package quickdt.modelSerialization;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import com.google.common.base.Preconditions;
+
+import quickdt.predictiveModels.PredictiveModel;
+import quickdt.predictiveModels.calibratedPredictiveModel.CalibratedPredictiveModel;
+import quickdt.predictiveModels.decisionTree.tree.Branch;
+import quickdt.predictiveModels.decisionTree.tree.CategoricalBranch;
+import quickdt.predictiveModels.decisionTree.tree.Leaf;
+import quickdt.predictiveModels.decisionTree.tree.Node;
+import quickdt.predictiveModels.decisionTree.tree.NumericBranch;
+import quickdt.predictiveModels.decisionTree.tree.Tree;
+import quickdt.predictiveModels.downsamplingPredictiveModel.DownsamplingPredictiveModel;
+import quickdt.predictiveModels.featureEngineering.FeatureEngineeredPredictiveModel;
+import quickdt.predictiveModels.randomForest.RandomForest;
+import quickdt.predictiveModels.splitOnAttributePredictiveModel.SplitOnAttributePM;
+import quickdt.predictiveModels.temporallyWeightPredictiveModel.TemporallyReweightedPM;
+
+import static quickdt.modelSerialization.ModelFormat.*;
+
+/**
+ * Writes predictive models in the compact binary format described in {@link ModelFormat}, to be read back with
+ * {@link BinaryModelReader} much faster than Java serialization allows.  Trees, random forests and the wrapper models
+ * are written natively, any other model is Java serialized.  Unique id counts on leaves, and the training data
+ * indexes of updatable leaves, aren't written.
+ */
+public final class BinaryModelWriter {
+    private final Map<Serializable, Integer> dictionary = new LinkedHashMap<>();
+
+    private BinaryModelWriter() {
+    }
+
+    public static void write(PredictiveModel predictiveModel, File file) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+            write(predictiveModel, out);
+        }
+    }
+
+    public static void write(PredictiveModel predictiveModel, OutputStream out) throws IOException {
+        final BinaryModelWriter writer = new BinaryModelWriter();
+        // the model is written first, collecting the dictionary which precedes it in the file
+        final byte[] model = writer.toBlock(predictiveModel);
+
+        final DataOutputStream dataOut = new DataOutputStream(out);
+        dataOut.writeInt(MAGIC);
+        dataOut.writeShort(VERSION);
+        dataOut.writeInt(writer.dictionary.size());
+        for (Serializable value : writer.dictionary.keySet()) {
+            ValueCodec.write(dataOut, value);
+        }
+        dataOut.write(model);
+        dataOut.flush();
+    }
+
+    public static byte[] toByteArray(PredictiveModel predictiveModel) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            write(predictiveModel, bytes);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private byte[] toBlock(PredictiveModel predictiveModel) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+        final byte tag = writePayload(predictiveModel, out);
+        out.flush();
+
+        final ByteArrayOutputStream block = new ByteArrayOutputStream(bytes.size() + 5);
+        final DataOutputStream blockOut = new DataOutputStream(block);
+        blockOut.writeByte(tag);
+        blockOut.writeInt(bytes.size());
+        bytes.writeTo(blockOut);
+        blockOut.flush();
+        return block.toByteArray();
+    }
+
+    private byte writePayload(PredictiveModel predictiveModel, DataOutputStream out) throws IOException {
+        if (predictiveModel instanceof Tree) {
+            writeTree((Tree) predictiveModel, out);
+            return TREE;
+        }
+        if (predictiveModel.getClass() == RandomForest.class) {
+            final List<Tree> trees = ((RandomForest) predictiveModel).trees;
+            out.writeInt(trees.size());
+            for (Tree tree : trees) {
+                out.write(toBlock(tree));
+            }
+            return RANDOM_FOREST;
+        }
+        if (predictiveModel instanceof CalibratedPredictiveModel) {
+            final CalibratedPredictiveModel calibrated = (CalibratedPredictiveModel) predictiveModel;
+            out.writeInt(index(calibrated.positiveClassification));
+            final byte[] calibrator = ValueCodec.serialize(calibrated.calibrator);
+            out.writeInt(calibrator.length);
+            out.write(calibrator);
+            out.write(toBlock(calibrated.predictiveModel));
+            return CALIBRATED;
+        }
+        if (predictiveModel instanceof SplitOnAttributePM) {
+            final SplitOnAttributePM split = (SplitOnAttributePM) predictiveModel;
+            out.writeInt(index(split.getAttributeKey()));
+            out.writeInt(split.getSplitModels().size());
+            for (Map.Entry<Serializable, PredictiveModel> segment : split.getSplitModels().entrySet()) {
+                out.writeInt(index(segment.getKey()));
+                out.write(toBlock(segment.getValue()));
+            }
+            out.write(toBlock(split.getDefaultPM()));
+            return SPLIT_ON_ATTRIBUTE;
+        }
+        if (predictiveModel instanceof FeatureEngineeredPredictiveModel) {
+            final FeatureEngineeredPredictiveModel featureEngineered = (FeatureEngineeredPredictiveModel) predictiveModel;
+            final byte[] enrichers = ValueCodec.serialize(new ArrayList<>(featureEngineered.getAttributesEnrichers()));
+            out.writeInt(enrichers.length);
+            out.write(enrichers);
+            out.write(toBlock(featureEngineered.getWrappedModel()));
+            return FEATURE_ENGINEERED;
+        }
+        if (predictiveModel instanceof DownsamplingPredictiveModel) {
+            final DownsamplingPredictiveModel downsampling = (DownsamplingPredictiveModel) predictiveModel;
+            out.writeInt(index(downsampling.getMajorityClassification()));
+            out.writeInt(index(downsampling.getMinorityClassification()));
+            out.writeDouble(downsampling.getDropProbability());
+            out.write(toBlock(downsampling.wrappedPredictiveModel));
+            return DOWNSAMPLING;
+        }
+        if (predictiveModel instanceof TemporallyReweightedPM) {
+            out.write(toBlock(((TemporallyReweightedPM) predictiveModel).getWrappedModel()));
+            return TEMPORALLY_REWEIGHTED;
+        }
+        out.write(ValueCodec.serialize(predictiveModel));
+        return SERIALIZED;
+    }
+
+    private void writeTree(Tree tree, DataOutputStream out) throws IOException {
+        final TreeEncoding encoding = new TreeEncoding(tree.getLeaves());
+        out.writeInt(encoding.classIndexes.size());
+        for (Serializable classification : encoding.classIndexes.keySet()) {
+            out.writeInt(index(classification));
+        }
+        out.writeByte(encoding.countSize);
+        writeNode(tree.node, encoding, out);
+    }
+
+    private void writeNode(Node node, TreeEncoding encoding, DataOutputStream out) throws IOException {
+        if (node instanceof Leaf) {
+            final Leaf leaf = (Leaf) node;
+            Preconditions.checkState(leaf.depth <= Short.MAX_VALUE, "Leaf depth %s is too large", leaf.depth);
+            final double[] counts = encoding.getCounts(leaf);
+            if (encoding.isExampleCountTotal(leaf, counts)) {
+                out.writeByte(LEAF);
+                out.writeShort(leaf.depth);
+            } else {
+                out.writeByte(COUNTED_LEAF);
+                out.writeShort(leaf.depth);
+                out.writeDouble(leaf.exampleCount);
+            }
+            for (double count : counts) {
+                if (encoding.countSize == 4) {
+                    out.writeFloat((float) count);
+                } else {
+                    out.writeDouble(count);
+                }
+            }
+            return;
+        }
+
+        final Branch branch = (Branch) node;
+        if (branch instanceof NumericBranch) {
+            out.writeByte(NUMERIC_BRANCH);
+        } else if (branch instanceof CategoricalBranch) {
+            out.writeByte(CATEGORICAL_BRANCH);
+        } else {
+            throw new RuntimeException("Can't write a branch of type " + branch.getClass().getSimpleName());
+        }
+        out.writeInt(index(branch.attribute));
+        out.writeDouble(branch.getSplitGain());
+        out.writeInt(getBranchSize(branch) + encoding.getSize(branch.trueChild));
+        if (branch instanceof NumericBranch) {
+            out.writeDouble(((NumericBranch) branch).threshold);
+        } else {
+            final TreeSet<Integer> inSet = new TreeSet<>();
+            for (Serializable value : ((CategoricalBranch) branch).inSet) {
+                inSet.add(index(value));
+            }
+            out.writeInt(inSet.size());
+            for (int value : inSet) {
+                out.writeInt(value);
+            }
+        }
+        writeNode(branch.trueChild, encoding, out);
+        writeNode(branch.falseChild, encoding, out);
+    }
+
+    private static int getBranchSize(Branch branch) {
+        if (branch instanceof NumericBranch) {
+            return BRANCH_HEADER_SIZE + 8;
+        }
+        return BRANCH_HEADER_SIZE + 4 + 4 * ((CategoricalBranch) branch).inSet.size();
+    }
+
+    /**
+     * How the leaves of one tree are written.
+     */
+    private static final class TreeEncoding {
+        private final Map<Serializable, Integer> classIndexes = new LinkedHashMap<>();
+        private final byte countSize;
+        private final Map<Node, Integer> sizes = new IdentityHashMap<>();
+
+        private TreeEncoding(List<Leaf> leaves) {
+            boolean floatCounts = true;
+            for (Leaf leaf : leaves) {
+                for (Serializable classification : leaf.getClassifications()) {
+                    classIndexes.putIfAbsent(classification, classIndexes.size());
+                    final double count = leaf.getCountForClass(classification);
+                    floatCounts &= (float) count == count;
+                }
+            }
+            countSize = (byte) (floatCounts ? 4 : 8);
+        }
+
+        private double[] getCounts(Leaf leaf) {
+            final double[] counts = new double[classIndexes.size()];
+            Arrays.fill(counts, Double.NaN);
+            for (Serializable classification : leaf.getClassifications()) {
+                counts[classIndexes.get(classification)] = leaf.getCountForClass(classification);
+            }
+            return counts;
+        }
+
+        /**
+         * @return whether the leaf's example count is the total the reader will add its counts up to
+         */
+        private boolean isExampleCountTotal(Leaf leaf, double[] counts) {
+            double total = 0;
+            for (double count : counts) {
+                if (!Double.isNaN(count)) {
+                    total += count;
+                }
+            }
+            return Double.compare(total, leaf.exampleCount) == 0;
+        }
+
+        /**
+         * @return the number of bytes the subtree is written in, memoized so that the offsets of all false children
+         * are found in a single pass
+         */
+        private int getSize(Node node) {
+            if (node instanceof Leaf) {
+                final Leaf leaf = (Leaf) node;
+                final int headerSize = isExampleCountTotal(leaf, getCounts(leaf)) ? LEAF_HEADER_SIZE : COUNTED_LEAF_HEADER_SIZE;
+                return headerSize + countSize * classIndexes.size();
+            }
+            Integer size = sizes.get(node);
+            if (size == null) {
+                final Branch branch = (Branch) node;
+                size = getBranchSize(branch) + getSize(branch.trueChild) + getSize(branch.falseChild);
+                sizes.put(node, size);
+            }
+            return size;
+        }
+    }
+
+    private int index(Serializable value) {
+        Integer index = dictionary.get(value);
+        if (index == null) {
+            index = dictionary.size();
+            dictionary.put(value, index);
+        }
+        return index;
+    }
+}
@@ -0,0 +1,32 @@
+package quickdt.modelSerialization;
+
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The buffer a model was loaded from by {@link MappedModelLoader}, and its dictionary, shared by the mapped models
+ * scored against it.
+ */
+final class MappedModelContext {
+    final ByteBuffer buffer;
+    final Serializable[] dictionary;
+    private final Map<Serializable, Integer> indexes;
+
+    MappedModelContext(ByteBuffer buffer, Serializable[] dictionary) {
+        this.buffer = buffer;
+        this.dictionary = dictionary;
+        indexes = new HashMap<>(dictionary.length * 2);
+        for (int x = 0; x < dictionary.length; x++) {
+            indexes.put(dictionary[x], x);
+        }
+    }
+
+    /**
+     * @return the dictionary index of the value, or null if no model refers to it
+     */
+    Integer getIndex(Serializable value) {
+        return indexes.get(value);
+    }
+}
@@ -0,0 +1,150 @@
+package quickdt.modelSerialization;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectOutputStream;
+import java.io.PrintStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.base.Preconditions;
+
+import quickdt.data.Attributes;
+import quickdt.predictiveModels.PredictiveModel;
+import quickdt.predictiveModels.splitOnAttributePredictiveModel.SplitOnAttributePM;
+
+import static quickdt.modelSerialization.ModelFormat.TREE;
+
+/**
+ * Loads a model written by {@link BinaryModelWriter} without reading its trees onto the heap.  The file is mapped
+ * read-only, and trees and forests are replaced by {@link MappedTree}s and {@link MappedRandomForest}s that score
+ * against the mapped nodes, so loading only reads the dictionary and the structure of the wrapper models.  The model
+ * of each {@link SplitOnAttributePM} segment is only loaded the first time it's used, and the operating system pages
+ * nodes in as they're scored.  Processes mapping the same file share one copy of it in memory.
+ *
+ * The mapping is released when the loaded model is garbage collected.  Files are limited to 2GB, the most a single
+ * mapping can hold.
+ */
+public final class MappedModelLoader {
+    private MappedModelLoader() {
+    }
+
+    public static PredictiveModel load(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            Preconditions.checkArgument(channel.size() <= Integer.MAX_VALUE, "%s is too large to map", file);
+            // the mapping remains valid once the channel is closed
+            return load(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Loads a model from a buffer, scoring directly against it.  The buffer must not be modified while the model is
+     * used.
+     */
+    public static PredictiveModel load(ByteBuffer buffer) {
+        final ByteBuffer slice = buffer.slice();
+        final MappedModelContext context = new MappedModelContext(slice, BinaryModelReader.readHeader(slice));
+        return new MappedModelReader(slice.duplicate(), context).readModel();
+    }
+
+    private static final class MappedModelReader extends BinaryModelReader {
+        private final MappedModelContext context;
+
+        private MappedModelReader(ByteBuffer in, MappedModelContext context) {
+            super(in, context.dictionary);
+            this.context = context;
+        }
+
+        @Override
+        PredictiveModel readTree(int end) {
+            final MappedTree tree = new MappedTree(context, in.position());
+            in.position(end);
+            return tree;
+        }
+
+        @Override
+        PredictiveModel readRandomForest(int end) {
+            final int treeCount = in.getInt();
+            final List<MappedTree> trees = new ArrayList<>(treeCount);
+            for (int x = 0; x < treeCount; x++) {
+                final byte tag = in.get();
+                final int length = in.getInt();
+                if (tag != TREE) {
+                    throw new RuntimeException("Corrupt binary model, expected a tree in a random forest but got " + tag);
+                }
+                trees.add(new MappedTree(context, in.position()));
+                in.position(in.position() + length);
+            }
+            return new MappedRandomForest(trees);
+        }
+
+        @Override
+        PredictiveModel readSegment() {
+            final int position = in.position();
+            in.position(position + 1 + 4 + in.getInt(position + 1));
+            return new LazyModel(context, position);
+        }
+    }
+
+    /**
+     * A model that isn't loaded until it's first used.
+     */
+    private static final class LazyModel implements PredictiveModel {
+        private static final long serialVersionUID = -7435280517364502877L;
+
+        private final MappedModelContext context;
+        private final int position;
+        private volatile PredictiveModel predictiveModel;
+
+        private LazyModel(MappedModelContext context, int position) {
+            this.context = context;
+            this.position = position;
+        }
+
+        private PredictiveModel getPredictiveModel() {
+            PredictiveModel loaded = predictiveModel;
+            if (loaded == null) {
+                synchronized (this) {
+                    loaded = predictiveModel;
+                    if (loaded == null) {
+                        final ByteBuffer in = context.buffer.duplicate();
+                        in.position(position);
+                        loaded = new MappedModelReader(in, context).readModel();
+                        predictiveModel = loaded;
+                    }
+                }
+            }
+            return loaded;
+        }
+
+        @Override
+        public double getProbability(Attributes attributes, Serializable classification) {
+            return getPredictiveModel().getProbability(attributes, classification);
+        }
+
+        @Override
+        public Map<Serializable, Double> getProbabilitiesByClassification(Attributes attributes) {
+            return getPredictiveModel().getProbabilitiesByClassification(attributes);
+        }
+
+        @Override
+        public void dump(PrintStream printStream) {
+            getPredictiveModel().dump(printStream);
+        }
+
+        @Override
+        public Serializable getClassificationByMaxProb(Attributes attributes) {
+            return getPredictiveModel().getClassificationByMaxProb(attributes);
+        }
+
+        private void writeObject(ObjectOutputStream out) throws NotSerializableException {
+            throw new NotSerializableException("A mapped model can't be serialized");
+        }
+    }
+}
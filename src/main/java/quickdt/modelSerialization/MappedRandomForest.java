@@ -0,0 +1,103 @@
+package quickdt.modelSerialization;
+
+import java.io.NotSerializableException;
+import java.io.ObjectOutputStream;
+import java.io.PrintStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.base.Preconditions;
+
+import quickdt.data.Attributes;
+import quickdt.predictiveModels.PredictiveModel;
+import quickdt.predictiveModels.decisionTree.tree.Tree;
+import quickdt.predictiveModels.randomForest.RandomForest;
+
+/**
+ * A random forest of {@link MappedTree}s, scored the same way as the {@link RandomForest} it was written from.  Can't
+ * be Java serialized, write the {@link #toRandomForest() materialized forest} instead.
+ */
+public final class MappedRandomForest implements PredictiveModel {
+    private static final long serialVersionUID = 6203145470389817703L;
+
+    private final List<MappedTree> trees;
+
+    MappedRandomForest(List<MappedTree> trees) {
+        Preconditions.checkArgument(trees.size() > 0, "We must have at least one tree");
+        this.trees = trees;
+    }
+
+    public List<MappedTree> getTrees() {
+        return Collections.unmodifiableList(trees);
+    }
+
+    @Override
+    public double getProbability(Attributes attributes, Serializable classification) {
+        double total = 0;
+        for (MappedTree tree : trees) {
+            final double probability = tree.getProbability(attributes, classification);
+            if (Double.isInfinite(probability) || Double.isNaN(probability)) {
+                throw new RuntimeException("Probability must be a normal number, not " + probability);
+            }
+            total += probability;
+        }
+        return total / trees.size();
+    }
+
+    @Override
+    public Map<Serializable, Double> getProbabilitiesByClassification(Attributes attributes) {
+        final Map<Serializable, Double> probabilities = new HashMap<>();
+        for (MappedTree tree : trees) {
+            for (Map.Entry<Serializable, Double> probability : tree.getProbabilitiesByClassification(attributes).entrySet()) {
+                probabilities.merge(probability.getKey(), probability.getValue(), Double::sum);
+            }
+        }
+        for (Map.Entry<Serializable, Double> probability : probabilities.entrySet()) {
+            probability.setValue(probability.getValue() / trees.size());
+        }
+        return probabilities;
+    }
+
+    @Override
+    public Serializable getClassificationByMaxProb(Attributes attributes) {
+        final Map<Serializable, Double> totals = new HashMap<>();
+        for (MappedTree tree : trees) {
+            for (Map.Entry<Serializable, Double> probability : tree.getProbabilitiesByClassification(attributes).entrySet()) {
+                totals.merge(probability.getKey(), probability.getValue(), Double::sum);
+            }
+        }
+        Serializable best = null;
+        double bestTotal = 0;
+        for (Map.Entry<Serializable, Double> total : totals.entrySet()) {
+            if (best == null || total.getValue() > bestTotal) {
+                best = total.getKey();
+                bestTotal = total.getValue();
+            }
+        }
+        return best;
+    }
+
+    @Override
+    public void dump(PrintStream printStream) {
+        trees.get(0).dump(printStream);
+    }
+
+    /**
+     * @return a copy of this forest on the heap
+     */
+    public RandomForest toRandomForest() {
+        final List<Tree> heapTrees = new ArrayList<>(trees.size());
+        for (MappedTree tree : trees) {
+            heapTrees.add(tree.toTree());
+        }
+        return new RandomForest(heapTrees);
+    }
+
+    private void writeObject(ObjectOutputStream out) throws NotSerializableException {
+        throw new NotSerializableException("A mapped forest can't be serialized, serialize toRandomForest() instead");
+    }
+}
@@ -0,0 +1,202 @@
+package quickdt.modelSerialization;
+
+import java.io.NotSerializableException;
+import java.io.ObjectOutputStream;
+import java.io.PrintStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+import quickdt.data.Attributes;
+import quickdt.predictiveModels.PredictiveModel;
+import quickdt.predictiveModels.decisionTree.tree.Tree;
+
+import static quickdt.modelSerialization.ModelFormat.*;
+import static quickdt.predictiveModels.decisionTree.TreeBuilder.MISSING_VALUE;
+
+/**
+ * A tree scored directly against its nodes in a buffer written by {@link BinaryModelWriter}, usually a mapped file,
+ * rather than against nodes on the heap.  Gives the same probabilities as the {@link Tree} it was written from.  Reads
+ * use absolute positions only, so a tree can be scored from many threads.  Can't be Java serialized, write the
+ * {@link #toTree() materialized tree} instead.
+ */
+public final class MappedTree implements PredictiveModel {
+    private static final long serialVersionUID = -2301977521954389227L;
+
+    private final MappedModelContext context;
+    private final int start;
+    private final Serializable[] classifications;
+    private final boolean floatCounts;
+    private final int root;
+
+    /**
+     * @param start the position of the tree's payload in the context's buffer
+     */
+    MappedTree(MappedModelContext context, int start) {
+        this.context = context;
+        this.start = start;
+        final ByteBuffer buffer = context.buffer;
+        classifications = new Serializable[buffer.getInt(start)];
+        for (int x = 0; x < classifications.length; x++) {
+            classifications[x] = context.dictionary[buffer.getInt(start + 4 + 4 * x)];
+        }
+        final int countSizePosition = start + 4 + 4 * classifications.length;
+        floatCounts = buffer.get(countSizePosition) == 4;
+        root = countSizePosition + 1;
+    }
+
+    @Override
+    public double getProbability(Attributes attributes, Serializable classification) {
+        final int leaf = getLeaf(attributes);
+        double count = 0;
+        for (int x = 0; x < classifications.length; x++) {
+            if (classifications[x].equals(classification)) {
+                count = getCount(leaf, x);
+                break;
+            }
+        }
+        return Double.isNaN(count) ? 0 : count / getTotal(leaf);
+    }
+
+    @Override
+    public Map<Serializable, Double> getProbabilitiesByClassification(Attributes attributes) {
+        final int leaf = getLeaf(attributes);
+        final double total = getTotal(leaf);
+        final Map<Serializable, Double> probabilities = new HashMap<>();
+        for (int x = 0; x < classifications.length; x++) {
+            final double count = getCount(leaf, x);
+            if (!Double.isNaN(count)) {
+                probabilities.put(classifications[x], count / total);
+            }
+        }
+        return probabilities;
+    }
+
+    @Override
+    public Serializable getClassificationByMaxProb(Attributes attributes) {
+        final int leaf = getLeaf(attributes);
+        Serializable best = null;
+        double bestCount = 0;
+        for (int x = 0; x < classifications.length; x++) {
+            final double count = getCount(leaf, x);
+            if (!Double.isNaN(count) && (best == null || count > bestCount)) {
+                best = classifications[x];
+                bestCount = count;
+            }
+        }
+        return best;
+    }
+
+    @Override
+    public void dump(PrintStream printStream) {
+        toTree().dump(printStream);
+    }
+
+    /**
+     * @return a copy of this tree on the heap
+     */
+    public Tree toTree() {
+        final ByteBuffer buffer = context.buffer.duplicate();
+        buffer.position(start);
+        return (Tree) new BinaryModelReader(buffer, context.dictionary).readTree(-1);
+    }
+
+    /**
+     * @return the position of the leaf the attributes reach
+     */
+    int getLeaf(Attributes attributes) {
+        final ByteBuffer buffer = context.buffer;
+        int node = root;
+        while (true) {
+            final byte tag = buffer.get(node);
+            if (tag == LEAF || tag == COUNTED_LEAF) {
+                return node;
+            }
+            final String attribute = (String) context.dictionary[buffer.getInt(node + 1)];
+            final boolean decision;
+            if (tag == NUMERIC_BRANCH) {
+                decision = getNumericValue(attributes, attribute) > buffer.getDouble(node + BRANCH_HEADER_SIZE);
+            } else {
+                decision = isInSet(buffer, node, attributes.get(attribute));
+            }
+            node = decision ? node + getBranchSize(buffer, node, tag) : node + buffer.getInt(node + 1 + 4 + 8);
+        }
+    }
+
+    /**
+     * @return the count of the classification at the index, NaN if the leaf has none
+     */
+    double getCount(int leaf, int classificationIndex) {
+        final ByteBuffer buffer = context.buffer;
+        final int counts = leaf + (buffer.get(leaf) == COUNTED_LEAF ? COUNTED_LEAF_HEADER_SIZE : LEAF_HEADER_SIZE);
+        return floatCounts ? buffer.getFloat(counts + 4 * classificationIndex)
+                : buffer.getDouble(counts + 8 * classificationIndex);
+    }
+
+    Serializable[] getClassifications() {
+        return classifications;
+    }
+
+    private double getTotal(int leaf) {
+        double total = 0;
+        for (int x = 0; x < classifications.length; x++) {
+            final double count = getCount(leaf, x);
+            if (!Double.isNaN(count)) {
+                total += count;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Decides the same way as a NumericBranch.
+     */
+    private static double getNumericValue(Attributes attributes, String attribute) {
+        Serializable value = attributes.get(attribute);
+        if (value == null) {
+            value = 0;
+        }
+        if (!(value instanceof Number)) {
+            throw new RuntimeException("Expecting a number as the value of " + attribute + " but got " + value
+                    + " of type " + value.getClass().getSimpleName());
+        }
+        return ((Number) value).doubleValue();
+    }
+
+    /**
+     * Decides the same way as a CategoricalBranch, with a binary search of the branch's sorted dictionary indexes.
+     */
+    private boolean isInSet(ByteBuffer buffer, int node, Serializable value) {
+        final Integer index = context.getIndex(value == null ? MISSING_VALUE : value);
+        if (index == null) {
+            return false;
+        }
+        final int values = node + BRANCH_HEADER_SIZE + 4;
+        int low = 0;
+        int high = buffer.getInt(node + BRANCH_HEADER_SIZE) - 1;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            final int middleIndex = buffer.getInt(values + 4 * middle);
+            if (middleIndex < index) {
+                low = middle + 1;
+            } else if (middleIndex > index) {
+                high = middle - 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int getBranchSize(ByteBuffer buffer, int node, byte tag) {
+        if (tag == NUMERIC_BRANCH) {
+            return BRANCH_HEADER_SIZE + 8;
+        }
+        return BRANCH_HEADER_SIZE + 4 + 4 * buffer.getInt(node + BRANCH_HEADER_SIZE);
+    }
+
+    private void writeObject(ObjectOutputStream out) throws NotSerializableException {
+        throw new NotSerializableException("A mapped tree can't be serialized, serialize toTree() instead");
+    }
+}
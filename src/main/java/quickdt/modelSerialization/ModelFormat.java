@@ -0,0 +1,66 @@
+package quickdt.modelSerialization;
+
+/**
+ * Layout of the files written by {@link BinaryModelWriter}, all big-endian:
+ *
+ * <pre>
+ * file       := MAGIC:int VERSION:short dictionarySize:int value* model
+ * model      := tag:byte length:int payload
+ * </pre>
+ *
+ * The dictionary holds every attribute name, classification and category value once, see {@link ValueCodec}, and the
+ * rest of the file refers to them by their int index.  The length of each model lets a reader skip models it doesn't
+ * need yet.  The payload of each model type:
+ *
+ * <pre>
+ * TREE                  := classCount:int classification:int[classCount] countSize:byte node
+ * RANDOM_FOREST         := treeCount:int model[treeCount]
+ * CALIBRATED            := positiveClassification:int calibratorLength:int calibrator:byte[] model
+ * SPLIT_ON_ATTRIBUTE    := attribute:int segmentCount:int (value:int model)[segmentCount] defaultModel:model
+ * FEATURE_ENGINEERED    := enrichersLength:int enrichers:byte[] model
+ * DOWNSAMPLING          := majority:int minority:int dropProbability:double model
+ * TEMPORALLY_REWEIGHTED := model
+ * SERIALIZED            := byte[length]
+ * </pre>
+ *
+ * Calibrators, enrichers and models of any other type are Java serialized.  The nodes of a tree are in preorder, each
+ * branch followed by its true subtree and then its false subtree, so scoring reads forwards apart from the jumps to
+ * false children:
+ *
+ * <pre>
+ * LEAF               := tag:byte depth:short count:(float|double)[classCount]
+ * COUNTED_LEAF       := tag:byte depth:short exampleCount:double count:(float|double)[classCount]
+ * NUMERIC_BRANCH     := tag:byte attribute:int splitGain:double falseChildOffset:int threshold:double
+ * CATEGORICAL_BRANCH := tag:byte attribute:int splitGain:double falseChildOffset:int inSetSize:int value:int[inSetSize]
+ * </pre>
+ *
+ * The false child offset is relative to the start of the branch, the values of a categorical branch are sorted
+ * dictionary indexes and a leaf has a count for each of the tree's classifications, NaN where it has none.  Counts
+ * are floats when all of a tree's counts can be represented exactly, and the example count of a leaf is only written
+ * when it isn't the total of its counts.
+ */
+final class ModelFormat {
+    static final int MAGIC = 0x5144544d; // "QDTM"
+    static final short VERSION = 1;
+
+    static final byte TREE = 1;
+    static final byte RANDOM_FOREST = 2;
+    static final byte CALIBRATED = 3;
+    static final byte SPLIT_ON_ATTRIBUTE = 4;
+    static final byte FEATURE_ENGINEERED = 5;
+    static final byte DOWNSAMPLING = 6;
+    static final byte TEMPORALLY_REWEIGHTED = 7;
+    static final byte SERIALIZED = 8;
+
+    static final byte LEAF = 0;
+    static final byte NUMERIC_BRANCH = 1;
+    static final byte CATEGORICAL_BRANCH = 2;
+    static final byte COUNTED_LEAF = 3;
+
+    static final int BRANCH_HEADER_SIZE = 1 + 4 + 8 + 4;
+    static final int LEAF_HEADER_SIZE = 1 + 2;
+    static final int COUNTED_LEAF_HEADER_SIZE = LEAF_HEADER_SIZE + 8;
+
+    private ModelFormat() {
+    }
+}
@@ -0,0 +1,157 @@
+package quickdt.modelSerialization;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes attribute values, classifications and attribute names as a type tag followed by a compact encoding of the
+ * value, and reads them back from a {@link ByteBuffer}.  Primitive wrappers and strings have their own encodings,
+ * anything else falls back to Java serialization.  Big-endian throughout, as written by {@link DataOutput}.
+ */
+public final class ValueCodec {
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte INTEGER = 2;
+    private static final byte LONG = 3;
+    private static final byte DOUBLE = 4;
+    private static final byte FLOAT = 5;
+    private static final byte BOOLEAN = 6;
+    private static final byte SHORT = 7;
+    private static final byte BYTE = 8;
+    private static final byte CHARACTER = 9;
+    private static final byte SERIALIZED = 10;
+
+    private ValueCodec() {
+    }
+
+    public static void write(DataOutput out, Serializable value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof String) {
+            out.writeByte(STRING);
+            final byte[] bytes = ((String) value).getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        } else if (value instanceof Integer) {
+            out.writeByte(INTEGER);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeByte(LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Double) {
+            out.writeByte(DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof Float) {
+            out.writeByte(FLOAT);
+            out.writeFloat((Float) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof Short) {
+            out.writeByte(SHORT);
+            out.writeShort((Short) value);
+        } else if (value instanceof Byte) {
+            out.writeByte(BYTE);
+            out.writeByte((Byte) value);
+        } else if (value instanceof Character) {
+            out.writeByte(CHARACTER);
+            out.writeChar((Character) value);
+        } else {
+            out.writeByte(SERIALIZED);
+            final byte[] bytes = serialize(value);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    public static Serializable read(ByteBuffer in) {
+        final byte tag = in.get();
+        switch (tag) {
+            case NULL:
+                return null;
+            case STRING:
+                final byte[] bytes = new byte[in.getInt()];
+                in.get(bytes);
+                return new String(bytes, StandardCharsets.UTF_8);
+            case INTEGER:
+                return in.getInt();
+            case LONG:
+                return in.getLong();
+            case DOUBLE:
+                return in.getDouble();
+            case FLOAT:
+                return in.getFloat();
+            case BOOLEAN:
+                return in.get() != 0;
+            case SHORT:
+                return in.getShort();
+            case BYTE:
+                return in.get();
+            case CHARACTER:
+                return in.getChar();
+            case SERIALIZED:
+                return (Serializable) deserialize(in, in.getInt());
+            default:
+                throw new RuntimeException("Unknown value type " + tag + " at " + (in.position() - 1));
+        }
+    }
+
+    /**
+     * Moves <code>in</code> past a value without decoding it.
+     */
+    static void skip(ByteBuffer in) {
+        final byte tag = in.get();
+        switch (tag) {
+            case NULL:
+                break;
+            case STRING:
+            case SERIALIZED:
+                final int length = in.getInt();
+                in.position(in.position() + length);
+                break;
+            case INTEGER:
+            case FLOAT:
+                in.position(in.position() + 4);
+                break;
+            case LONG:
+            case DOUBLE:
+                in.position(in.position() + 8);
+                break;
+            case BOOLEAN:
+            case BYTE:
+                in.position(in.position() + 1);
+                break;
+            case SHORT:
+            case CHARACTER:
+                in.position(in.position() + 2);
+                break;
+            default:
+                throw new RuntimeException("Unknown value type " + tag + " at " + (in.position() - 1));
+        }
+    }
+
+    static byte[] serialize(Object object) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(object);
+        }
+        return bytes.toByteArray();
+    }
+
+    static Object deserialize(ByteBuffer in, int length) {
+        final byte[] bytes = new byte[length];
+        in.get(bytes);
+        try (ObjectInputStream objectIn = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return objectIn.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            throw new RuntimeException("Unable to deserialize value", e);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package quickdt.predictiveModelOptimizer;
+
+import quickdt.predictiveModels.PredictiveModelBuilderBuilder;
+
+import java.util.Map;
+
+/**
+ * Finds the cross validated loss of each configuration a {@link PredictiveModelOptimizer} tests, in this process by
+ * default ({@link InProcessConfigurationEvaluator}), or elsewhere, such as on the workers of a
+ * {@link quickdt.distributed.WorkerPool} ({@link quickdt.distributed.DistributedConfigurationEvaluator}).
+ */
+public interface ConfigurationEvaluator {
+    /**
+     * @param seed           the seed of the builder, or null to leave it unseeded
+     * @param timeLimitNanos how long the cross validation may take before it's given up, with a loss of
+     *                       {@link Double#MAX_VALUE}, or 0 for no limit
+     */
+    public double getCrossValidatedLoss(PredictiveModelBuilderBuilder<?, ?> predictiveModelBuilderBuilder, Map<String, Object> configuration, Long seed, long timeLimitNanos);
+}
@@ -0,0 +1,48 @@
+package quickdt.predictiveModelOptimizer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import quickdt.crossValidation.CrossValidator;
+import quickdt.data.AbstractInstance;
+import quickdt.predictiveModels.CancellationToken;
+import quickdt.predictiveModels.PredictiveModelBuilder;
+import quickdt.predictiveModels.PredictiveModelBuilderBuilder;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cross validates each configuration in this process, one after another.
+ */
+public class InProcessConfigurationEvaluator implements ConfigurationEvaluator {
+    private static final Logger logger = LoggerFactory.getLogger(InProcessConfigurationEvaluator.class);
+
+    private final CrossValidator crossValidator;
+    private final Iterable<? extends AbstractInstance> trainingData;
+
+    public InProcessConfigurationEvaluator(CrossValidator crossValidator, Iterable<? extends AbstractInstance> trainingData) {
+        this.crossValidator = crossValidator;
+        this.trainingData = trainingData;
+    }
+
+    /**
+     * The time limit is kept through {@link CrossValidator#getCrossValidatedLoss(PredictiveModelBuilder, Iterable,
+     * CancellationToken)}, so the builders must support cancellation for a build to be stopped part way.
+     */
+    @Override
+    public double getCrossValidatedLoss(PredictiveModelBuilderBuilder<?, ?> predictiveModelBuilderBuilder, Map<String, Object> configuration, Long seed, long timeLimitNanos) {
+        final PredictiveModelBuilder<?> predictiveModelBuilder = predictiveModelBuilderBuilder.buildBuilder(configuration);
+        if (seed != null) {
+            predictiveModelBuilder.seed(seed);
+        }
+        if (timeLimitNanos <= 0) {
+            return crossValidator.getCrossValidatedLoss(predictiveModelBuilder, trainingData);
+        }
+        final CancellationToken cancellationToken = new CancellationToken().cancelAfter(timeLimitNanos, TimeUnit.NANOSECONDS);
+        final double crossValidatedLoss = crossValidator.getCrossValidatedLoss(predictiveModelBuilder, trainingData, cancellationToken);
+        if (cancellationToken.isCancelled()) {
+            logger.info("Cut off configuration " + configuration + " after " + TimeUnit.NANOSECONDS.toMillis(timeLimitNanos) + " ms");
+        }
+        return crossValidatedLoss;
+    }
+}
@@ -1,6 +1,7 @@
 package quickdt.predictiveModelOptimizer;
 
 import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
 import com.google.common.collect.Maps;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -12,6 +13,7 @@ import quickdt.predictiveModels.*;
 
 import java.util.Collections;
 import java.util.Map;
+import java.util.SplittableRandom;
 
 /**
  * Created by alexanderhawk on 3/4/14.
@@ -19,13 +21,16 @@ import java.util.Map;
 public class PredictiveModelOptimizer<PM extends PredictiveModel, PMB extends PredictiveModelBuilder<PM>> {
     private static final Logger logger = LoggerFactory.getLogger(PredictiveModelOptimizer.class);
     private final PredictiveModelBuilderBuilder<PM, PMB> predictiveModelBuilderBuilder;
-    private final CrossValidator crossValidator;
+    private ConfigurationEvaluator configurationEvaluator;
     private final Map<String, FieldValueRecommender> valueRecommenders;
-    private final Iterable<? extends AbstractInstance> trainingData;
     private Map<Map<String, Object>, Double> configurationLosses = Maps.newHashMap();
     private volatile boolean hasRun = false;
     private static final int MAX_ITERATIONS = 10;
     private int maxIterations;
+    private SplittableRandom random = null;
+    private double maxSlowdown = 0;
+    private double incumbentLoss = Double.MAX_VALUE;
+    private long incumbentNanos = 0;
     public PredictiveModelOptimizer(PredictiveModelBuilderBuilder<PM, PMB> predictiveModelBuilderBuilder, final Iterable<? extends AbstractInstance> trainingData) {
         this(predictiveModelBuilderBuilder, trainingData, new StationaryCrossValidator());
     }
@@ -40,12 +45,40 @@ public class PredictiveModelOptimizer<PM extends PredictiveModel, PMB extends Pr
 
     public PredictiveModelOptimizer(int maxIterations, PredictiveModelBuilderBuilder<PM, PMB> predictiveModelBuilderBuilder, final Iterable<? extends AbstractInstance> trainingData, CrossValidator crossValidator, Map<String, FieldValueRecommender> valueRecommenders) {
         this.predictiveModelBuilderBuilder = predictiveModelBuilderBuilder;
-        this.trainingData = trainingData;
-        this.crossValidator = crossValidator;
+        this.configurationEvaluator = new InProcessConfigurationEvaluator(crossValidator, trainingData);
         this.valueRecommenders = valueRecommenders;
         this.maxIterations = maxIterations;
     }
 
+    /**
+     * Seed the search, so that it always finds the same configuration.  Each configuration tested is built with its
+     * own seed, drawn in the order the configurations are tested.  The cross validator must be deterministic too.
+     */
+    public PredictiveModelOptimizer<PM, PMB> seed(long seed) {
+        this.random = new SplittableRandom(seed);
+        return this;
+    }
+
+    /**
+     * Cut off the cross validation of any configuration that takes more than <code>maxSlowdown</code> times as long as
+     * the best configuration found so far, giving it a loss of {@link Double#MAX_VALUE}.  The builders must support
+     * {@link PredictiveModelBuilder#cancellationToken(CancellationToken)} for a build to be stopped part way.
+     */
+    public PredictiveModelOptimizer<PM, PMB> maxSlowdown(double maxSlowdown) {
+        Preconditions.checkArgument(maxSlowdown >= 1, "A configuration can't be cut off before the best one would finish");
+        this.maxSlowdown = maxSlowdown;
+        return this;
+    }
+
+    /**
+     * Cross validate the configurations with <code>configurationEvaluator</code>, rather than with the cross validator
+     * and training data given to the constructor, in this process.
+     */
+    public PredictiveModelOptimizer<PM, PMB> configurationEvaluator(ConfigurationEvaluator configurationEvaluator) {
+        this.configurationEvaluator = configurationEvaluator;
+        return this;
+    }
+
     public Map<String, Object> determineOptimalConfiguration() {
         if (hasRun) {
             throw new IllegalStateException("Can't call this method more than once");
@@ -89,7 +122,7 @@ public class PredictiveModelOptimizer<PM extends PredictiveModel, PMB extends Pr
         for (Map.Entry<String, FieldValueRecommender> stringFieldValueRecommenderEntry : valueRecommenders.entrySet()) {
             String fieldName = stringFieldValueRecommenderEntry.getKey();
             logger.info("Optimizing field '" + fieldName + "'");
-            final Map<Object, Double> scoresForFieldValues = getScoresForFieldValues(trainingData, currentConfiguration, fieldName, stringFieldValueRecommenderEntry.getValue());
+            final Map<Object, Double> scoresForFieldValues = getScoresForFieldValues(currentConfiguration, fieldName, stringFieldValueRecommenderEntry.getValue());
             final Optional<Map.Entry<Object, Double>> entryWithLowestValueOpt = Misc.getEntryWithLowestValue(scoresForFieldValues);
             final Map.Entry<Object, Double> entryWithLowestValue = entryWithLowestValueOpt.get();
             Object bestValue = entryWithLowestValue.getKey();
@@ -101,8 +134,7 @@ public class PredictiveModelOptimizer<PM extends PredictiveModel, PMB extends Pr
         return new ObjectWithLoss<Map<String, Object>>(currentConfiguration, currentConfigurationLoss);
     }
 
-    private Map<Object, Double> getScoresForFieldValues(final Iterable<? extends AbstractInstance> trainingData,
-                                                        final Map<String, Object> baselineConfiguration,
+    private Map<Object, Double> getScoresForFieldValues(final Map<String, Object> baselineConfiguration,
                                                         final String fieldName,
                                                         final FieldValueRecommender fieldValueRecommender) {
         Map<Object, Double> valueLoss = Maps.newHashMap();
@@ -120,8 +152,7 @@ public class PredictiveModelOptimizer<PM extends PredictiveModel, PMB extends Pr
                 continue; // No point in testing the same configuration twice
             }
             logger.info("Testing predictive model configuration: " + configurationToTest);
-            final PMB predictiveModelBuilder = predictiveModelBuilderBuilder.buildBuilder(configurationToTest);
-            final double crossValidatedLoss = crossValidator.getCrossValidatedLoss(predictiveModelBuilder, trainingData);
+            final double crossValidatedLoss = crossValidate(configurationToTest, random != null ? random.nextLong() : null);
             logger.info("Loss for configuration " + configurationToTest + " is " + crossValidatedLoss);
             valueLoss.put(valueToTest, crossValidatedLoss);
             configurationLosses.put(configurationToTest, crossValidatedLoss);
@@ -129,6 +160,17 @@ public class PredictiveModelOptimizer<PM extends PredictiveModel, PMB extends Pr
         return valueLoss;
     }
 
+    private double crossValidate(Map<String, Object> configuration, Long seed) {
+        final long start = System.nanoTime();
+        final long timeLimitNanos = maxSlowdown > 0 && incumbentNanos > 0 ? (long) (maxSlowdown * incumbentNanos) : 0;
+        final double crossValidatedLoss = configurationEvaluator.getCrossValidatedLoss(predictiveModelBuilderBuilder, configuration, seed, timeLimitNanos);
+        if (crossValidatedLoss < incumbentLoss) {
+            incumbentLoss = crossValidatedLoss;
+            incumbentNanos = System.nanoTime() - start;
+        }
+        return crossValidatedLoss;
+    }
+
     public static class ObjectWithLoss<O> {
         O object;
         double loss;
@@ -0,0 +1,109 @@
+package quickdt.predictiveModels;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Limits on a model build: the wall clock time it may take, the number of nodes it may create, and the estimated bytes
+ * those nodes may take up.  A builder that runs out of any of them stops growing the model and returns the model built
+ * so far, see {@link PredictiveModelBuilder#budget(BuildBudget)}.  All limits are unlimited by default.
+ */
+public class BuildBudget {
+    private long maxNanos = Long.MAX_VALUE;
+    private long maxNodes = Long.MAX_VALUE;
+    private long maxBytes = Long.MAX_VALUE;
+
+    public BuildBudget maxTime(long duration, TimeUnit unit) {
+        Preconditions.checkArgument(duration >= 0, "Duration must not be negative");
+        this.maxNanos = unit.toNanos(duration);
+        return this;
+    }
+
+    public BuildBudget maxNodes(long maxNodes) {
+        Preconditions.checkArgument(maxNodes > 0, "A build needs at least one node");
+        this.maxNodes = maxNodes;
+        return this;
+    }
+
+    /**
+     * @param maxBytes the limit on the estimated size of the model, not counting the training data
+     */
+    public BuildBudget maxBytes(long maxBytes) {
+        Preconditions.checkArgument(maxBytes > 0, "Max bytes must be positive");
+        this.maxBytes = maxBytes;
+        return this;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    public long getMaxNodes() {
+        return maxNodes;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Start tracking a build against <code>budget</code> and <code>cancellationToken</code>.
+     *
+     * @param budget            the budget of the build, or null if unlimited
+     * @param cancellationToken the token of the build, or null if it can't be cancelled
+     * @return the tracker, or null if both are null, so that unlimited builds skip all checks
+     */
+    public static Tracker start(BuildBudget budget, CancellationToken cancellationToken) {
+        if (budget == null && cancellationToken == null) {
+            return null;
+        }
+        return new Tracker(budget != null ? budget : new BuildBudget(), cancellationToken);
+    }
+
+    /**
+     * The use of a budget by one build, which may be shared by the threads building the trees of a forest.
+     */
+    public static final class Tracker {
+        private final BuildBudget budget;
+        private final CancellationToken cancellationToken;
+        private final long startNanos = System.nanoTime();
+        private final AtomicLong nodes = new AtomicLong();
+        private final AtomicLong bytes = new AtomicLong();
+        private volatile boolean exhausted = false;
+
+        private Tracker(BuildBudget budget, CancellationToken cancellationToken) {
+            this.budget = budget;
+            this.cancellationToken = cancellationToken;
+        }
+
+        /**
+         * Charge a node and its estimated size to the budget.
+         */
+        public void addNode(long estimatedBytes) {
+            nodes.incrementAndGet();
+            bytes.addAndGet(estimatedBytes);
+        }
+
+        /**
+         * @return true once the build has been cancelled or has run out of time, nodes or bytes
+         */
+        public boolean isExhausted() {
+            if (!exhausted && ((cancellationToken != null && cancellationToken.isCancelled())
+                    || nodes.get() >= budget.maxNodes || bytes.get() >= budget.maxBytes
+                    || (budget.maxNanos != Long.MAX_VALUE && System.nanoTime() - startNanos >= budget.maxNanos))) {
+                exhausted = true;
+            }
+            return exhausted;
+        }
+
+        public long getNodes() {
+            return nodes.get();
+        }
+
+        public long getBytes() {
+            return bytes.get();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package quickdt.predictiveModels;
+
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Asks a build to stop, either when {@link #cancel()} is called or once a deadline has passed.  Builders check the
+ * token cooperatively, between the nodes of a tree and the trees of a forest, see
+ * {@link PredictiveModelBuilder#cancellationToken(CancellationToken)}.
+ */
+public class CancellationToken {
+    private volatile boolean cancelled = false;
+    private volatile long deadlineNanos = 0;
+    private volatile boolean hasDeadline = false;
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Cancel once <code>duration</code> has passed, unless cancelled earlier.
+     */
+    public CancellationToken cancelAfter(long duration, TimeUnit unit) {
+        Preconditions.checkArgument(duration >= 0, "Duration must not be negative");
+        deadlineNanos = System.nanoTime() + unit.toNanos(duration);
+        hasDeadline = true;
+        return this;
+    }
+
+    public boolean isCancelled() {
+        if (!cancelled && hasDeadline && System.nanoTime() - deadlineNanos >= 0) {
+            cancelled = true;
+        }
+        return cancelled;
+    }
+}
@@ -16,4 +16,47 @@ public interface PredictiveModelBuilder<PM extends PredictiveModel> {
     PM buildPredictiveModel(Iterable<? extends AbstractInstance> trainingData);
     PredictiveModelBuilder<PM> updatable(boolean updatable);
     void setID(Serializable id);
+
+    /**
+     * Seeds the randomness of this builder's builds, so that the same training data always builds the same model.
+     * Builders that use no randomness ignore the seed, which is the default; builders that wrap another builder pass
+     * it on.
+     */
+    default PredictiveModelBuilder<PM> seed(long seed) {
+        return this;
+    }
+
+    /**
+     * Limits the time, size and estimated memory of this builder's builds.  Builders that run out of budget stop
+     * growing the model and return what they have built so far.  Builders that can't be stopped early ignore the
+     * budget, which is the default; builders that wrap another builder pass it on.
+     */
+    default PredictiveModelBuilder<PM> budget(BuildBudget budget) {
+        return this;
+    }
+
+    /**
+     * Lets another thread stop this builder's builds, which then return what they have built so far, as when they
+     * run out of {@link #budget(BuildBudget)}.  The token stays set for later builds, so set a new one for each build.
+     */
+    default PredictiveModelBuilder<PM> cancellationToken(CancellationToken cancellationToken) {
+        return this;
+    }
+
+    /**
+     * Builds a model for the segment identified by <code>id</code>. Implementations should pass the id
+     * through the build rather than storing it on the builder, so that several segments can be built
+     * concurrently with the same builder. The default falls back on {@link #setID(Serializable)}, and
+     * therefore serializes builds on this builder, and resets the id to null once the model is built.
+     */
+    default PM buildPredictiveModel(Iterable<? extends AbstractInstance> trainingData, Serializable id) {
+        synchronized (this) {
+            setID(id);
+            try {
+                return buildPredictiveModel(trainingData);
+            } finally {
+                setID(null);
+            }
+        }
+    }
 }
@@ -1,5 +1,7 @@
 package quickdt.predictiveModels;
 
+import java.io.Serializable;
+
 import quickdt.predictiveModelOptimizer.FieldValueRecommender;
 
 import java.util.Map;
@@ -7,7 +9,7 @@ import java.util.Map;
 /**
  * Created by alexanderhawk on 3/4/14.
  */
-public interface PredictiveModelBuilderBuilder<PM extends PredictiveModel, PMB extends PredictiveModelBuilder<PM>> {
+public interface PredictiveModelBuilderBuilder<PM extends PredictiveModel, PMB extends PredictiveModelBuilder<PM>> extends Serializable {
     public Map<String, FieldValueRecommender> createDefaultParametersToOptimize();
     public PMB buildBuilder(Map<String, Object> predictiveModelConfig);
 
@@ -22,6 +22,7 @@ public class PredictiveModelWithDataBuilder<PM extends PredictiveModel>
 	protected Integer                                 rebuildThreshold;
 	protected Integer                                 splitNodeThreshold;
 	protected int                                     buildCount = 0;
+	private Serializable                              id;
 
 	public PredictiveModelWithDataBuilder(
 			UpdatablePredictiveModelBuilder<PM> updatablePredictiveModelBuilder) {
@@ -50,7 +51,37 @@ public class PredictiveModelWithDataBuilder<PM extends PredictiveModel>
 		return this;
 	}
 
+	@Override
+	public PredictiveModelWithDataBuilder<PM> seed(long seed) {
+		updatablePredictiveModelBuilder.seed(seed);
+		return this;
+	}
+
+	@Override
+	public PredictiveModelWithDataBuilder<PM> budget(BuildBudget budget) {
+		updatablePredictiveModelBuilder.budget(budget);
+		return this;
+	}
+
+	@Override
+	public PredictiveModelWithDataBuilder<PM> cancellationToken(
+			CancellationToken cancellationToken) {
+		updatablePredictiveModelBuilder.cancellationToken(cancellationToken);
+		return this;
+	}
+
 	public PM buildPredictiveModel(Iterable<? extends AbstractInstance> newData) {
+		return buildPredictiveModel(newData, id);
+	}
+
+	/**
+	 * Adds <code>newData</code> to the model of the segment identified by
+	 * <code>id</code>, passing the id on to the wrapped builder rather than setting
+	 * it.
+	 */
+	@Override
+	public PM buildPredictiveModel(Iterable<? extends AbstractInstance> newData,
+			Serializable id) {
 		if (rebuildThreshold != null || splitNodeThreshold != null) {
 			buildCount++;
 		}
@@ -64,21 +95,17 @@ public class PredictiveModelWithDataBuilder<PM extends PredictiveModel>
 		if (predictiveModel == null || (rebuildThreshold != null && rebuildThreshold != 0
 				&& buildCount > rebuildThreshold)) {
 			buildCount = 1;
-			predictiveModel = buildUpdatablePredictiveModel(trainingData);
+			predictiveModel = updatablePredictiveModelBuilder.buildPredictiveModel(trainingData, id);
 		} else {
 			boolean splitNodes = splitNodeThreshold != null && splitNodeThreshold != 0
 					&& buildCount % splitNodeThreshold == 0;
 
-			updatePredictiveModel(predictiveModel, newData, trainingData, splitNodes);
+			updatePredictiveModel(predictiveModel, newData, trainingData, splitNodes, id);
 		}
 
 		return predictiveModel;
 	}
 
-	private PM buildUpdatablePredictiveModel(List<AbstractInstance> trainingData) {
-		return updatablePredictiveModelBuilder.buildPredictiveModel(trainingData);
-	}
-
 	private void appendTrainingData(Iterable<? extends AbstractInstance> newTrainingData) {
 		int index = trainingData.size();
 		List<AbstractInstance> dataList = new ArrayList<>();
@@ -95,8 +122,15 @@ public class PredictiveModelWithDataBuilder<PM extends PredictiveModel>
 	public void updatePredictiveModel(PM predictiveModel,
 			Iterable<? extends AbstractInstance> newData,
 			List<? extends AbstractInstance> trainingData, boolean splitNodes) {
+		updatePredictiveModel(predictiveModel, newData, trainingData, splitNodes, id);
+	}
+
+	@Override
+	public void updatePredictiveModel(PM predictiveModel,
+			Iterable<? extends AbstractInstance> newData,
+			List<? extends AbstractInstance> trainingData, boolean splitNodes, Serializable id) {
 		updatablePredictiveModelBuilder.updatePredictiveModel(predictiveModel, newData,
-				trainingData, splitNodes);
+				trainingData, splitNodes, id);
 	}
 
 	@Override
@@ -106,6 +140,7 @@ public class PredictiveModelWithDataBuilder<PM extends PredictiveModel>
 
 	@Override
 	public void setID(Serializable id) {
+		this.id = id;
 		updatablePredictiveModelBuilder.setID(id);
 	}
 }
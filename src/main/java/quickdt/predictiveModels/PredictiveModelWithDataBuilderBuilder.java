@@ -9,6 +9,7 @@ import java.util.Map;
  * Created by chrisreeves on 7/2/14.
  */
 public class PredictiveModelWithDataBuilderBuilder implements PredictiveModelBuilderBuilder<PredictiveModel, PredictiveModelWithDataBuilder<PredictiveModel>>{
+    private static final long serialVersionUID = -5036868700899426919L;
     public static final String REBUILD_THRESHOLD = "rebuildThreshold";
     public static final String SPLIT_THRESHOLD = "splitThreshold";
 
@@ -2,6 +2,7 @@ package quickdt.predictiveModels;
 
 import quickdt.data.AbstractInstance;
 
+import java.io.Serializable;
 import java.util.List;
 
 /**
@@ -10,4 +11,20 @@ import java.util.List;
 public interface UpdatablePredictiveModelBuilder<PM extends PredictiveModel> extends PredictiveModelBuilder<PM>{
     public void updatePredictiveModel(PM predictiveModel, Iterable<? extends AbstractInstance> newData, List<? extends AbstractInstance> trainingData, boolean splitNodes);
     public void stripData(PM predictiveModel);
+
+    /**
+     * Updates the model of the segment identified by <code>id</code>, see
+     * {@link #buildPredictiveModel(Iterable, Serializable)}.  The default falls back on {@link #setID(Serializable)},
+     * and therefore serializes updates on this builder, and resets the id to null once the model is updated.
+     */
+    default void updatePredictiveModel(PM predictiveModel, Iterable<? extends AbstractInstance> newData, List<? extends AbstractInstance> trainingData, boolean splitNodes, Serializable id) {
+        synchronized (this) {
+            setID(id);
+            try {
+                updatePredictiveModel(predictiveModel, newData, trainingData, splitNodes);
+            } finally {
+                setID(null);
+            }
+        }
+    }
 }
@@ -8,6 +8,8 @@ import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 
 import quickdt.data.AbstractInstance;
+import quickdt.predictiveModels.BuildBudget;
+import quickdt.predictiveModels.CancellationToken;
 import quickdt.predictiveModels.PredictiveModel;
 import quickdt.predictiveModels.PredictiveModelBuilder;
 import quickdt.predictiveModels.UpdatablePredictiveModelBuilder;
@@ -25,6 +27,7 @@ public class PAVCalibratedPredictiveModelBuilder
 	private int                          binsInCalibrator = 5;
 	private final PredictiveModelBuilder predictiveModelBuilder;
 	private final Serializable           positiveClassification;
+	private Serializable                 id;
 
 	public PAVCalibratedPredictiveModelBuilder() {
 		this(new RandomForestBuilder());
@@ -52,8 +55,15 @@ public class PAVCalibratedPredictiveModelBuilder
 	@Override
 	public CalibratedPredictiveModel buildPredictiveModel(
 			Iterable<? extends AbstractInstance> trainingData) {
+		return buildPredictiveModel(trainingData, id);
+	}
+
+	@Override
+	public CalibratedPredictiveModel buildPredictiveModel(
+			Iterable<? extends AbstractInstance> trainingData, Serializable id) {
 		validateData(trainingData);
-		PredictiveModel predictiveModel = predictiveModelBuilder.buildPredictiveModel(trainingData);
+		PredictiveModel predictiveModel = predictiveModelBuilder.buildPredictiveModel(trainingData,
+				id);
 		Calibrator calibrator = createCalibrator(predictiveModel, trainingData);
 		return new CalibratedPredictiveModel(predictiveModel, calibrator, positiveClassification);
 	}
@@ -77,6 +87,25 @@ public class PAVCalibratedPredictiveModelBuilder
 		return this;
 	}
 
+	@Override
+	public PredictiveModelBuilder<CalibratedPredictiveModel> seed(long seed) {
+		predictiveModelBuilder.seed(seed);
+		return this;
+	}
+
+	@Override
+	public PredictiveModelBuilder<CalibratedPredictiveModel> budget(BuildBudget budget) {
+		predictiveModelBuilder.budget(budget);
+		return this;
+	}
+
+	@Override
+	public PredictiveModelBuilder<CalibratedPredictiveModel> cancellationToken(
+			CancellationToken cancellationToken) {
+		predictiveModelBuilder.cancellationToken(cancellationToken);
+		return this;
+	}
+
 	@Override
 	public void updatePredictiveModel(CalibratedPredictiveModel predictiveModel,
 			Iterable<? extends AbstractInstance> newData,
@@ -104,6 +133,7 @@ public class PAVCalibratedPredictiveModelBuilder
 
 	@Override
 	public void setID(Serializable id) {
+		this.id = id;
 		predictiveModelBuilder.setID(id);
 	}
 
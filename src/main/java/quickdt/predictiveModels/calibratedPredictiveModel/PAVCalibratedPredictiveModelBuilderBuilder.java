@@ -13,6 +13,7 @@ import java.util.Map;
  * Created by alexanderhawk on 3/10/14.
  */
 public class PAVCalibratedPredictiveModelBuilderBuilder implements UpdatablePredictiveModelBuilderBuilder<CalibratedPredictiveModel, PAVCalibratedPredictiveModelBuilder> {
+    private static final long serialVersionUID = 3423609624849776814L;
     private static final String BINS_IN_CALIBRATOR = "binsInCalibrator";
 
     private final PredictiveModelBuilderBuilder<?, ?> wrappedBuilderBuilder;
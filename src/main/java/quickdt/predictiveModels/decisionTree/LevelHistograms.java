@@ -0,0 +1,131 @@
+package quickdt.predictiveModels.decisionTree;
+
+import static quickdt.predictiveModels.decisionTree.TreeBuilder.MISSING_VALUE;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import quickdt.data.AbstractInstance;
+import quickdt.data.Attributes;
+
+/**
+ * The counts one pass of a {@link LevelWiseTreeBuilder} makes of the
+ * instances reaching each node of the level being grown. The histograms of
+ * the shards of the training data add up to those of the whole.
+ */
+public final class LevelHistograms implements Serializable {
+	private static final long serialVersionUID = -7750960744393367591L;
+
+	final NodeHistogram[]     nodes;
+
+	LevelHistograms(LevelPlan plan) {
+		nodes = new NodeHistogram[plan.getNodeCount()];
+		for (int x = 0; x < nodes.length; x++) {
+			nodes[x] = new NodeHistogram(plan.survey, plan.ignoredAttributes[x]);
+		}
+	}
+
+	void add(int node, AbstractInstance instance, LevelWiseSurvey survey) {
+		nodes[node].add(instance.getAttributes(),
+				survey.classIndexes.get(instance.getClassification()), instance.getWeight(),
+				survey);
+	}
+
+	/**
+	 * Add the counts of another shard of the training data, made with the same
+	 * plan, to these.
+	 *
+	 * @return these histograms
+	 */
+	public LevelHistograms merge(LevelHistograms other) {
+		for (int x = 0; x < nodes.length; x++) {
+			nodes[x].add(other.nodes[x]);
+		}
+		return this;
+	}
+
+	/**
+	 * The counts, by classification, of the instances reaching a node: per bin
+	 * of each numeric attribute and per value of each categorical attribute.
+	 * Attributes ignored at the node aren't counted.
+	 */
+	static final class NodeHistogram implements Serializable {
+		private static final long            serialVersionUID = 4925146424785426104L;
+
+		/**
+		 * per numeric attribute, the counts of bin <code>b</code> and
+		 * classification <code>c</code> at <code>b * classes + c</code>
+		 */
+		final double[][]                     numericCounts;
+		final Map<Serializable, double[]>[]  categoricalCounts;
+
+		@SuppressWarnings("unchecked")
+		private NodeHistogram(LevelWiseSurvey survey, boolean[] ignoredAttributes) {
+			final int classes = survey.classifications.size();
+			numericCounts = new double[survey.numericAttributes.length][];
+			for (int x = 0; x < numericCounts.length; x++) {
+				if (!ignoredAttributes[x]) {
+					numericCounts[x] = new double[(survey.thresholds[x].length + 1) * classes];
+				}
+			}
+			categoricalCounts = new Map[survey.categoricalAttributes.length];
+			for (int x = 0; x < categoricalCounts.length; x++) {
+				if (!ignoredAttributes[numericCounts.length + x]) {
+					categoricalCounts[x] = new HashMap<>();
+				}
+			}
+		}
+
+		private void add(Attributes attributes, int classIndex, double weight,
+				LevelWiseSurvey survey) {
+			final int classes = survey.classifications.size();
+			for (int x = 0; x < numericCounts.length; x++) {
+				if (numericCounts[x] != null) {
+					// missing values go where NumericBranch sends them, as 0
+					final Serializable value = attributes.get(survey.numericAttributes[x]);
+					final double doubleValue = value != null ? ((Number) value).doubleValue() : 0;
+					final int search = Arrays.binarySearch(survey.thresholds[x], doubleValue);
+					final int bin = search >= 0 ? search : -search - 1;
+					numericCounts[x][bin * classes + classIndex] += weight;
+				}
+			}
+			for (int x = 0; x < categoricalCounts.length; x++) {
+				if (categoricalCounts[x] != null) {
+					Serializable value = attributes.get(survey.categoricalAttributes[x]);
+					if (value == null) {
+						value = MISSING_VALUE;
+					}
+					double[] counts = categoricalCounts[x].get(value);
+					if (counts == null) {
+						counts = new double[classes];
+						categoricalCounts[x].put(value, counts);
+					}
+					counts[classIndex] += weight;
+				}
+			}
+		}
+
+		private void add(NodeHistogram other) {
+			for (int x = 0; x < numericCounts.length; x++) {
+				if (numericCounts[x] != null) {
+					LevelWiseTreeBuilder.addTo(numericCounts[x], other.numericCounts[x]);
+				}
+			}
+			for (int x = 0; x < categoricalCounts.length; x++) {
+				if (categoricalCounts[x] != null) {
+					for (Entry<Serializable, double[]> entry : other.categoricalCounts[x].entrySet()) {
+						final double[] counts = categoricalCounts[x].get(entry.getKey());
+						if (counts == null) {
+							categoricalCounts[x].put(entry.getKey(), entry.getValue());
+						} else {
+							LevelWiseTreeBuilder.addTo(counts, entry.getValue());
+						}
+					}
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,63 @@
+package quickdt.predictiveModels.decisionTree;
+
+import java.io.Serializable;
+
+import quickdt.data.Attributes;
+import quickdt.predictiveModels.decisionTree.tree.Branch;
+
+/**
+ * What a {@link LevelWiseTreeBuilder} sends with each pass over the training
+ * data: the splits chosen from the previous pass's counts, which move each
+ * instance from the node it reached then to one of that node's children, and
+ * what to count at each node of the level now being grown.
+ *
+ * The nodes of a level are numbered from 0 in the order their histograms are
+ * returned. The splits are detached copies of the tree's branches, so a plan
+ * is small enough to send to other processes with every pass.
+ */
+public final class LevelPlan implements Serializable {
+	private static final long serialVersionUID = 6120478325138458170L;
+
+	final LevelWiseSurvey     survey;
+	/**
+	 * per node of the previous level, its split, or null if it was made a leaf;
+	 * null itself for the first pass, in which every instance is at the root
+	 */
+	private final Branch[]    splits;
+	/**
+	 * per node of the previous level, the numbers of its children in this
+	 * level, -1 for children made leaves
+	 */
+	private final int[]       trueChildren, falseChildren;
+	final boolean[][]         ignoredAttributes;
+
+	LevelPlan(LevelWiseSurvey survey, Branch[] splits, int[] trueChildren, int[] falseChildren,
+			boolean[][] ignoredAttributes) {
+		this.survey = survey;
+		this.splits = splits;
+		this.trueChildren = trueChildren;
+		this.falseChildren = falseChildren;
+		this.ignoredAttributes = ignoredAttributes;
+	}
+
+	public int getNodeCount() {
+		return ignoredAttributes.length;
+	}
+
+	/**
+	 * @param previousNode the node the instance reached in the previous pass, or
+	 *                     -1 if it reached a leaf before then
+	 * @return the node the instance reaches in this pass, or -1 if it reaches a
+	 *         leaf
+	 */
+	int route(int previousNode, Attributes attributes) {
+		if (splits == null) {
+			return 0;
+		}
+		if (previousNode < 0 || splits[previousNode] == null) {
+			return -1;
+		}
+		return splits[previousNode].decide(attributes) ? trueChildren[previousNode]
+				: falseChildren[previousNode];
+	}
+}
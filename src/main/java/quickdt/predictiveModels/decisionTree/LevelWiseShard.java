@@ -0,0 +1,46 @@
+package quickdt.predictiveModels.decisionTree;
+
+import java.util.List;
+
+import quickdt.data.AbstractInstance;
+
+/**
+ * A shard of the training data of a {@link LevelWiseTreeBuilder}, held in
+ * memory by the process that counts it, such as a worker of
+ * {@link quickdt.distributed.DistributedTreeBuilder}. The node each row
+ * reached in the last pass is kept, so that each pass moves a row to a child
+ * by the split of that node alone, rather than routing it down from the root.
+ */
+public final class LevelWiseShard {
+	private final List<? extends AbstractInstance> rows;
+	private final int[]                            nodes;
+
+	public LevelWiseShard(List<? extends AbstractInstance> rows) {
+		this.rows = rows;
+		this.nodes = new int[rows.size()];
+	}
+
+	public int size() {
+		return rows.size();
+	}
+
+	public TrainingDataSummary summarize(long seed) {
+		return TrainingDataSummary.of(rows, seed);
+	}
+
+	/**
+	 * Move each row to its node of the level being grown, by the plan's splits,
+	 * and count it in that node's histogram.
+	 */
+	public LevelHistograms count(LevelPlan plan) {
+		final LevelHistograms histograms = new LevelHistograms(plan);
+		for (int x = 0; x < nodes.length; x++) {
+			final AbstractInstance row = rows.get(x);
+			nodes[x] = plan.route(nodes[x], row.getAttributes());
+			if (nodes[x] >= 0) {
+				histograms.add(nodes[x], row, plan.survey);
+			}
+		}
+		return histograms;
+	}
+}
@@ -0,0 +1,79 @@
+package quickdt.predictiveModels.decisionTree;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import com.google.common.base.Preconditions;
+
+import quickdt.predictiveModels.decisionTree.tree.ClassCounter;
+
+/**
+ * What every pass of a {@link LevelWiseTreeBuilder} counts with, from the
+ * {@link TrainingDataSummary}: the classifications, which attributes are
+ * numeric and their thresholds, and the counts of the root.
+ */
+final class LevelWiseSurvey implements Serializable {
+	private static final long        serialVersionUID = -3504637305187766020L;
+
+	final List<Serializable>         classifications  = new ArrayList<>();
+	final Map<Serializable, Integer> classIndexes     = new HashMap<>();
+	final String[]                   numericAttributes;
+	final double[][]                 thresholds;
+	final String[]                   categoricalAttributes;
+	final boolean                    binaryClassifications;
+	final int                        minorityClassIndex;
+	final double[]                   totals;
+
+	LevelWiseSurvey(TrainingDataSummary summary, int numericBins, boolean binaryClassification) {
+		Preconditions.checkArgument(!summary.classificationTotals.isEmpty(),
+				"Can't build a tree with no training data");
+		totals = new double[summary.classificationTotals.size()];
+		for (Entry<Serializable, Double> entry : summary.classificationTotals.entrySet()) {
+			classIndexes.put(entry.getKey(), classifications.size());
+			totals[classifications.size()] = entry.getValue();
+			classifications.add(entry.getKey());
+		}
+
+		final List<String> numeric = new ArrayList<>();
+		final List<double[]> numericThresholds = new ArrayList<>();
+		final List<String> categorical = new ArrayList<>();
+		for (Entry<String, TrainingDataSummary.Reservoir> entry : summary.attributes.entrySet()) {
+			if (summary.categoricalAttributes.contains(entry.getKey())) {
+				categorical.add(entry.getKey());
+			} else {
+				numeric.add(entry.getKey());
+				numericThresholds.add(entry.getValue().getThresholds(numericBins - 1));
+			}
+		}
+		numericAttributes = numeric.toArray(new String[0]);
+		thresholds = numericThresholds.toArray(new double[0][]);
+		categoricalAttributes = categorical.toArray(new String[0]);
+
+		binaryClassifications = binaryClassification && classifications.size() <= 2;
+		int minority = 0;
+		for (int x = 1; x < totals.length; x++) {
+			if (totals[x] < totals[minority]) {
+				minority = x;
+			}
+		}
+		minorityClassIndex = minority;
+	}
+
+	int getAttributeCount() {
+		return numericAttributes.length + categoricalAttributes.length;
+	}
+
+	ClassCounter toClassCounter(double[] counts) {
+		final ClassCounter classCounter = new ClassCounter();
+		for (int x = 0; x < counts.length; x++) {
+			if (counts[x] > 0) {
+				classCounter.addClassification(classifications.get(x), counts[x]);
+			}
+		}
+		return classCounter;
+	}
+}
@@ -0,0 +1,656 @@
+package quickdt.predictiveModels.decisionTree;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.google.common.base.Preconditions;
+
+import quickdt.data.AbstractInstance;
+import quickdt.data.Attributes;
+import quickdt.predictiveModels.BuildBudget;
+import quickdt.predictiveModels.CancellationToken;
+import quickdt.predictiveModels.PredictiveModelBuilder;
+import quickdt.predictiveModels.decisionTree.LevelHistograms.NodeHistogram;
+import quickdt.predictiveModels.decisionTree.scorers.MSEScorer;
+import quickdt.predictiveModels.decisionTree.tree.Branch;
+import quickdt.predictiveModels.decisionTree.tree.CategoricalBranch;
+import quickdt.predictiveModels.decisionTree.tree.ClassCounter;
+import quickdt.predictiveModels.decisionTree.tree.Leaf;
+import quickdt.predictiveModels.decisionTree.tree.Node;
+import quickdt.predictiveModels.decisionTree.tree.NumericBranch;
+import quickdt.predictiveModels.decisionTree.tree.SplitGainImportance;
+import quickdt.predictiveModels.decisionTree.tree.Tree;
+
+/**
+ * Grows a tree breadth first, a level at a time, for training data that is
+ * read from disk or is too large to hold in memory, such as
+ * {@link quickdt.syntheticData.SyntheticDataGenerator#stream(long)}.
+ *
+ * The training data is iterated over once to find the attributes, the
+ * classifications and the numeric thresholds, and then once per level of the
+ * tree. Each pass routes every instance to the node at the bottom of the tree
+ * it belongs to and adds it to that node's counts, by classification, of each
+ * numeric attribute's bins and each categorical attribute's values. The splits
+ * of all the nodes of the level are then chosen from those counts, so only the
+ * counts of one level are held in memory, never the instances. Training data
+ * that is a {@link List} is counted by <code>executorThreadCount</code>
+ * threads, each counting a range of its rows.
+ *
+ * The passes can also be made by other processes, each over a shard of the
+ * training data, through a {@link HistogramSource}: as the counts of the shards
+ * add up to those of the whole, only the counts are sent back, and only the
+ * splits chosen from them are sent out.
+ *
+ * Unlike {@link TreeBuilder}, which samples new numeric thresholds for every
+ * node, the thresholds are sampled once from all of the training data, so
+ * there are more of them by default. Split models, id attributes, ignored
+ * values and updatable trees aren't supported.
+ */
+public final class LevelWiseTreeBuilder implements PredictiveModelBuilder<Tree> {
+	private final Scorer      scorer;
+	private int               maxDepth                           = Integer.MAX_VALUE;
+	private int               numericBins                        = 32;
+	private int               maxCategoricalInSetSize            = Integer.MAX_VALUE;
+	private int               minInstancesPerCategoricalVariable = 0;
+	private int               minLeafInstances                   = 0;
+	private int               executorThreadCount                = 1;
+	private boolean           binaryClassification               = true;
+	private double            minimumScore                       = 0.00000000000001;
+	private double            ignoreAttributeAtNodeProbability   = 0.0;
+	private Long              seed                               = null;
+	private BuildBudget       budget                             = null;
+	private CancellationToken cancellationToken                  = null;
+
+	/**
+	 * Makes the passes over the training data for
+	 * {@link LevelWiseTreeBuilder#buildPredictiveModel(HistogramSource)}.
+	 */
+	public interface HistogramSource {
+		/**
+		 * Make the first pass over the training data.
+		 */
+		TrainingDataSummary summarize(long seed);
+
+		/**
+		 * Make a pass over the training data, counting each instance at the node
+		 * of the plan's level that it reaches. The plans of a build are counted
+		 * in order, each route starting from where the previous one ended.
+		 */
+		LevelHistograms count(LevelPlan plan);
+	}
+
+	public LevelWiseTreeBuilder() {
+		this(new MSEScorer(MSEScorer.CrossValidationCorrection.FALSE));
+	}
+
+	public LevelWiseTreeBuilder(final Scorer scorer) {
+		this.scorer = scorer;
+	}
+
+	/**
+	 * The number of passes over the training data is one more than the depth of
+	 * the tree, so limiting the depth also limits the passes.
+	 */
+	public LevelWiseTreeBuilder maxDepth(int maxDepth) {
+		this.maxDepth = maxDepth;
+		return this;
+	}
+
+	/**
+	 * @param numericBins the number of bins each numeric attribute's values are
+	 *                    counted in, one more than the number of thresholds
+	 *                    tested
+	 */
+	public LevelWiseTreeBuilder numericBins(int numericBins) {
+		Preconditions.checkArgument(numericBins > 1, "Numeric attributes need at least two bins");
+		this.numericBins = numericBins;
+		return this;
+	}
+
+	public LevelWiseTreeBuilder maxCategoricalInSetSize(int maxCategoricalInSetSize) {
+		this.maxCategoricalInSetSize = maxCategoricalInSetSize;
+		return this;
+	}
+
+	public LevelWiseTreeBuilder minInstancesPerCategoricalVariable(int minLimit) {
+		this.minInstancesPerCategoricalVariable = minLimit;
+		return this;
+	}
+
+	public LevelWiseTreeBuilder minLeafInstances(int minLeafInstances) {
+		this.minLeafInstances = minLeafInstances;
+		return this;
+	}
+
+	public LevelWiseTreeBuilder binaryClassification(boolean binaryClassification) {
+		this.binaryClassification = binaryClassification;
+		return this;
+	}
+
+	public LevelWiseTreeBuilder minimumScore(double minimumScore) {
+		this.minimumScore = minimumScore;
+		return this;
+	}
+
+	public LevelWiseTreeBuilder ignoreAttributeAtNodeProbability(double probability) {
+		this.ignoreAttributeAtNodeProbability = probability;
+		return this;
+	}
+
+	/**
+	 * Count training data that is a {@link List} with <code>threadCount</code>
+	 * threads. Other training data is always read sequentially.
+	 */
+	public LevelWiseTreeBuilder executorThreadCount(int threadCount) {
+		Preconditions.checkArgument(threadCount > 0, "At least one thread is needed");
+		this.executorThreadCount = threadCount;
+		return this;
+	}
+
+	/**
+	 * Seed the sampling of numeric thresholds and the choice of ignored
+	 * attributes, as {@link TreeBuilder#seed(long)} does.
+	 */
+	@Override
+	public LevelWiseTreeBuilder seed(long seed) {
+		this.seed = seed;
+		return this;
+	}
+
+	/**
+	 * Stop growing the tree once the budget has run out, by making leaves of the
+	 * nodes whose splits haven't been chosen yet. As the tree is grown a level at
+	 * a time, a tree cut short has every branch grown to about the same depth.
+	 */
+	@Override
+	public LevelWiseTreeBuilder budget(BuildBudget budget) {
+		this.budget = budget;
+		return this;
+	}
+
+	@Override
+	public LevelWiseTreeBuilder cancellationToken(CancellationToken cancellationToken) {
+		this.cancellationToken = cancellationToken;
+		return this;
+	}
+
+	@Override
+	public LevelWiseTreeBuilder updatable(boolean updatable) {
+		Preconditions.checkArgument(!updatable, "Level-wise trees can't be updated");
+		return this;
+	}
+
+	@Override
+	public void setID(Serializable id) {
+	}
+
+	@Override
+	public Tree buildPredictiveModel(final Iterable<? extends AbstractInstance> trainingData) {
+		if (!(trainingData instanceof List)) {
+			return buildPredictiveModel(new StreamSource(trainingData));
+		}
+		final ExecutorService executorService = executorThreadCount > 1
+				? Executors.newFixedThreadPool(executorThreadCount) : null;
+		try {
+			return buildPredictiveModel(new RowRangeSource(
+					(List<? extends AbstractInstance>) trainingData, executorThreadCount,
+					executorService));
+		} finally {
+			if (executorService != null) {
+				executorService.shutdown();
+			}
+		}
+	}
+
+	/**
+	 * Grow a tree from the counts the source makes of the training data.
+	 */
+	public Tree buildPredictiveModel(final HistogramSource source) {
+		final SplittableRandom random = seed != null ? new SplittableRandom(seed)
+				: new SplittableRandom();
+		final BuildBudget.Tracker tracker = BuildBudget.start(budget, cancellationToken);
+		final LevelWiseSurvey survey = new LevelWiseSurvey(source.summarize(random.nextLong()),
+				numericBins, binaryClassification);
+		final GrowingNode root = new GrowingNode(null, false, survey.totals, 0);
+		final SplitGainImportance splitGainImportance = new SplitGainImportance();
+		List<GrowingNode> frontier = new ArrayList<>();
+		if (canSplit(root)) {
+			frontier.add(root);
+		} else {
+			makeLeaf(root, survey, tracker);
+		}
+		// how the nodes of the last level counted were split, for the next plan
+		Branch[] splits = null;
+		int[] trueChildren = null, falseChildren = null;
+		while (!frontier.isEmpty()) {
+			if (tracker != null && tracker.isExhausted()) {
+				for (GrowingNode node : frontier) {
+					makeLeaf(node, survey, tracker);
+				}
+				break;
+			}
+			final boolean[][] ignoredAttributes = new boolean[frontier.size()][];
+			for (int x = 0; x < ignoredAttributes.length; x++) {
+				ignoredAttributes[x] = chooseIgnoredAttributes(survey, random);
+			}
+			final LevelHistograms histograms = source.count(new LevelPlan(survey, splits,
+					trueChildren, falseChildren, ignoredAttributes));
+
+			final List<GrowingNode> nextFrontier = new ArrayList<>();
+			splits = new Branch[frontier.size()];
+			trueChildren = new int[frontier.size()];
+			falseChildren = new int[frontier.size()];
+			for (int x = 0; x < frontier.size(); x++) {
+				final GrowingNode node = frontier.get(x);
+				final Split split = chooseSplit(node, histograms.nodes[x], survey, tracker);
+				if (split == null) {
+					makeLeaf(node, survey, tracker);
+					continue;
+				}
+				splits[x] = split.inSet != null
+						? new CategoricalBranch(null, split.attribute, split.inSet)
+						: new NumericBranch(null, split.attribute, split.threshold);
+				final double splitGain = split.score * total(node.counts);
+				final Branch branch = split.inSet != null
+						? new CategoricalBranch(node.parent, split.attribute, split.inSet, splitGain)
+						: new NumericBranch(node.parent, split.attribute, split.threshold, splitGain);
+				splitGainImportance.add(branch.attribute, splitGain);
+				node.setNode(branch);
+				if (tracker != null) {
+					tracker.addNode(TreeBuilder.estimateBytes(branch));
+				}
+				trueChildren[x] = grow(new GrowingNode(branch, true, split.inCounts,
+						node.depth + 1), survey, tracker, nextFrontier);
+				falseChildren[x] = grow(new GrowingNode(branch, false, split.outCounts,
+						node.depth + 1), survey, tracker, nextFrontier);
+			}
+			frontier = nextFrontier;
+		}
+		return new Tree(root.node, splitGainImportance);
+	}
+
+	/**
+	 * Add <code>child</code> to the next level if it may be split, or make it a
+	 * leaf.
+	 *
+	 * @return the child's number in the next level, or -1 if it is a leaf
+	 */
+	private int grow(GrowingNode child, LevelWiseSurvey survey, BuildBudget.Tracker tracker,
+			List<GrowingNode> nextFrontier) {
+		if (!canSplit(child)) {
+			makeLeaf(child, survey, tracker);
+			return -1;
+		}
+		nextFrontier.add(child);
+		return nextFrontier.size() - 1;
+	}
+
+	private boolean canSplit(GrowingNode node) {
+		if (node.depth >= maxDepth || total(node.counts) < Math.max(2 * minLeafInstances, 1)) {
+			return false;
+		}
+		int classifications = 0;
+		for (double count : node.counts) {
+			if (count > 0) {
+				classifications++;
+			}
+		}
+		return classifications > 1;
+	}
+
+	private boolean[] chooseIgnoredAttributes(LevelWiseSurvey survey, SplittableRandom random) {
+		final boolean[] ignored = new boolean[survey.getAttributeCount()];
+		if (ignoreAttributeAtNodeProbability > 0) {
+			for (int x = 0; x < ignored.length; x++) {
+				ignored[x] = random.nextDouble() < ignoreAttributeAtNodeProbability;
+			}
+		}
+		return ignored;
+	}
+
+	/**
+	 * Choose the best split of <code>node</code> from its histogram.
+	 *
+	 * @return the split, or null if the node should be a leaf
+	 */
+	private Split chooseSplit(GrowingNode node, NodeHistogram histogram, LevelWiseSurvey survey,
+			BuildBudget.Tracker tracker) {
+		if (tracker != null && tracker.isExhausted()) {
+			return null;
+		}
+		Split best = null;
+		for (int x = 0; x < survey.numericAttributes.length; x++) {
+			if (histogram.numericCounts[x] != null) {
+				best = better(best, createNumericSplit(node, x, histogram.numericCounts[x], survey));
+			}
+		}
+		for (int x = 0; x < survey.categoricalAttributes.length; x++) {
+			if (histogram.categoricalCounts[x] != null) {
+				final String attribute = survey.categoricalAttributes[x];
+				final Split split = survey.binaryClassifications
+						? createTwoClassCategoricalSplit(node, attribute, histogram.categoricalCounts[x], survey)
+						: createNClassCategoricalSplit(node, attribute, histogram.categoricalCounts[x], survey);
+				best = better(best, split);
+			}
+		}
+		if (best == null || best.score < minimumScore || total(best.inCounts) < minLeafInstances
+				|| total(best.outCounts) < minLeafInstances) {
+			return null;
+		}
+		return best;
+	}
+
+	private static Split better(Split best, Split split) {
+		return split != null && (best == null || split.score > best.score) ? split : best;
+	}
+
+	private static void makeLeaf(GrowingNode node, LevelWiseSurvey survey, BuildBudget.Tracker tracker) {
+		final Leaf leaf = new Leaf(node.parent, survey.toClassCounter(node.counts), node.depth);
+		node.setNode(leaf);
+		if (tracker != null) {
+			tracker.addNode(TreeBuilder.estimateBytes(leaf));
+		}
+	}
+
+	/**
+	 * Tests each threshold between the bins of a numeric attribute, instances
+	 * with values greater than the threshold going to the true child.
+	 */
+	private Split createNumericSplit(GrowingNode node, int attributeIndex, double[] binCounts,
+			LevelWiseSurvey survey) {
+		final double[] thresholds = survey.thresholds[attributeIndex];
+		final int classes = survey.classifications.size();
+		final double[] outCounts = new double[classes];
+		Split best = null;
+		for (int bin = 0; bin < thresholds.length; bin++) {
+			for (int c = 0; c < classes; c++) {
+				outCounts[c] += binCounts[bin * classes + c];
+			}
+			final double[] inCounts = subtract(node.counts, outCounts);
+			final double inTotal = total(inCounts);
+			final double outTotal = total(outCounts);
+			if (inTotal == 0 || outTotal == 0 || inTotal < minLeafInstances
+					|| outTotal < minLeafInstances) {
+				continue;
+			}
+			final double score = scorer.scoreSplit(survey.toClassCounter(inCounts),
+					survey.toClassCounter(outCounts));
+			if (score > (best != null ? best.score : 0)) {
+				best = new Split(survey.numericAttributes[attributeIndex], score, inCounts,
+						outCounts.clone());
+				best.threshold = thresholds[bin];
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * As {@link TreeBuilder} does, orders the values by the proportion of the
+	 * minority classification and tests each prefix of them as the in-set.
+	 */
+	private Split createTwoClassCategoricalSplit(GrowingNode node, String attribute,
+			Map<Serializable, double[]> valueCounts, LevelWiseSurvey survey) {
+		final int minority = survey.minorityClassIndex;
+		final List<Entry<Serializable, double[]>> values = new ArrayList<>(valueCounts.entrySet());
+		values.sort((a, b) -> {
+			final double aTotal = total(a.getValue());
+			final double bTotal = total(b.getValue());
+			final int signum = (int) Math.signum(b.getValue()[minority] / bTotal
+					- a.getValue()[minority] / aTotal);
+			return signum == 0 ? (int) Math.signum(bTotal - aTotal) : signum;
+		});
+
+		final double noSplitScore = scorer.scoreSplit(survey.toClassCounter(node.counts),
+				new ClassCounter());
+		final double[] inCounts = new double[survey.classifications.size()];
+		final Set<Serializable> inSet = new HashSet<>();
+		Split best = null;
+		for (int x = 0; x < values.size() - 1; x++) {
+			final double[] counts = values.get(x).getValue();
+			if (total(counts) < minInstancesPerCategoricalVariable) {
+				continue;
+			}
+			addTo(inCounts, counts);
+			inSet.add(values.get(x).getKey());
+			final double[] outCounts = subtract(node.counts, inCounts);
+			final int outSetSize = values.size() - inSet.size();
+			if (total(inCounts) < minLeafInstances || total(outCounts) < minLeafInstances
+					|| (inSet.size() > maxCategoricalInSetSize
+							&& outSetSize > maxCategoricalInSetSize)) {
+				continue;
+			}
+			final double score = scorer.scoreSplit(survey.toClassCounter(inCounts),
+					survey.toClassCounter(outCounts));
+			if (score > Math.max(noSplitScore, best != null ? best.score : 0)) {
+				best = new Split(attribute, score, inCounts.clone(), outCounts);
+				best.inSet = new HashSet<>(inSet);
+			}
+		}
+		if (best != null && valueCounts.size() - best.inSet.size() < best.inSet.size()) {
+			// as the smaller set makes the faster branch, swap the sets
+			final Set<Serializable> outSet = new HashSet<>(valueCounts.keySet());
+			outSet.removeAll(best.inSet);
+			final Split swapped = new Split(attribute, best.score, best.outCounts, best.inCounts);
+			swapped.inSet = outSet;
+			best = swapped;
+		}
+		return best;
+	}
+
+	/**
+	 * As {@link TreeBuilder} does, greedily adds the value that most improves
+	 * the score to the in-set until none does.
+	 */
+	private Split createNClassCategoricalSplit(GrowingNode node, String attribute,
+			Map<Serializable, double[]> valueCounts, LevelWiseSurvey survey) {
+		if (total(node.counts) / valueCounts.size() < minInstancesPerCategoricalVariable) {
+			return null;
+		}
+		final Set<Serializable> inSet = new HashSet<>();
+		double[] inCounts = new double[survey.classifications.size()];
+		double[] outCounts = node.counts.clone();
+		double inSetScore = 0;
+		while (inSet.size() < maxCategoricalInSetSize) {
+			Serializable bestValue = null;
+			double bestScore = inSetScore;
+			for (Entry<Serializable, double[]> value : valueCounts.entrySet()) {
+				if (inSet.contains(value.getKey())
+						|| total(value.getValue()) < minInstancesPerCategoricalVariable) {
+					continue;
+				}
+				final double[] testOutCounts = subtract(outCounts, value.getValue());
+				if (total(testOutCounts) == 0) {
+					continue;
+				}
+				final double[] testInCounts = inCounts.clone();
+				addTo(testInCounts, value.getValue());
+				final double score = scorer.scoreSplit(survey.toClassCounter(testInCounts),
+						survey.toClassCounter(testOutCounts));
+				if (score > bestScore) {
+					bestScore = score;
+					bestValue = value.getKey();
+				}
+			}
+			if (bestValue == null) {
+				break;
+			}
+			inSet.add(bestValue);
+			addTo(inCounts, valueCounts.get(bestValue));
+			outCounts = subtract(outCounts, valueCounts.get(bestValue));
+			inSetScore = bestScore;
+		}
+		if (inSet.isEmpty()) {
+			return null;
+		}
+		final Split split = new Split(attribute, inSetScore, inCounts, outCounts);
+		split.inSet = inSet;
+		return split;
+	}
+
+	private static double total(double[] counts) {
+		double total = 0;
+		for (double count : counts) {
+			total += count;
+		}
+		return total;
+	}
+
+	static void addTo(double[] counts, double[] other) {
+		for (int x = 0; x < counts.length; x++) {
+			counts[x] += other[x];
+		}
+	}
+
+	private static double[] subtract(double[] counts, double[] other) {
+		final double[] result = new double[counts.length];
+		for (int x = 0; x < counts.length; x++) {
+			// clamped, as sums of the same weights added in a different order can differ
+			result[x] = Math.max(0, counts[x] - other[x]);
+		}
+		return result;
+	}
+
+	/**
+	 * Counts training data that is only iterated over, routing each instance
+	 * down through the splits of every plan so far.
+	 */
+	private static final class StreamSource implements HistogramSource {
+		private final Iterable<? extends AbstractInstance> trainingData;
+		private final List<LevelPlan>                      plans = new ArrayList<>();
+
+		private StreamSource(Iterable<? extends AbstractInstance> trainingData) {
+			this.trainingData = trainingData;
+		}
+
+		@Override
+		public TrainingDataSummary summarize(long seed) {
+			return TrainingDataSummary.of(trainingData, seed);
+		}
+
+		@Override
+		public LevelHistograms count(LevelPlan plan) {
+			plans.add(plan);
+			final LevelHistograms histograms = new LevelHistograms(plan);
+			for (AbstractInstance instance : trainingData) {
+				final Attributes attributes = instance.getAttributes();
+				int node = 0;
+				for (int x = 0; x < plans.size() && node >= 0; x++) {
+					node = plans.get(x).route(node, attributes);
+				}
+				if (node >= 0) {
+					histograms.add(node, instance, plan.survey);
+				}
+			}
+			return histograms;
+		}
+	}
+
+	/**
+	 * Counts training data that is a {@link List} as a {@link LevelWiseShard}
+	 * per range of its rows, on the executor if there is one. The summary is of
+	 * all the rows, so the tree doesn't depend on the number of threads.
+	 */
+	private static final class RowRangeSource implements HistogramSource {
+		private final List<? extends AbstractInstance> rows;
+		private final List<LevelWiseShard>             shards = new ArrayList<>();
+		private final ExecutorService                  executorService;
+
+		private RowRangeSource(List<? extends AbstractInstance> rows, int ranges,
+				ExecutorService executorService) {
+			this.rows = rows;
+			this.executorService = executorService;
+			final int rangeSize = Math.max(1, (rows.size() + ranges - 1) / ranges);
+			for (int start = 0; start < rows.size(); start += rangeSize) {
+				shards.add(new LevelWiseShard(rows.subList(start, Math.min(start + rangeSize, rows.size()))));
+			}
+		}
+
+		@Override
+		public TrainingDataSummary summarize(long seed) {
+			return TrainingDataSummary.of(rows, seed);
+		}
+
+		@Override
+		public LevelHistograms count(LevelPlan plan) {
+			if (executorService == null) {
+				final LevelHistograms histograms = new LevelHistograms(plan);
+				for (LevelWiseShard shard : shards) {
+					histograms.merge(shard.count(plan));
+				}
+				return histograms;
+			}
+			final List<Future<LevelHistograms>> futures = new ArrayList<>();
+			for (LevelWiseShard shard : shards) {
+				futures.add(executorService.submit(() -> shard.count(plan)));
+			}
+			try {
+				final LevelHistograms histograms = new LevelHistograms(plan);
+				for (Future<LevelHistograms> future : futures) {
+					histograms.merge(future.get());
+				}
+				return histograms;
+			} catch (InterruptedException | ExecutionException e) {
+				throw new RuntimeException(e);
+			}
+		}
+	}
+
+	/**
+	 * A node of the tree being grown, which is a leaf, a branch, or a node of
+	 * the level being counted, whose split is chosen at the end of the pass.
+	 */
+	private static final class GrowingNode {
+		private final Branch   parent;
+		private final boolean  isTrueChild;
+		private final double[] counts;
+		private final int      depth;
+		private Node           node;
+
+		private GrowingNode(Branch parent, boolean isTrueChild, double[] counts, int depth) {
+			this.parent = parent;
+			this.isTrueChild = isTrueChild;
+			this.counts = counts;
+			this.depth = depth;
+		}
+
+		private void setNode(Node node) {
+			this.node = node;
+			if (parent != null) {
+				if (isTrueChild) {
+					parent.trueChild = node;
+				} else {
+					parent.falseChild = node;
+				}
+			}
+		}
+	}
+
+	/**
+	 * A candidate split and the counts of its children.
+	 */
+	private static final class Split {
+		private final String     attribute;
+		private final double     score;
+		private final double[]   inCounts;
+		private final double[]   outCounts;
+		private double           threshold;
+		private Set<Serializable> inSet;
+
+		private Split(String attribute, double score, double[] inCounts, double[] outCounts) {
+			this.attribute = attribute;
+			this.score = score;
+			this.inCounts = inCounts;
+			this.outCounts = outCounts;
+		}
+	}
+}
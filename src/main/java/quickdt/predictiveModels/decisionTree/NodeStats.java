@@ -0,0 +1,110 @@
+package quickdt.predictiveModels.decisionTree;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * What a {@link TreeBuilder} did to build one node, see
+ * {@link TreeBuildListener#nodeBuilt(NodeStats)}.
+ *
+ * Counting time is the time spent evaluating attributes outside of the scorer:
+ * collecting the values of the attribute and counting classifications by value.
+ * Partitioning time is the time spent dividing the instances between the
+ * children of the chosen split.
+ */
+public final class NodeStats {
+	private final int                  depth;
+	private final int                  instanceCount;
+	private final int                  attributesEvaluated;
+	private final Map<String, Integer> candidateSplitsByAttribute;
+	private final long                 countingNanos;
+	private final long                 scoringNanos;
+	private final long                 partitioningNanos;
+	private final String               splitAttribute;
+	private final double               gain;
+
+	public NodeStats(int depth, int instanceCount, int attributesEvaluated,
+			Map<String, Integer> candidateSplitsByAttribute, long countingNanos,
+			long scoringNanos, long partitioningNanos, String splitAttribute, double gain) {
+		this.depth = depth;
+		this.instanceCount = instanceCount;
+		this.attributesEvaluated = attributesEvaluated;
+		this.candidateSplitsByAttribute = Collections.unmodifiableMap(candidateSplitsByAttribute);
+		this.countingNanos = countingNanos;
+		this.scoringNanos = scoringNanos;
+		this.partitioningNanos = partitioningNanos;
+		this.splitAttribute = splitAttribute;
+		this.gain = gain;
+	}
+
+	public int getDepth() {
+		return depth;
+	}
+
+	public int getInstanceCount() {
+		return instanceCount;
+	}
+
+	/**
+	 * @return the number of attributes considered for the split, excluding the id
+	 *         attribute and randomly ignored attributes
+	 */
+	public int getAttributesEvaluated() {
+		return attributesEvaluated;
+	}
+
+	/**
+	 * @return the number of candidate splits the scorer was asked to score, by
+	 *         attribute
+	 */
+	public Map<String, Integer> getCandidateSplitsByAttribute() {
+		return candidateSplitsByAttribute;
+	}
+
+	public int getCandidateSplits() {
+		int candidateSplits = 0;
+		for (Integer splits : candidateSplitsByAttribute.values()) {
+			candidateSplits += splits;
+		}
+		return candidateSplits;
+	}
+
+	public long getCountingNanos() {
+		return countingNanos;
+	}
+
+	public long getScoringNanos() {
+		return scoringNanos;
+	}
+
+	public long getPartitioningNanos() {
+		return partitioningNanos;
+	}
+
+	/**
+	 * @return the attribute the node was split on, or null if it is a leaf
+	 */
+	public String getSplitAttribute() {
+		return splitAttribute;
+	}
+
+	public boolean isLeaf() {
+		return splitAttribute == null;
+	}
+
+	/**
+	 * @return the split gain (score weighted by the instances split), 0 for a leaf
+	 */
+	public double getGain() {
+		return gain;
+	}
+
+	@Override
+	public String toString() {
+		return "NodeStats{depth=" + depth + ", instanceCount=" + instanceCount
+				+ ", attributesEvaluated=" + attributesEvaluated + ", candidateSplits="
+				+ getCandidateSplits() + ", countingNanos=" + countingNanos + ", scoringNanos="
+				+ scoringNanos + ", partitioningNanos=" + partitioningNanos + ", splitAttribute="
+				+ splitAttribute + ", gain=" + gain + '}';
+	}
+}
@@ -0,0 +1,338 @@
+package quickdt.predictiveModels.decisionTree;
+
+import java.io.Serializable;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import quickdt.predictiveModels.decisionTree.tree.Tree;
+
+/**
+ * A {@link TreeBuildListener} that adds up the events of the builds it is
+ * registered with: where the time went (counting, scoring and partitioning),
+ * how much work was done at each depth, which attributes were tried and chosen,
+ * and, for forests, how long trees waited for a thread and which threads built
+ * them.
+ *
+ * <pre>
+ * ProfilingTreeBuildListener profile = new ProfilingTreeBuildListener();
+ * new RandomForestBuilder().listener(profile).buildPredictiveModel(trainingData);
+ * profile.logReport();
+ * </pre>
+ *
+ * Use one listener per build for a per-build profile, or {@link #reset()} it
+ * between builds. The counters can also be watched through JMX, see
+ * {@link #registerMBean(String)}.
+ */
+public class ProfilingTreeBuildListener
+		implements TreeBuildListener, ProfilingTreeBuildListenerMXBean {
+	private static final Logger logger = LoggerFactory.getLogger(ProfilingTreeBuildListener.class);
+
+	private final LongAdder                               builds              = new LongAdder();
+	private final LongAdder                               buildNanos          = new LongAdder();
+	private final LongAdder                               nodes               = new LongAdder();
+	private final LongAdder                               leaves              = new LongAdder();
+	private final LongAccumulator                         maxDepth            = new LongAccumulator(
+			Math::max, 0);
+	private final LongAdder                               instancesAtNodes    = new LongAdder();
+	private final LongAdder                               attributesEvaluated = new LongAdder();
+	private final LongAdder                               candidateSplits     = new LongAdder();
+	private final LongAdder                               countingNanos       = new LongAdder();
+	private final LongAdder                               scoringNanos        = new LongAdder();
+	private final LongAdder                               partitioningNanos   = new LongAdder();
+	private final LongAdder                               forestTrees         = new LongAdder();
+	private final LongAdder                               forestBuildNanos    = new LongAdder();
+	private final LongAdder                               forestQueueNanos    = new LongAdder();
+	private final ConcurrentMap<Integer, DepthProfile>    depths              = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, AttributeProfile> attributes          = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, LongAdder>        treesByThread       = new ConcurrentHashMap<>();
+
+	@Override
+	public void nodeBuilt(NodeStats stats) {
+		nodes.increment();
+		if (stats.isLeaf()) {
+			leaves.increment();
+		}
+		maxDepth.accumulate(stats.getDepth());
+		instancesAtNodes.add(stats.getInstanceCount());
+		attributesEvaluated.add(stats.getAttributesEvaluated());
+		countingNanos.add(stats.getCountingNanos());
+		scoringNanos.add(stats.getScoringNanos());
+		partitioningNanos.add(stats.getPartitioningNanos());
+
+		final DepthProfile depth = depths.computeIfAbsent(stats.getDepth(),
+				d -> new DepthProfile());
+		depth.nodes.increment();
+		depth.instances.add(stats.getInstanceCount());
+		depth.nanos.add(stats.getCountingNanos() + stats.getScoringNanos()
+				+ stats.getPartitioningNanos());
+
+		for (Map.Entry<String, Integer> entry : stats.getCandidateSplitsByAttribute().entrySet()) {
+			candidateSplits.add(entry.getValue());
+			final AttributeProfile attribute = attributes.computeIfAbsent(entry.getKey(),
+					a -> new AttributeProfile());
+			attribute.evaluations.increment();
+			attribute.candidateSplits.add(entry.getValue());
+		}
+		if (!stats.isLeaf()) {
+			final AttributeProfile attribute = attributes.computeIfAbsent(
+					stats.getSplitAttribute(), a -> new AttributeProfile());
+			attribute.chosen.increment();
+			attribute.gain.add(stats.getGain());
+		}
+	}
+
+	@Override
+	public void buildFinished(Serializable id, Tree tree, long buildNanos) {
+		builds.increment();
+		this.buildNanos.add(buildNanos);
+	}
+
+	@Override
+	public void forestTreeBuilt(int treeIndex, long queueWaitNanos, long buildNanos,
+			String thread) {
+		forestTrees.increment();
+		forestQueueNanos.add(queueWaitNanos);
+		forestBuildNanos.add(buildNanos);
+		treesByThread.computeIfAbsent(thread, t -> new LongAdder()).increment();
+	}
+
+	/**
+	 * Forget everything seen so far. Events of builds still running while this is
+	 * called may be partly kept.
+	 */
+	@Override
+	public void reset() {
+		builds.reset();
+		buildNanos.reset();
+		nodes.reset();
+		leaves.reset();
+		maxDepth.reset();
+		instancesAtNodes.reset();
+		attributesEvaluated.reset();
+		candidateSplits.reset();
+		countingNanos.reset();
+		scoringNanos.reset();
+		partitioningNanos.reset();
+		forestTrees.reset();
+		forestBuildNanos.reset();
+		forestQueueNanos.reset();
+		depths.clear();
+		attributes.clear();
+		treesByThread.clear();
+	}
+
+	/**
+	 * Register this listener with the platform MBean server, under
+	 * <code>quickdt:type=TreeBuildProfile,name=</code><code>name</code>.
+	 *
+	 * @return the name it was registered under, to unregister it
+	 */
+	public ObjectName registerMBean(String name) {
+		try {
+			final ObjectName objectName = new ObjectName(
+					"quickdt:type=TreeBuildProfile,name=" + ObjectName.quote(name));
+			final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			server.registerMBean(this, objectName);
+			return objectName;
+		} catch (JMException e) {
+			throw new RuntimeException("Unable to register the build profile " + name, e);
+		}
+	}
+
+	public void logReport() {
+		logger.info("Tree build profile\n{}", getReport());
+	}
+
+	/**
+	 * @return a table of the time spent and work done, overall, by depth, by
+	 *         attribute and, for forests, by thread
+	 */
+	@Override
+	public String getReport() {
+		final StringBuilder report = new StringBuilder();
+		final long totalNanos = countingNanos.sum() + scoringNanos.sum()
+				+ partitioningNanos.sum();
+		report.append(String.format("builds: %d in %d ms, nodes: %d (%d leaves), max depth: %d%n",
+				getBuilds(), getBuildMillis(), getNodes(), getLeaves(), getMaxDepth()));
+		report.append(String.format(
+				"counting: %d ms (%.1f%%), scoring: %d ms (%.1f%%), partitioning: %d ms (%.1f%%)%n",
+				getCountingMillis(), percent(countingNanos.sum(), totalNanos),
+				getScoringMillis(), percent(scoringNanos.sum(), totalNanos),
+				getPartitioningMillis(), percent(partitioningNanos.sum(), totalNanos)));
+		report.append(String.format("attributes evaluated: %d, candidate splits scored: %d%n",
+				getAttributesEvaluated(), getCandidateSplits()));
+
+		report.append(String.format("%n%6s %10s %14s %10s%n", "depth", "nodes", "instances",
+				"ms"));
+		for (Map.Entry<Integer, DepthProfile> entry : new TreeMap<>(depths).entrySet()) {
+			final DepthProfile depth = entry.getValue();
+			report.append(String.format("%6d %10d %14d %10d%n", entry.getKey(),
+					depth.nodes.sum(), depth.instances.sum(), millis(depth.nanos)));
+		}
+
+		report.append(String.format("%n%-24s %12s %16s %8s %12s%n", "attribute", "evaluations",
+				"candidate splits", "chosen", "gain"));
+		for (Map.Entry<String, AttributeProfile> entry : new TreeMap<>(attributes).entrySet()) {
+			final AttributeProfile attribute = entry.getValue();
+			report.append(String.format("%-24s %12d %16d %8d %12.4g%n", entry.getKey(),
+					attribute.evaluations.sum(), attribute.candidateSplits.sum(),
+					attribute.chosen.sum(), attribute.gain.sum()));
+		}
+
+		if (getForestTrees() > 0) {
+			report.append(String.format(
+					"%nforest trees: %d, building: %d ms, waiting for a thread: %d ms%n",
+					getForestTrees(), getForestTreeBuildMillis(), getForestQueueWaitMillis()));
+			for (Map.Entry<String, LongAdder> entry : new TreeMap<>(treesByThread).entrySet()) {
+				report.append(String.format("%-24s %6d trees%n", entry.getKey(),
+						entry.getValue().sum()));
+			}
+		}
+		return report.toString();
+	}
+
+	@Override
+	public String toString() {
+		return getReport();
+	}
+
+	@Override
+	public long getBuilds() {
+		return builds.sum();
+	}
+
+	@Override
+	public long getBuildMillis() {
+		return millis(buildNanos);
+	}
+
+	@Override
+	public long getNodes() {
+		return nodes.sum();
+	}
+
+	@Override
+	public long getLeaves() {
+		return leaves.sum();
+	}
+
+	@Override
+	public long getMaxDepth() {
+		return maxDepth.get();
+	}
+
+	@Override
+	public long getInstancesAtNodes() {
+		return instancesAtNodes.sum();
+	}
+
+	@Override
+	public long getAttributesEvaluated() {
+		return attributesEvaluated.sum();
+	}
+
+	@Override
+	public long getCandidateSplits() {
+		return candidateSplits.sum();
+	}
+
+	@Override
+	public long getCountingMillis() {
+		return millis(countingNanos);
+	}
+
+	@Override
+	public long getScoringMillis() {
+		return millis(scoringNanos);
+	}
+
+	@Override
+	public long getPartitioningMillis() {
+		return millis(partitioningNanos);
+	}
+
+	@Override
+	public long getForestTrees() {
+		return forestTrees.sum();
+	}
+
+	@Override
+	public long getForestTreeBuildMillis() {
+		return millis(forestBuildNanos);
+	}
+
+	@Override
+	public long getForestQueueWaitMillis() {
+		return millis(forestQueueNanos);
+	}
+
+	/**
+	 * @return the number of candidate splits scored for each attribute
+	 */
+	public Map<String, Long> getCandidateSplitsByAttribute() {
+		final Map<String, Long> candidateSplitsByAttribute = new TreeMap<>();
+		for (Map.Entry<String, AttributeProfile> entry : attributes.entrySet()) {
+			candidateSplitsByAttribute.put(entry.getKey(), entry.getValue().candidateSplits.sum());
+		}
+		return candidateSplitsByAttribute;
+	}
+
+	/**
+	 * @return the number of nodes split on each attribute
+	 */
+	public Map<String, Long> getSplitsByAttribute() {
+		final Map<String, Long> splitsByAttribute = new TreeMap<>();
+		for (Map.Entry<String, AttributeProfile> entry : attributes.entrySet()) {
+			if (entry.getValue().chosen.sum() > 0) {
+				splitsByAttribute.put(entry.getKey(), entry.getValue().chosen.sum());
+			}
+		}
+		return splitsByAttribute;
+	}
+
+	/**
+	 * @return the number of forest trees built by each thread
+	 */
+	public Map<String, Long> getTreesByThread() {
+		final Map<String, Long> trees = new TreeMap<>();
+		for (Map.Entry<String, LongAdder> entry : treesByThread.entrySet()) {
+			trees.put(entry.getKey(), entry.getValue().sum());
+		}
+		return trees;
+	}
+
+	private static long millis(LongAdder nanos) {
+		return TimeUnit.NANOSECONDS.toMillis(nanos.sum());
+	}
+
+	private static double percent(long part, long total) {
+		return total == 0 ? 0 : 100.0 * part / total;
+	}
+
+	private static final class DepthProfile {
+		private final LongAdder nodes     = new LongAdder();
+		private final LongAdder instances = new LongAdder();
+		private final LongAdder nanos     = new LongAdder();
+	}
+
+	private static final class AttributeProfile {
+		private final LongAdder   evaluations     = new LongAdder();
+		private final LongAdder   candidateSplits = new LongAdder();
+		private final LongAdder   chosen          = new LongAdder();
+		private final DoubleAdder gain            = new DoubleAdder();
+	}
+}
@@ -0,0 +1,38 @@
+package quickdt.predictiveModels.decisionTree;
+
+/**
+ * The counters of a {@link ProfilingTreeBuildListener}, as exported to JMX.
+ */
+public interface ProfilingTreeBuildListenerMXBean {
+	long getBuilds();
+
+	long getBuildMillis();
+
+	long getNodes();
+
+	long getLeaves();
+
+	long getMaxDepth();
+
+	long getInstancesAtNodes();
+
+	long getAttributesEvaluated();
+
+	long getCandidateSplits();
+
+	long getCountingMillis();
+
+	long getScoringMillis();
+
+	long getPartitioningMillis();
+
+	long getForestTrees();
+
+	long getForestTreeBuildMillis();
+
+	long getForestQueueWaitMillis();
+
+	String getReport();
+
+	void reset();
+}
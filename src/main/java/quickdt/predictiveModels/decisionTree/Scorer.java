@@ -1,11 +1,15 @@
 package quickdt.predictiveModels.decisionTree;
 
+import java.io.Serializable;
+
 import quickdt.predictiveModels.decisionTree.tree.ClassCounter;
 
 /**
  * The scorer is responsible for assessing the quality of a "split" of data.
+ * Scorers are serializable so that a configured {@link TreeBuilder} can be
+ * sent to another process.
  */
-public interface Scorer {
+public interface Scorer extends Serializable {
 	/**
 	 * Assess the quality of a separation of data
 	 * 
@@ -0,0 +1,153 @@
+package quickdt.predictiveModels.decisionTree;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import quickdt.data.AbstractInstance;
+
+/**
+ * What a first pass over the training data, or a shard of it, finds for a
+ * {@link LevelWiseTreeBuilder}: the total weight of each classification, which
+ * attributes are categorical, and a uniform sample of each numeric attribute's
+ * values. The summaries of the shards of a dataset can be merged into the
+ * summary of the whole.
+ */
+public final class TrainingDataSummary implements Serializable {
+	private static final long serialVersionUID = 2816355018426350271L;
+	private static final int  RESERVOIR_SIZE   = 1000;
+
+	final Map<Serializable, Double> classificationTotals = new LinkedHashMap<>();
+	/**
+	 * every attribute, in the order first seen, with a sample of its numeric values
+	 */
+	final Map<String, Reservoir>    attributes           = new LinkedHashMap<>();
+	final Set<String>               categoricalAttributes = new LinkedHashSet<>();
+
+	private TrainingDataSummary() {
+	}
+
+	public static TrainingDataSummary of(Iterable<? extends AbstractInstance> trainingData,
+			long seed) {
+		final SplittableRandom random = new SplittableRandom(seed);
+		final TrainingDataSummary summary = new TrainingDataSummary();
+		for (AbstractInstance instance : trainingData) {
+			summary.classificationTotals.merge(instance.getClassification(),
+					instance.getWeight(), Double::sum);
+			for (Entry<String, Serializable> entry : instance.getAttributes().entrySet()) {
+				Reservoir reservoir = summary.attributes.get(entry.getKey());
+				if (reservoir == null) {
+					reservoir = new Reservoir();
+					summary.attributes.put(entry.getKey(), reservoir);
+				}
+				if (entry.getValue() instanceof Number) {
+					reservoir.sample(((Number) entry.getValue()).doubleValue(), random);
+				} else {
+					summary.categoricalAttributes.add(entry.getKey());
+				}
+			}
+		}
+		return summary;
+	}
+
+	/**
+	 * Add the summary of another shard of the training data to this one, the
+	 * samples of each numeric attribute being drawn from both in proportion to
+	 * the number of values each sampled.
+	 *
+	 * @return this summary
+	 */
+	public TrainingDataSummary merge(TrainingDataSummary other, long seed) {
+		final SplittableRandom random = new SplittableRandom(seed);
+		for (Entry<Serializable, Double> entry : other.classificationTotals.entrySet()) {
+			classificationTotals.merge(entry.getKey(), entry.getValue(), Double::sum);
+		}
+		for (Entry<String, Reservoir> entry : other.attributes.entrySet()) {
+			final Reservoir reservoir = attributes.get(entry.getKey());
+			attributes.put(entry.getKey(), reservoir == null ? entry.getValue()
+					: Reservoir.merge(reservoir, entry.getValue(), random));
+		}
+		categoricalAttributes.addAll(other.categoricalAttributes);
+		return this;
+	}
+
+	/**
+	 * A uniform sample of a numeric attribute's values.
+	 */
+	static final class Reservoir implements Serializable {
+		private static final long serialVersionUID = -4389618829571468925L;
+
+		private double[]          samples          = new double[RESERVOIR_SIZE];
+		private long              count;
+
+		private void sample(double value, SplittableRandom random) {
+			if (count < samples.length) {
+				samples[(int) count] = value;
+			} else {
+				final long index = random.nextLong(count + 1);
+				if (index < samples.length) {
+					samples[(int) index] = value;
+				}
+			}
+			count++;
+		}
+
+		private int size() {
+			return (int) Math.min(count, samples.length);
+		}
+
+		private static Reservoir merge(Reservoir a, Reservoir b, SplittableRandom random) {
+			final Reservoir merged = new Reservoir();
+			merged.count = a.count + b.count;
+			if (a.size() + b.size() <= RESERVOIR_SIZE) {
+				// nothing has been left out of either sample, so keep all of both
+				System.arraycopy(a.samples, 0, merged.samples, 0, a.size());
+				System.arraycopy(b.samples, 0, merged.samples, a.size(), b.size());
+				return merged;
+			}
+			final double[] aSamples = shuffle(a, random);
+			final double[] bSamples = shuffle(b, random);
+			int aTaken = 0;
+			int bTaken = 0;
+			final double aProbability = (double) a.count / merged.count;
+			for (int x = 0; x < RESERVOIR_SIZE; x++) {
+				final boolean takeA = bTaken == bSamples.length
+						|| (aTaken < aSamples.length && random.nextDouble() < aProbability);
+				merged.samples[x] = takeA ? aSamples[aTaken++] : bSamples[bTaken++];
+			}
+			return merged;
+		}
+
+		private static double[] shuffle(Reservoir reservoir, SplittableRandom random) {
+			final double[] shuffled = Arrays.copyOf(reservoir.samples, reservoir.size());
+			for (int x = shuffled.length - 1; x > 0; x--) {
+				final int swap = random.nextInt(x + 1);
+				final double value = shuffled[x];
+				shuffled[x] = shuffled[swap];
+				shuffled[swap] = value;
+			}
+			return shuffled;
+		}
+
+		/**
+		 * @return up to <code>maxThresholds</code> distinct thresholds, evenly
+		 *         spaced through the sorted samples
+		 */
+		double[] getThresholds(int maxThresholds) {
+			final double[] sorted = Arrays.copyOf(samples, size());
+			Arrays.sort(sorted);
+			final double[] thresholds = new double[Math.min(maxThresholds,
+					Math.max(0, sorted.length - 1))];
+			final int indexMultiplier = sorted.length / (thresholds.length + 1);
+			for (int x = 0; x < thresholds.length; x++) {
+				thresholds[x] = sorted[(x + 1) * indexMultiplier];
+			}
+			return Arrays.stream(thresholds).distinct().toArray();
+		}
+	}
+}
@@ -0,0 +1,56 @@
+package quickdt.predictiveModels.decisionTree;
+
+import java.io.Serializable;
+
+import quickdt.predictiveModels.decisionTree.tree.Tree;
+
+/**
+ * Receives events from a {@link TreeBuilder} (and the
+ * {@link quickdt.predictiveModels.randomForest.RandomForestBuilder} using it)
+ * as trees are built, to see where training time goes. All methods do nothing
+ * by default.
+ *
+ * The trees of a forest are built concurrently, so implementations must be
+ * thread safe. When no listener is registered the builders skip all timing and
+ * counting.
+ *
+ * @see ProfilingTreeBuildListener
+ */
+public interface TreeBuildListener {
+	/**
+	 * Called before a tree is built or updated.
+	 *
+	 * @param id the id of the split model the tree is built for, or null
+	 */
+	default void buildStarted(Serializable id) {
+	}
+
+	/**
+	 * Called once the split of a node has been chosen, or the node has been made a
+	 * leaf, and before its children are built.
+	 */
+	default void nodeBuilt(NodeStats stats) {
+	}
+
+	/**
+	 * Called after a tree has been built or updated.
+	 *
+	 * @param buildNanos the wall clock time of the whole build
+	 */
+	default void buildFinished(Serializable id, Tree tree, long buildNanos) {
+	}
+
+	/**
+	 * Called by a random forest builder after each of its trees has been built or
+	 * updated.
+	 *
+	 * @param treeIndex      the index of the tree in the forest
+	 * @param queueWaitNanos the time between the tree being submitted to the
+	 *                       executor and a thread starting on it
+	 * @param buildNanos     the time taken to build the tree
+	 * @param thread         the name of the thread that built it
+	 */
+	default void forestTreeBuilt(int treeIndex, long queueWaitNanos, long buildNanos,
+			String thread) {
+	}
+}
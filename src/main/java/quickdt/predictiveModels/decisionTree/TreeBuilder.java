@@ -5,12 +5,14 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
-import java.util.Random;
 import java.util.Set;
+import java.util.SplittableRandom;
 import java.util.stream.Collectors;
 
 import javax.annotation.Nullable;
@@ -26,8 +28,10 @@ import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.twitter.common.stats.ReservoirSampler;
 
-import quickdt.Misc;
+import quickdt.collections.HyperLogLog;
 import quickdt.data.AbstractInstance;
+import quickdt.predictiveModels.BuildBudget;
+import quickdt.predictiveModels.CancellationToken;
 import quickdt.predictiveModels.UpdatablePredictiveModelBuilder;
 import quickdt.predictiveModels.decisionTree.scorers.MSEScorer;
 import quickdt.predictiveModels.decisionTree.tree.AttrValClassCounter;
@@ -38,12 +42,20 @@ import quickdt.predictiveModels.decisionTree.tree.IdAttributeHandler;
 import quickdt.predictiveModels.decisionTree.tree.Leaf;
 import quickdt.predictiveModels.decisionTree.tree.Node;
 import quickdt.predictiveModels.decisionTree.tree.NumericBranch;
+import quickdt.predictiveModels.decisionTree.tree.SplitGainImportance;
 import quickdt.predictiveModels.decisionTree.tree.Tree;
 import quickdt.predictiveModels.decisionTree.tree.UpdatableLeaf;
 
-public final class TreeBuilder implements UpdatablePredictiveModelBuilder<Tree> {
-	private static final int         RESERVOIR_SIZE = 1000;
-	public static final Serializable MISSING_VALUE  = "%missingVALUE%83257";
+/**
+ * Builds decision trees depth first. The builder is serializable, so that its
+ * configuration can be sent to other processes to build trees there; the
+ * listener, budget and cancellation token are local to a process, and aren't
+ * sent.
+ */
+public final class TreeBuilder implements UpdatablePredictiveModelBuilder<Tree>, Serializable {
+	private static final long        serialVersionUID = -3516227410862931076L;
+	private static final int         RESERVOIR_SIZE   = 1000;
+	public static final Serializable MISSING_VALUE    = "%missingVALUE%83257";
 
 	private final Scorer                      scorer;
 	private int                               maxDepth                           = Integer.MAX_VALUE;
@@ -53,20 +65,23 @@ public final class TreeBuilder implements UpdatablePredictiveModelBuilder<Tree>
 	private int                               numericTestSplits                  = 5;
 	private boolean                           updatable                          = false;
 	private boolean                           forceSplitsOnMissing               = false;
-	private boolean                           binaryClassifications              = true;
+	private boolean                           binaryClassification               = true;
 	private boolean                           pruneSameCategory                  = false;
 	private boolean                           treatNumericAsCategorical          = false;
+	private boolean                           extraTrees                         = false;
 	private double                            minimumScore                       = 0.00000000000001;
 	private double                            ignoreAttributeAtNodeProbability   = 0.0;
 	private double                            eps                                = .000001;
-	private Serializable                      minorityClassification;
 	private String                            splitAttribute                     = null;
 	private Set<String>                       splitModelWhiteList;
 	private Serializable                      id;
-	private IdAttributeHandler                idAttributeHandler                 = new IdAttributeHandler();
-	private HashMap<Serializable, MutableInt> classifications                    = Maps
-			.newHashMap();
+	private String                            idAttribute;
+	private int                               idAttributeHyperLogLogPrecision;
 	private List<Serializable>                ignoredValues                      = new ArrayList<>();
+	private Long                              seed                               = null;
+	private transient TreeBuildListener       listener                           = null;
+	private transient BuildBudget             budget                             = null;
+	private transient CancellationToken       cancellationToken                  = null;
 
 	public TreeBuilder() {
 		this(new MSEScorer(MSEScorer.CrossValidationCorrection.FALSE));
@@ -104,7 +119,7 @@ public final class TreeBuilder implements UpdatablePredictiveModelBuilder<Tree>
 	}
 
 	public TreeBuilder binaryClassification(boolean binaryClassification) {
-		this.binaryClassifications = binaryClassification;
+		this.binaryClassification = binaryClassification;
 		return this;
 	}
 
@@ -152,7 +167,21 @@ public final class TreeBuilder implements UpdatablePredictiveModelBuilder<Tree>
 	 * See {@link IdAttributeHandler} for detail.
 	 */
 	public TreeBuilder setIdAttribute(String idAttribute) {
-		this.idAttributeHandler = new IdAttributeHandler(idAttribute);
+		return setIdAttribute(idAttribute, 0);
+	}
+
+	/**
+	 * Like {@link #setIdAttribute(String)}, but estimates the unique id counts
+	 * with HyperLogLog sketches of the given precision rather than counting them
+	 * exactly.
+	 */
+	public TreeBuilder setIdAttribute(String idAttribute, int hyperLogLogPrecision) {
+		Preconditions.checkArgument(hyperLogLogPrecision == 0
+				|| (hyperLogLogPrecision >= HyperLogLog.MIN_PRECISION
+						&& hyperLogLogPrecision <= HyperLogLog.MAX_PRECISION),
+				"Invalid HyperLogLog precision %s", hyperLogLogPrecision);
+		this.idAttribute = idAttribute;
+		this.idAttributeHyperLogLogPrecision = hyperLogLogPrecision;
 		return this;
 	}
 
@@ -182,21 +211,141 @@ public final class TreeBuilder implements UpdatablePredictiveModelBuilder<Tree>
 		return this;
 	}
 
+	/**
+	 * Grow extremely randomized trees: rather than searching for the best split
+	 * of each attribute, score a single random one, a threshold drawn uniformly
+	 * between the node's smallest and largest value of a numeric attribute, or a
+	 * random in-set of the node's values of a categorical attribute, and split on
+	 * the best of these. Each node then takes a pass or two over its instances per
+	 * attribute, with no numeric splits sampled and no values sorted, at the cost
+	 * of weaker individual trees, which is best made up for by averaging many of
+	 * them in a forest.
+	 */
+	public TreeBuilder extraTrees(boolean extraTrees) {
+		this.extraTrees = extraTrees;
+		return this;
+	}
+
+	/**
+	 * Seed the random choices of each build (numeric split sampling, ignored
+	 * attributes and the assignment of supporting instances), so that the same
+	 * training data always builds the same tree. Each build has its own generator,
+	 * so concurrent builds don't contend on one. Unseeded builds are seeded
+	 * randomly.
+	 */
+	@Override
+	public TreeBuilder seed(long seed) {
+		this.seed = seed;
+		return this;
+	}
+
+	/**
+	 * Report each build, and each node built, to <code>listener</code>. Builds
+	 * are only timed and counted while a listener is set.
+	 */
+	public TreeBuilder listener(TreeBuildListener listener) {
+		this.listener = listener;
+		return this;
+	}
+
+	public TreeBuildListener getListener() {
+		return listener;
+	}
+
+	/**
+	 * Stop growing the tree once the budget has run out, by making leaves of all
+	 * the nodes not built yet. The tree is built depth first, so a tree cut short
+	 * is complete on its first branches and shallow on its last ones. The node and
+	 * byte limits can be exceeded by the depth of the tree, as every node that has
+	 * been started ends up as at least a leaf.
+	 */
+	@Override
+	public TreeBuilder budget(BuildBudget budget) {
+		this.budget = budget;
+		return this;
+	}
+
+	/**
+	 * Stop growing the tree once <code>cancellationToken</code> is cancelled, as
+	 * when the {@link #budget(BuildBudget)} runs out.
+	 */
+	@Override
+	public TreeBuilder cancellationToken(CancellationToken cancellationToken) {
+		this.cancellationToken = cancellationToken;
+		return this;
+	}
+
 	@Override
 	public void setID(Serializable id) {
 		this.id = id;
 	}
 
+	/**
+	 * @deprecated a builder can build several trees at once, so it doesn't hold
+	 *             the counts of any of them. The handler returned reads the counts
+	 *             of a leaf from the leaf, but has no total counts; use
+	 *             {@link Tree#getIdAttributeHandler()} instead.
+	 */
+	@Deprecated
 	public IdAttributeHandler getIdAttributeHandler() {
-		return idAttributeHandler;
+		return new IdAttributeHandler(idAttribute, idAttributeHyperLogLogPrecision);
 	}
 
 	@Override
 	public Tree buildPredictiveModel(final Iterable<? extends AbstractInstance> trainingData) {
-		setBinaryClassificationProperties(trainingData);
-		Tree tree = new Tree(buildTree(null, trainingData, 0, createNumericSplits(trainingData)));
+		return buildPredictiveModel(trainingData, id);
+	}
+
+	/**
+	 * Builds a tree for the split model identified by <code>id</code> (see
+	 * {@link #splitPredictiveModel(String, Set)}), without changing the id set on
+	 * this builder.
+	 */
+	@Override
+	public Tree buildPredictiveModel(final Iterable<? extends AbstractInstance> trainingData,
+			final Serializable id) {
+		return buildPredictiveModel(trainingData, id, createRandom(),
+				BuildBudget.start(budget, cancellationToken));
+	}
+
+	/**
+	 * Like {@link #buildPredictiveModel(Iterable, Serializable)}, but seeded with
+	 * <code>seed</code> rather than the seed of this builder, so that each tree of
+	 * a forest can be built with its own seed.
+	 */
+	public Tree buildSeededPredictiveModel(final Iterable<? extends AbstractInstance> trainingData,
+			final Serializable id, final long seed) {
+		return buildSeededPredictiveModel(trainingData, id, seed,
+				BuildBudget.start(budget, cancellationToken));
+	}
+
+	/**
+	 * Like {@link #buildSeededPredictiveModel(Iterable, Serializable, long)}, but
+	 * charged to <code>tracker</code> rather than a budget of its own, so that the
+	 * trees of a forest can share one budget.
+	 *
+	 * @param tracker the budget to charge, or null for none
+	 */
+	public Tree buildSeededPredictiveModel(final Iterable<? extends AbstractInstance> trainingData,
+			final Serializable id, final long seed, final BuildBudget.Tracker tracker) {
+		return buildPredictiveModel(trainingData, id, new SplittableRandom(seed), tracker);
+	}
+
+	private Tree buildPredictiveModel(final Iterable<? extends AbstractInstance> trainingData,
+			final Serializable id, final SplittableRandom random,
+			final BuildBudget.Tracker tracker) {
+		final BuildContext context = new BuildContext(trainingData, id, random, tracker);
+		final long start = context.listener != null ? buildStarted(context) : 0;
+		Tree tree = new Tree(
+				buildTree(null, trainingData, 0, createNumericSplits(trainingData, context),
+						context),
+				context.splitGainImportance);
 		if (pruneSameCategory) {
-			return tree.pruneSameCategoryLeaves();
+			tree = tree.pruneSameCategoryLeaves();
+		}
+		countUniqueIds(tree, trainingData, context);
+		if (context.listener != null) {
+			context.listener.buildFinished(id, tree, System.nanoTime() - start);
 		}
 		return tree;
 	}
@@ -204,42 +353,110 @@ public final class TreeBuilder implements UpdatablePredictiveModelBuilder<Tree>
 	@Override
 	public void updatePredictiveModel(Tree tree, final Iterable<? extends AbstractInstance> newData,
 			List<? extends AbstractInstance> trainingData, boolean splitNodes) {
+		updatePredictiveModel(tree, newData, trainingData, splitNodes, id);
+	}
+
+	/**
+	 * Updates a tree of the split model identified by <code>id</code>, without
+	 * changing the id set on this builder.
+	 */
+	@Override
+	public void updatePredictiveModel(Tree tree, final Iterable<? extends AbstractInstance> newData,
+			List<? extends AbstractInstance> trainingData, boolean splitNodes,
+			final Serializable id) {
+		updatePredictiveModel(tree, newData, trainingData, splitNodes, id, createRandom(),
+				BuildBudget.start(budget, cancellationToken));
+	}
+
+	/**
+	 * Like {@link #updatePredictiveModel(Tree, Iterable, List, boolean)}, but
+	 * seeded with <code>seed</code> rather than the seed of this builder.
+	 */
+	public void updateSeededPredictiveModel(Tree tree, final Iterable<? extends AbstractInstance> newData,
+			List<? extends AbstractInstance> trainingData, boolean splitNodes, long seed) {
+		updateSeededPredictiveModel(tree, newData, trainingData, splitNodes, seed,
+				BuildBudget.start(budget, cancellationToken));
+	}
+
+	/**
+	 * Like {@link #updateSeededPredictiveModel(Tree, Iterable, List, boolean, long)}, but
+	 * charging the nodes split to <code>tracker</code>.
+	 *
+	 * @param tracker the budget to charge, or null for none
+	 */
+	public void updateSeededPredictiveModel(Tree tree, final Iterable<? extends AbstractInstance> newData,
+			List<? extends AbstractInstance> trainingData, boolean splitNodes, long seed,
+			BuildBudget.Tracker tracker) {
+		updateSeededPredictiveModel(tree, newData, trainingData, splitNodes, id, seed, tracker);
+	}
+
+	/**
+	 * Like {@link #updateSeededPredictiveModel(Tree, Iterable, List, boolean, long,
+	 * BuildBudget.Tracker)}, but for the split model identified by
+	 * <code>id</code>, so that the trees of a forest can be updated for it.
+	 */
+	public void updateSeededPredictiveModel(Tree tree, final Iterable<? extends AbstractInstance> newData,
+			List<? extends AbstractInstance> trainingData, boolean splitNodes,
+			final Serializable id, long seed, BuildBudget.Tracker tracker) {
+		updatePredictiveModel(tree, newData, trainingData, splitNodes, id,
+				new SplittableRandom(seed), tracker);
+	}
+
+	private void updatePredictiveModel(Tree tree, final Iterable<? extends AbstractInstance> newData,
+			List<? extends AbstractInstance> trainingData, boolean splitNodes,
+			final Serializable id, SplittableRandom random, BuildBudget.Tracker tracker) {
+		final BuildContext context = new BuildContext(trainingData, id, random, tracker);
+		final long start = context.listener != null ? buildStarted(context) : 0;
 		// first move all the data into the leaves
+		final Set<UpdatableLeaf> updatedLeaves = Collections.newSetFromMap(new IdentityHashMap<>());
 		for (AbstractInstance instance : newData) {
-			addInstanceToNode(tree.node, instance);
+			final UpdatableLeaf leaf = addInstanceToNode(tree.node, instance);
+			if (leaf != null) {
+				updatedLeaves.add(leaf);
+			}
 		}
 		// now split the leaves further if possible
 		if (splitNodes) {
-			splitNode(tree.node, trainingData);
+			splitNode(tree.node, trainingData, context);
 		}
-	}
-
-	private void setBinaryClassificationProperties(
-			Iterable<? extends AbstractInstance> trainingData) {
-
-		for (AbstractInstance instance : trainingData) {
-			Serializable classification = instance.getClassification();
-			if (classifications.containsKey(classification)) {
-				classifications.get(classification).increment();
-			} else {
-				classifications.put(classification, new MutableInt(1));
-			}
-
-			if (classifications.size() > 2) {
-				binaryClassifications = false;
-				return;
+		if (context.idAttributeHandler != null) {
+			// leaves built by the split were counted already, the ones that only
+			// took new data are counted again over all of their data
+			for (Leaf leaf : tree.node.collectLeaves()) {
+				if (updatedLeaves.contains(leaf)) {
+					context.idAttributeHandler.countUniqueValues(leaf, getData(leaf, trainingData),
+							context.classifications);
+				}
 			}
 		}
+		countUniqueIds(tree, trainingData, context);
+		tree.invalidateLeafStatistics();
+		if (context.listener != null) {
+			context.listener.buildFinished(id, tree, System.nanoTime() - start);
+		}
+	}
+
+	private long buildStarted(BuildContext context) {
+		context.listener.buildStarted(context.id);
+		return System.nanoTime();
+	}
 
-		minorityClassification = null;
-		double minorityClassificationCount = 0;
+	private SplittableRandom createRandom() {
+		return seed != null ? new SplittableRandom(seed) : new SplittableRandom();
+	}
 
-		for (Entry<Serializable, MutableInt> entry : classifications.entrySet()) {
-			if (minorityClassification == null
-					|| entry.getValue().doubleValue() < minorityClassificationCount) {
-				minorityClassification = entry.getKey();
-				minorityClassificationCount = entry.getValue().doubleValue();
-			}
+	/**
+	 * Each leaf counts its unique ids over the data it was built from as it is
+	 * built, leaves collapsed by pruning merge the counts of the leaves they
+	 * replace. Once the shape of the tree is final, only the totals are left to
+	 * count.
+	 */
+	private void countUniqueIds(Tree tree, Iterable<? extends AbstractInstance> trainingData,
+			BuildContext context) {
+		if (context.idAttributeHandler != null) {
+			context.idAttributeHandler.finishCounting(tree.node, trainingData,
+					context.classifications);
+			tree.setIdAttributeHandler(context.idAttributeHandler);
 		}
 	}
 
@@ -249,8 +466,9 @@ public final class TreeBuilder implements UpdatablePredictiveModelBuilder<Tree>
 	}
 
 	private double[] createNumericSplit(final Iterable<? extends AbstractInstance> trainingData,
-			final String attribute) {
-		final ReservoirSampler<Double> reservoirSampler = new ReservoirSampler<>(RESERVOIR_SIZE);
+			final String attribute, final BuildContext context) {
+		final ReservoirSampler<Double> reservoirSampler = new ReservoirSampler<>(RESERVOIR_SIZE,
+				context.samplerRandom);
 		for (final AbstractInstance instance : trainingData) {
 			Serializable value = instance.getAttributes().get(attribute);
 			if (value == null) {
@@ -263,7 +481,11 @@ public final class TreeBuilder implements UpdatablePredictiveModelBuilder<Tree>
 	}
 
 	private Map<String, double[]> createNumericSplits(
-			final Iterable<? extends AbstractInstance> trainingData) {
+			final Iterable<? extends AbstractInstance> trainingData, final BuildContext context) {
+		if (extraTrees) {
+			// thresholds are drawn at each node instead
+			return Maps.newHashMap();
+		}
 		final Map<String, ReservoirSampler<Double>> rsm = Maps.newHashMap();
 		for (final AbstractInstance instance : trainingData) {
 			for (final Entry<String, Serializable> attributeEntry : instance.getAttributes()
@@ -271,7 +493,8 @@ public final class TreeBuilder implements UpdatablePredictiveModelBuilder<Tree>
 				if (attributeEntry.getValue() instanceof Number) {
 					ReservoirSampler<Double> reservoirSampler = rsm.get(attributeEntry.getKey());
 					if (reservoirSampler == null) {
-						reservoirSampler = new ReservoirSampler<>(RESERVOIR_SIZE);
+						reservoirSampler = new ReservoirSampler<>(RESERVOIR_SIZE,
+								context.samplerRandom);
 						rsm.put(attributeEntry.getKey(), reservoirSampler);
 					}
 					reservoirSampler.sample(((Number) attributeEntry.getValue()).doubleValue());
@@ -312,10 +535,11 @@ public final class TreeBuilder implements UpdatablePredictiveModelBuilder<Tree>
 	 * @param depth
 	 * @param splits       Map argument -> numeric thresholds to be tested for
 	 *                     splits
+	 * @param context      the state of the build this node is part of
 	 * @return
 	 */
 	private Node buildTree(Branch parent, final Iterable<? extends AbstractInstance> trainingData,
-			final int depth, final Map<String, double[]> splits) {
+			final int depth, final Map<String, double[]> splits, final BuildContext context) {
 		Preconditions.checkArgument(!Iterables.isEmpty(trainingData),
 				"At Depth: " + depth + ". Can't build a tree with no training data");
 		final Leaf thisLeaf;
@@ -325,15 +549,15 @@ public final class TreeBuilder implements UpdatablePredictiveModelBuilder<Tree>
 			thisLeaf = new Leaf(parent, trainingData, depth);
 		}
 
-		if (idAttributeHandler.idAttribute != null) {
-			idAttributeHandler.countUniqueValues(thisLeaf, trainingData, classifications);
-		}
+		final NodeProfile profile = context.listener != null ? context.startNode(depth, trainingData)
+				: null;
 
-		if (depth >= maxDepth) {
-			return thisLeaf;
+		if (depth >= maxDepth
+				|| (context.budget != null && context.budget.isExhausted())) {
+			return leafBuilt(thisLeaf, trainingData, profile, context);
 		}
 
-		Pair<? extends Branch, Double> bestPair = getBestNodePair(parent, trainingData, splits);
+		Pair<? extends Branch, Double> bestPair = getBestNodePair(parent, trainingData, splits, context);
 		Branch bestNode = bestPair != null ? bestPair.getValue0() : null;
 		double bestScore = bestPair != null ? bestPair.getValue1() : 0;
 
@@ -344,25 +568,38 @@ public final class TreeBuilder implements UpdatablePredictiveModelBuilder<Tree>
 			// classification, (2) each attribute tried has just 1 observed value
 			// (3) subsets with the same attribute value have the same distribution of
 			// classifications
-			return thisLeaf;
+			return leafBuilt(thisLeaf, trainingData, profile, context);
 		}
 
 		final ArrayList<AbstractInstance> trueTrainingSet = Lists.newArrayList();
 		final ArrayList<AbstractInstance> falseTrainingSet = Lists.newArrayList();
-		setTrueAndFalseTrainingSets(trainingData, bestNode, trueTrainingSet, falseTrainingSet);
+		final long partitioningStart = profile != null ? System.nanoTime() : 0;
+		setTrueAndFalseTrainingSets(trainingData, bestNode, trueTrainingSet, falseTrainingSet,
+				context);
+		if (profile != null) {
+			profile.partitioningNanos = System.nanoTime() - partitioningStart;
+		}
 
 		if (trueTrainingSet.size() < this.minLeafInstances) {
-			return thisLeaf;
+			return leafBuilt(thisLeaf, trainingData, profile, context);
 		}
 
 		if (falseTrainingSet.size() < this.minLeafInstances) {
-			return thisLeaf;
+			return leafBuilt(thisLeaf, trainingData, profile, context);
 		}
 
 		double trueWeight = getTotalWeight(trueTrainingSet);
 		double falseWeight = getTotalWeight(falseTrainingSet);
 		if (trueWeight == 0 || falseWeight == 0) {
-			return thisLeaf;
+			return leafBuilt(thisLeaf, trainingData, profile, context);
+		}
+		bestNode = bestNode.withSplitGain(bestScore * (trueWeight + falseWeight));
+		context.splitGainImportance.add(bestNode.attribute, bestNode.getSplitGain());
+		if (profile != null) {
+			context.listener.nodeBuilt(profile.toStats(bestNode.attribute, bestNode.getSplitGain()));
+		}
+		if (context.budget != null) {
+			context.budget.addNode(estimateBytes(bestNode));
 		}
 
 		double[] oldSplit = null;
@@ -372,49 +609,85 @@ public final class TreeBuilder implements UpdatablePredictiveModelBuilder<Tree>
 		// recursive call. instead it is temporarily changed for the subtree, and then
 		// recovered in the end to keep it consistent with the next calls, once the
 		// subtree is processed.
-		if (bestNode instanceof NumericBranch) {
+		final boolean resplit = bestNode instanceof NumericBranch && !extraTrees;
+		if (resplit) {
 			final NumericBranch bestBranch = (NumericBranch) bestNode;
 			oldSplit = splits.get(bestBranch.attribute);
 			splits.put(bestBranch.attribute,
-					createNumericSplit(trueTrainingSet, bestBranch.attribute));
+					createNumericSplit(trueTrainingSet, bestBranch.attribute, context));
 		}
 
 		// Recurse down the true branch
-		bestNode.trueChild = buildTree(bestNode, trueTrainingSet, depth + 1, splits);
+		bestNode.trueChild = buildTree(bestNode, trueTrainingSet, depth + 1, splits, context);
 
 		// Now the falseTrainingSet splits
-		if (bestNode instanceof NumericBranch) {
+		if (resplit) {
 			final NumericBranch bestBranch = (NumericBranch) bestNode;
 			splits.put(bestBranch.attribute,
-					createNumericSplit(falseTrainingSet, bestBranch.attribute));
+					createNumericSplit(falseTrainingSet, bestBranch.attribute, context));
 		}
 
 		// Recurse down the false branch
-		bestNode.falseChild = buildTree(bestNode, falseTrainingSet, depth + 1, splits);
+		bestNode.falseChild = buildTree(bestNode, falseTrainingSet, depth + 1, splits, context);
 
 		// And now replace the original split if this is an NumericBranch
 		// todo: this behavior can be extracted into NumericBranch method; other
 		// branches would have empty method calls
-		if (bestNode instanceof NumericBranch) {
+		if (resplit) {
 			final NumericBranch bestBranch = (NumericBranch) bestNode;
 			splits.put(bestBranch.attribute, oldSplit);
 		}
 		return bestNode;
 	}
 
+	private Leaf leafBuilt(Leaf leaf, Iterable<? extends AbstractInstance> trainingData,
+			NodeProfile profile, BuildContext context) {
+		if (context.idAttributeHandler != null) {
+			context.idAttributeHandler.countUniqueValues(leaf, trainingData,
+					context.classifications);
+		}
+		if (profile != null) {
+			context.listener.nodeBuilt(profile.toStats(null, 0));
+		}
+		if (context.budget != null) {
+			context.budget.addNode(estimateBytes(leaf));
+		}
+		return leaf;
+	}
+
+	/**
+	 * A rough estimate of the bytes taken up by <code>node</code>, excluding its
+	 * children: the object itself, plus its class counts or in-set, plus the
+	 * training data indexes of updatable leaves.
+	 */
+	static long estimateBytes(Node node) {
+		if (node instanceof Leaf) {
+			final Leaf leaf = (Leaf) node;
+			long bytes = 96 + 64L * leaf.classificationCounts.allClassifications().size();
+			if (leaf instanceof UpdatableLeaf) {
+				bytes += 48L * ((UpdatableLeaf) leaf).trainingDataIndexes.size();
+			}
+			return bytes;
+		} else if (node instanceof CategoricalBranch) {
+			return 96 + 48L * ((CategoricalBranch) node).inSet.size();
+		}
+		return 96;
+	}
+
 	private void setTrueAndFalseTrainingSets(Iterable<? extends AbstractInstance> trainingData,
 			Branch bestNode, ArrayList<AbstractInstance> trueTrainingSet,
-			ArrayList<AbstractInstance> falseTrainingSet) {
+			ArrayList<AbstractInstance> falseTrainingSet, BuildContext context) {
 		final ArrayList<AbstractInstance> supportingDataSet = Lists.newArrayList();
 
 		// put instances with attribute values into appropriate training sets
 		for (AbstractInstance instance : trainingData) {
 			boolean isASupportingInstanceFromADifferentSplit = false;
 			boolean instanceNotPermittedToContributeToInsetDefinition = false;
-			boolean usingSplitModel = splitAttribute != null && id != null;
+			boolean usingSplitModel = splitAttribute != null && context.id != null;
 			if (usingSplitModel) {
-				isASupportingInstanceFromADifferentSplit = !instance.getAttributes()
-						.get(splitAttribute).equals(id);
+				// supporting instances may have had the split attribute removed
+				isASupportingInstanceFromADifferentSplit = !context.id
+						.equals(instance.getAttributes().get(splitAttribute));
 				instanceNotPermittedToContributeToInsetDefinition = !splitModelWhiteList
 						.contains(bestNode.attribute);
 			}
@@ -437,10 +710,9 @@ public final class TreeBuilder implements UpdatablePredictiveModelBuilder<Tree>
 		// put instances without values for the split attribute in the true and false
 		// set in proper proportions.
 		for (AbstractInstance instance : supportingDataSet) {
-			double trueThreshold = trueTrainingSet.size()
+			double trueThreshold = (double) trueTrainingSet.size()
 					/ (trueTrainingSet.size() + falseTrainingSet.size());
-			Random rand = Misc.random;
-			if (rand.nextDouble() < trueThreshold) {
+			if (context.random.nextDouble() < trueThreshold) {
 				trueTrainingSet.add(instance);
 			} else {
 				falseTrainingSet.add(instance);
@@ -450,7 +722,7 @@ public final class TreeBuilder implements UpdatablePredictiveModelBuilder<Tree>
 
 	private Pair<? extends Branch, Double> getBestNodePair(Branch parent,
 			final Iterable<? extends AbstractInstance> trainingData,
-			final Map<String, double[]> splits) {
+			final Map<String, double[]> splits, final BuildContext context) {
 		// should not be doing the following operation every time we call buildTree
 		Map<String, AttributeCharacteristics> attributeCharacteristics = surveyTrainingData(
 				trainingData);
@@ -462,12 +734,12 @@ public final class TreeBuilder implements UpdatablePredictiveModelBuilder<Tree>
 
 			// skip ID attribute (see IdAttributeHandler for details)
 			if (attributeCharacteristicsEntry.getKey()
-					.equals(this.idAttributeHandler.idAttribute)) {
+					.equals(idAttribute)) {
 				continue;
 			}
 
 			if (this.ignoreAttributeAtNodeProbability > 0
-					&& Misc.random.nextDouble() < this.ignoreAttributeAtNodeProbability) {// ||
+					&& context.random.nextDouble() < this.ignoreAttributeAtNodeProbability) {// ||
 																							// attributeCharacteristicsEntry.getKey().equals(splitAttribute))
 																							// {
 				continue;
@@ -477,12 +749,27 @@ public final class TreeBuilder implements UpdatablePredictiveModelBuilder<Tree>
 			Pair<? extends Branch, Double> numericPair = null;
 			Pair<? extends Branch, Double> categoricalPair = null;
 
-			if (attributeCharacteristicsEntry.getValue().isNumber) {
+			final NodeProfile profile = context.profile;
+			if (profile != null) {
+				profile.startAttribute();
+			}
+			if (extraTrees) {
+				if (attributeCharacteristicsEntry.getValue().isNumber) {
+					numericPair = createRandomNumericNode(parent,
+							attributeCharacteristicsEntry.getKey(), trainingData, context);
+				} else {
+					categoricalPair = createRandomCategoricalNode(parent,
+							attributeCharacteristicsEntry.getKey(), trainingData, context);
+				}
+			} else if (attributeCharacteristicsEntry.getValue().isNumber) {
 				numericPair = createNumericNode(parent, attributeCharacteristicsEntry.getKey(),
-						trainingData, splits.get(attributeCharacteristicsEntry.getKey()));
+						trainingData, splits.get(attributeCharacteristicsEntry.getKey()), context);
 			} else {
 				categoricalPair = createCategoricalNode(parent,
-						attributeCharacteristicsEntry.getKey(), trainingData);
+						attributeCharacteristicsEntry.getKey(), trainingData, context);
+			}
+			if (profile != null) {
+				profile.finishAttribute(attributeCharacteristicsEntry.getKey());
 			}
 
 			if (numericPair != null) {
@@ -560,19 +847,21 @@ public final class TreeBuilder implements UpdatablePredictiveModelBuilder<Tree>
 	}
 
 	private Pair<? extends Branch, Double> createCategoricalNode(Branch parent,
-			final String attribute, final Iterable<? extends AbstractInstance> instances) {
-		if (binaryClassifications) {
-			return createTwoClassCategoricalNode(parent, attribute, instances);
+			final String attribute, final Iterable<? extends AbstractInstance> instances,
+			final BuildContext context) {
+		if (context.binaryClassifications) {
+			return createTwoClassCategoricalNode(parent, attribute, instances, context);
 		} else {
-			return createNClassCategoricalNode(parent, attribute, instances);
+			return createNClassCategoricalNode(parent, attribute, instances, context);
 		}
 	}
 
 	private Pair<? extends Branch, Double> createTwoClassCategoricalNode(Branch parent,
-			final String attribute, final Iterable<? extends AbstractInstance> instances) {
+			final String attribute, final Iterable<? extends AbstractInstance> instances,
+			final BuildContext context) {
 
 		Pair<ClassCounter, List<AttrValClassCounter>> valueOutcomeCountsPairs = getSortedValueClassCounters(
-				attribute, instances);
+				attribute, instances, context);
 
 		// handle ignored values
 		IgnoredValuesHandler ignoredValuesHandler = new IgnoredValuesHandler(this.ignoredValues,
@@ -587,14 +876,14 @@ public final class TreeBuilder implements UpdatablePredictiveModelBuilder<Tree>
 		// classification counters for combining attributes
 		InOutCounts inOutCounts = new InOutCounts(new ClassCounter(), totalCounter);
 
-		ScoreTracker scoreTracker = new ScoreTracker(scorer, totalCounter);
+		ScoreTracker scoreTracker = new ScoreTracker(context.scorer, totalCounter);
 
 		// force a split on missing
 		if (forceSplitsOnMissing && hasMissing(valuesWithClassCounters)) {
 			List<AttrValClassCounter> missingCounters = getClassificationCountersForMissingValues(
 					valuesWithClassCounters);
 			inOutCounts.moveOutToIn(missingCounters.get(0).classCounter);
-			double insetScoreWithNull = scorer.scoreSplit(inOutCounts);
+			double insetScoreWithNull = context.scorer.scoreSplit(inOutCounts);
 			return Pair.with(
 					new CategoricalBranch(parent, attribute, Sets.newHashSet(MISSING_VALUE)),
 					insetScoreWithNull);
@@ -689,11 +978,11 @@ public final class TreeBuilder implements UpdatablePredictiveModelBuilder<Tree>
 	 * 
 	 */
 	private Pair<ClassCounter, List<AttrValClassCounter>> getSortedValueClassCounters(
-			String attribute, Iterable<? extends AbstractInstance> instances) {
+			String attribute, Iterable<? extends AbstractInstance> instances, BuildContext context) {
 
 		Pair<ClassCounter, List<AttrValClassCounter>> valueOutcomeCountsPairs = ClassCounter
 				.getSortedListOfAttrValuesWithClassCounters(instances, attribute, splitAttribute,
-						id, minorityClassification);
+						context.id, context.minorityClassification);
 
 		return valueOutcomeCountsPairs;
 	}
@@ -710,7 +999,8 @@ public final class TreeBuilder implements UpdatablePredictiveModelBuilder<Tree>
 	}
 
 	private Pair<? extends Branch, Double> createNClassCategoricalNode(Branch parent,
-			final String attribute, final Iterable<? extends AbstractInstance> instances) {
+			final String attribute, final Iterable<? extends AbstractInstance> instances,
+			final BuildContext context) {
 
 		final Set<Serializable> values = getAttributeValues(instances, attribute);
 
@@ -724,7 +1014,7 @@ public final class TreeBuilder implements UpdatablePredictiveModelBuilder<Tree>
 		ClassCounter inSetClassificationCounts = new ClassCounter();
 
 		final Pair<ClassCounter, Map<Serializable, ClassCounter>> valueOutcomeCountsPair = ClassCounter
-				.countAllByAttributeValues(instances, attribute, splitAttribute, id);
+				.countAllByAttributeValues(instances, attribute, splitAttribute, context.id);
 		// global classification counter (all attribute values)
 		ClassCounter outSetClassificationCounts = valueOutcomeCountsPair.getValue0();
 
@@ -740,7 +1030,7 @@ public final class TreeBuilder implements UpdatablePredictiveModelBuilder<Tree>
 			final ClassCounter testInCounts = inSetClassificationCounts.add(missingValuesCount);
 			final ClassCounter testOutCounts = outSetClassificationCounts
 					.subtract(missingValuesCount);
-			double insetScoreWithNull = scorer.scoreSplit(testInCounts, testOutCounts);
+			double insetScoreWithNull = context.scorer.scoreSplit(testInCounts, testOutCounts);
 			return Pair.with(new CategoricalBranch(parent, attribute, inValueSet),
 					insetScoreWithNull);
 		}
@@ -749,7 +1039,7 @@ public final class TreeBuilder implements UpdatablePredictiveModelBuilder<Tree>
 
 			Optional<ScoreValuePair> bestValueAndScore = getBestScoreValuePair(
 					inSetClassificationCounts, values, outSetClassificationCounts,
-					valueOutcomeCounts);
+					valueOutcomeCounts, context);
 
 			if (inValueSet.size() < maxCategoricalInSetSize && bestValueAndScore.isPresent()
 					&& bestValueAndScore.get().getScore() > insetScore) {
@@ -786,11 +1076,12 @@ public final class TreeBuilder implements UpdatablePredictiveModelBuilder<Tree>
 	 * @param values
 	 * @param outSetClassificationCounts
 	 * @param valueOutcomeCounts
+	 * @param context
 	 * @return
 	 */
 	private Optional<ScoreValuePair> getBestScoreValuePair(ClassCounter inSetClassificationCounts,
 			Set<Serializable> values, ClassCounter outSetClassificationCounts,
-			Map<Serializable, ClassCounter> valueOutcomeCounts) {
+			Map<Serializable, ClassCounter> valueOutcomeCounts, BuildContext context) {
 
 		Optional<ScoreValuePair> bestValueAndScore = Optional.empty();
 		// values should be greater than 1
@@ -809,7 +1100,8 @@ public final class TreeBuilder implements UpdatablePredictiveModelBuilder<Tree>
 			final ClassCounter testInCounts = inSetClassificationCounts.add(testValCounts);
 			final ClassCounter testOutCounts = outSetClassificationCounts.subtract(testValCounts);
 
-			double scoreWithThisValueAddedToInset = scorer.scoreSplit(testInCounts, testOutCounts);
+			double scoreWithThisValueAddedToInset = context.scorer.scoreSplit(testInCounts,
+					testOutCounts);
 
 			if (!bestValueAndScore.isPresent()
 					|| scoreWithThisValueAddedToInset > bestValueAndScore.get().getScore()) {
@@ -846,7 +1138,8 @@ public final class TreeBuilder implements UpdatablePredictiveModelBuilder<Tree>
 	}
 
 	private Pair<? extends Branch, Double> createNumericNode(Branch parent, final String attribute,
-			final Iterable<? extends AbstractInstance> instances, final double[] splits) {
+			final Iterable<? extends AbstractInstance> instances, final double[] splits,
+			final BuildContext context) {
 		double bestScore = 0;
 		double bestThreshold = 0;
 
@@ -870,7 +1163,7 @@ public final class TreeBuilder implements UpdatablePredictiveModelBuilder<Tree>
 				continue;
 			}
 
-			final double thisScore = scorer.scoreSplit(inClassificationCounts,
+			final double thisScore = context.scorer.scoreSplit(inClassificationCounts,
 					outClassificationCounts);
 
 			if (thisScore > bestScore) {
@@ -884,6 +1177,116 @@ public final class TreeBuilder implements UpdatablePredictiveModelBuilder<Tree>
 		return Pair.with(new NumericBranch(parent, attribute, bestThreshold), bestScore);
 	}
 
+	/**
+	 * Scores a single threshold, drawn uniformly between the smallest and largest
+	 * value of <code>attribute</code>, for {@link #extraTrees(boolean)}.
+	 */
+	private Pair<? extends Branch, Double> createRandomNumericNode(Branch parent,
+			final String attribute, final Iterable<? extends AbstractInstance> instances,
+			final BuildContext context) {
+		double min = Double.POSITIVE_INFINITY;
+		double max = Double.NEGATIVE_INFINITY;
+		for (final AbstractInstance instance : instances) {
+			// NaNs fail both comparisons, and so always go to the out-set
+			final double value = numericValue(instance, attribute);
+			if (value < min) {
+				min = value;
+			}
+			if (value > max) {
+				max = value;
+			}
+		}
+		if (!(min < max)) {
+			return null;
+		}
+		final double threshold = min + context.random.nextDouble() * (max - min);
+
+		final ClassCounter inClassificationCounts = new ClassCounter();
+		final ClassCounter outClassificationCounts = new ClassCounter();
+		for (final AbstractInstance instance : instances) {
+			if (numericValue(instance, attribute) > threshold) {
+				inClassificationCounts.addClassification(instance.getClassification(),
+						instance.getWeight());
+			} else {
+				outClassificationCounts.addClassification(instance.getClassification(),
+						instance.getWeight());
+			}
+		}
+		if (inClassificationCounts.getTotal() < minLeafInstances
+				|| outClassificationCounts.getTotal() < minLeafInstances) {
+			return null;
+		}
+		final double score = context.scorer.scoreSplit(inClassificationCounts,
+				outClassificationCounts);
+		if (score <= 0) {
+			return null;
+		}
+		return Pair.with(new NumericBranch(parent, attribute, threshold), score);
+	}
+
+	private static double numericValue(AbstractInstance instance, String attribute) {
+		final Serializable value = instance.getAttributes().get(attribute);
+		return value == null ? 0 : ((Number) value).doubleValue();
+	}
+
+	/**
+	 * Scores a single in-set of a random number of the values of
+	 * <code>attribute</code>, chosen at random, for {@link #extraTrees(boolean)}.
+	 * Ignored values, and values with fewer instances than
+	 * {@link #minInstancesPerCategoricalVariable(int)}, are always left out.
+	 */
+	private Pair<? extends Branch, Double> createRandomCategoricalNode(Branch parent,
+			final String attribute, final Iterable<? extends AbstractInstance> instances,
+			final BuildContext context) {
+		final Pair<ClassCounter, Map<Serializable, ClassCounter>> valueOutcomeCountsPair = ClassCounter
+				.countAllByAttributeValues(instances, attribute, splitAttribute, context.id);
+		final ClassCounter totalCounts = valueOutcomeCountsPair.getValue0();
+		final Map<Serializable, ClassCounter> valueOutcomeCounts = valueOutcomeCountsPair
+				.getValue1();
+
+		final Set<Serializable> inValueSet = Sets.newHashSet();
+		if (forceSplitsOnMissing && valueOutcomeCounts.containsKey(MISSING_VALUE)) {
+			inValueSet.add(MISSING_VALUE);
+		} else {
+			final List<Serializable> candidates = Lists.newArrayList();
+			for (final Entry<Serializable, ClassCounter> e : valueOutcomeCounts.entrySet()) {
+				if (!ignoredValues.contains(e.getKey())
+						&& !isBelowMinAttributeOccurancesThreshold(e.getValue())) {
+					candidates.add(e.getKey());
+				}
+			}
+			// the in-set must leave at least one value out
+			final int maxInSetSize = Math.min(maxCategoricalInSetSize,
+					Math.min(candidates.size(), valueOutcomeCounts.size() - 1));
+			if (maxInSetSize < 1) {
+				return null;
+			}
+			final int inSetSize = 1 + context.random.nextInt(maxInSetSize);
+			// a partial Fisher-Yates shuffle of the first inSetSize candidates
+			for (int x = 0; x < inSetSize; x++) {
+				Collections.swap(candidates, x, x + context.random.nextInt(candidates.size() - x));
+				inValueSet.add(candidates.get(x));
+			}
+		}
+
+		ClassCounter inSetClassificationCounts = new ClassCounter();
+		for (final Serializable value : inValueSet) {
+			inSetClassificationCounts = inSetClassificationCounts.add(valueOutcomeCounts.get(value));
+		}
+		final ClassCounter outSetClassificationCounts = totalCounts
+				.subtract(inSetClassificationCounts);
+		if (inSetClassificationCounts.getTotal() < minLeafInstances
+				|| outSetClassificationCounts.getTotal() < minLeafInstances) {
+			return null;
+		}
+		final double score = context.scorer.scoreSplit(inSetClassificationCounts,
+				outSetClassificationCounts);
+		if (score <= 0) {
+			return null;
+		}
+		return Pair.with(new CategoricalBranch(parent, attribute, inValueSet), score);
+	}
+
 	/**
 	 * Iterate through tree until we get to a leaf. Using the training data indexes
 	 * in the leaf and the training data provided build a tree from the leaf if
@@ -892,7 +1295,8 @@ public final class TreeBuilder implements UpdatablePredictiveModelBuilder<Tree>
 	 *
 	 * @param node The node we are attempting to further split
 	 */
-	private void splitNode(Node node, List<? extends AbstractInstance> trainingData) {
+	private void splitNode(Node node, List<? extends AbstractInstance> trainingData,
+			BuildContext context) {
 		if (node instanceof UpdatableLeaf) {
 			UpdatableLeaf leaf = (UpdatableLeaf) node;
 			if (leaf.parent != null) {
@@ -910,7 +1314,7 @@ public final class TreeBuilder implements UpdatablePredictiveModelBuilder<Tree>
 				}
 				Collection<AbstractInstance> leafData = getData(toReplace, trainingData);
 				Node newNode = buildTree(parent, leafData, leaf.depth,
-						createNumericSplits(leafData));
+						createNumericSplits(leafData, context), context);
 				// replace the child that has the same reference as toReplace, intentionally
 				// checking reference using ==
 				if (parent.trueChild == toReplace) {
@@ -918,13 +1322,14 @@ public final class TreeBuilder implements UpdatablePredictiveModelBuilder<Tree>
 				} else {
 					parent.falseChild = newNode;
 				}
+				parent.invalidateClassificationCounts();
 			}
 		} else if (node instanceof Branch) {
 			Branch branch = (Branch) node;
-			splitNode(branch.trueChild, trainingData);
+			splitNode(branch.trueChild, trainingData, context);
 			// only split false child if we aren't combining leaves
 			if (!shouldCombineData(branch)) {
-				splitNode(branch.falseChild, trainingData);
+				splitNode(branch.falseChild, trainingData, context);
 			}
 
 		}
@@ -962,18 +1367,24 @@ public final class TreeBuilder implements UpdatablePredictiveModelBuilder<Tree>
 		return indexes;
 	}
 
-	private void addInstanceToNode(Node node, AbstractInstance instance) {
+	/**
+	 * @return the leaf the instance was added to, or null if it reached a leaf
+	 *         that can't be updated
+	 */
+	private UpdatableLeaf addInstanceToNode(Node node, AbstractInstance instance) {
 		if (node instanceof UpdatableLeaf) {
 			UpdatableLeaf leaf = (UpdatableLeaf) node;
 			leaf.addInstance(instance);
+			return leaf;
 		} else if (node instanceof Branch) {
 			Branch branch = (Branch) node;
 			if (branch.getInPredicate().apply(instance)) {
-				addInstanceToNode(branch.trueChild, instance);
+				return addInstanceToNode(branch.trueChild, instance);
 			} else {
-				addInstanceToNode(branch.falseChild, instance);
+				return addInstanceToNode(branch.falseChild, instance);
 			}
 		}
+		return null;
 	}
 
 	private void stripNode(Node node) {
@@ -981,6 +1392,7 @@ public final class TreeBuilder implements UpdatablePredictiveModelBuilder<Tree>
 			UpdatableLeaf leaf = (UpdatableLeaf) node;
 			Branch branch = (Branch) leaf.parent;
 			Leaf newLeaf = new Leaf(leaf.parent, leaf.classificationCounts, leaf.depth);
+			newLeaf.copyIdAttributeCounts(leaf);
 			if (branch.trueChild == node) {
 				branch.trueChild = newLeaf;
 			} else {
@@ -993,6 +1405,165 @@ public final class TreeBuilder implements UpdatablePredictiveModelBuilder<Tree>
 		}
 	}
 
+	/**
+	 * The state of a single build or update, so that concurrent builds can share
+	 * one configured TreeBuilder.
+	 */
+	private final class BuildContext {
+		/**
+		 * value of the split attribute the tree is built for, or null
+		 */
+		private final Serializable      id;
+		private final Set<Serializable> classifications = new HashSet<>();
+		private final boolean           binaryClassifications;
+		private final Serializable      minorityClassification;
+		/**
+		 * the source of all random choices made by the build
+		 */
+		private final SplittableRandom  random;
+		private final com.twitter.common.util.Random samplerRandom = new com.twitter.common.util.Random() {
+			@Override
+			public double nextDouble() {
+				return random.nextDouble();
+			}
+
+			@Override
+			public int nextInt(int n) {
+				return random.nextInt(n);
+			}
+		};
+		/**
+		 * the listener of the build, fixed when it starts, or null
+		 */
+		private final TreeBuildListener listener;
+		/**
+		 * the scorer of the builder, wrapped to be counted and timed if there is a
+		 * listener
+		 */
+		private final Scorer            scorer;
+		/**
+		 * the node being built, only tracked if there is a listener
+		 */
+		private NodeProfile             profile;
+		/**
+		 * the budget the build is charged to, or null if it is unlimited
+		 */
+		private final BuildBudget.Tracker budget;
+		/**
+		 * counts the unique ids of the leaves, or null if there is no id attribute
+		 */
+		private final IdAttributeHandler idAttributeHandler;
+		/**
+		 * the gains of the branches built, summed per attribute
+		 */
+		private final SplitGainImportance splitGainImportance = new SplitGainImportance();
+
+		private BuildContext(Iterable<? extends AbstractInstance> trainingData,
+				Serializable id, SplittableRandom random, BuildBudget.Tracker budget) {
+			this.id = id;
+			this.random = random;
+			this.budget = budget;
+			this.idAttributeHandler = idAttribute != null
+					? new IdAttributeHandler(idAttribute, idAttributeHyperLogLogPrecision)
+					: null;
+			this.listener = TreeBuilder.this.listener;
+			this.scorer = listener != null ? new ProfilingScorer(TreeBuilder.this.scorer, this)
+					: TreeBuilder.this.scorer;
+			// all of the classes are collected, the unique id counts of every leaf
+			// report each of them, but only two are counted for the binary check
+			final Map<Serializable, MutableInt> classificationCounts = new HashMap<>();
+			for (AbstractInstance instance : trainingData) {
+				Serializable classification = instance.getClassification();
+				if (classifications.add(classification)) {
+					if (classifications.size() <= 2) {
+						classificationCounts.put(classification, new MutableInt(1));
+					}
+				} else if (classifications.size() <= 2) {
+					classificationCounts.get(classification).increment();
+				}
+			}
+
+			binaryClassifications = binaryClassification && classifications.size() <= 2;
+			Serializable minority = null;
+			double minorityCount = 0;
+			if (binaryClassifications) {
+				for (Entry<Serializable, MutableInt> entry : classificationCounts.entrySet()) {
+					if (minority == null || entry.getValue().doubleValue() < minorityCount) {
+						minority = entry.getKey();
+						minorityCount = entry.getValue().doubleValue();
+					}
+				}
+			}
+			minorityClassification = minority;
+		}
+
+		private NodeProfile startNode(int depth,
+				Iterable<? extends AbstractInstance> trainingData) {
+			profile = new NodeProfile(depth, Iterables.size(trainingData));
+			return profile;
+		}
+	}
+
+	/**
+	 * The counts and timings of the node being built, see {@link NodeStats}.
+	 */
+	private static final class NodeProfile {
+		private final int                  depth;
+		private final int                  instanceCount;
+		private final Map<String, Integer> candidateSplitsByAttribute = new HashMap<>();
+		private long                       evaluationNanos;
+		private long                       scoringNanos;
+		private long                       partitioningNanos;
+		private int                        attributeSplits;
+		private long                       attributeStart;
+
+		private NodeProfile(int depth, int instanceCount) {
+			this.depth = depth;
+			this.instanceCount = instanceCount;
+		}
+
+		private void startAttribute() {
+			attributeSplits = 0;
+			attributeStart = System.nanoTime();
+		}
+
+		private void finishAttribute(String attribute) {
+			evaluationNanos += System.nanoTime() - attributeStart;
+			candidateSplitsByAttribute.put(attribute, attributeSplits);
+		}
+
+		private NodeStats toStats(String splitAttribute, double gain) {
+			return new NodeStats(depth, instanceCount, candidateSplitsByAttribute.size(),
+					candidateSplitsByAttribute, Math.max(0, evaluationNanos - scoringNanos),
+					scoringNanos, partitioningNanos, splitAttribute, gain);
+		}
+	}
+
+	/**
+	 * Counts and times the splits scored for the node being built.
+	 */
+	private static final class ProfilingScorer implements Scorer {
+		private final Scorer       scorer;
+		private final BuildContext context;
+
+		private ProfilingScorer(Scorer scorer, BuildContext context) {
+			this.scorer = scorer;
+			this.context = context;
+		}
+
+		@Override
+		public double scoreSplit(ClassCounter a, ClassCounter b) {
+			final long start = System.nanoTime();
+			final double score = scorer.scoreSplit(a, b);
+			final NodeProfile profile = context.profile;
+			if (profile != null) {
+				profile.scoringNanos += System.nanoTime() - start;
+				profile.attributeSplits++;
+			}
+			return score;
+		}
+	}
+
 	public static class AttributeCharacteristics {
 		public boolean isNumber = true;
 	}
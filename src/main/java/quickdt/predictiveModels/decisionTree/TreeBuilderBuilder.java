@@ -18,6 +18,7 @@ import quickdt.predictiveModels.decisionTree.tree.Tree;
  */
 public class TreeBuilderBuilder
 		implements UpdatablePredictiveModelBuilderBuilder<Tree, TreeBuilder> {
+	private static final long serialVersionUID = -6994537413493686487L;
 
 	private static final String IGNORE_ATTR_PROB   = "ignoreAttrProb";
 	private static final String MAX_DEPTH          = "maxDepth";
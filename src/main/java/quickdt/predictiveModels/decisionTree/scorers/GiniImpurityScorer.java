@@ -10,6 +10,8 @@ import quickdt.predictiveModels.decisionTree.tree.ClassCounter;
  * Created by chrisreeves on 6/24/14.
  */
 public class GiniImpurityScorer implements Scorer {
+	private static final long serialVersionUID = -2340823404913718843L;
+
 	@Override
 	public double scoreSplit(ClassCounter a, ClassCounter b) {
 		ClassCounter parent = ClassCounter.merge(a, b);
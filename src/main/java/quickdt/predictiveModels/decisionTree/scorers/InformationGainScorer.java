@@ -10,6 +10,7 @@ import quickdt.predictiveModels.decisionTree.tree.ClassCounter;
  * Created by chrisreeves on 6/24/14.
  */
 public class InformationGainScorer implements Scorer {
+	private static final long serialVersionUID = 4671289304985027144L;
 
 	@Override
 	public double scoreSplit(ClassCounter a, ClassCounter b) {
@@ -13,6 +13,7 @@ import quickdt.predictiveModels.decisionTree.tree.ClassCounter;
  * required by the scoreSplit() interface.
  */
 public class MSEScorer implements Scorer {
+	private static final long serialVersionUID = -7106283015893341547L;
 	private final double crossValidationInstanceCorrection;
 
 	public MSEScorer(CrossValidationCorrection crossValidationCorrection) {
@@ -8,6 +8,7 @@ import quickdt.predictiveModels.decisionTree.Scorer;
 import quickdt.predictiveModels.decisionTree.tree.ClassCounter;
 
 public final class SplitDiffScorer implements Scorer {
+	private static final long serialVersionUID = 3089428861723470521L;
 
 	/*
 	 * The general idea here is that a good split is one where the proportions of
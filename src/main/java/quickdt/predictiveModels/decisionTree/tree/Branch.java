@@ -16,11 +16,38 @@ public abstract class Branch extends Node {
 
 	public Node trueChild, falseChild;
 
+	/**
+	 * The score of this split times the weight of the training instances it split,
+	 * see {@link SplitGainImportance}
+	 */
+	private final double splitGain;
+
+	/**
+	 * The merged counts of the children, computed on first use, and unmodifiable
+	 * as every caller gets the same counts
+	 */
+	private transient volatile ClassCounter classificationCounter;
+
 	public Branch(Branch parent, final String attribute) {
+		this(parent, attribute, 0);
+	}
+
+	public Branch(Branch parent, final String attribute, final double splitGain) {
 		super(parent);
 		this.attribute = attribute;
+		this.splitGain = splitGain;
+	}
+
+	public double getSplitGain() {
+		return splitGain;
 	}
 
+	/**
+	 * @return a copy of this branch, without children, with the gain of its split,
+	 *         for a candidate split once it has been chosen
+	 */
+	public abstract Branch withSplitGain(double splitGain);
+
 	public abstract boolean decide(Attributes attributes);
 
 	@Override
@@ -88,22 +115,38 @@ public abstract class Branch extends Node {
 
 	@Override
 	protected Leaf collapse(int newDepth) {
-		Leaf newLeaf = new Leaf(parent, getClassificationCounter(), newDepth);
+		// the leaf gets counts of its own rather than the ones this branch shares
+		Leaf newLeaf = new Leaf(parent, ClassCounter.merge(trueChild.getClassificationCounter(),
+				falseChild.getClassificationCounter()), newDepth);
+		newLeaf.mergeIdAttributeCounters(collectLeaves());
 
 		if (!isRoot()) {
-			if (parent.trueChild.equals(this)) {
+			// intentionally checking the reference, equal subtrees may be siblings
+			if (parent.trueChild == this) {
 				parent.trueChild = newLeaf;
 			} else {
 				parent.falseChild = newLeaf;
 			}
+			parent.invalidateClassificationCounts();
 		}
 		return newLeaf;
 	}
 
 	@Override
 	public ClassCounter getClassificationCounter() {
-		return ClassCounter.merge(trueChild.getClassificationCounter(),
-				falseChild.getClassificationCounter());
+		ClassCounter counter = classificationCounter;
+		if (counter == null) {
+			counter = ClassCounter.merge(trueChild.getClassificationCounter(),
+					falseChild.getClassificationCounter()).makeUnmodifiable();
+			classificationCounter = counter;
+		}
+		return counter;
+	}
+
+	@Override
+	public void invalidateClassificationCounts() {
+		classificationCounter = null;
+		super.invalidateClassificationCounts();
 	}
 
 	public abstract String toNotString();
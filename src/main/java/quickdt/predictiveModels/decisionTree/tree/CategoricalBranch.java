@@ -14,9 +14,18 @@ public final class CategoricalBranch extends Branch {
 	public final Set<Serializable> inSet;
 
 	public CategoricalBranch(Branch parent, final String attribute, final Set<Serializable> inSet) {
-		super(parent, attribute);
+		this(parent, attribute, inSet, 0);
+	}
+
+	public CategoricalBranch(Branch parent, final String attribute, final Set<Serializable> inSet,
+			final double splitGain) {
+		super(parent, attribute, splitGain);
 		this.inSet = Sets.newHashSet(inSet);
+	}
 
+	@Override
+	public CategoricalBranch withSplitGain(double splitGain) {
+		return new CategoricalBranch(parent, attribute, inSet, splitGain);
 	}
 
 	@Override
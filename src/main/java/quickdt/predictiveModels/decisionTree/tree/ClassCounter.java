@@ -3,6 +3,7 @@ package quickdt.predictiveModels.decisionTree.tree;
 import static quickdt.predictiveModels.decisionTree.TreeBuilder.MISSING_VALUE;
 
 import java.io.Serializable;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
@@ -21,6 +22,11 @@ import quickdt.data.AbstractInstance;
 public class ClassCounter implements Serializable {
 	private static final long                   serialVersionUID = -6821237234748044623L;
 	private final ValueSummingMap<Serializable> counts           = new ValueSummingMap<>();
+	/**
+	 * Set on counts shared with callers, such as the merged counts cached by a
+	 * {@link Branch}
+	 */
+	private boolean                             unmodifiable;
 
 	public static ClassCounter merge(ClassCounter a, ClassCounter b) {
 		ClassCounter newCC = new ClassCounter();
@@ -111,7 +117,7 @@ public class ClassCounter implements Serializable {
 	private static boolean isAnAcceptableMissingValue(AbstractInstance instance,
 			String splitAttribute, Serializable splitAttributeValue) {
 		return splitAttribute == null || splitAttributeValue == null
-				|| instance.getAttributes().get(splitAttribute).equals(splitAttributeValue);
+				|| splitAttributeValue.equals(instance.getAttributes().get(splitAttribute));
 	}
 
 	public Map<Serializable, Double> getCounts() {
@@ -132,9 +138,21 @@ public class ClassCounter implements Serializable {
 	}
 
 	public void addClassification(final Serializable classification, double weight) {
+		if (unmodifiable) {
+			throw new UnsupportedOperationException("These counts are shared, add to a copy");
+		}
 		counts.addToValue(classification, weight);
 	}
 
+	/**
+	 * Makes {@link #addClassification(Serializable, double)} fail from now on,
+	 * for counts that are handed to every caller
+	 */
+	ClassCounter makeUnmodifiable() {
+		unmodifiable = true;
+		return this;
+	}
+
 	public double getCount(final Serializable classification) {
 		Number count = counts.get(classification);
 		if (count == null) {
@@ -145,7 +163,7 @@ public class ClassCounter implements Serializable {
 	}
 
 	public Set<Serializable> allClassifications() {
-		return counts.keySet();
+		return Collections.unmodifiableSet(counts.keySet());
 	}
 
 	public ClassCounter add(final ClassCounter other) {
@@ -0,0 +1,312 @@
+package quickdt.predictiveModels.decisionTree.tree;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import com.google.common.base.Preconditions;
+
+import quickdt.crossValidation.MSECrossValLossFunction;
+import quickdt.crossValidation.OnlineCrossValLossFunction;
+import quickdt.data.AbstractInstance;
+
+/**
+ * Minimal cost-complexity ("weakest link") pruning, as in Breiman et al.'s
+ * CART. Finds the nested sequence of subtrees obtained by repeatedly collapsing
+ * the branch whose training error increases least per leaf removed, then
+ * scores every subtree of the sequence against a validation set in a single
+ * pass over it, and collapses the tree to the subtree with the lowest
+ * validation loss.
+ */
+public class CostComplexityPruner {
+	private final OnlineCrossValLossFunction<?> lossFunction;
+
+	public CostComplexityPruner() {
+		this(new MSECrossValLossFunction());
+	}
+
+	public CostComplexityPruner(OnlineCrossValLossFunction<?> lossFunction) {
+		this.lossFunction = lossFunction;
+	}
+
+	/**
+	 * Prunes the tree to the subtree of its pruning path with the lowest loss on
+	 * the validation data.
+	 *
+	 * @return the pruned tree, which is a new tree if its root was collapsed
+	 */
+	public Tree prune(Tree tree, Iterable<? extends AbstractInstance> validationData) {
+		return prune(tree, getPruningPath(tree, validationData));
+	}
+
+	/**
+	 * Prunes the tree to the best subtree of a path found for it by
+	 * {@link #getPruningPath(Tree, Iterable)}.
+	 */
+	public Tree prune(Tree tree, PruningPath path) {
+		Preconditions.checkArgument(path.root == tree.node,
+				"The pruning path was found for another tree");
+		tree.invalidateLeafStatistics();
+		if (!(tree.node instanceof Branch)) {
+			return tree;
+		}
+		Node prunedNode = collapse((Branch) tree.node, getDepth((Branch) tree.node), path);
+		if (prunedNode != tree.node) {
+			return new Tree(prunedNode);
+		}
+		return tree;
+	}
+
+	/**
+	 * Finds the tree's pruning path, and the loss on the validation data of every
+	 * subtree along it.
+	 */
+	public PruningPath getPruningPath(Tree tree, Iterable<? extends AbstractInstance> validationData) {
+		final Map<Branch, BranchCosts> costs = new IdentityHashMap<>();
+		final PriorityQueue<WeakLink> weakLinks = new PriorityQueue<>();
+		final int initialLeafCount = addCosts(tree.node, costs, weakLinks).leafCount;
+		// at most one step per branch, fewer when collapsing a branch also removes
+		// branches below it that weren't collapsed yet
+		final double[] alphas = new double[costs.size() + 1];
+		final int[] leafCounts = new int[costs.size() + 1];
+		leafCounts[0] = initialLeafCount;
+
+		int step = 0;
+		while (!weakLinks.isEmpty()) {
+			final WeakLink weakLink = weakLinks.poll();
+			final BranchCosts branchCosts = costs.get(weakLink.branch);
+			if (branchCosts.prunedAtStep > 0 || branchCosts.version != weakLink.version) {
+				continue;
+			}
+			step++;
+			// rounding can make an alpha slightly smaller than the one before it
+			alphas[step] = Math.max(weakLink.alpha, alphas[step - 1]);
+			branchCosts.prunedAtStep = step;
+			removeDescendants(weakLink.branch, costs, step);
+
+			final double errorIncrease = branchCosts.leafError - branchCosts.subtreeError;
+			final int leavesRemoved = branchCosts.leafCount - 1;
+			branchCosts.subtreeError = branchCosts.leafError;
+			branchCosts.leafCount = 1;
+			for (Branch ancestor = weakLink.branch.parent; ancestor != null; ancestor = ancestor.parent) {
+				final BranchCosts ancestorCosts = costs.get(ancestor);
+				ancestorCosts.subtreeError += errorIncrease;
+				ancestorCosts.leafCount -= leavesRemoved;
+				ancestorCosts.version++;
+				weakLinks.add(new WeakLink(ancestor, ancestorCosts));
+			}
+			leafCounts[step] = tree.node instanceof Branch ? costs.get(tree.node).leafCount : 1;
+		}
+
+		final int steps = step;
+		final double[] validationLosses = getValidationLosses(tree.node, costs, steps,
+				validationData);
+		int bestStep = 0;
+		for (int x = 1; x <= steps; x++) {
+			// on a tie prefer the smaller tree
+			if (validationLosses[x] <= validationLosses[bestStep]) {
+				bestStep = x;
+			}
+		}
+
+		final Map<Branch, Integer> prunedAtSteps = new IdentityHashMap<>();
+		for (Map.Entry<Branch, BranchCosts> branchCosts : costs.entrySet()) {
+			prunedAtSteps.put(branchCosts.getKey(), branchCosts.getValue().prunedAtStep);
+		}
+		return new PruningPath(tree.node, Arrays.copyOf(alphas, steps + 1),
+				Arrays.copyOf(leafCounts, steps + 1), validationLosses, bestStep, prunedAtSteps);
+	}
+
+	/**
+	 * Each instance is predicted by one node at every step of the path, the first
+	 * node on its path from the root that has been collapsed into a leaf by that
+	 * step. So the loss of predicting it with a node applies to the range of steps
+	 * from when the node was collapsed until one of its ancestors was, and the
+	 * losses of all of the steps can be accumulated at once in a difference array.
+	 */
+	private double[] getValidationLosses(Node root, Map<Branch, BranchCosts> costs, int steps,
+			Iterable<? extends AbstractInstance> validationData) {
+		final double[] lossChanges = new double[steps + 2];
+		double totalWeight = 0;
+		for (AbstractInstance instance : validationData) {
+			totalWeight += instance.getWeight();
+			int ancestorStep = steps + 1;
+			Node node = root;
+			while (true) {
+				final int step = node instanceof Branch ? costs.get(node).prunedAtStep : 0;
+				if (step < ancestorStep) {
+					final double loss = lossFunction.getLossFromInstance(
+							node.getProbability(instance.getClassification()), instance.getWeight());
+					lossChanges[step] += loss;
+					lossChanges[ancestorStep] -= loss;
+					ancestorStep = step;
+				}
+				if (!(node instanceof Branch)) {
+					break;
+				}
+				final Branch branch = (Branch) node;
+				node = branch.decide(instance.getAttributes()) ? branch.trueChild : branch.falseChild;
+			}
+		}
+		Preconditions.checkArgument(totalWeight > 0, "No validation data");
+
+		final double[] validationLosses = new double[steps + 1];
+		double loss = 0;
+		for (int x = 0; x <= steps; x++) {
+			loss += lossChanges[x];
+			validationLosses[x] = loss / totalWeight;
+		}
+		return validationLosses;
+	}
+
+	private static BranchCosts addCosts(Node node, Map<Branch, BranchCosts> costs,
+			PriorityQueue<WeakLink> weakLinks) {
+		final double leafError = getLeafError(node);
+		if (!(node instanceof Branch)) {
+			return new BranchCosts(leafError, leafError, 1);
+		}
+		final Branch branch = (Branch) node;
+		final BranchCosts trueCosts = addCosts(branch.trueChild, costs, weakLinks);
+		final BranchCosts falseCosts = addCosts(branch.falseChild, costs, weakLinks);
+		final BranchCosts branchCosts = new BranchCosts(leafError,
+				trueCosts.subtreeError + falseCosts.subtreeError,
+				trueCosts.leafCount + falseCosts.leafCount);
+		costs.put(branch, branchCosts);
+		weakLinks.add(new WeakLink(branch, branchCosts));
+		return branchCosts;
+	}
+
+	/**
+	 * @return the weight of the training instances that would be misclassified
+	 *         if the node were a leaf
+	 */
+	private static double getLeafError(Node node) {
+		final ClassCounter counter = node.getClassificationCounter();
+		return counter.getTotal() - counter.getCount(node.getBestClassification());
+	}
+
+	/**
+	 * Branches below a collapsed branch are treated as collapsed at the same step,
+	 * so that they never predict once it has been
+	 */
+	private static void removeDescendants(Branch branch, Map<Branch, BranchCosts> costs, int step) {
+		for (Node child : new Node[] { branch.trueChild, branch.falseChild }) {
+			if (child instanceof Branch) {
+				final BranchCosts childCosts = costs.get(child);
+				if (childCosts.prunedAtStep == 0) {
+					childCosts.prunedAtStep = step;
+					removeDescendants((Branch) child, costs, step);
+				}
+			}
+		}
+	}
+
+	private static Node collapse(Branch branch, int depth, PruningPath path) {
+		if (path.prunedAtSteps.get(branch) <= path.bestStep) {
+			return branch.collapse(depth);
+		}
+		if (branch.trueChild instanceof Branch) {
+			collapse((Branch) branch.trueChild, depth + 1, path);
+		}
+		if (branch.falseChild instanceof Branch) {
+			collapse((Branch) branch.falseChild, depth + 1, path);
+		}
+		return branch;
+	}
+
+	/**
+	 * Branches don't record their depth, so it's inferred from a leaf below
+	 */
+	private static int getDepth(Branch branch) {
+		int distance = 0;
+		Node node = branch;
+		while (node instanceof Branch) {
+			node = ((Branch) node).trueChild;
+			distance++;
+		}
+		return ((Leaf) node).depth - distance;
+	}
+
+	/**
+	 * The nested sequence of subtrees found by weakest link pruning. Step 0 is the
+	 * unpruned tree, and each step collapses one more branch, until the root is
+	 * collapsed at the last step.
+	 */
+	public static final class PruningPath {
+		private final Node                 root;
+		private final double[]             alphas;
+		private final int[]                leafCounts;
+		private final double[]             validationLosses;
+		private final int                  bestStep;
+		private final Map<Branch, Integer> prunedAtSteps;
+
+		private PruningPath(Node root, double[] alphas, int[] leafCounts, double[] validationLosses,
+				int bestStep, Map<Branch, Integer> prunedAtSteps) {
+			this.root = root;
+			this.alphas = alphas;
+			this.leafCounts = leafCounts;
+			this.validationLosses = validationLosses;
+			this.bestStep = bestStep;
+			this.prunedAtSteps = prunedAtSteps;
+		}
+
+		public int getStepCount() {
+			return alphas.length;
+		}
+
+		/**
+		 * @return the complexity parameter from which the subtree of each step is
+		 *         optimal, nondecreasing along the path
+		 */
+		public double[] getAlphas() {
+			return Arrays.copyOf(alphas, alphas.length);
+		}
+
+		public int[] getLeafCounts() {
+			return Arrays.copyOf(leafCounts, leafCounts.length);
+		}
+
+		public double[] getValidationLosses() {
+			return Arrays.copyOf(validationLosses, validationLosses.length);
+		}
+
+		/**
+		 * @return the step with the lowest validation loss
+		 */
+		public int getBestStep() {
+			return bestStep;
+		}
+	}
+
+	private static final class BranchCosts {
+		private final double leafError;
+		private double       subtreeError;
+		private int          leafCount;
+		private int          prunedAtStep = 0;
+		private int          version      = 0;
+
+		private BranchCosts(double leafError, double subtreeError, int leafCount) {
+			this.leafError = leafError;
+			this.subtreeError = subtreeError;
+			this.leafCount = leafCount;
+		}
+	}
+
+	private static final class WeakLink implements Comparable<WeakLink> {
+		private final Branch branch;
+		private final double alpha;
+		private final int    version;
+
+		private WeakLink(Branch branch, BranchCosts costs) {
+			this.branch = branch;
+			this.alpha = (costs.leafError - costs.subtreeError) / (costs.leafCount - 1);
+			this.version = costs.version;
+		}
+
+		@Override
+		public int compareTo(WeakLink other) {
+			return Double.compare(alpha, other.alpha);
+		}
+	}
+}
@@ -2,11 +2,15 @@ package quickdt.predictiveModels.decisionTree.tree;
 
 import java.io.Serializable;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
-import java.util.stream.StreamSupport;
+import java.util.Set;
 
 import org.apache.commons.lang.mutable.MutableInt;
 
+import com.google.common.base.Preconditions;
+
+import quickdt.collections.HyperLogLog;
 import quickdt.data.AbstractInstance;
 
 /**
@@ -14,56 +18,112 @@ import quickdt.data.AbstractInstance;
  * of the column which has special function in the model. idAttribute is not
  * used for classification, i.e. it is exempt from the splits. However, it is
  * used to create special unique ID counts (see
- * {@link #countUniqueValues(int, Iterable, Map) countUniqueValues}: how many
+ * {@link #countUniqueValues(Leaf, Iterable, Set) countUniqueValues}: how many
  * data points with unique IDs are present in the leafs.
+ *
+ * The counts are exact by default. With a HyperLogLog precision they are
+ * estimated with {@link HyperLogLog} sketches instead, which are kept on the
+ * leaves (but not serialized with them) so that they can be merged when
+ * leaves are collapsed.
  */
 public class IdAttributeHandler {
 	/**
-	 * Map containing ID attribute counts for each leaf, referenced by their hash.
+	 * ID attribute counts of the leaves counted last, referenced by their hash.
 	 */
-	private Map<Integer, Map<Serializable, Integer>> countsMap = new HashMap<>();
-	private Map<Serializable, Integer>               totalCounts;
-	public final String                              idAttribute;
+	private final Map<Integer, Map<Serializable, Integer>> countsMap = new HashMap<>();
+	private Map<Serializable, Integer>                     totalCounts;
+	public final String                                    idAttribute;
+	private final int                                      hyperLogLogPrecision;
 
 	public IdAttributeHandler() {
-		this.idAttribute = null;
+		this(null);
 	}
 
 	public IdAttributeHandler(String idAttribute) {
+		this(idAttribute, 0);
+	}
+
+	/**
+	 * @param hyperLogLogPrecision the precision of the sketches used to estimate
+	 *                             the counts, or 0 to count exactly
+	 */
+	public IdAttributeHandler(String idAttribute, int hyperLogLogPrecision) {
+		Preconditions.checkArgument(hyperLogLogPrecision == 0
+				|| (hyperLogLogPrecision >= HyperLogLog.MIN_PRECISION
+						&& hyperLogLogPrecision <= HyperLogLog.MAX_PRECISION),
+				"Invalid HyperLogLog precision %s", hyperLogLogPrecision);
 		this.idAttribute = idAttribute;
+		this.hyperLogLogPrecision = hyperLogLogPrecision;
 	}
 
 	/**
-	 * Count unique values of the idAttribute for each of the classes.
-	 *
-	 * Assumes that the first call will be made in the root node, and will save
-	 * these stats separately in the {@link #totalCounts totalCounts}.
+	 * Count unique values of the idAttribute for each of the classes in a leaf,
+	 * over the training data the leaf was built from. The counts are stored on
+	 * the leaf, classes with no instances in it count 0.
 	 */
 	public void countUniqueValues(Leaf leaf, Iterable<? extends AbstractInstance> trainingData,
-			Map<Serializable, MutableInt> classifications) {
-
-		Map<Serializable, Integer> idAttributeCounts = new HashMap<>();
-		for (Map.Entry<Serializable, MutableInt> classification : classifications.entrySet()) {
-			int classCount = Math.toIntExact(StreamSupport.stream(trainingData.spliterator(), false)
-					.filter(s -> s.getClassification().equals(classification.getKey()))
-					.map(s -> s.getAttributes().get(idAttribute)).distinct().count());
-			idAttributeCounts.put(classification.getKey(), classCount);
+			Set<Serializable> classifications) {
+		final Map<Serializable, UniqueCounter> counters = new HashMap<>();
+		for (AbstractInstance instance : trainingData) {
+			counters.computeIfAbsent(instance.getClassification(), c -> createCounter())
+					.add(instance.getAttributes().get(idAttribute));
 		}
+		leaf.setIdAttributeCounts(getCounts(counters, classifications), counters);
+	}
 
-		// first count is the count of the root node, and is saved separately
+	/**
+	 * @deprecated use {@link #countUniqueValues(Leaf, Iterable, Set)} for each
+	 *             leaf, and {@link #finishCounting(Node, Iterable, Set)} for the
+	 *             totals. For compatibility, the counts of the first leaf counted
+	 *             are still taken as the totals.
+	 */
+	@Deprecated
+	public void countUniqueValues(Leaf leaf, Iterable<? extends AbstractInstance> trainingData,
+			Map<Serializable, MutableInt> classifications) {
+		countUniqueValues(leaf, trainingData, classifications.keySet());
 		if (totalCounts == null) {
-			totalCounts = idAttributeCounts;
+			totalCounts = leaf.getIdAttributeCounts();
+		}
+		countsMap.put(leaf.hashCode(), leaf.getIdAttributeCounts());
+	}
+
+	/**
+	 * Counts the unique values over all of the training data into the
+	 * {@link #totalCounts totalCounts}, once the leaves of the tree are final.
+	 * Exact counts can't be merged, so they are dropped from the leaves; the
+	 * sketches stay until the leaves are serialized, so that leaves collapsed
+	 * later can still be estimated.
+	 */
+	public void finishCounting(Node root, Iterable<? extends AbstractInstance> trainingData,
+			Set<Serializable> classifications) {
+		final Map<Serializable, UniqueCounter> totalCounters = new HashMap<>();
+		for (AbstractInstance instance : trainingData) {
+			totalCounters.computeIfAbsent(instance.getClassification(), c -> createCounter())
+					.add(instance.getAttributes().get(idAttribute));
 		}
+		totalCounts = getCounts(totalCounters, classifications);
 
-		countsMap.put(leaf.hashCode(), idAttributeCounts);
+		countsMap.clear();
+		for (Leaf leaf : root.collectLeaves()) {
+			if (hyperLogLogPrecision == 0) {
+				leaf.dropIdAttributeCounters();
+			}
+			countsMap.put(leaf.hashCode(), leaf.getIdAttributeCounts());
+		}
 	}
 
+	/**
+	 * @deprecated leaves with equal depth and counts collide in this map, use
+	 *             {@link #getCountForLeaf(Leaf)} or
+	 *             {@link Leaf#getIdAttributeCounts()} instead
+	 */
+	@Deprecated
 	public Map<Integer, Map<Serializable, Integer>> getCountsMap() {
 		return countsMap;
 	}
 
 	public Map<Serializable, Integer> getCountForLeaf(Leaf leaf) {
-		return getCountsMap().get(leaf.hashCode());
+		return leaf.getIdAttributeCounts();
 	}
 
 	public Integer getCountForLeafClass(Leaf leaf, Serializable classification) {
@@ -77,4 +137,91 @@ public class IdAttributeHandler {
 	public Map<Serializable, Integer> getTotalCounts() {
 		return totalCounts;
 	}
+
+	private UniqueCounter createCounter() {
+		if (hyperLogLogPrecision == 0) {
+			return new ExactCounter();
+		}
+		return new SketchCounter(new HyperLogLog(hyperLogLogPrecision));
+	}
+
+	private static Map<Serializable, Integer> getCounts(Map<Serializable, UniqueCounter> counters,
+			Set<Serializable> classifications) {
+		final Map<Serializable, Integer> counts = new HashMap<>();
+		for (Serializable classification : classifications) {
+			counts.put(classification, 0);
+		}
+		for (Map.Entry<Serializable, UniqueCounter> counter : counters.entrySet()) {
+			counts.put(counter.getKey(), counter.getValue().count());
+		}
+		return counts;
+	}
+
+	/**
+	 * Counts the unique ids of one class, mergeable so that the counts of leaves
+	 * can be combined when they are collapsed.
+	 */
+	interface UniqueCounter {
+		void add(Serializable id);
+
+		int count();
+
+		UniqueCounter copy();
+
+		void merge(UniqueCounter other);
+	}
+
+	private static final class ExactCounter implements UniqueCounter {
+		private final Set<Serializable> ids = new HashSet<>();
+
+		@Override
+		public void add(Serializable id) {
+			ids.add(id);
+		}
+
+		@Override
+		public int count() {
+			return ids.size();
+		}
+
+		@Override
+		public UniqueCounter copy() {
+			final ExactCounter copy = new ExactCounter();
+			copy.ids.addAll(ids);
+			return copy;
+		}
+
+		@Override
+		public void merge(UniqueCounter other) {
+			ids.addAll(((ExactCounter) other).ids);
+		}
+	}
+
+	static final class SketchCounter implements UniqueCounter {
+		final HyperLogLog sketch;
+
+		private SketchCounter(HyperLogLog sketch) {
+			this.sketch = sketch;
+		}
+
+		@Override
+		public void add(Serializable id) {
+			sketch.add(id);
+		}
+
+		@Override
+		public int count() {
+			return Math.toIntExact(sketch.estimate());
+		}
+
+		@Override
+		public UniqueCounter copy() {
+			return new SketchCounter(sketch.copy());
+		}
+
+		@Override
+		public void merge(UniqueCounter other) {
+			sketch.merge(((SketchCounter) other).sketch);
+		}
+	}
 }
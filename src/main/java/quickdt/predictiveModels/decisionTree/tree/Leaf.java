@@ -3,16 +3,18 @@ package quickdt.predictiveModels.decisionTree.tree;
 import java.io.PrintStream;
 import java.io.Serializable;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicLong;
 
-import org.apache.commons.lang.NotImplementedException;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Iterables;
 
+import quickdt.collections.HyperLogLog;
 import quickdt.data.AbstractInstance;
 import quickdt.data.Attributes;
 
@@ -40,6 +42,17 @@ public class Leaf extends Node {
 	 */
 	public final ClassCounter classificationCounts;
 
+	/**
+	 * Unique id counts per classification, see {@link IdAttributeHandler}
+	 */
+	private Map<Serializable, Integer> idAttributeCounts;
+
+	/**
+	 * The counters the id counts were taken from. Not serialized, the sketches
+	 * of HyperLogLog counters alone take up to 64KB per class.
+	 */
+	private transient Map<Serializable, IdAttributeHandler.UniqueCounter> idAttributeCounters;
+
 	public Leaf(Branch parent, final Iterable<? extends AbstractInstance> instances,
 			final int depth) {
 		this(parent, ClassCounter.countAll(instances), depth);
@@ -62,6 +75,84 @@ public class Leaf extends Node {
 		return classificationCounts;
 	}
 
+	/**
+	 * @return the unique id counts per classification, or null if no id attribute
+	 *         was counted for this leaf (see {@link IdAttributeHandler})
+	 */
+	public Map<Serializable, Integer> getIdAttributeCounts() {
+		return idAttributeCounts;
+	}
+
+	/**
+	 * @return the sketches the unique id counts were estimated from, or null
+	 *         unless they were counted with HyperLogLog by this process
+	 */
+	public Map<Serializable, HyperLogLog> getIdAttributeSketches() {
+		if (idAttributeCounters == null || idAttributeCounters.isEmpty() || !(idAttributeCounters
+				.values().iterator().next() instanceof IdAttributeHandler.SketchCounter)) {
+			return null;
+		}
+		final Map<Serializable, HyperLogLog> sketches = new HashMap<>();
+		for (Map.Entry<Serializable, IdAttributeHandler.UniqueCounter> counter : idAttributeCounters
+				.entrySet()) {
+			sketches.put(counter.getKey(),
+					((IdAttributeHandler.SketchCounter) counter.getValue()).sketch);
+		}
+		return sketches;
+	}
+
+	void setIdAttributeCounts(Map<Serializable, Integer> idAttributeCounts,
+			Map<Serializable, IdAttributeHandler.UniqueCounter> idAttributeCounters) {
+		this.idAttributeCounts = idAttributeCounts;
+		this.idAttributeCounters = idAttributeCounters;
+	}
+
+	void dropIdAttributeCounters() {
+		idAttributeCounters = null;
+	}
+
+	/**
+	 * Takes over the id counts of <code>leaf</code>, which this leaf replaces,
+	 * but not its counters.
+	 */
+	public void copyIdAttributeCounts(Leaf leaf) {
+		setIdAttributeCounts(leaf.idAttributeCounts, null);
+	}
+
+	/**
+	 * Counts the unique ids of this leaf from the counters of the leaves it
+	 * replaces. Nothing is set unless all of the leaves still have their
+	 * counters, which is only the case while they are built, and for sketches
+	 * until they are serialized.
+	 */
+	void mergeIdAttributeCounters(List<Leaf> leaves) {
+		final Map<Serializable, IdAttributeHandler.UniqueCounter> mergedCounters = new HashMap<>();
+		final Map<Serializable, Integer> mergedCounts = new HashMap<>();
+		for (Leaf leaf : leaves) {
+			if (leaf.idAttributeCounters == null) {
+				return;
+			}
+			for (Map.Entry<Serializable, IdAttributeHandler.UniqueCounter> counter : leaf.idAttributeCounters
+					.entrySet()) {
+				final IdAttributeHandler.UniqueCounter mergedCounter = mergedCounters
+						.get(counter.getKey());
+				if (mergedCounter == null) {
+					mergedCounters.put(counter.getKey(), counter.getValue().copy());
+				} else {
+					mergedCounter.merge(counter.getValue());
+				}
+			}
+			for (Serializable classification : leaf.idAttributeCounts.keySet()) {
+				mergedCounts.put(classification, 0);
+			}
+		}
+		for (Map.Entry<Serializable, IdAttributeHandler.UniqueCounter> counter : mergedCounters
+				.entrySet()) {
+			mergedCounts.put(counter.getKey(), counter.getValue().count());
+		}
+		setIdAttributeCounts(mergedCounts, mergedCounters);
+	}
+
 	@Override
 	public void dump(final int indent, final PrintStream ps) {
 		for (int x = 0; x < indent; x++) {
@@ -161,36 +252,4 @@ public class Leaf extends Node {
 				.append(classificationCounts).toHashCode();
 	}
 
-	Node getSibling() {
-		if (isTrueChild()) {
-			return parent.falseChild;
-		} else if (isFalseChild()) {
-			return parent.trueChild;
-		} else if (isRoot()) {
-			return null;
-		} else {
-			throw new NotImplementedException();
-		}
-	}
-
-	private boolean isFalseChild() {
-		if (!isRoot()) {
-			return this == parent.falseChild;
-		} else {
-			return false;
-		}
-	}
-
-	private boolean isTrueChild() {
-		if (!isRoot()) {
-			return this == parent.trueChild;
-		} else {
-			return false;
-		}
-	}
-
-	Leaf pruneMe() {
-		return parent.collapse(depth - 1);
-	}
-
 }
@@ -0,0 +1,81 @@
+package quickdt.predictiveModels.decisionTree.tree;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Per-classification confusion counts of a tree's leaves, where each leaf
+ * predicts its majority classification. Computed in a single pass over the
+ * leaves, from which {@link Tree} derives its recall, precision and F1.
+ */
+final class LeafStatistics {
+	private final Map<Serializable, Double>                    truePositives                = new HashMap<>();
+	private final Map<Serializable, Double>                    falsePositives               = new HashMap<>();
+	private final Map<Serializable, Double>                    falseNegatives               = new HashMap<>();
+	private final Map<Serializable, Map<Serializable, Double>> falsePositiveDistributions   = new HashMap<>();
+	private final Map<Serializable, Map<Serializable, Double>> falseNegativeDistributions   = new HashMap<>();
+
+	LeafStatistics(List<Leaf> leaves, Set<Serializable> targets) {
+		final Set<Serializable> majorities = new HashSet<>();
+		for (Leaf leaf : leaves) {
+			final Serializable majority = leaf.getBestClassification();
+			majorities.add(majority);
+			truePositives.merge(majority, leaf.getTruePositives(), Double::sum);
+			falsePositives.merge(majority, leaf.getFalsePositives(), Double::sum);
+
+			final Map<Serializable, Double> falsePositiveDistribution = falsePositiveDistributions
+					.computeIfAbsent(majority, k -> new HashMap<>());
+			for (Map.Entry<Serializable, Double> count : leaf.getClassificationCounter().getCounts()
+					.entrySet()) {
+				final Serializable classification = count.getKey();
+				if (classification.equals(majority)) {
+					continue;
+				}
+				falsePositiveDistribution.merge(classification, count.getValue(), Double::sum);
+				falseNegatives.merge(classification, count.getValue(), Double::sum);
+				falseNegativeDistributions.computeIfAbsent(classification, k -> new HashMap<>())
+						.merge(majority, count.getValue(), Double::sum);
+			}
+		}
+
+		for (Serializable target : targets) {
+			truePositives.putIfAbsent(target, 0.0);
+			falsePositives.putIfAbsent(target, 0.0);
+			falseNegatives.putIfAbsent(target, 0.0);
+			falsePositiveDistributions.putIfAbsent(target, new HashMap<>());
+			// every leaf predicting another classification misses the target, even
+			// when none of the target's instances reached it
+			final Map<Serializable, Double> falseNegativeDistribution = falseNegativeDistributions
+					.computeIfAbsent(target, k -> new HashMap<>());
+			for (Serializable majority : majorities) {
+				if (!majority.equals(target)) {
+					falseNegativeDistribution.putIfAbsent(majority, 0.0);
+				}
+			}
+		}
+	}
+
+	double getTruePositives(Serializable target) {
+		return truePositives.get(target);
+	}
+
+	double getFalsePositives(Serializable target) {
+		return falsePositives.get(target);
+	}
+
+	double getFalseNegatives(Serializable target) {
+		return falseNegatives.get(target);
+	}
+
+	Map<Serializable, Double> getFalsePositiveDistribution(Serializable target) {
+		return new HashMap<>(falsePositiveDistributions.get(target));
+	}
+
+	Map<Serializable, Double> getFalseNegativeDistribution(Serializable target) {
+		return new HashMap<>(falseNegativeDistributions.get(target));
+	}
+}
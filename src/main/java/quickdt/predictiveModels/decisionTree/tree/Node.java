@@ -2,7 +2,6 @@ package quickdt.predictiveModels.decisionTree.tree;
 
 import java.io.PrintStream;
 import java.io.Serializable;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
@@ -85,6 +84,19 @@ public abstract class Node implements Serializable {
 
 	public abstract ClassCounter getClassificationCounter();
 
+	/**
+	 * Discards the class counts cached by this node and its ancestors. Must be
+	 * called when the counts below this node change, i.e. when an instance is
+	 * added to an {@link UpdatableLeaf} or a child of a {@link Branch} is
+	 * replaced.
+	 */
+	public void invalidateClassificationCounts() {
+		bestClassificationEntry = null;
+		if (parent != null) {
+			parent.invalidateClassificationCounts();
+		}
+	}
+
 	/**
 	 *
 	 * @return The most likely classification
@@ -140,31 +152,41 @@ public abstract class Node implements Serializable {
 	}
 
 	/**
-	 * @return the newly generated leaves, notice that these are not necessarily all
-	 *         the leaves of the new highest depth
+	 * Collapses each branch whose children include a leaf of the greatest depth in
+	 * this subtree, in a single traversal once that depth is known.
+	 *
+	 * @return the root of the subtree, which is a new leaf if this node itself was
+	 *         collapsed
 	 */
 	Node collapseDeepestLeaves() {
-		int depth = 0;
-		List<Leaf> leaves = this.collectLeaves();
-
-		List<Leaf> maxDepthLeaves = new ArrayList<>(leaves.size());
-		for (Leaf leaf : leaves) {
-			if (leaf.depth > depth) {
-				depth = leaf.depth;
-				maxDepthLeaves = new ArrayList<>(leaves.size());
-			} else if (leaf.depth == depth) {
-				maxDepthLeaves.add(leaf);
-			}
+		if (!(this instanceof Branch)) {
+			return this;
+		}
+		return collapseParentsOfLeavesAt((Branch) this, getMaxLeafDepth(this));
+	}
+
+	private static Node collapseParentsOfLeavesAt(Branch branch, int depth) {
+		if (isLeafAt(branch.trueChild, depth) || isLeafAt(branch.falseChild, depth)) {
+			return branch.collapse(depth - 1);
+		}
+		if (branch.trueChild instanceof Branch) {
+			collapseParentsOfLeavesAt((Branch) branch.trueChild, depth);
+		}
+		if (branch.falseChild instanceof Branch) {
+			collapseParentsOfLeavesAt((Branch) branch.falseChild, depth);
 		}
+		return branch;
+	}
 
-		for (Leaf leaf : maxDepthLeaves) {
-			if (!leaf.isRoot()) {
-				if (leaf.parent.isRoot()) {
-					return leaf.parent.collapse(0);
-				}
-				leaf.parent.collapse(depth - 1);
-			}
+	private static boolean isLeafAt(Node node, int depth) {
+		return node instanceof Leaf && ((Leaf) node).depth == depth;
+	}
+
+	private static int getMaxLeafDepth(Node node) {
+		if (node instanceof Leaf) {
+			return ((Leaf) node).depth;
 		}
-		return this;
+		Branch branch = (Branch) node;
+		return Math.max(getMaxLeafDepth(branch.trueChild), getMaxLeafDepth(branch.falseChild));
 	}
 }
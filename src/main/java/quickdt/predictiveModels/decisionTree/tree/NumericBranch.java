@@ -14,9 +14,18 @@ public final class NumericBranch extends Branch {
 	public final double       threshold;
 
 	public NumericBranch(Branch parent, final String attribute, final double threshold) {
-		super(parent, attribute);
+		this(parent, attribute, threshold, 0);
+	}
+
+	public NumericBranch(Branch parent, final String attribute, final double threshold,
+			final double splitGain) {
+		super(parent, attribute, splitGain);
 		this.threshold = threshold;
+	}
 
+	@Override
+	public NumericBranch withSplitGain(double splitGain) {
+		return new NumericBranch(parent, attribute, threshold, splitGain);
 	}
 
 	@Override
@@ -0,0 +1,70 @@
+package quickdt.predictiveModels.decisionTree.tree;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The total split gain and the number of splits per attribute over the branches
+ * of one or more trees. The gain of a branch is the score of its split times
+ * the weight of the training instances that reached it, as recorded by the
+ * TreeBuilder when the branch was built.
+ */
+public class SplitGainImportance implements Serializable {
+	private static final long serialVersionUID = -2389406873291659105L;
+
+	private final Map<String, Double>  gains       = new HashMap<>();
+	private final Map<String, Integer> splitCounts = new HashMap<>();
+	private double                     totalGain   = 0;
+
+	public void add(String attribute, double gain) {
+		gains.merge(attribute, gain, Double::sum);
+		splitCounts.merge(attribute, 1, Integer::sum);
+		totalGain += gain;
+	}
+
+	public SplitGainImportance merge(SplitGainImportance other) {
+		for (Map.Entry<String, Double> gain : other.gains.entrySet()) {
+			gains.merge(gain.getKey(), gain.getValue(), Double::sum);
+		}
+		for (Map.Entry<String, Integer> splitCount : other.splitCounts.entrySet()) {
+			splitCounts.merge(splitCount.getKey(), splitCount.getValue(), Integer::sum);
+		}
+		totalGain += other.totalGain;
+		return this;
+	}
+
+	public Set<String> getAttributes() {
+		return Collections.unmodifiableSet(gains.keySet());
+	}
+
+	public double getGain(String attribute) {
+		return gains.getOrDefault(attribute, 0.0);
+	}
+
+	public int getSplitCount(String attribute) {
+		return splitCounts.getOrDefault(attribute, 0);
+	}
+
+	public double getTotalGain() {
+		return totalGain;
+	}
+
+	/**
+	 * @return each attribute's share of the total gain, summing to 1
+	 */
+	public Map<String, Double> getNormalizedGains() {
+		Map<String, Double> normalizedGains = new HashMap<>();
+		for (Map.Entry<String, Double> gain : gains.entrySet()) {
+			normalizedGains.put(gain.getKey(), totalGain > 0 ? gain.getValue() / totalGain : 0);
+		}
+		return normalizedGains;
+	}
+
+	@Override
+	public String toString() {
+		return "SplitGainImportance{gains=" + gains + ", splitCounts=" + splitCounts + '}';
+	}
+}
@@ -22,12 +22,55 @@ import quickdt.predictiveModels.PredictiveModel;
 public class Tree implements PredictiveModel {
 	static final long serialVersionUID = 56394564395635672L;
 
-	public final Node    node;
-	private ClassCounter classCounter;
+	public final Node             node;
+	/**
+	 * Merged from the leaves on first use, rather than when the tree is created,
+	 * so that reading a model doesn't merge the counts of every branch up front
+	 */
+	private volatile ClassCounter classCounter;
+
+	/**
+	 * Recorded by the builder as the branches were built, or summed over the
+	 * branches on first use by trees that were pruned, updated or read
+	 */
+	private volatile SplitGainImportance splitGainImportance;
+
+	/**
+	 * Computed on first use by the metric getters
+	 */
+	private transient volatile LeafStatistics leafStatistics;
+
+	/**
+	 * The unique id counts of the build or update that produced this tree, not
+	 * serialized
+	 */
+	private transient volatile IdAttributeHandler idAttributeHandler;
 
 	public Tree(Node tree) {
+		this(tree, null);
+	}
+
+	/**
+	 * @param splitGainImportance the split gains of the branches of
+	 *                            <code>tree</code>, or null to sum them when
+	 *                            they're first asked for
+	 */
+	public Tree(Node tree, SplitGainImportance splitGainImportance) {
 		this.node = tree;
-		classCounter = node.getClassificationCounter();
+		this.splitGainImportance = splitGainImportance;
+	}
+
+	/**
+	 * @return the handler holding the unique id counts of the build or update that
+	 *         produced this tree, or null if it had no id attribute or the tree
+	 *         was deserialized
+	 */
+	public IdAttributeHandler getIdAttributeHandler() {
+		return idAttributeHandler;
+	}
+
+	public void setIdAttributeHandler(IdAttributeHandler idAttributeHandler) {
+		this.idAttributeHandler = idAttributeHandler;
 	}
 
 	@Override
@@ -37,7 +80,12 @@ public class Tree implements PredictiveModel {
 	}
 
 	public ClassCounter getClassCounter() {
-		return classCounter;
+		ClassCounter counter = classCounter;
+		if (counter == null) {
+			counter = node.getClassificationCounter();
+			classCounter = counter;
+		}
+		return counter;
 	}
 
 	/**
@@ -45,6 +93,7 @@ public class Tree implements PredictiveModel {
 	 *              majority category.
 	 */
 	public Tree collapseDeepestLeaves(boolean prune) {
+		invalidateLeafStatistics();
 		Tree tree = new Tree(node.collapseDeepestLeaves());
 		if (prune) {
 			tree = tree.pruneSameCategoryLeaves();
@@ -105,7 +154,35 @@ public class Tree implements PredictiveModel {
 	}
 
 	private Set<Serializable> getTargets() {
-		return classCounter.allClassifications();
+		return getClassCounter().allClassifications();
+	}
+
+	/**
+	 * @return the split gain per attribute over the branches currently in the tree,
+	 *         so branches removed by pruning don't contribute
+	 */
+	public SplitGainImportance getSplitGainImportance() {
+		SplitGainImportance importance = splitGainImportance;
+		if (importance == null) {
+			importance = new SplitGainImportance();
+			addSplitGains(node, importance);
+			splitGainImportance = importance;
+		}
+		// a copy, as callers may merge other trees into it
+		return new SplitGainImportance().merge(importance);
+	}
+
+	/**
+	 * Adds the gains in the order the TreeBuilder builds the branches, so the sums
+	 * are the ones it records
+	 */
+	private static void addSplitGains(Node subtree, SplitGainImportance importance) {
+		if (subtree instanceof Branch) {
+			final Branch branch = (Branch) subtree;
+			importance.add(branch.attribute, branch.getSplitGain());
+			addSplitGains(branch.trueChild, importance);
+			addSplitGains(branch.falseChild, importance);
+		}
 	}
 
 	public int getMaxDepth() {
@@ -150,99 +227,99 @@ public class Tree implements PredictiveModel {
 	}
 
 	public Map<Serializable, Double> getTruePositiveCounts() {
+		LeafStatistics statistics = getLeafStatistics();
 		Map<Serializable, Double> counts = new HashMap<>();
-
-		Set<Serializable> targets = getTargets();
-		for (Serializable target : targets) {
-			List<Leaf> targetLeaves = getLeavesWithMajorityIn(target);
-			double truePositives = targetLeaves.stream().map(Leaf::getTruePositives)
-					.mapToDouble(Double::doubleValue).sum();
-			counts.put(target, truePositives);
+		for (Serializable target : getTargets()) {
+			counts.put(target, statistics.getTruePositives(target));
 		}
 		return counts;
 	}
 
 	public Map<Serializable, Double> getFalsePositiveCounts() {
+		LeafStatistics statistics = getLeafStatistics();
 		Map<Serializable, Double> counts = new HashMap<>();
-
-		Set<Serializable> targets = getTargets();
-		for (Serializable target : targets) {
-			List<Leaf> targetLeaves = getLeavesWithMajorityIn(target);
-			double falsePositives = targetLeaves.stream().map(Leaf::getFalsePositives)
-					.mapToDouble(Double::doubleValue).sum();
-			counts.put(target, falsePositives);
+		for (Serializable target : getTargets()) {
+			counts.put(target, statistics.getFalsePositives(target));
 		}
 		return counts;
 	}
 
 	public Map<Serializable, Double> getFalseNegativesCounts() {
+		LeafStatistics statistics = getLeafStatistics();
 		Map<Serializable, Double> counts = new HashMap<>();
-
-		Set<Serializable> targets = getTargets();
-		for (Serializable target : targets) {
-			List<Leaf> targetLeaves = getLeavesWithMajorityIn(target);
-			double falseNegatives = getLeaves().stream().filter(o -> !targetLeaves.contains(o))
-					.map(leaf -> leaf.getCountForClass(target)).mapToDouble(Double::doubleValue)
-					.sum();
-			counts.put(target, falseNegatives);
+		for (Serializable target : getTargets()) {
+			counts.put(target, statistics.getFalseNegatives(target));
 		}
 		return counts;
 	}
 
 	public Map<Serializable, Map<Serializable, Double>> getFalsePositiveDistribution() {
+		LeafStatistics statistics = getLeafStatistics();
 		Map<Serializable, Map<Serializable, Double>> dist = new HashMap<>();
-
 		for (Serializable target : getTargets()) {
-			List<Leaf> targetLeaves = getLeavesWithMajorityIn(target);
-			Map<Serializable, Double> falsePositives = new HashMap<>();
-			targetLeaves.forEach(l -> {
-				Map<Serializable, Double> next = l.getFalsePositivesDistribution();
-				next.forEach((k, v) -> {
-					falsePositives.merge(k, v, Double::sum);
-				});
-			});
-			dist.put(target, falsePositives);
+			dist.put(target, statistics.getFalsePositiveDistribution(target));
 		}
 		return dist;
 	}
 
 	public Map<Serializable, Map<Serializable, Double>> getFalseNegativeDistribution() {
+		LeafStatistics statistics = getLeafStatistics();
 		Map<Serializable, Map<Serializable, Double>> dist = new HashMap<>();
-
-		Set<Serializable> targets = getTargets();
-		for (Serializable target : targets) {
-			List<Leaf> targetLeaves = getLeavesWithMajorityIn(target);
-			Map<Serializable, Double> falseNegatives = getLeaves().stream()
-					.filter(o -> !targetLeaves.contains(o))
-					.collect(Collectors.toMap(l -> l.getBestClassification(),
-							l -> l.getCountForClass(target), Double::sum));
-			dist.put(target, falseNegatives);
+		for (Serializable target : getTargets()) {
+			dist.put(target, statistics.getFalseNegativeDistribution(target));
 		}
 		return dist;
 	}
 
+	private LeafStatistics getLeafStatistics() {
+		LeafStatistics statistics = leafStatistics;
+		if (statistics == null) {
+			statistics = new LeafStatistics(getLeaves(), getTargets());
+			leafStatistics = statistics;
+		}
+		return statistics;
+	}
+
+	/**
+	 * Discards the class counts, split gains and statistics cached for the metric
+	 * getters, which must be called whenever the nodes of the tree are changed in
+	 * place, e.g. by an update.
+	 */
+	public void invalidateLeafStatistics() {
+		classCounter = null;
+		splitGainImportance = null;
+		leafStatistics = null;
+	}
+
+	/**
+	 * Collapses sibling leaves with the same majority classification into their
+	 * parent, repeatedly, in a single post-order traversal.
+	 */
 	public Tree pruneSameCategoryLeaves() {
-		boolean notFinished = true;
-		while (notFinished) {
-			notFinished = false;
-			List<Leaf> leaves = getLeaves();
-			for (Leaf leaf : leaves) {
-				if (leaf.getSibling() instanceof Leaf) {
-					if (leaf.getBestClassification()
-							.equals(((Leaf) leaf.getSibling()).getBestClassification())) {
-						Leaf collapsedLeaf = leaf.pruneMe();
-						if (collapsedLeaf.isRoot()) {
-							return new Tree(collapsedLeaf);
-						}
-						notFinished = true;
-						break;
-					}
-				}
-			}
+		invalidateLeafStatistics();
+		Node prunedNode = pruneSameCategoryLeaves(node);
+		if (prunedNode != node) {
+			return new Tree(prunedNode);
 		}
 		return this;
 	}
 
+	private static Node pruneSameCategoryLeaves(Node subtree) {
+		if (!(subtree instanceof Branch)) {
+			return subtree;
+		}
+		Branch branch = (Branch) subtree;
+		// children are pruned first, so that leaves they collapse into can be
+		// collapsed again here
+		Node trueChild = pruneSameCategoryLeaves(branch.trueChild);
+		Node falseChild = pruneSameCategoryLeaves(branch.falseChild);
+		if (trueChild instanceof Leaf && falseChild instanceof Leaf && trueChild
+				.getBestClassification().equals(falseChild.getBestClassification())) {
+			return branch.collapse(((Leaf) trueChild).depth - 1);
+		}
+		return branch;
+	}
+
 	public Map<Serializable, Double> getF1() {
 		Map<Serializable, Double> metric = new HashMap<>();
 		Map<Serializable, Double> recall = getRecall();
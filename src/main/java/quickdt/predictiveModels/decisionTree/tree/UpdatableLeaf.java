@@ -22,6 +22,7 @@ public class UpdatableLeaf extends Leaf {
 		classificationCounts.addClassification(instance.getClassification(), instance.getWeight());
 		trainingDataIndexes.add(instance.index);
 		exampleCount++;
+		invalidateClassificationCounts();
 	}
 
 	@Override
@@ -65,4 +65,8 @@ public class DownsamplingPredictiveModel implements PredictiveModel {
     public Serializable getMajorityClassification() {
         return majorityClassification;
     }
+
+    public Serializable getMinorityClassification() {
+        return minorityClassification;
+    }
 }
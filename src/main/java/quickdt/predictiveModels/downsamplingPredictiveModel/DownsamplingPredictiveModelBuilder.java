@@ -1,17 +1,22 @@
 package quickdt.predictiveModels.downsamplingPredictiveModel;
 
 import com.google.common.base.Preconditions;
-import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import quickdt.Misc;
 import quickdt.data.AbstractInstance;
+import quickdt.predictiveModels.BuildBudget;
+import quickdt.predictiveModels.CancellationToken;
 import quickdt.predictiveModels.PredictiveModel;
 import quickdt.predictiveModels.PredictiveModelBuilder;
 import quickdt.predictiveModels.UpdatablePredictiveModelBuilder;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.SplittableRandom;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -21,6 +26,9 @@ public class DownsamplingPredictiveModelBuilder implements UpdatablePredictiveMo
 
     private final double targetMinorityProportion;
     private final PredictiveModelBuilder<?> predictiveModelBuilder;
+    private Serializable id;
+    private SplittableRandom seeds = null;
+    private boolean reweightInsteadOfDropping = false;
 
     public DownsamplingPredictiveModelBuilder(PredictiveModelBuilder<?> predictiveModelBuilder, double targetMinorityProportion) {
         this.predictiveModelBuilder = predictiveModelBuilder;
@@ -28,8 +36,49 @@ public class DownsamplingPredictiveModelBuilder implements UpdatablePredictiveMo
         this.targetMinorityProportion = targetMinorityProportion;
     }
 
+    /**
+     * Seed the random number generator used to decide which majority instances are dropped, so
+     * that the same training data is always downsampled the same way.  Each build and update draws
+     * its own generator from the seed, so successive calls drop different instances, but a builder
+     * seeded the same way drops the same ones in the same sequence of calls.  The seed is also
+     * passed on to the wrapped builder.
+     */
+    @Override
+    public DownsamplingPredictiveModelBuilder seed(long seed) {
+        this.seeds = new SplittableRandom(seed);
+        predictiveModelBuilder.seed(seed);
+        return this;
+    }
+
+    @Override
+    public DownsamplingPredictiveModelBuilder budget(BuildBudget budget) {
+        predictiveModelBuilder.budget(budget);
+        return this;
+    }
+
+    @Override
+    public DownsamplingPredictiveModelBuilder cancellationToken(CancellationToken cancellationToken) {
+        predictiveModelBuilder.cancellationToken(cancellationToken);
+        return this;
+    }
+
+    /**
+     * Rather than dropping majority instances, keep all of them but multiply their weight by the
+     * probability that they would have been kept.  The wrapped builder must take instance weights
+     * into account.
+     */
+    public DownsamplingPredictiveModelBuilder reweightInsteadOfDropping() {
+        this.reweightInsteadOfDropping = true;
+        return this;
+    }
+
     @Override
     public DownsamplingPredictiveModel buildPredictiveModel(final Iterable<? extends AbstractInstance> trainingData) {
+        return buildPredictiveModel(trainingData, id);
+    }
+
+    @Override
+    public DownsamplingPredictiveModel buildPredictiveModel(final Iterable<? extends AbstractInstance> trainingData, final Serializable id) {
         final Map<Serializable, Double> classificationProportions = getClassificationProportions(trainingData);
         Preconditions.checkArgument(classificationProportions.size() == 2, "trainingData must contain only 2 classifications, but it had %s", classificationProportions.size());
         final Map.Entry<Serializable, Double> majorityEntry = Misc.getEntryWithHighestValue(classificationProportions).get();
@@ -38,15 +87,15 @@ public class DownsamplingPredictiveModelBuilder implements UpdatablePredictiveMo
         final double majorityProportion = majorityEntry.getValue();
         final double naturalMinorityProportion = 1.0 - majorityProportion;
         if (naturalMinorityProportion >= targetMinorityProportion) {
-            final PredictiveModel wrappedPredictiveModel = predictiveModelBuilder.buildPredictiveModel(trainingData);
+            final PredictiveModel wrappedPredictiveModel = predictiveModelBuilder.buildPredictiveModel(trainingData, id);
             return new DownsamplingPredictiveModel(wrappedPredictiveModel, majorityClassification, minorityEntry.getKey(), 0);
         }
 
         final double dropProbability = 1.0 - ((naturalMinorityProportion - targetMinorityProportion*naturalMinorityProportion) / (targetMinorityProportion - targetMinorityProportion *naturalMinorityProportion));
 
-        Iterable<? extends AbstractInstance> downsampledTrainingData = Iterables.filter(trainingData, new RandomDroppingInstanceFilter(majorityClassification, dropProbability));
+        List<AbstractInstance> downsampledTrainingData = downsample(trainingData, majorityClassification, dropProbability);
 
-        final PredictiveModel wrappedPredictiveModel = predictiveModelBuilder.buildPredictiveModel(downsampledTrainingData);
+        final PredictiveModel wrappedPredictiveModel = predictiveModelBuilder.buildPredictiveModel(downsampledTrainingData, id);
 
         return new DownsamplingPredictiveModel(wrappedPredictiveModel, majorityClassification, minorityEntry.getKey(), dropProbability);
     }
@@ -59,9 +108,41 @@ public class DownsamplingPredictiveModelBuilder implements UpdatablePredictiveMo
 
     @Override
     public void setID(Serializable id) {
+        this.id = id;
         predictiveModelBuilder.setID(id);
     }
 
+    /**
+     * Downsamples in a single pass, so the wrapped builder, which may iterate over its training data
+     * many times, always sees the same instances.
+     */
+    private List<AbstractInstance> downsample(final Iterable<? extends AbstractInstance> trainingData, final Serializable majorityClassification, final double dropProbability) {
+        final ArrayList<AbstractInstance> downsampledData = Lists.newArrayList();
+        if (reweightInsteadOfDropping) {
+            for (AbstractInstance instance : trainingData) {
+                if (instance.getClassification().equals(majorityClassification)) {
+                    downsampledData.add(instance.reweight(instance.getWeight() * (1.0 - dropProbability)));
+                } else {
+                    downsampledData.add(instance);
+                }
+            }
+        } else {
+            final Random random = nextRandom();
+            final RandomDroppingInstanceFilter filter = new RandomDroppingInstanceFilter(majorityClassification, dropProbability, random);
+            for (AbstractInstance instance : trainingData) {
+                if (filter.apply(instance)) {
+                    downsampledData.add(instance);
+                }
+            }
+        }
+        downsampledData.trimToSize();
+        return downsampledData;
+    }
+
+    private synchronized Random nextRandom() {
+        return seeds != null ? new Random(seeds.nextLong()) : Misc.random;
+    }
+
     private Map<Serializable, Double> getClassificationProportions(final Iterable<? extends AbstractInstance> trainingData) {
         Map<Serializable, AtomicLong> classificationCounts = Maps.newHashMap();
         long total = 0;
@@ -83,9 +164,14 @@ public class DownsamplingPredictiveModelBuilder implements UpdatablePredictiveMo
 
     @Override
     public void updatePredictiveModel(DownsamplingPredictiveModel predictiveModel, Iterable<? extends AbstractInstance> newData, List<? extends AbstractInstance> trainingData, boolean splitNodes) {
+        updatePredictiveModel(predictiveModel, newData, trainingData, splitNodes, id);
+    }
+
+    @Override
+    public void updatePredictiveModel(DownsamplingPredictiveModel predictiveModel, Iterable<? extends AbstractInstance> newData, List<? extends AbstractInstance> trainingData, boolean splitNodes, Serializable id) {
         if (predictiveModelBuilder instanceof UpdatablePredictiveModelBuilder) {
-            Iterable<? extends AbstractInstance> downsampledNewData = Iterables.filter(newData, new RandomDroppingInstanceFilter(predictiveModel.getMajorityClassification(), predictiveModel.getDropProbability()));
-            ((UpdatablePredictiveModelBuilder)predictiveModelBuilder).updatePredictiveModel(predictiveModel.wrappedPredictiveModel, downsampledNewData, trainingData, splitNodes);
+            List<AbstractInstance> downsampledNewData = downsample(newData, predictiveModel.getMajorityClassification(), predictiveModel.getDropProbability());
+            ((UpdatablePredictiveModelBuilder)predictiveModelBuilder).updatePredictiveModel(predictiveModel.wrappedPredictiveModel, downsampledNewData, trainingData, splitNodes, id);
         } else {
             throw new RuntimeException("Cannot update predictive model without UpdatablePredictiveModelBuilder");
         }
@@ -12,6 +12,7 @@ import java.util.Map;
  * Created by ian on 4/24/14.
  */
 public class DownsamplingPredictiveModelBuilderBuilder implements UpdatablePredictiveModelBuilderBuilder<DownsamplingPredictiveModel, DownsamplingPredictiveModelBuilder> {
+    private static final long serialVersionUID = -8222435444115478380L;
 
     private static final String MINORITY_INSTANCE_PROPORTION = "minorityInstanceProportion";
     private final PredictiveModelBuilderBuilder<?, ?> wrappedBuilderBuilder;
@@ -5,6 +5,7 @@ import quickdt.Misc;
 import quickdt.data.AbstractInstance;
 
 import java.io.Serializable;
+import java.util.Random;
 
 /**
  * Created by ian on 4/23/14.
@@ -12,16 +13,22 @@ import java.io.Serializable;
 class RandomDroppingInstanceFilter implements Predicate<AbstractInstance> {
     private final Serializable classificationToDrop;
     private final double dropProbability;
+    private final Random random;
 
     public RandomDroppingInstanceFilter(Serializable classificationToDrop, double dropProbability) {
+        this(classificationToDrop, dropProbability, Misc.random);
+    }
+
+    public RandomDroppingInstanceFilter(Serializable classificationToDrop, double dropProbability, Random random) {
         this.classificationToDrop = classificationToDrop;
         this.dropProbability = dropProbability;
+        this.random = random;
     }
 
     @Override
     public boolean apply(final AbstractInstance abstractInstance) {
         if (abstractInstance.getClassification().equals(classificationToDrop)) {
-            final double rand = Misc.random.nextDouble();
+            final double rand = random.nextDouble();
             return rand > dropProbability;
         } else {
             return true;
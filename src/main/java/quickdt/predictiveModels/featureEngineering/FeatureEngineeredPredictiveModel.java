@@ -51,4 +51,12 @@ public class FeatureEngineeredPredictiveModel implements PredictiveModel {
     public Serializable getClassificationByMaxProb(final Attributes attributes) {
         return wrappedModel.getClassificationByMaxProb(enrichAttributes(attributes));
     }
+
+    public PredictiveModel getWrappedModel() {
+        return wrappedModel;
+    }
+
+    public List<AttributesEnricher> getAttributesEnrichers() {
+        return attributesEnrichers;
+    }
 }
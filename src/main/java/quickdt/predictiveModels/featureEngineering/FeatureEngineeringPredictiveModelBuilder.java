@@ -6,6 +6,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import quickdt.data.AbstractInstance;
 import quickdt.data.Instance;
+import quickdt.predictiveModels.BuildBudget;
+import quickdt.predictiveModels.CancellationToken;
 import quickdt.predictiveModels.PredictiveModel;
 import quickdt.predictiveModels.PredictiveModelBuilder;
 
@@ -20,6 +22,7 @@ public class FeatureEngineeringPredictiveModelBuilder implements PredictiveModel
 
     private final PredictiveModelBuilder<?> wrappedBuilder;
     private final List<? extends AttributesEnrichStrategy> enrichStrategies;
+    private Serializable id;
 
     public FeatureEngineeringPredictiveModelBuilder(PredictiveModelBuilder<?> wrappedBuilder, List<? extends AttributesEnrichStrategy> enrichStrategies) {
         if (enrichStrategies.isEmpty()) {
@@ -31,6 +34,11 @@ public class FeatureEngineeringPredictiveModelBuilder implements PredictiveModel
 
     @Override
     public FeatureEngineeredPredictiveModel buildPredictiveModel(final Iterable<? extends AbstractInstance> trainingData) {
+        return buildPredictiveModel(trainingData, id);
+    }
+
+    @Override
+    public FeatureEngineeredPredictiveModel buildPredictiveModel(final Iterable<? extends AbstractInstance> trainingData, final Serializable id) {
         List<AttributesEnricher> enrichers = Lists.newArrayListWithExpectedSize(enrichStrategies.size());
 
         for (AttributesEnrichStrategy enrichStrategy : enrichStrategies) {
@@ -39,7 +47,7 @@ public class FeatureEngineeringPredictiveModelBuilder implements PredictiveModel
 
         final Iterable<Instance> enrichedTrainingData = Iterables.transform(trainingData, new InstanceEnricher(enrichers));
 
-        PredictiveModel predictiveModel = wrappedBuilder.buildPredictiveModel(enrichedTrainingData);
+        PredictiveModel predictiveModel = wrappedBuilder.buildPredictiveModel(enrichedTrainingData, id);
 
         return new FeatureEngineeredPredictiveModel(predictiveModel, enrichers);
     }
@@ -49,8 +57,27 @@ public class FeatureEngineeringPredictiveModelBuilder implements PredictiveModel
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public PredictiveModelBuilder<FeatureEngineeredPredictiveModel> seed(long seed) {
+        wrappedBuilder.seed(seed);
+        return this;
+    }
+
+    @Override
+    public PredictiveModelBuilder<FeatureEngineeredPredictiveModel> budget(BuildBudget budget) {
+        wrappedBuilder.budget(budget);
+        return this;
+    }
+
+    @Override
+    public PredictiveModelBuilder<FeatureEngineeredPredictiveModel> cancellationToken(CancellationToken cancellationToken) {
+        wrappedBuilder.cancellationToken(cancellationToken);
+        return this;
+    }
+
     @Override
     public void setID(Serializable id) {
+        this.id = id;
         wrappedBuilder.setID(id);
     }
 }
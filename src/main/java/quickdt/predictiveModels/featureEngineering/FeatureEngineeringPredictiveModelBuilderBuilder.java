@@ -10,6 +10,7 @@ import java.util.Map;
  * Created by ian on 5/21/14.
  */
 public class FeatureEngineeringPredictiveModelBuilderBuilder implements PredictiveModelBuilderBuilder<FeatureEngineeredPredictiveModel, FeatureEngineeringPredictiveModelBuilder> {
+    private static final long serialVersionUID = -4194983112301836036L;
 
     private final PredictiveModelBuilderBuilder<?, ?> wrappedBuilderBuilder;
     private final List<? extends AttributesEnrichStrategy> enrichStrategies;
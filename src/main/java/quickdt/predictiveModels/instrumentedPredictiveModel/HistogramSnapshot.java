@@ -0,0 +1,96 @@
+package quickdt.predictiveModels.instrumentedPredictiveModel;
+
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * The counts of a {@link StripedHistogram} at one point in time, over the interval since it was created or last
+ * reset.
+ */
+public class HistogramSnapshot {
+    private final long[] counts;
+    private final long count;
+    private final long sum;
+    private final long max;
+    private final long intervalNanos;
+
+    HistogramSnapshot(long[] counts, long sum, long max, long intervalNanos) {
+        this.counts = counts;
+        long count = 0;
+        for (long bucketCount : counts) {
+            count += bucketCount;
+        }
+        this.count = count;
+        this.sum = sum;
+        this.max = max;
+        this.intervalNanos = intervalNanos;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return the value that <code>percentile</code> percent of the recorded values are at or below, to within the
+     * precision of the histogram, or 0 if nothing has been recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        Preconditions.checkArgument(percentile >= 0 && percentile <= 100, "Percentile must be between 0 and 100");
+        if (count == 0) {
+            return 0;
+        }
+        final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            seen += counts[bucket];
+            if (seen >= rank) {
+                final long lowest = StripedHistogram.lowestValue(bucket);
+                final long midpoint = lowest + (StripedHistogram.highestValue(bucket) - lowest) / 2;
+                return Math.min(midpoint, max);
+            }
+        }
+        return max;
+    }
+
+    public long getP50() {
+        return getValueAtPercentile(50);
+    }
+
+    public long getP99() {
+        return getValueAtPercentile(99);
+    }
+
+    public long getP999() {
+        return getValueAtPercentile(99.9);
+    }
+
+    /**
+     * @return the time covered by this snapshot
+     */
+    public long getIntervalNanos() {
+        return intervalNanos;
+    }
+
+    /**
+     * @return the number of values recorded per second over the interval of this snapshot
+     */
+    public double getThroughput() {
+        return intervalNanos <= 0 ? 0 : count * (double) TimeUnit.SECONDS.toNanos(1) / intervalNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count=%d, throughput=%.1f/s, mean=%.0f, p50=%d, p99=%d, p999=%d, max=%d", count,
+                getThroughput(), getMean(), getP50(), getP99(), getP999(), max);
+    }
+}
@@ -0,0 +1,196 @@
+package quickdt.predictiveModels.instrumentedPredictiveModel;
+
+import java.io.ObjectStreamException;
+import java.io.PrintStream;
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.Maps;
+
+import quickdt.data.Attributes;
+import quickdt.predictiveModels.PredictiveModel;
+import quickdt.predictiveModels.calibratedPredictiveModel.CalibratedPredictiveModel;
+import quickdt.predictiveModels.decisionTree.tree.Tree;
+import quickdt.predictiveModels.downsamplingPredictiveModel.DownsamplingPredictiveModel;
+import quickdt.predictiveModels.featureEngineering.FeatureEngineeredPredictiveModel;
+import quickdt.predictiveModels.randomForest.RandomForest;
+import quickdt.predictiveModels.splitOnAttributePredictiveModel.SplitOnAttributePM;
+import quickdt.predictiveModels.temporallyWeightPredictiveModel.TemporallyReweightedPM;
+
+/**
+ * A predictive model that wraps another predictive model and records how long each call to score it takes, in a
+ * {@link ScoringMetrics} under the model's version and layer.  Recording takes two calls to
+ * {@link System#nanoTime()} and a few uncontended atomic increments.
+ * <p>
+ * Use {@link #instrumentLayers(PredictiveModel, String, ScoringMetrics, boolean)} to time every layer of a wrapped
+ * model, for example feature engineering, calibration and the forest beneath them, separately.  If the wrapped model is
+ * a {@link RandomForest} or a {@link Tree}, the length of the path taken through each tree can also be recorded, at the
+ * cost of finding the leaves a second time.
+ * <p>
+ * Instrumentation isn't serialized: an instrumented model is written as the model it wraps.
+ */
+public class InstrumentedPredictiveModel implements PredictiveModel {
+    private static final long serialVersionUID = -3371542383713529178L;
+    private final PredictiveModel wrappedModel;
+    private final String version;
+    private final String layer;
+    private final transient StripedHistogram latencies;
+    private final transient List<Tree> trees;
+    private final transient PathLengthStats pathLengths;
+
+    public InstrumentedPredictiveModel(PredictiveModel wrappedModel, String version, ScoringMetrics metrics) {
+        this(wrappedModel, version, layerName(wrappedModel), metrics, false);
+    }
+
+    /**
+     * @param layer       the name the latencies of this model are recorded under, with <code>version</code>
+     * @param pathLengths whether to record the path lengths through each tree, ignored unless
+     *                    <code>wrappedModel</code> is a {@link RandomForest} or {@link Tree}
+     */
+    public InstrumentedPredictiveModel(PredictiveModel wrappedModel, String version, String layer, ScoringMetrics metrics,
+                                       boolean pathLengths) {
+        this.wrappedModel = wrappedModel;
+        this.version = version;
+        this.layer = layer;
+        this.latencies = metrics.getLatencies(version, layer);
+        if (pathLengths && wrappedModel instanceof RandomForest) {
+            this.trees = ((RandomForest) wrappedModel).trees;
+        } else if (pathLengths && wrappedModel instanceof Tree) {
+            this.trees = Collections.singletonList((Tree) wrappedModel);
+        } else {
+            this.trees = null;
+        }
+        this.pathLengths = trees != null ? metrics.getPathLengths(version, layer, trees.size()) : null;
+    }
+
+    /**
+     * Instrument <code>predictiveModel</code> and every model it wraps, so that the latency of each layer is recorded
+     * separately.  Wrapper models are rebuilt around their instrumented wrapped models, the original models aren't
+     * changed.
+     *
+     * @param pathLengths whether to record the path lengths through the trees of forests and trees
+     */
+    public static InstrumentedPredictiveModel instrumentLayers(PredictiveModel predictiveModel, String version,
+                                                               ScoringMetrics metrics, boolean pathLengths) {
+        return instrumentLayers(predictiveModel, version, "", metrics, pathLengths);
+    }
+
+    private static InstrumentedPredictiveModel instrumentLayers(PredictiveModel predictiveModel, String version,
+                                                                String parentLayer, ScoringMetrics metrics,
+                                                                boolean pathLengths) {
+        final String layer = parentLayer + layerName(predictiveModel);
+        final String childLayer = layer + "/";
+        final PredictiveModel instrumentedModel;
+        if (predictiveModel instanceof FeatureEngineeredPredictiveModel) {
+            final FeatureEngineeredPredictiveModel model = (FeatureEngineeredPredictiveModel) predictiveModel;
+            instrumentedModel = new FeatureEngineeredPredictiveModel(
+                    instrumentLayers(model.getWrappedModel(), version, childLayer, metrics, pathLengths),
+                    model.getAttributesEnrichers());
+        } else if (predictiveModel instanceof CalibratedPredictiveModel) {
+            final CalibratedPredictiveModel model = (CalibratedPredictiveModel) predictiveModel;
+            instrumentedModel = new CalibratedPredictiveModel(
+                    instrumentLayers(model.predictiveModel, version, childLayer, metrics, pathLengths),
+                    model.calibrator, model.positiveClassification);
+        } else if (predictiveModel instanceof DownsamplingPredictiveModel) {
+            final DownsamplingPredictiveModel model = (DownsamplingPredictiveModel) predictiveModel;
+            instrumentedModel = new DownsamplingPredictiveModel(
+                    instrumentLayers(model.wrappedPredictiveModel, version, childLayer, metrics, pathLengths),
+                    model.getMajorityClassification(), model.getMinorityClassification(), model.getDropProbability());
+        } else if (predictiveModel instanceof TemporallyReweightedPM) {
+            final TemporallyReweightedPM model = (TemporallyReweightedPM) predictiveModel;
+            instrumentedModel = new TemporallyReweightedPM(
+                    instrumentLayers(model.getWrappedModel(), version, childLayer, metrics, pathLengths));
+        } else if (predictiveModel instanceof SplitOnAttributePM) {
+            final SplitOnAttributePM model = (SplitOnAttributePM) predictiveModel;
+            final Map<Serializable, PredictiveModel> splitModels = Maps.newHashMap();
+            for (Map.Entry<Serializable, PredictiveModel> entry : model.getSplitModels().entrySet()) {
+                splitModels.put(entry.getKey(), instrumentLayers(entry.getValue(), version,
+                        childLayer + entry.getKey() + "/", metrics, pathLengths));
+            }
+            instrumentedModel = new SplitOnAttributePM(model.getAttributeKey(), splitModels,
+                    instrumentLayers(model.getDefaultPM(), version, childLayer + "default/", metrics, pathLengths));
+        } else {
+            instrumentedModel = predictiveModel;
+        }
+        return new InstrumentedPredictiveModel(instrumentedModel, version, layer, metrics, pathLengths);
+    }
+
+    private static String layerName(PredictiveModel predictiveModel) {
+        if (predictiveModel instanceof FeatureEngineeredPredictiveModel) {
+            return "featureEngineering";
+        } else if (predictiveModel instanceof CalibratedPredictiveModel) {
+            return "calibrated";
+        } else if (predictiveModel instanceof DownsamplingPredictiveModel) {
+            return "downsampling";
+        } else if (predictiveModel instanceof TemporallyReweightedPM) {
+            return "temporallyReweighted";
+        } else if (predictiveModel instanceof SplitOnAttributePM) {
+            return "splitOnAttribute";
+        } else if (predictiveModel instanceof RandomForest) {
+            return "randomForest";
+        } else if (predictiveModel instanceof Tree) {
+            return "tree";
+        }
+        return predictiveModel.getClass().getSimpleName();
+    }
+
+    @Override
+    public double getProbability(Attributes attributes, Serializable classification) {
+        final long start = System.nanoTime();
+        final double probability = wrappedModel.getProbability(attributes, classification);
+        latencies.record(System.nanoTime() - start);
+        recordPathLengths(attributes);
+        return probability;
+    }
+
+    @Override
+    public Map<Serializable, Double> getProbabilitiesByClassification(Attributes attributes) {
+        final long start = System.nanoTime();
+        final Map<Serializable, Double> probabilities = wrappedModel.getProbabilitiesByClassification(attributes);
+        latencies.record(System.nanoTime() - start);
+        recordPathLengths(attributes);
+        return probabilities;
+    }
+
+    @Override
+    public Serializable getClassificationByMaxProb(Attributes attributes) {
+        final long start = System.nanoTime();
+        final Serializable classification = wrappedModel.getClassificationByMaxProb(attributes);
+        latencies.record(System.nanoTime() - start);
+        recordPathLengths(attributes);
+        return classification;
+    }
+
+    private void recordPathLengths(Attributes attributes) {
+        if (pathLengths != null) {
+            final int[] lengths = new int[trees.size()];
+            for (int tree = 0; tree < lengths.length; tree++) {
+                lengths[tree] = trees.get(tree).node.getLeaf(attributes).depth;
+            }
+            pathLengths.record(lengths);
+        }
+    }
+
+    @Override
+    public void dump(PrintStream printStream) {
+        wrappedModel.dump(printStream);
+    }
+
+    public PredictiveModel getWrappedModel() {
+        return wrappedModel;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public String getLayer() {
+        return layer;
+    }
+
+    private Object writeReplace() throws ObjectStreamException {
+        return wrappedModel;
+    }
+}
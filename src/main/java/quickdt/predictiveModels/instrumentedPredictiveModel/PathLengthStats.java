@@ -0,0 +1,83 @@
+package quickdt.predictiveModels.instrumentedPredictiveModel;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The lengths of the paths taken through each tree of a model by the instances it scores, that is the depths of the
+ * leaves reached.  Shallow paths on every tree point at a forest that could be pruned, while one tree with long paths
+ * dominates the scoring latency.
+ */
+public class PathLengthStats {
+    private static final int HIGHEST_TRACKABLE_LENGTH = 1 << 16;
+
+    private final LongAdder[] totals;
+    private final LongAccumulator[] maxima;
+    private final LongAdder instances = new LongAdder();
+    private final StripedHistogram pathLengths = new StripedHistogram(HIGHEST_TRACKABLE_LENGTH,
+            Runtime.getRuntime().availableProcessors());
+
+    public PathLengthStats(int trees) {
+        totals = new LongAdder[trees];
+        maxima = new LongAccumulator[trees];
+        for (int tree = 0; tree < trees; tree++) {
+            totals[tree] = new LongAdder();
+            maxima[tree] = new LongAccumulator(Math::max, 0);
+        }
+    }
+
+    /**
+     * @param pathLengths the path length in each tree for one scored instance
+     */
+    public void record(int[] pathLengths) {
+        instances.increment();
+        for (int tree = 0; tree < totals.length; tree++) {
+            totals[tree].add(pathLengths[tree]);
+            maxima[tree].accumulate(pathLengths[tree]);
+            this.pathLengths.record(pathLengths[tree]);
+        }
+    }
+
+    public int getTreeCount() {
+        return totals.length;
+    }
+
+    public long getInstances() {
+        return instances.sum();
+    }
+
+    public double getMeanPathLength(int tree) {
+        final long count = instances.sum();
+        return count == 0 ? 0 : (double) totals[tree].sum() / count;
+    }
+
+    public long getMaxPathLength(int tree) {
+        return maxima[tree].get();
+    }
+
+    /**
+     * @return the path lengths of all trees together
+     */
+    public HistogramSnapshot getPathLengths() {
+        return pathLengths.snapshot();
+    }
+
+    public void reset() {
+        instances.reset();
+        for (int tree = 0; tree < totals.length; tree++) {
+            totals[tree].reset();
+            maxima[tree].reset();
+        }
+        pathLengths.reset();
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder stringBuilder = new StringBuilder("path lengths: ").append(pathLengths.snapshot());
+        for (int tree = 0; tree < totals.length; tree++) {
+            stringBuilder.append(String.format("%n  tree %d: mean=%.2f, max=%d", tree, getMeanPathLength(tree),
+                    getMaxPathLength(tree)));
+        }
+        return stringBuilder.toString();
+    }
+}
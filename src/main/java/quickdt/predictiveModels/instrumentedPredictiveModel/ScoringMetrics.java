@@ -0,0 +1,81 @@
+package quickdt.predictiveModels.instrumentedPredictiveModel;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The scoring latencies, and optionally path lengths, of {@link InstrumentedPredictiveModel}s, by model version and
+ * layer.  Metrics are keyed by <code>version:layer</code>, where the layer is the path from the outermost wrapper, for
+ * example <code>v2:featureEngineering/calibrated/randomForest</code>.  A layer's latencies include the layers it
+ * wraps.
+ */
+public class ScoringMetrics {
+    private final ConcurrentMap<String, StripedHistogram> latencies = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, PathLengthStats> pathLengths = new ConcurrentHashMap<>();
+
+    public StripedHistogram getLatencies(String version, String layer) {
+        return latencies.computeIfAbsent(key(version, layer), key -> new StripedHistogram());
+    }
+
+    public PathLengthStats getPathLengths(String version, String layer, int trees) {
+        return pathLengths.computeIfAbsent(key(version, layer), key -> new PathLengthStats(trees));
+    }
+
+    /**
+     * @return the scoring latencies in nanoseconds recorded since the last reset, by <code>version:layer</code>
+     */
+    public Map<String, HistogramSnapshot> snapshot() {
+        final Map<String, HistogramSnapshot> snapshots = new TreeMap<>();
+        for (Map.Entry<String, StripedHistogram> entry : latencies.entrySet()) {
+            snapshots.put(entry.getKey(), entry.getValue().snapshot());
+        }
+        return snapshots;
+    }
+
+    /**
+     * Like {@link #snapshot()}, but also resets the latencies, so that each snapshot covers the interval since the
+     * previous one.  Path lengths aren't reset.
+     */
+    public Map<String, HistogramSnapshot> snapshotAndReset() {
+        final Map<String, HistogramSnapshot> snapshots = new TreeMap<>();
+        for (Map.Entry<String, StripedHistogram> entry : latencies.entrySet()) {
+            snapshots.put(entry.getKey(), entry.getValue().snapshotAndReset());
+        }
+        return snapshots;
+    }
+
+    /**
+     * @return the path length stats, by <code>version:layer</code>, of the layers scoring trees with path lengths
+     * turned on
+     */
+    public Map<String, PathLengthStats> getPathLengthStats() {
+        return new TreeMap<>(pathLengths);
+    }
+
+    public void reset() {
+        for (StripedHistogram histogram : latencies.values()) {
+            histogram.reset();
+        }
+        for (PathLengthStats stats : pathLengths.values()) {
+            stats.reset();
+        }
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder stringBuilder = new StringBuilder();
+        for (Map.Entry<String, HistogramSnapshot> entry : snapshot().entrySet()) {
+            stringBuilder.append(entry.getKey()).append(" ns: ").append(entry.getValue()).append('\n');
+        }
+        for (Map.Entry<String, PathLengthStats> entry : getPathLengthStats().entrySet()) {
+            stringBuilder.append(entry.getKey()).append(' ').append(entry.getValue()).append('\n');
+        }
+        return stringBuilder.toString();
+    }
+
+    private static String key(String version, String layer) {
+        return version + ":" + layer;
+    }
+}
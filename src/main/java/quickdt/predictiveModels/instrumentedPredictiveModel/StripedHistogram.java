@@ -0,0 +1,110 @@
+package quickdt.predictiveModels.instrumentedPredictiveModel;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * A lock-free histogram of non-negative longs, such as latencies in nanoseconds, for recording from many threads at
+ * once.
+ * <p>
+ * Like HdrHistogram, values are counted in log-linear buckets: values below 128 exactly, and larger values in 64
+ * buckets per power of two, so that every value is reported to within 1%.  Counts are kept in one row of buckets per
+ * stripe, and each thread records into the stripe picked by its id, so that threads on different cores rarely update
+ * the same cache line.  Values above the highest trackable value are counted in the last bucket.
+ */
+public class StripedHistogram {
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    private final int bucketCount;
+    private final int stripeMask;
+    private final AtomicLongArray counts;
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+    private volatile long startNanos = System.nanoTime();
+
+    /**
+     * A histogram of values up to an hour in nanoseconds, with a stripe per processor.
+     */
+    public StripedHistogram() {
+        this(3600L * 1000 * 1000 * 1000, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param highestTrackableValue the largest value counted in its own bucket
+     * @param stripes               the number of stripes, rounded up to a power of two
+     */
+    public StripedHistogram(long highestTrackableValue, int stripes) {
+        Preconditions.checkArgument(highestTrackableValue > 0, "The highest trackable value must be positive");
+        Preconditions.checkArgument(stripes > 0, "There must be at least one stripe");
+        this.bucketCount = bucketIndex(highestTrackableValue) + 1;
+        final int stripeCount = Integer.highestOneBit(stripes) == stripes ? stripes : Integer.highestOneBit(stripes) << 1;
+        this.stripeMask = stripeCount - 1;
+        this.counts = new AtomicLongArray(stripeCount * bucketCount);
+    }
+
+    public void record(long value) {
+        Preconditions.checkArgument(value >= 0, "Can't record negative values");
+        final int stripe = (int) Thread.currentThread().getId() & stripeMask;
+        counts.incrementAndGet(stripe * bucketCount + Math.min(bucketIndex(value), bucketCount - 1));
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * @return the counts recorded since this histogram was created or last reset
+     */
+    public HistogramSnapshot snapshot() {
+        final long[] merged = new long[bucketCount];
+        for (int index = 0; index < counts.length(); index++) {
+            merged[index % bucketCount] += counts.get(index);
+        }
+        return new HistogramSnapshot(merged, sum.sum(), max.get(), System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Take a snapshot and reset the histogram in one pass.  Values recorded concurrently end up in either this
+     * snapshot or the next one, they are never lost.
+     */
+    public HistogramSnapshot snapshotAndReset() {
+        final long now = System.nanoTime();
+        final long intervalNanos = now - startNanos;
+        startNanos = now;
+        final long[] merged = new long[bucketCount];
+        for (int index = 0; index < counts.length(); index++) {
+            merged[index % bucketCount] += counts.getAndSet(index, 0);
+        }
+        return new HistogramSnapshot(merged, sum.sumThenReset(), max.getThenReset(), intervalNanos);
+    }
+
+    public void reset() {
+        snapshotAndReset();
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        final int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS + 1;
+        return (shift << (SUB_BUCKET_BITS - 1)) + (int) (value >>> shift);
+    }
+
+    static long lowestValue(int bucketIndex) {
+        if (bucketIndex < SUB_BUCKET_COUNT) {
+            return bucketIndex;
+        }
+        final int shift = (bucketIndex >> (SUB_BUCKET_BITS - 1)) - 1;
+        return (long) (bucketIndex - (shift << (SUB_BUCKET_BITS - 1))) << shift;
+    }
+
+    static long highestValue(int bucketIndex) {
+        if (bucketIndex < SUB_BUCKET_COUNT) {
+            return bucketIndex;
+        }
+        final int shift = (bucketIndex >> (SUB_BUCKET_BITS - 1)) - 1;
+        return lowestValue(bucketIndex) + (1L << shift) - 1;
+    }
+}
@@ -12,6 +12,7 @@ import com.google.common.util.concurrent.AtomicDouble;
 import quickdt.data.Attributes;
 import quickdt.predictiveModels.PredictiveModel;
 import quickdt.predictiveModels.decisionTree.tree.Leaf;
+import quickdt.predictiveModels.decisionTree.tree.SplitGainImportance;
 import quickdt.predictiveModels.decisionTree.tree.Tree;
 
 /**
@@ -24,11 +25,22 @@ public class RandomForest implements PredictiveModel {
 
 	public final List<Tree> trees;
 
-	protected RandomForest(List<Tree> trees) {
+	public RandomForest(List<Tree> trees) {
 		Preconditions.checkArgument(trees.size() > 0, "We must have at least one tree");
 		this.trees = trees;
 	}
 
+	/**
+	 * @return the split gain per attribute summed over all of the trees
+	 */
+	public SplitGainImportance getSplitGainImportance() {
+		SplitGainImportance splitGainImportance = new SplitGainImportance();
+		for (Tree tree : trees) {
+			splitGainImportance.merge(tree.getSplitGainImportance());
+		}
+		return splitGainImportance;
+	}
+
 	public void dump(PrintStream printStream, int numTrees) {
 		double meanDepth = 0;
 		for (int i = 0; i < numTrees; i++) {
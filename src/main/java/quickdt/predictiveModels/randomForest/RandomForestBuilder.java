@@ -3,6 +3,7 @@ package quickdt.predictiveModels.randomForest;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.SplittableRandom;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -15,9 +16,11 @@ import com.google.common.base.Preconditions;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 
-import quickdt.Misc;
 import quickdt.data.AbstractInstance;
+import quickdt.predictiveModels.BuildBudget;
+import quickdt.predictiveModels.CancellationToken;
 import quickdt.predictiveModels.UpdatablePredictiveModelBuilder;
+import quickdt.predictiveModels.decisionTree.TreeBuildListener;
 import quickdt.predictiveModels.decisionTree.TreeBuilder;
 import quickdt.predictiveModels.decisionTree.tree.Tree;
 
@@ -27,9 +30,12 @@ public class RandomForestBuilder implements UpdatablePredictiveModelBuilder<Rand
 	private final TreeBuilder   treeBuilder;
 	private int                 numTrees            = 20;
 	private int                 executorThreadCount = Runtime.getRuntime().availableProcessors();
-	private ExecutorService     executorService;
 	private int                 baggingSampleSize   = 0;
 	private Serializable        id;
+	private Long                seed                = null;
+	private TreeBuildListener   listener            = null;
+	private BuildBudget         budget              = null;
+	private CancellationToken   cancellationToken   = null;
 
 	public RandomForestBuilder() {
 		this(new TreeBuilder().ignoreAttributeAtNodeProbability(0.5));
@@ -71,37 +77,115 @@ public class RandomForestBuilder implements UpdatablePredictiveModelBuilder<Rand
 		return this;
 	}
 
+	/**
+	 * Build a forest of extremely randomized trees, see
+	 * {@link TreeBuilder#extraTrees(boolean)}.
+	 */
+	public RandomForestBuilder extraTrees(boolean extraTrees) {
+		this.treeBuilder.extraTrees(extraTrees);
+		return this;
+	}
+
+	/**
+	 * Seed the forest, so that the same training data always builds the same
+	 * forest. Each tree is bagged and built with its own generator, split from
+	 * the forest's before any tree is submitted, so the forest doesn't depend on
+	 * the number of threads or the order in which trees are built. Unseeded
+	 * forests are seeded randomly.
+	 */
+	@Override
+	public RandomForestBuilder seed(long seed) {
+		this.seed = seed;
+		return this;
+	}
+
+	/**
+	 * Report the time each tree waits for a thread and takes to build to
+	 * <code>listener</code>, which is also set on the tree builder to receive its
+	 * build and node events.
+	 */
+	public RandomForestBuilder listener(TreeBuildListener listener) {
+		this.listener = listener;
+		treeBuilder.listener(listener);
+		return this;
+	}
+
+	/**
+	 * Share one budget between all the trees of each build. Once it runs out, the
+	 * trees being built are cut short and no more trees are started, so the forest
+	 * built has fewer, and partly shallower, trees. The first tree is always
+	 * built, if only as a single leaf.
+	 */
+	@Override
+	public RandomForestBuilder budget(BuildBudget budget) {
+		this.budget = budget;
+		return this;
+	}
+
+	/**
+	 * Stop building trees once <code>cancellationToken</code> is cancelled, as
+	 * when the {@link #budget(BuildBudget)} runs out.
+	 */
+	@Override
+	public RandomForestBuilder cancellationToken(CancellationToken cancellationToken) {
+		this.cancellationToken = cancellationToken;
+		return this;
+	}
+
 	@Override
 	public void setID(Serializable id) {
+		this.id = id;
 		treeBuilder.setID(id);
 	}
 
-	public synchronized RandomForest buildPredictiveModel(
+	public RandomForest buildPredictiveModel(
 			final Iterable<? extends AbstractInstance> trainingData) {
-		executorService = Executors.newFixedThreadPool(executorThreadCount);
+		return buildPredictiveModel(trainingData, id);
+	}
+
+	@Override
+	public RandomForest buildPredictiveModel(
+			final Iterable<? extends AbstractInstance> trainingData, final Serializable id) {
+		final ExecutorService executorService = Executors.newFixedThreadPool(executorThreadCount);
 		logger.info("Building random forest with {} trees", numTrees);
-		treeBuilder.setID(id);
 
 		List<Future<Tree>> treeFutures = Lists.newArrayListWithCapacity(numTrees);
 		List<Tree> trees = Lists.newArrayListWithCapacity(numTrees);
 
+		final SplittableRandom random = createRandom();
+		final BuildBudget.Tracker tracker = BuildBudget.start(budget, cancellationToken);
+
 		// Submit all tree building jobs to the executor
 		for (int treeIndex = 0; treeIndex < numTrees; treeIndex++) {
+			final SplittableRandom treeRandom = random.split();
 			Iterable<? extends AbstractInstance> treeTrainingData = shuffleTrainingData(
-					trainingData);
-			treeFutures.add(submitTreeBuild(treeTrainingData, treeIndex));
+					trainingData, treeRandom);
+			treeFutures.add(submitTreeBuild(executorService, treeTrainingData, treeIndex, id,
+					treeRandom.nextLong(), tracker));
 		}
 
 		// Collect all completed trees. Will block until complete
-		collectTreeFutures(trees, treeFutures);
+		collectTreeFutures(executorService, trees, treeFutures);
+		if (trees.size() < numTrees) {
+			logger.info("Built {} of {} trees before running out of budget", trees.size(),
+					numTrees);
+		}
 
 		return new RandomForest(trees);
 	}
 
-	public synchronized void updatePredictiveModel(RandomForest randomForest,
+	public void updatePredictiveModel(RandomForest randomForest,
 			final Iterable<? extends AbstractInstance> newData,
 			List<? extends AbstractInstance> trainingData, boolean splitNodes) {
-		executorService = Executors.newFixedThreadPool(executorThreadCount);
+		updatePredictiveModel(randomForest, newData, trainingData, splitNodes, id);
+	}
+
+	@Override
+	public void updatePredictiveModel(RandomForest randomForest,
+			final Iterable<? extends AbstractInstance> newData,
+			List<? extends AbstractInstance> trainingData, boolean splitNodes,
+			final Serializable id) {
+		final ExecutorService executorService = Executors.newFixedThreadPool(executorThreadCount);
 		logger.info("Updating random forest with {} trees", numTrees);
 
 		List<Future<Tree>> treeFutures = Lists.newArrayListWithCapacity(numTrees);
@@ -111,18 +195,23 @@ public class RandomForestBuilder implements UpdatablePredictiveModelBuilder<Rand
 			logger.error("Numbers are not consistent");
 		}
 
+		final SplittableRandom random = createRandom();
+		final BuildBudget.Tracker tracker = BuildBudget.start(budget, cancellationToken);
 		for (int treeIndex = 0; treeIndex < randomForest.trees.size(); treeIndex++) {
-			Iterable<? extends AbstractInstance> treeTrainingData = shuffleTrainingData(newData);
-			treeFutures.add(submitTreeUpdate(randomForest.trees.get(treeIndex), treeTrainingData,
-					treeIndex, trainingData, splitNodes));
+			final SplittableRandom treeRandom = random.split();
+			Iterable<? extends AbstractInstance> treeTrainingData = shuffleTrainingData(newData,
+					treeRandom);
+			treeFutures.add(submitTreeUpdate(executorService, randomForest.trees.get(treeIndex),
+					treeTrainingData, treeIndex, trainingData, splitNodes, id, treeRandom.nextLong(),
+					tracker));
 		}
 
 		// Collect all completed trees. Will block until complete
-		collectTreeFutures(trees, treeFutures);
+		collectTreeFutures(executorService, trees, treeFutures);
 	}
 
-	public synchronized void stripData(RandomForest randomForest) {
-		executorService = Executors.newFixedThreadPool(executorThreadCount);
+	public void stripData(RandomForest randomForest) {
+		final ExecutorService executorService = Executors.newFixedThreadPool(executorThreadCount);
 		logger.info("Removing data from random forest with {} trees", numTrees);
 
 		List<Future<Tree>> treeFutures = Lists.newArrayListWithCapacity(numTrees);
@@ -130,15 +219,30 @@ public class RandomForestBuilder implements UpdatablePredictiveModelBuilder<Rand
 
 		// Submit all tree building jobs to the executor
 		for (int treeIndex = 0; treeIndex < numTrees; treeIndex++) {
-			treeFutures.add(submitTreeStrip(randomForest.trees.get(treeIndex), treeIndex));
+			treeFutures.add(
+					submitTreeStrip(executorService, randomForest.trees.get(treeIndex), treeIndex));
 		}
 
 		// Collect all completed trees. Will block until complete
-		collectTreeFutures(trees, treeFutures);
+		collectTreeFutures(executorService, trees, treeFutures);
+	}
+
+	private SplittableRandom createRandom() {
+		return seed != null ? new SplittableRandom(seed) : new SplittableRandom();
 	}
 
 	protected Iterable<? extends AbstractInstance> shuffleTrainingData(
-			Iterable<? extends AbstractInstance> trainingData) {
+			Iterable<? extends AbstractInstance> trainingData, SplittableRandom random) {
+		return bag(trainingData, baggingSampleSize, random);
+	}
+
+	/**
+	 * The training data of a single tree, bagged as {@link #withBagging(int)}
+	 * describes, so that trees built elsewhere can be bagged in the same way.
+	 */
+	public static Iterable<? extends AbstractInstance> bag(
+			Iterable<? extends AbstractInstance> trainingData, int baggingSampleSize,
+			SplittableRandom random) {
 		Iterable<? extends AbstractInstance> treeTrainingData;
 		if (baggingSampleSize > 0) {
 			final int bagSize = Math.min(Iterables.size(trainingData), baggingSampleSize);
@@ -149,7 +253,7 @@ public class RandomForestBuilder implements UpdatablePredictiveModelBuilder<Rand
 			}
 			for (AbstractInstance instance : trainingData) {
 				// TODO: using bagSize here was getting indexOutOfBounds, can't figure out why
-				int position = Misc.random.nextInt(treeTrainingDataArrayList.size());
+				int position = random.nextInt(treeTrainingDataArrayList.size());
 				treeTrainingDataArrayList.add(position, instance);
 			}
 			treeTrainingData = treeTrainingDataArrayList;
@@ -159,28 +263,57 @@ public class RandomForestBuilder implements UpdatablePredictiveModelBuilder<Rand
 		return treeTrainingData;
 	}
 
-	private Future<Tree> submitTreeBuild(final Iterable<? extends AbstractInstance> trainingData,
-			final int treeIndex) {
+	private Future<Tree> submitTreeBuild(final ExecutorService executorService,
+			final Iterable<? extends AbstractInstance> trainingData, final int treeIndex,
+			final Serializable id, final long seed, final BuildBudget.Tracker tracker) {
+		final TreeBuildListener listener = this.listener;
+		final long submitted = listener != null ? System.nanoTime() : 0;
 		return executorService.submit(new Callable<Tree>() {
 			@Override
 			public Tree call() throws Exception {
-				return buildModel(trainingData, treeIndex);
+				if (tracker != null && treeIndex > 0 && tracker.isExhausted()) {
+					return null;
+				}
+				if (listener == null) {
+					return buildModel(trainingData, treeIndex, id, seed, tracker);
+				}
+				final long started = System.nanoTime();
+				final Tree tree = buildModel(trainingData, treeIndex, id, seed, tracker);
+				treeBuilt(listener, treeIndex, submitted, started);
+				return tree;
 			}
 		});
 	}
 
-	private Future<Tree> submitTreeUpdate(final Tree tree,
+	private Future<Tree> submitTreeUpdate(final ExecutorService executorService, final Tree tree,
 			final Iterable<? extends AbstractInstance> newData, final int treeIndex,
-			final List<? extends AbstractInstance> trainingData, final boolean splitNodes) {
+			final List<? extends AbstractInstance> trainingData, final boolean splitNodes,
+			final Serializable id, final long seed, final BuildBudget.Tracker tracker) {
+		final TreeBuildListener listener = this.listener;
+		final long submitted = listener != null ? System.nanoTime() : 0;
 		return executorService.submit(new Callable<Tree>() {
 			@Override
 			public Tree call() throws Exception {
-				return updateModel(tree, newData, treeIndex, trainingData, splitNodes);
+				if (listener == null) {
+					return updateModel(tree, newData, treeIndex, trainingData, splitNodes, id, seed,
+							tracker);
+				}
+				final long started = System.nanoTime();
+				updateModel(tree, newData, treeIndex, trainingData, splitNodes, id, seed, tracker);
+				treeBuilt(listener, treeIndex, submitted, started);
+				return tree;
 			}
 		});
 	}
 
-	private Future<Tree> submitTreeStrip(final Tree tree, final int treeIndex) {
+	private static void treeBuilt(TreeBuildListener listener, int treeIndex, long submitted,
+			long started) {
+		listener.forestTreeBuilt(treeIndex, started - submitted, System.nanoTime() - started,
+				Thread.currentThread().getName());
+	}
+
+	private Future<Tree> submitTreeStrip(final ExecutorService executorService, final Tree tree,
+			final int treeIndex) {
 		return executorService.submit(new Callable<Tree>() {
 			@Override
 			public Tree call() throws Exception {
@@ -190,9 +323,11 @@ public class RandomForestBuilder implements UpdatablePredictiveModelBuilder<Rand
 	}
 
 	private Tree updateModel(Tree tree, Iterable<? extends AbstractInstance> newData, int treeIndex,
-			List<? extends AbstractInstance> trainingData, boolean splitNodes) {
+			List<? extends AbstractInstance> trainingData, boolean splitNodes, Serializable id,
+			long seed, BuildBudget.Tracker tracker) {
 		logger.debug("Updating tree {} of {}", treeIndex, numTrees);
-		treeBuilder.updatePredictiveModel(tree, newData, trainingData, splitNodes);
+		treeBuilder.updateSeededPredictiveModel(tree, newData, trainingData, splitNodes, id, seed,
+				tracker);
 		return tree;
 	}
 
@@ -202,12 +337,14 @@ public class RandomForestBuilder implements UpdatablePredictiveModelBuilder<Rand
 		return tree;
 	}
 
-	private Tree buildModel(Iterable<? extends AbstractInstance> trainingData, int treeIndex) {
+	private Tree buildModel(Iterable<? extends AbstractInstance> trainingData, int treeIndex,
+			Serializable id, long seed, BuildBudget.Tracker tracker) {
 		logger.debug("Building tree {} of {}", treeIndex, numTrees);
-		return treeBuilder.buildPredictiveModel(trainingData);
+		return treeBuilder.buildSeededPredictiveModel(trainingData, id, seed, tracker);
 	}
 
-	protected void collectTreeFutures(List<Tree> trees, List<Future<Tree>> treeFutures) {
+	protected void collectTreeFutures(ExecutorService executorService, List<Tree> trees,
+			List<Future<Tree>> treeFutures) {
 		for (Future<Tree> treeFuture : treeFutures) {
 			collectTreeFutures(trees, treeFuture);
 		}
@@ -217,7 +354,11 @@ public class RandomForestBuilder implements UpdatablePredictiveModelBuilder<Rand
 
 	private void collectTreeFutures(List<Tree> trees, Future<Tree> treeFuture) {
 		try {
-			trees.add(treeFuture.get());
+			final Tree tree = treeFuture.get();
+			// trees not started before the budget ran out are null
+			if (tree != null) {
+				trees.add(tree);
+			}
 		} catch (Exception e) {
 			// rarely an error happens here, but its origin it unknown; I am fixing it
 			// post-hoc by using the available number of trees instead of the theoretical
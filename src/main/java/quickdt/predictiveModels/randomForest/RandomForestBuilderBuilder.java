@@ -14,6 +14,7 @@ import java.util.Map;
  * Created by alexanderhawk on 3/4/14.
  */
 public class RandomForestBuilderBuilder implements UpdatablePredictiveModelBuilderBuilder<RandomForest, RandomForestBuilder> {
+    private static final long serialVersionUID = -2983716710173510090L;
     private static final String NUM_TREES = "numTrees";
     private static final String BAG_SIZE = "bagSize";
     private final TreeBuilderBuilder treeBuilderBuilder;
@@ -47,6 +47,10 @@ public class SplitOnAttributePM implements PredictiveModel {
         return getModelForAttributes(attributes).getClassificationByMaxProb(attributes);
     }
 
+    public String getAttributeKey() {
+        return attributeKey;
+    }
+
     public PredictiveModel getDefaultPM() {
         return defaultPM;
     }
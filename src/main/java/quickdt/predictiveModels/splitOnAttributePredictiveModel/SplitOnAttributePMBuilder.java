@@ -2,11 +2,16 @@ package quickdt.predictiveModels.splitOnAttributePredictiveModel;
 
 import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import org.apache.commons.lang.mutable.MutableInt;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -15,8 +20,10 @@ import com.google.common.collect.Maps;
 
 import quickdt.data.AbstractInstance;
 import quickdt.data.Attributes;
-import quickdt.data.HashMapAttributes;
+import quickdt.data.FilteredAttributes;
 import quickdt.data.Instance;
+import quickdt.predictiveModels.BuildBudget;
+import quickdt.predictiveModels.CancellationToken;
 import quickdt.predictiveModels.PredictiveModel;
 import quickdt.predictiveModels.PredictiveModelBuilder;
 import quickdt.predictiveModels.UpdatablePredictiveModelBuilder;
@@ -37,6 +44,8 @@ public class SplitOnAttributePMBuilder
 	private final double                    percentCrossData;
 	private final Set<String>               attributeWhiteList;
 	private final int                       minimumAmountCrossDataPerClassification;
+	private int                             executorThreadCount = Runtime.getRuntime()
+			.availableProcessors();
 
 	public SplitOnAttributePMBuilder(String attributeKey, PredictiveModelBuilder<?> wrappedBuilder,
 			int minimumAmountCrossData, double percentCrossData, Set<String> attributeWhiteList,
@@ -49,32 +58,87 @@ public class SplitOnAttributePMBuilder
 		this.minimumAmountCrossDataPerClassification = minimumAmountCrossDataPerClassification;
 	}
 
+	/**
+	 * The number of segment models (including the default model) built
+	 * concurrently, defaults to the number of available processors.
+	 */
+	public SplitOnAttributePMBuilder executorThreadCount(int threadCount) {
+		this.executorThreadCount = threadCount;
+		return this;
+	}
+
 	@Override
 	public SplitOnAttributePM buildPredictiveModel(
 			final Iterable<? extends AbstractInstance> trainingData) {
 		Map<Serializable, ArrayList<AbstractInstance>> splitTrainingData = splitTrainingData(
 				trainingData);
 
-		Map<Serializable, PredictiveModel> splitModels = Maps.newHashMap();
-		for (Map.Entry<Serializable, ArrayList<AbstractInstance>> trainingDataEntry : splitTrainingData
-				.entrySet()) {
-			logger.info("Building predictive model for " + attributeKey + "="
-					+ trainingDataEntry.getKey());
-			setID(trainingDataEntry.getKey());
-			splitModels.put(trainingDataEntry.getKey(),
-					wrappedBuilder.buildPredictiveModel(trainingDataEntry.getValue()));
+		// Segment sizes are usually very skewed, so schedule the largest segments first
+		// to avoid a big segment starting last while the other threads sit idle. The
+		// default model is trained on all of the data and so is submitted first.
+		List<Map.Entry<Serializable, ArrayList<AbstractInstance>>> segments = Lists
+				.newArrayList(splitTrainingData.entrySet());
+		segments.sort((a, b) -> Integer.compare(b.getValue().size(), a.getValue().size()));
+
+		final ExecutorService executorService = Executors.newFixedThreadPool(executorThreadCount);
+		try {
+			logger.info("Building default predictive model");
+			Future<PredictiveModel> defaultPMFuture = submitBuild(executorService, trainingData,
+					null);
+
+			Map<Serializable, Future<PredictiveModel>> splitModelFutures = Maps.newLinkedHashMap();
+			for (Map.Entry<Serializable, ArrayList<AbstractInstance>> segment : segments) {
+				logger.info("Building predictive model for " + attributeKey + "="
+						+ segment.getKey());
+				splitModelFutures.put(segment.getKey(),
+						submitBuild(executorService, segment.getValue(), segment.getKey()));
+			}
+
+			Map<Serializable, PredictiveModel> splitModels = Maps.newHashMap();
+			for (Map.Entry<Serializable, Future<PredictiveModel>> splitModelFuture : splitModelFutures
+					.entrySet()) {
+				splitModels.put(splitModelFuture.getKey(),
+						getModel(splitModelFuture.getValue(), splitModelFuture.getKey()));
+			}
+			return new SplitOnAttributePM(attributeKey, splitModels,
+					getModel(defaultPMFuture, null));
+		} finally {
+			executorService.shutdownNow();
 		}
+	}
 
-		logger.info("Building default predictive model");
-		setID(null);
-		final PredictiveModel defaultPM = wrappedBuilder.buildPredictiveModel(trainingData);
-		return new SplitOnAttributePM(attributeKey, splitModels, defaultPM);
+	/*
+	 * The segment id is passed with each build rather than set on the shared
+	 * wrapped builder, so concurrent segment builds don't see each other's id.
+	 */
+	private Future<PredictiveModel> submitBuild(ExecutorService executorService,
+			final Iterable<? extends AbstractInstance> trainingData, final Serializable id) {
+		return executorService.submit(new Callable<PredictiveModel>() {
+			@Override
+			public PredictiveModel call() throws Exception {
+				return wrappedBuilder.buildPredictiveModel(trainingData, id);
+			}
+		});
+	}
+
+	private PredictiveModel getModel(Future<PredictiveModel> future, Serializable id) {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while building split models", e);
+		} catch (ExecutionException e) {
+			String segment = id == null ? "default predictive model"
+					: "predictive model for " + attributeKey + "=" + id;
+			throw new RuntimeException("Failed to build " + segment, e.getCause());
+		}
 	}
 
 	private Map<Serializable, ArrayList<AbstractInstance>> splitTrainingData(
 			Iterable<? extends AbstractInstance> trainingData) {
 		Map<Serializable, ArrayList<AbstractInstance>> splitTrainingData = Maps.newHashMap();
 		ArrayList<AbstractInstance> allData = new ArrayList<>();
+		ArrayList<Serializable> segmentOfRow = new ArrayList<>();
 		for (AbstractInstance instance : trainingData) {
 			Serializable value = instance.getAttributes().get(attributeKey);
 			if (value == null)
@@ -86,41 +150,66 @@ public class SplitOnAttributePMBuilder
 			}
 			splitData.add(instance);
 			allData.add(instance);
+			segmentOfRow.add(value);
 		}
 
-		crossPollinateData(splitTrainingData, allData);
+		crossPollinateData(splitTrainingData, allData, segmentOfRow);
 		return splitTrainingData;
 	}
 
 	/*
 	 * Add data to each split data set based on the desired cross data values.
 	 * Maintain the same ratio of classifications in the split set by selecting that
-	 * ratio from outside sets. Only keep the attributes in the supporting instances
-	 * that in in the white list
+	 * ratio from outside sets, preferring the most recent instances. Only keep the
+	 * attributes in the supporting instances that in in the white list.
+	 *
+	 * The rows of each classification are indexed once, so each segment only visits
+	 * the rows it takes (plus the rows of its own segment it has to skip) instead of
+	 * walking all of the data, and stops once it has taken all of the rows of a
+	 * classification outside of the segment.
 	 */
 	private void crossPollinateData(
 			Map<Serializable, ArrayList<AbstractInstance>> splitTrainingData,
-			ArrayList<AbstractInstance> allData) {
+			ArrayList<AbstractInstance> allData, ArrayList<Serializable> segmentOfRow) {
+		Map<Serializable, int[]> rowsByClassification = indexRowsByClassification(allData);
+
 		for (Map.Entry<Serializable, ArrayList<AbstractInstance>> entry : splitTrainingData
 				.entrySet()) {
 			ClassCounter splitClassCounter = ClassCounter.countAll(entry.getValue());
+			Map<Serializable, MutableInt> ownRowCounts = countRowsByClassification(entry.getValue());
 			long amountCrossData = (long) Math.max(splitClassCounter.getTotal() * percentCrossData,
 					minimumAmountTotalCrossData);
-			Set<AbstractInstance> crossData = new HashSet<>();
-			ClassCounter crossDataCount = new ClassCounter();
-			for (int i = allData.size() - 1; i >= 0; i--) {
-				AbstractInstance instance = allData.get(i);
-				double classificationRatio = splitClassCounter
-						.getCount(instance.getClassification()) / splitClassCounter.getTotal();
-				double targetCount = Math.max(classificationRatio * amountCrossData,
-						minimumAmountCrossDataPerClassification);
-				if (shouldAddInstance(entry.getKey(), instance, crossDataCount, targetCount)) {
-					crossData.add(cleanSupportingData(instance));
-					crossDataCount.addClassification(instance.getClassification(),
-							instance.getWeight());
-				}
-				if (crossDataCount.getTotal() >= amountCrossData) {
-					break;
+
+			// fill the classifications with the smallest targets first, so that the total
+			// limit doesn't starve them of their minimum amount
+			Map<Serializable, Double> targetCounts = Maps.newHashMap();
+			for (Serializable classification : rowsByClassification.keySet()) {
+				double classificationRatio = splitClassCounter.getCount(classification)
+						/ splitClassCounter.getTotal();
+				targetCounts.put(classification, Math.max(classificationRatio * amountCrossData,
+						minimumAmountCrossDataPerClassification));
+			}
+			List<Serializable> classifications = Lists.newArrayList(targetCounts.keySet());
+			classifications.sort((a, b) -> Double.compare(targetCounts.get(a), targetCounts.get(b)));
+
+			List<AbstractInstance> crossData = new ArrayList<>();
+			double crossDataTotal = 0;
+			for (Serializable classification : classifications) {
+				double targetCount = targetCounts.get(classification);
+				double crossDataCount = 0;
+				int[] rows = rowsByClassification.get(classification);
+				MutableInt ownRowCount = ownRowCounts.get(classification);
+				int otherRows = rows.length - (ownRowCount != null ? ownRowCount.intValue() : 0);
+				for (int i = rows.length - 1; otherRows > 0 && crossDataCount < targetCount
+						&& crossDataTotal < amountCrossData; i--) {
+					if (entry.getKey().equals(segmentOfRow.get(rows[i]))) {
+						continue;
+					}
+					otherRows--;
+					AbstractInstance instance = allData.get(rows[i]);
+					crossData.add(supportingInstance(instance));
+					crossDataCount += instance.getWeight();
+					crossDataTotal += instance.getWeight();
 				}
 			}
 			// cross pollinate data
@@ -128,26 +217,45 @@ public class SplitOnAttributePMBuilder
 		}
 	}
 
-	/*
-	 * Add instances such that the ratio of classifications is unchanged
-	 */
-	private boolean shouldAddInstance(Serializable attributeValue, AbstractInstance instance,
-			ClassCounter crossDataCount, double targetCount) {
-		if (!attributeValue.equals(instance.getAttributes().get(attributeKey))) {
-			if (targetCount > crossDataCount.getCount(instance.getClassification())) {
-				return true;
+	private static Map<Serializable, MutableInt> countRowsByClassification(
+			List<AbstractInstance> instances) {
+		Map<Serializable, MutableInt> rowCounts = Maps.newHashMap();
+		for (AbstractInstance instance : instances) {
+			MutableInt rowCount = rowCounts.get(instance.getClassification());
+			if (rowCount == null) {
+				rowCount = new MutableInt();
+				rowCounts.put(instance.getClassification(), rowCount);
 			}
+			rowCount.increment();
 		}
-		return false;
+		return rowCounts;
 	}
 
-	private AbstractInstance cleanSupportingData(AbstractInstance instance) {
-		Attributes attributes = new HashMapAttributes();
-		for (String key : instance.getAttributes().keySet()) {
-			if (attributeWhiteList.isEmpty() || attributeWhiteList.contains(key)) {
-				attributes.put(key, instance.getAttributes().get(key));
-			}
+	private static Map<Serializable, int[]> indexRowsByClassification(
+			List<AbstractInstance> allData) {
+		Map<Serializable, MutableInt> rowCounts = countRowsByClassification(allData);
+
+		Map<Serializable, int[]> rowsByClassification = Maps.newHashMap();
+		for (Map.Entry<Serializable, MutableInt> rowCount : rowCounts.entrySet()) {
+			rowsByClassification.put(rowCount.getKey(), new int[rowCount.getValue().intValue()]);
+			rowCount.getValue().setValue(0);
+		}
+		for (int row = 0; row < allData.size(); row++) {
+			Serializable classification = allData.get(row).getClassification();
+			MutableInt position = rowCounts.get(classification);
+			rowsByClassification.get(classification)[position.intValue()] = row;
+			position.increment();
 		}
+		return rowsByClassification;
+	}
+
+	/*
+	 * Supporting instances see the original attributes through a white list view
+	 * rather than a copy.
+	 */
+	private AbstractInstance supportingInstance(AbstractInstance instance) {
+		Attributes attributes = attributeWhiteList.isEmpty() ? instance.getAttributes()
+				: new FilteredAttributes(instance.getAttributes(), attributeWhiteList);
 		return new Instance(attributes, instance.getClassification(), instance.getWeight());
 	}
 
@@ -157,6 +265,31 @@ public class SplitOnAttributePMBuilder
 		return this;
 	}
 
+	/**
+	 * The wrapped builder builds every segment with the same seed.
+	 */
+	@Override
+	public PredictiveModelBuilder<SplitOnAttributePM> seed(long seed) {
+		this.wrappedBuilder.seed(seed);
+		return this;
+	}
+
+	/**
+	 * The wrapped builder charges each segment to a budget of its own.
+	 */
+	@Override
+	public PredictiveModelBuilder<SplitOnAttributePM> budget(BuildBudget budget) {
+		this.wrappedBuilder.budget(budget);
+		return this;
+	}
+
+	@Override
+	public PredictiveModelBuilder<SplitOnAttributePM> cancellationToken(
+			CancellationToken cancellationToken) {
+		this.wrappedBuilder.cancellationToken(cancellationToken);
+		return this;
+	}
+
 	@Override
 	public void setID(Serializable id) {
 		wrappedBuilder.setID(id);
@@ -175,20 +308,20 @@ public class SplitOnAttributePMBuilder
 				if (pm == null) {
 					logger.info("Building predictive model for " + attributeKey + "="
 							+ newDataEntry.getKey());
-					setID(newDataEntry.getKey());
-					pm = wrappedBuilder.buildPredictiveModel(newDataEntry.getValue());
+					pm = wrappedBuilder.buildPredictiveModel(newDataEntry.getValue(),
+							newDataEntry.getKey());
 					predictiveModel.getSplitModels().put(newDataEntry.getKey(), pm);
 				} else {
 					logger.info("Updating predictive model for " + attributeKey + "="
 							+ newDataEntry.getKey());
 					((UpdatablePredictiveModelBuilder) wrappedBuilder).updatePredictiveModel(pm,
-							newDataEntry.getValue(), trainingData, splitNodes);
+							newDataEntry.getValue(), trainingData, splitNodes,
+							newDataEntry.getKey());
 				}
 			}
 			logger.info("Updating default predictive model");
-			setID(null);
 			((UpdatablePredictiveModelBuilder) wrappedBuilder).updatePredictiveModel(
-					predictiveModel.getDefaultPM(), newData, trainingData, splitNodes);
+					predictiveModel.getDefaultPM(), newData, trainingData, splitNodes, null);
 		} else {
 			throw new RuntimeException(
 					"Cannot update predictive model without UpdatablePredictiveModelBuilder");
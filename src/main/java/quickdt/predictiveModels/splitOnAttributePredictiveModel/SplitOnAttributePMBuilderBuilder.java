@@ -13,6 +13,7 @@ import java.util.Set;
  * Created by chrisreeves on 6/10/14.
  */
 public class SplitOnAttributePMBuilderBuilder implements UpdatablePredictiveModelBuilderBuilder<SplitOnAttributePM, SplitOnAttributePMBuilder> {
+    private static final long serialVersionUID = 3175882660729802493L;
     private static final String MIN_AMOUNT_TOTAL_CROSS_DATA = "minAmountTotalCrossData";
     private static final String MIN_AMOUNT_CROSS_DATA_CLASSIFICATION = "minAmountCrossDataClassification";
     private static final String PERCENT_CROSS_DATA = "percentCrossData";
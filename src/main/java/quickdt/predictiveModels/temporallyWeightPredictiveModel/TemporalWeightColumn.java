@@ -0,0 +1,160 @@
+package quickdt.predictiveModels.temporallyWeightPredictiveModel;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.joda.time.DateTimeConstants;
+
+import quickdt.crossValidation.DateTimeExtractor;
+import quickdt.data.AbstractInstance;
+import quickdt.data.Attributes;
+
+/**
+ * The timestamps of the training data, extracted once into an epoch millisecond
+ * column, together with the instances reweighted by how long before the most
+ * recent instance they occurred.
+ *
+ * When newer data arrives every existing weight decays by the same factor for
+ * its classification, so the existing weights are rescaled in place rather than
+ * recomputed.
+ */
+final class TemporalWeightColumn {
+	private static final double MILLIS_PER_HOUR = DateTimeConstants.MILLIS_PER_HOUR;
+
+	private final double       decayConstantOfPositive;
+	private final double       decayConstantOfNegative;
+	private final Serializable positiveClassification;
+
+	private long[]               times      = new long[0];
+	private boolean[]            positive   = new boolean[0];
+	private ReweightedInstance[] instances  = new ReweightedInstance[0];
+	private int                  size       = 0;
+	private long                 mostRecent = Long.MIN_VALUE;
+
+	TemporalWeightColumn(double decayConstantOfPositive, double decayConstantOfNegative,
+			Serializable positiveClassification) {
+		this.decayConstantOfPositive = decayConstantOfPositive;
+		this.decayConstantOfNegative = decayConstantOfNegative;
+		this.positiveClassification = positiveClassification;
+	}
+
+	int size() {
+		return size;
+	}
+
+	/**
+	 * @return the instance appended at <code>index</code>, as it was appended
+	 */
+	AbstractInstance getOriginal(int index) {
+		return instances[index].instance;
+	}
+
+	/**
+	 * Extracts the timestamps of <code>data</code>, decays the existing weights to
+	 * the new most recent instance and weights the appended instances.
+	 *
+	 * @return the reweighted appended instances
+	 */
+	List<AbstractInstance> append(Iterable<? extends AbstractInstance> data,
+			DateTimeExtractor dateTimeExtractor) {
+		final int firstAppended = size;
+		long newMostRecent = mostRecent;
+		for (AbstractInstance instance : data) {
+			if (size == times.length) {
+				int capacity = Math.max(16, size + (size >> 1));
+				times = Arrays.copyOf(times, capacity);
+				positive = Arrays.copyOf(positive, capacity);
+				instances = Arrays.copyOf(instances, capacity);
+			}
+			long time = dateTimeExtractor.extractDateTime(instance).getMillis();
+			times[size] = time;
+			positive[size] = instance.getClassification().equals(positiveClassification);
+			instances[size] = new ReweightedInstance(instance);
+			newMostRecent = Math.max(newMostRecent, time);
+			size++;
+		}
+
+		if (firstAppended > 0 && newMostRecent > mostRecent) {
+			double hoursForward = (newMostRecent - mostRecent) / MILLIS_PER_HOUR;
+			double positiveFactor = Math.exp(-hoursForward / decayConstantOfPositive);
+			double negativeFactor = Math.exp(-hoursForward / decayConstantOfNegative);
+			for (int i = 0; i < firstAppended; i++) {
+				instances[i].weight *= positive[i] ? positiveFactor : negativeFactor;
+			}
+		}
+		mostRecent = newMostRecent;
+
+		for (int i = firstAppended; i < size; i++) {
+			double hoursBack = (mostRecent - times[i]) / MILLIS_PER_HOUR;
+			double decayConstant = positive[i] ? decayConstantOfPositive : decayConstantOfNegative;
+			instances[i].weight = Math.exp(-hoursBack / decayConstant);
+		}
+		return new InstanceList(firstAppended, size);
+	}
+
+	/**
+	 * @return all of the reweighted instances, in the order they were appended
+	 */
+	List<AbstractInstance> getInstances() {
+		return new InstanceList(0, size);
+	}
+
+	private final class InstanceList extends AbstractList<AbstractInstance> {
+		private final int from;
+		private final int to;
+
+		private InstanceList(int from, int to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		public AbstractInstance get(int index) {
+			if (index < 0 || index >= to - from) {
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+			}
+			return instances[from + index];
+		}
+
+		@Override
+		public int size() {
+			return to - from;
+		}
+	}
+
+	/**
+	 * An instance whose weight is owned by the column, so that decaying it doesn't
+	 * require a new instance.
+	 */
+	private static final class ReweightedInstance extends AbstractInstance {
+		private final AbstractInstance instance;
+		private double                 weight;
+
+		private ReweightedInstance(AbstractInstance instance) {
+			this.instance = instance;
+			this.index = instance.index;
+		}
+
+		@Override
+		public Attributes getAttributes() {
+			return instance.getAttributes();
+		}
+
+		@Override
+		public Serializable getClassification() {
+			return instance.getClassification();
+		}
+
+		@Override
+		public double getWeight() {
+			return weight;
+		}
+
+		@Override
+		public AbstractInstance reweight(double newWeight) {
+			return instance.reweight(newWeight);
+		}
+	}
+}
@@ -2,7 +2,6 @@ package quickdt.predictiveModels.temporallyWeightPredictiveModel;
 
 import quickdt.data.Attributes;
 import quickdt.predictiveModels.PredictiveModel;
-import quickdt.predictiveModels.splitOnAttributePredictiveModel.SplitOnAttributePMBuilder;
 
 import java.io.PrintStream;
 import java.io.Serializable;
@@ -1,18 +1,17 @@
 package quickdt.predictiveModels.temporallyWeightPredictiveModel;
 
 import java.io.Serializable;
-import java.util.ArrayList;
 import java.util.List;
 
-import org.joda.time.DateTime;
 import org.joda.time.DateTimeConstants;
-import org.joda.time.Hours;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
 
 import quickdt.crossValidation.DateTimeExtractor;
 import quickdt.data.AbstractInstance;
+import quickdt.predictiveModels.BuildBudget;
+import quickdt.predictiveModels.CancellationToken;
 import quickdt.predictiveModels.PredictiveModel;
 import quickdt.predictiveModels.PredictiveModelBuilder;
 import quickdt.predictiveModels.UpdatablePredictiveModelBuilder;
@@ -31,6 +30,16 @@ public class TemporallyReweightedPMBuilder
 	private final PredictiveModelBuilder<?> wrappedBuilder;
 	private final DateTimeExtractor         dateTimeExtractor;
 	private final Serializable              positiveClassification;
+	private Serializable                    id;
+	/*
+	 * The reweighted training data of the most recent update, kept so that the
+	 * next update of the same model with the same, grown, training data only
+	 * rescales the weights. Models don't keep it, so that models that are never
+	 * updated don't hold on to their training data.
+	 */
+	private TemporalWeightColumn            updateColumn;
+	private TemporallyReweightedPM          updateColumnModel;
+	private List<? extends AbstractInstance> updateColumnSource;
 
 	public TemporallyReweightedPMBuilder(PredictiveModelBuilder<?> wrappedBuilder,
 			DateTimeExtractor dateTimeExtractor) {
@@ -58,33 +67,30 @@ public class TemporallyReweightedPMBuilder
 
 	@Override
 	public void setID(Serializable iD) {
+		this.id = iD;
 		wrappedBuilder.setID(iD);
 	}
 
 	@Override
 	public TemporallyReweightedPM buildPredictiveModel(
 			Iterable<? extends AbstractInstance> trainingData) {
+		return buildPredictiveModel(trainingData, id);
+	}
+
+	@Override
+	public TemporallyReweightedPM buildPredictiveModel(
+			Iterable<? extends AbstractInstance> trainingData, Serializable id) {
 		validateData(trainingData);
-		DateTime mostRecent = getMostRecentInstance(trainingData);
-		List<AbstractInstance> trainingDataList = reweightTrainingData(trainingData, mostRecent);
+		TemporalWeightColumn weightColumn = createWeightColumn();
+		weightColumn.append(trainingData, dateTimeExtractor);
 		final PredictiveModel predictiveModel = wrappedBuilder
-				.buildPredictiveModel(trainingDataList);
+				.buildPredictiveModel(weightColumn.getInstances(), id);
 		return new TemporallyReweightedPM(predictiveModel);
 	}
 
-	private List<AbstractInstance> reweightTrainingData(
-			Iterable<? extends AbstractInstance> sortedData, DateTime mostRecentInstance) {
-		ArrayList<AbstractInstance> trainingDataList = Lists.newArrayList();
-		for (AbstractInstance instance : sortedData) {
-			double decayConstant = (instance.getClassification().equals(positiveClassification))
-					? decayConstantOfPositive
-					: decayConstantOfNegative;
-			DateTime timeOfInstance = dateTimeExtractor.extractDateTime(instance);
-			double hoursBack = Hours.hoursBetween(mostRecentInstance, timeOfInstance).getHours();
-			double newWeight = Math.exp(-1.0 * hoursBack / decayConstant);
-			trainingDataList.add(instance.reweight(newWeight));
-		}
-		return trainingDataList;
+	private TemporalWeightColumn createWeightColumn() {
+		return new TemporalWeightColumn(decayConstantOfPositive, decayConstantOfNegative,
+				positiveClassification);
 	}
 
 	private void validateData(Iterable<? extends AbstractInstance> trainingData) {
@@ -100,36 +106,98 @@ public class TemporallyReweightedPMBuilder
 		return this;
 	}
 
+	@Override
+	public PredictiveModelBuilder<TemporallyReweightedPM> seed(long seed) {
+		this.wrappedBuilder.seed(seed);
+		return this;
+	}
+
+	@Override
+	public PredictiveModelBuilder<TemporallyReweightedPM> budget(BuildBudget budget) {
+		this.wrappedBuilder.budget(budget);
+		return this;
+	}
+
+	@Override
+	public PredictiveModelBuilder<TemporallyReweightedPM> cancellationToken(
+			CancellationToken cancellationToken) {
+		this.wrappedBuilder.cancellationToken(cancellationToken);
+		return this;
+	}
+
+	/**
+	 * When <code>trainingData</code> ends with <code>newData</code>, as passed by
+	 * {@link quickdt.predictiveModels.PredictiveModelWithDataBuilder}, the weights
+	 * of the earlier instances are kept from the previous update of the same model
+	 * and decayed in place, as long as <code>trainingData</code> is the same list,
+	 * only grown by <code>newData</code>. Otherwise all of the weights are
+	 * computed afresh.
+	 */
 	@Override
 	public void updatePredictiveModel(TemporallyReweightedPM predictiveModel,
 			Iterable<? extends AbstractInstance> newData,
 			List<? extends AbstractInstance> trainingData, boolean splitNodes) {
 		if (wrappedBuilder instanceof UpdatablePredictiveModelBuilder) {
 			validateData(newData);
-			DateTime mostRecentInstance = getMostRecentInstance(newData);
-
-			List<AbstractInstance> trainingDataList = reweightTrainingData(trainingData,
-					mostRecentInstance);
-			List<AbstractInstance> newDataList = reweightTrainingData(newData, mostRecentInstance);
+			final List<AbstractInstance> newDataList = Lists.newArrayList(newData);
+			final int historicInstances = trainingData.size() - newDataList.size();
+			TemporalWeightColumn weightColumn;
+			if (endsWith(trainingData, newDataList)) {
+				weightColumn = updateColumn;
+				if (!isUpdateColumnOf(predictiveModel, trainingData, historicInstances)) {
+					weightColumn = createWeightColumn();
+					weightColumn.append(trainingData.subList(0, historicInstances),
+							dateTimeExtractor);
+				}
+				rememberUpdateColumn(weightColumn, predictiveModel, trainingData);
+			} else {
+				weightColumn = createWeightColumn();
+				weightColumn.append(trainingData, dateTimeExtractor);
+				rememberUpdateColumn(null, null, null);
+			}
+			List<AbstractInstance> reweightedNewData = weightColumn.append(newDataList,
+					dateTimeExtractor);
 
 			PredictiveModel pm = predictiveModel.getWrappedModel();
 			((UpdatablePredictiveModelBuilder) wrappedBuilder).updatePredictiveModel(pm,
-					newDataList, trainingDataList, splitNodes);
+					reweightedNewData, weightColumn.getInstances(), splitNodes);
 		} else {
 			throw new RuntimeException(
 					"Cannot update predictive model without UpdatablePredictiveModelBuilder");
 		}
 	}
 
-	private DateTime getMostRecentInstance(Iterable<? extends AbstractInstance> newData) {
-		DateTime mostRecent = null;
-		for (AbstractInstance instance : newData) {
-			DateTime instanceTime = dateTimeExtractor.extractDateTime(instance);
-			if (mostRecent == null || instanceTime.isAfter(mostRecent)) {
-				mostRecent = instanceTime;
+	private static boolean endsWith(List<? extends AbstractInstance> trainingData,
+			List<AbstractInstance> newData) {
+		final int offset = trainingData.size() - newData.size();
+		if (offset < 0) {
+			return false;
+		}
+		for (int i = 0; i < newData.size(); i++) {
+			if (trainingData.get(offset + i) != newData.get(i)) {
+				return false;
 			}
 		}
-		return mostRecent;
+		return true;
+	}
+
+	/*
+	 * The update column is only reused for the model it was last used for, and
+	 * for the same training data list, which it must mirror up to the new data.
+	 */
+	private boolean isUpdateColumnOf(TemporallyReweightedPM predictiveModel,
+			List<? extends AbstractInstance> trainingData, int historicInstances) {
+		return updateColumn != null && updateColumnModel == predictiveModel
+				&& updateColumnSource == trainingData && historicInstances > 0
+				&& updateColumn.size() == historicInstances && updateColumn
+						.getOriginal(historicInstances - 1) == trainingData.get(historicInstances - 1);
+	}
+
+	private void rememberUpdateColumn(TemporalWeightColumn weightColumn,
+			TemporallyReweightedPM predictiveModel, List<? extends AbstractInstance> trainingData) {
+		this.updateColumn = weightColumn;
+		this.updateColumnModel = predictiveModel;
+		this.updateColumnSource = trainingData;
 	}
 
 	@Override
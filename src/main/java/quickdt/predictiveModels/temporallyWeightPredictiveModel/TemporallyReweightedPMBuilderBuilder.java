@@ -11,6 +11,7 @@ import quickdt.predictiveModels.UpdatablePredictiveModelBuilderBuilder;
 import java.util.Map;
 
 public class TemporallyReweightedPMBuilderBuilder implements UpdatablePredictiveModelBuilderBuilder<TemporallyReweightedPM, TemporallyReweightedPMBuilder> {
+    private static final long serialVersionUID = 7450089894910858429L;
 
     public static final String HALF_LIFE_OF_NEGATIVE = "halfLifeOfNegative";
     public static final String HALF_LIFE_OF_POSITIVE = "halfLifeOfPositive";
@@ -0,0 +1,316 @@
+package quickdt.syntheticData;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+
+import org.supercsv.io.CsvListWriter;
+import org.supercsv.prefs.CsvPreference;
+
+import com.google.common.base.Preconditions;
+
+import quickdt.data.HashMapAttributes;
+import quickdt.data.Instance;
+import quickdt.modelSerialization.BinaryInstanceReader;
+import quickdt.modelSerialization.BinaryInstanceWriter;
+
+/**
+ * Generates training data with a known structure, for performance and scaling tests at sizes no real dataset at hand
+ * has.  Numeric attributes <code>n0, n1, ...</code> are uniform between 0 and 1, and categorical attributes
+ * <code>c0, c1, ...</code> take the values <code>v0, v1, ...</code> with Zipfian frequencies, <code>v0</code> being the
+ * most common.  Any attribute may be missing.  The classification, <code>class0, class1, ...</code>, is drawn from a
+ * softmax over per-class effects of the first few attributes of each kind, added to the log of a class prior whose
+ * most and least common classes differ by the class imbalance, so the classes are only approximately that imbalanced
+ * once the signal is added.
+ *
+ * Each instance is generated from the seed and its index alone, so the same seed always gives the same data, any
+ * range of it can be generated independently of the rest, and {@link #stream(long)} can supply billions of instances
+ * without holding any of them.
+ */
+public final class SyntheticDataGenerator {
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+    private static final String CLASSIFICATION_COLUMN = "classification";
+
+    private long seed = 0;
+    private int numericAttributes = 10;
+    private int categoricalAttributes = 10;
+    private int cardinality = 100;
+    private double zipfExponent = 1;
+    private double missingRate = 0;
+    private int classCount = 2;
+    private double classImbalance = 1;
+    private int informativeAttributes = 3;
+    private double signalStrength = 1;
+
+    public SyntheticDataGenerator seed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    public SyntheticDataGenerator numericAttributes(int numericAttributes) {
+        Preconditions.checkArgument(numericAttributes >= 0, "numericAttributes must not be negative");
+        this.numericAttributes = numericAttributes;
+        return this;
+    }
+
+    public SyntheticDataGenerator categoricalAttributes(int categoricalAttributes) {
+        Preconditions.checkArgument(categoricalAttributes >= 0, "categoricalAttributes must not be negative");
+        this.categoricalAttributes = categoricalAttributes;
+        return this;
+    }
+
+    /**
+     * @param cardinality the number of values of each categorical attribute
+     * @param zipfExponent the frequency of the k-th most common value is proportional to 1 / k^zipfExponent, so 0
+     *                     gives uniformly distributed values (defaults to 1)
+     */
+    public SyntheticDataGenerator cardinality(int cardinality, double zipfExponent) {
+        Preconditions.checkArgument(cardinality > 0, "cardinality must be positive");
+        Preconditions.checkArgument(zipfExponent >= 0, "zipfExponent must not be negative");
+        this.cardinality = cardinality;
+        this.zipfExponent = zipfExponent;
+        return this;
+    }
+
+    /**
+     * @param missingRate the probability that any one attribute is missing from an instance
+     */
+    public SyntheticDataGenerator missingRate(double missingRate) {
+        Preconditions.checkArgument(missingRate >= 0 && missingRate < 1, "missingRate must be in [0, 1)");
+        this.missingRate = missingRate;
+        return this;
+    }
+
+    /**
+     * @param classImbalance how many times more common the most common class is than the least common, before the
+     *                       signal is added, the classes in between being spaced geometrically (defaults to 1)
+     */
+    public SyntheticDataGenerator classes(int classCount, double classImbalance) {
+        Preconditions.checkArgument(classCount > 1, "There must be at least two classes");
+        Preconditions.checkArgument(classImbalance >= 1, "classImbalance must be at least 1");
+        this.classCount = classCount;
+        this.classImbalance = classImbalance;
+        return this;
+    }
+
+    /**
+     * @param informativeAttributes the number of attributes of each kind that the classification depends on
+     * @param signalStrength        the scale of each informative attribute's effect on the log odds of the classes,
+     *                              0 making the classification independent of the attributes
+     */
+    public SyntheticDataGenerator signal(int informativeAttributes, double signalStrength) {
+        Preconditions.checkArgument(informativeAttributes >= 0, "informativeAttributes must not be negative");
+        Preconditions.checkArgument(signalStrength >= 0, "signalStrength must not be negative");
+        this.informativeAttributes = informativeAttributes;
+        this.signalStrength = signalStrength;
+        return this;
+    }
+
+    public List<String> getAttributeNames() {
+        final List<String> names = new ArrayList<>(numericAttributes + categoricalAttributes);
+        for (int x = 0; x < numericAttributes; x++) {
+            names.add("n" + x);
+        }
+        for (int x = 0; x < categoricalAttributes; x++) {
+            names.add("c" + x);
+        }
+        return names;
+    }
+
+    public List<String> getClassifications() {
+        final List<String> classifications = new ArrayList<>(classCount);
+        for (int x = 0; x < classCount; x++) {
+            classifications.add("class" + x);
+        }
+        return classifications;
+    }
+
+    /**
+     * @return the first <code>count</code> instances, in memory
+     */
+    public List<Instance> generate(int count) {
+        final List<Instance> instances = new ArrayList<>(count);
+        for (Instance instance : stream(count)) {
+            instances.add(instance);
+        }
+        return instances;
+    }
+
+    /**
+     * @return the first <code>count</code> instances, generated again each time they're iterated over
+     */
+    public Iterable<Instance> stream(long count) {
+        return stream(0, count);
+    }
+
+    /**
+     * @return the <code>count</code> instances starting at index <code>first</code>, generated again each time they're
+     *         iterated over
+     */
+    public Iterable<Instance> stream(final long first, final long count) {
+        Preconditions.checkArgument(first >= 0 && count >= 0, "first and count must not be negative");
+        final Sampler sampler = new Sampler();
+        return () -> new Iterator<Instance>() {
+            private long index = first;
+
+            @Override
+            public boolean hasNext() {
+                return index < first + count;
+            }
+
+            @Override
+            public Instance next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return sampler.sample(index++);
+            }
+        };
+    }
+
+    /**
+     * Writes the first <code>count</code> instances as CSV with a header, the attributes followed by a
+     * <code>classification</code> column, missing values being empty.
+     */
+    public void writeCsv(long count, Writer writer) throws IOException {
+        final List<String> names = getAttributeNames();
+        final List<Serializable> row = new ArrayList<>(names.size() + 1);
+        final CsvListWriter csvWriter = new CsvListWriter(writer, CsvPreference.STANDARD_PREFERENCE);
+        final List<String> header = new ArrayList<>(names);
+        header.add(CLASSIFICATION_COLUMN);
+        csvWriter.writeHeader(header.toArray(new String[header.size()]));
+        for (Instance instance : stream(count)) {
+            row.clear();
+            for (String name : names) {
+                row.add(instance.getAttributes().get(name));
+            }
+            row.add(instance.getClassification());
+            csvWriter.write(row);
+        }
+        csvWriter.flush();
+    }
+
+    /**
+     * Writes the first <code>count</code> instances in the format read by {@link BinaryInstanceReader}.
+     */
+    public void writeBinary(long count, File file) throws IOException {
+        try (BinaryInstanceWriter writer = new BinaryInstanceWriter(file)) {
+            writer.writeAll(stream(count));
+        }
+    }
+
+    /**
+     * The structure of the data, fixed by the generator's settings when a stream is created.
+     */
+    private final class Sampler {
+        private final int numericAttributes = SyntheticDataGenerator.this.numericAttributes;
+        private final int categoricalAttributes = SyntheticDataGenerator.this.categoricalAttributes;
+        private final double missingRate = SyntheticDataGenerator.this.missingRate;
+        private final double signalStrength = SyntheticDataGenerator.this.signalStrength;
+        private final ZipfSampler valueSampler = new ZipfSampler(cardinality, zipfExponent);
+        private final List<String> attributeNames = getAttributeNames();
+        private final List<String> classifications = getClassifications();
+        private final String[] values;
+        private final double[] logPriors = new double[classCount];
+        /**
+         * per class, the effect of each informative numeric attribute
+         */
+        private final double[][] numericEffects;
+        private final long categoricalEffectSalt;
+
+        private Sampler() {
+            final SplittableRandom random = new SplittableRandom(seed);
+            for (int x = 0; x < classCount; x++) {
+                logPriors[x] = -Math.log(classImbalance) * x / (classCount - 1);
+            }
+            numericEffects = new double[classCount][Math.min(informativeAttributes, numericAttributes)];
+            for (double[] classEffects : numericEffects) {
+                for (int x = 0; x < classEffects.length; x++) {
+                    classEffects[x] = random.nextDouble() * 2 - 1;
+                }
+            }
+            categoricalEffectSalt = random.nextLong();
+            // values are only interned up to a point, beyond it they're created as they're used
+            values = new String[Math.min(cardinality, 1 << 16)];
+            for (int x = 0; x < values.length; x++) {
+                values[x] = "v" + x;
+            }
+        }
+
+        private Instance sample(long index) {
+            final SplittableRandom random = new SplittableRandom(mix64(seed + (index + 1) * GOLDEN_GAMMA));
+            final HashMapAttributes attributes = new HashMapAttributes();
+            final double[] logits = logPriors.clone();
+            for (int attribute = 0; attribute < numericAttributes; attribute++) {
+                final double value = random.nextDouble();
+                if (missingRate > 0 && random.nextDouble() < missingRate) {
+                    continue;
+                }
+                attributes.put(attributeNames.get(attribute), value);
+                if (attribute < numericEffects[0].length) {
+                    for (int x = 0; x < logits.length; x++) {
+                        logits[x] += signalStrength * numericEffects[x][attribute] * (value * 2 - 1);
+                    }
+                }
+            }
+            for (int attribute = 0; attribute < categoricalAttributes; attribute++) {
+                final int value = valueSampler.sample(random);
+                if (missingRate > 0 && random.nextDouble() < missingRate) {
+                    continue;
+                }
+                attributes.put(attributeNames.get(numericAttributes + attribute),
+                        value < values.length ? values[value] : "v" + value);
+                if (attribute < informativeAttributes) {
+                    for (int x = 0; x < logits.length; x++) {
+                        logits[x] += signalStrength * getCategoricalEffect(x, attribute, value);
+                    }
+                }
+            }
+            return new Instance(attributes, classifications.get(sampleClass(logits, random)));
+        }
+
+        /**
+         * @return a pseudo-random effect between -1 and 1, computed rather than stored so that the cardinality
+         *         doesn't matter
+         */
+        private double getCategoricalEffect(int classIndex, int attribute, int value) {
+            final long hash = mix64(mix64(mix64(categoricalEffectSalt + classIndex) + attribute) + value);
+            return (hash >>> 11) * 0x1.0p-52 - 1;
+        }
+
+        private int sampleClass(double[] logits, SplittableRandom random) {
+            double max = Double.NEGATIVE_INFINITY;
+            for (double logit : logits) {
+                max = Math.max(max, logit);
+            }
+            double total = 0;
+            for (int x = 0; x < logits.length; x++) {
+                logits[x] = Math.exp(logits[x] - max);
+                total += logits[x];
+            }
+            double remaining = random.nextDouble() * total;
+            for (int x = 0; x < logits.length - 1; x++) {
+                remaining -= logits[x];
+                if (remaining < 0) {
+                    return x;
+                }
+            }
+            return logits.length - 1;
+        }
+    }
+
+    /**
+     * The SplitMix64 finalizer.
+     */
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
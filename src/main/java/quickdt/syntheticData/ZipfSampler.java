@@ -0,0 +1,83 @@
+package quickdt.syntheticData;
+
+import java.util.SplittableRandom;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Samples ranks from 0 to <code>cardinality - 1</code>, rank k with a probability proportional to
+ * <code>1 / (k + 1)^exponent</code>, in constant time and memory whatever the cardinality.  Uses the rejection-inversion
+ * method of Hoermann and Derflinger, "Rejection-inversion to generate variates from monotone discrete distributions"
+ * (1996).  An exponent of 0 samples uniformly.
+ */
+final class ZipfSampler {
+    private final int cardinality;
+    private final double exponent;
+    private final double hIntegralX1;
+    private final double hIntegralCardinality;
+    private final double s;
+
+    ZipfSampler(int cardinality, double exponent) {
+        Preconditions.checkArgument(cardinality > 0, "cardinality must be positive");
+        Preconditions.checkArgument(exponent >= 0, "exponent must not be negative");
+        this.cardinality = cardinality;
+        this.exponent = exponent;
+        hIntegralX1 = hIntegral(1.5) - 1;
+        hIntegralCardinality = hIntegral(cardinality + 0.5);
+        s = 2 - hIntegralInverse(hIntegral(2.5) - h(2));
+    }
+
+    int sample(SplittableRandom random) {
+        if (exponent == 0) {
+            return random.nextInt(cardinality);
+        }
+        while (true) {
+            final double u = hIntegralCardinality + random.nextDouble() * (hIntegralX1 - hIntegralCardinality);
+            final double x = hIntegralInverse(u);
+            int k = (int) (x + 0.5);
+            if (k < 1) {
+                k = 1;
+            } else if (k > cardinality) {
+                k = cardinality;
+            }
+            if (k - x <= s || u >= hIntegral(k + 0.5) - h(k)) {
+                return k - 1;
+            }
+        }
+    }
+
+    /**
+     * The integral of {@link #h(double)}, offset so that it is continuous at exponent 1.
+     */
+    private double hIntegral(double x) {
+        final double logX = Math.log(x);
+        return expm1OverX((1 - exponent) * logX) * logX;
+    }
+
+    private double h(double x) {
+        return Math.exp(-exponent * Math.log(x));
+    }
+
+    private double hIntegralInverse(double x) {
+        double t = x * (1 - exponent);
+        if (t < -1) {
+            // numerical error can push t just below -1
+            t = -1;
+        }
+        return Math.exp(log1pOverX(t) * x);
+    }
+
+    private static double log1pOverX(double x) {
+        if (Math.abs(x) > 1e-8) {
+            return Math.log1p(x) / x;
+        }
+        return 1 - x * (0.5 - x * (1.0 / 3 - 0.25 * x));
+    }
+
+    private static double expm1OverX(double x) {
+        if (Math.abs(x) > 1e-8) {
+            return Math.expm1(x) / x;
+        }
+        return 1 + x * 0.5 * (1 + x * (1.0 / 3) * (1 + 0.25 * x));
+    }
+}
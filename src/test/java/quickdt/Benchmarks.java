@@ -3,7 +3,10 @@ package quickdt;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.Serializable;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.zip.GZIPInputStream;
 
 import org.json.simple.JSONObject;
@@ -11,10 +14,12 @@ import org.json.simple.JSONValue;
 
 import com.google.common.collect.Lists;
 
+import quickdt.crossValidation.CrossValLossFunction;
 import quickdt.crossValidation.StationaryCrossValidator;
 import quickdt.data.AbstractInstance;
 import quickdt.data.HashMapAttributes;
 import quickdt.data.Instance;
+import quickdt.predictiveModels.PredictiveModel;
 import quickdt.predictiveModels.decisionTree.Scorer;
 import quickdt.predictiveModels.decisionTree.TreeBuilder;
 import quickdt.predictiveModels.decisionTree.scorers.MSEScorer;
@@ -31,10 +36,13 @@ public class Benchmarks {
 		List<AbstractInstance> diaInstances = loadDiabetesDataset();
 
 		testWithInstances("diabetes", diaInstances);
+		compareExtraTrees("diabetes", diaInstances, "class1", 100);
 
 		final List<AbstractInstance> moboInstances = loadMoboDataset();
 
 		testWithInstances("mobo", moboInstances);
+		// mobo is large enough that 20 trees take minutes on one core
+		compareExtraTrees("mobo", moboInstances, "notNone", 20);
 
 	}
 
@@ -58,6 +66,80 @@ public class Benchmarks {
 		}
 	}
 
+	/**
+	 * Prints the cross validated AUC, and the time taken, of a random forest of
+	 * searched splits, ignoring attributes at random, and of extremely randomized
+	 * trees, which don't need to, each of <code>numTrees</code> trees.
+	 */
+	private static void compareExtraTrees(String dsName, final List<AbstractInstance> instances,
+			Serializable positiveClassification, int numTrees) {
+		StationaryCrossValidator crossValidator = new StationaryCrossValidator(4,
+				new RankAUCLoss(positiveClassification));
+
+		for (final boolean extraTrees : new boolean[] { false, true }) {
+			TreeBuilder forestTreeBuilder = new TreeBuilder()
+					.ignoreAttributeAtNodeProbability(extraTrees ? 0 : 0.5)
+					.binaryClassification(true).extraTrees(extraTrees);
+			RandomForestBuilder randomForestBuilder = new RandomForestBuilder(forestTreeBuilder)
+					.numTrees(numTrees).executorThreadCount(8);
+			final long start = System.nanoTime();
+			final double loss = crossValidator.getCrossValidatedLoss(randomForestBuilder,
+					instances);
+			System.out.println(dsName + ", " + (extraTrees ? "extra-trees" : "random-forest")
+					+ ", AUC " + (1 - loss) + ", "
+					+ TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+		}
+	}
+
+	/**
+	 * One minus the AUC, from the ranks of the predicted probabilities with ties
+	 * given their average rank, as forests of unbagged trees predict many tied
+	 * probabilities.
+	 */
+	private static final class RankAUCLoss implements CrossValLossFunction {
+		private static final long  serialVersionUID = 4208160319466581520L;
+		private final Serializable positiveClassification;
+
+		private RankAUCLoss(Serializable positiveClassification) {
+			this.positiveClassification = positiveClassification;
+		}
+
+		@Override
+		public double getLoss(List<? extends AbstractInstance> crossValSet,
+				PredictiveModel predictiveModel) {
+			final double[] probabilities = new double[crossValSet.size()];
+			final Integer[] order = new Integer[crossValSet.size()];
+			for (int x = 0; x < probabilities.length; x++) {
+				probabilities[x] = predictiveModel.getProbability(
+						crossValSet.get(x).getAttributes(), positiveClassification);
+				order[x] = x;
+			}
+			Arrays.sort(order, (a, b) -> Double.compare(probabilities[a], probabilities[b]));
+
+			double positiveRankSum = 0;
+			long positives = 0;
+			for (int start = 0; start < order.length;) {
+				int end = start;
+				while (end < order.length
+						&& probabilities[order[end]] == probabilities[order[start]]) {
+					end++;
+				}
+				final double rank = (start + 1 + end) / 2.0;
+				for (int x = start; x < end; x++) {
+					if (crossValSet.get(order[x]).getClassification()
+							.equals(positiveClassification)) {
+						positiveRankSum += rank;
+						positives++;
+					}
+				}
+				start = end;
+			}
+			final long negatives = order.length - positives;
+			return 1 - (positiveRankSum - positives * (positives + 1) / 2.0)
+					/ (positives * negatives);
+		}
+	}
+
 	public static List<AbstractInstance> loadDiabetesDataset() throws IOException {
 		final BufferedReader br = new BufferedReader(new InputStreamReader((new GZIPInputStream(
 				Benchmarks.class.getResourceAsStream("diabetesDataset.txt.gz")))));
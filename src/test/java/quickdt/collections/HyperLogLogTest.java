@@ -0,0 +1,43 @@
+package quickdt.collections;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class HyperLogLogTest {
+    @Test
+    public void estimatesDistinctValues() {
+        HyperLogLog hyperLogLog = new HyperLogLog(12);
+        for (int x = 0; x < 100000; x++) {
+            hyperLogLog.add("id" + (x % 20000));
+        }
+        Assert.assertEquals(hyperLogLog.estimate(), 20000, 20000 * 0.05);
+    }
+
+    @Test
+    public void smallCountsAreNearlyExact() {
+        HyperLogLog hyperLogLog = new HyperLogLog(12);
+        for (int x = 0; x < 30; x++) {
+            hyperLogLog.add(x % 10);
+        }
+        Assert.assertEquals(hyperLogLog.estimate(), 10);
+    }
+
+    @Test
+    public void mergeEstimatesTheUnion() {
+        HyperLogLog first = new HyperLogLog(12);
+        HyperLogLog second = new HyperLogLog(12);
+        for (long x = 0; x < 30000; x++) {
+            first.add(x);
+            second.add(x + 15000);
+        }
+        long firstEstimate = first.estimate();
+        HyperLogLog union = first.copy().merge(second);
+        Assert.assertEquals(first.estimate(), firstEstimate);
+        Assert.assertEquals(union.estimate(), 45000, 45000 * 0.05);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void sketchesOfDifferentPrecisionCantBeMerged() {
+        new HyperLogLog(10).merge(new HyperLogLog(12));
+    }
+}
@@ -0,0 +1,81 @@
+package quickdt.distributed;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.Lists;
+
+import quickdt.Benchmarks;
+import quickdt.crossValidation.LogCrossValLossFunction;
+import quickdt.crossValidation.StationaryCrossValidator;
+import quickdt.data.Instance;
+import quickdt.modelSerialization.BinaryInstanceReader;
+import quickdt.modelSerialization.BinaryInstanceWriter;
+import quickdt.predictiveModelOptimizer.FieldValueRecommender;
+import quickdt.predictiveModelOptimizer.InProcessConfigurationEvaluator;
+import quickdt.predictiveModelOptimizer.PredictiveModelOptimizer;
+import quickdt.predictiveModelOptimizer.fieldValueRecommenders.FixedOrderRecommender;
+import quickdt.predictiveModels.decisionTree.scorers.MSEScorer;
+import quickdt.predictiveModels.randomForest.RandomForestBuilderBuilder;
+
+public class DistributedConfigurationEvaluatorTest {
+
+    private static Map<String, Object> configuration(int maxDepth, int numTrees) {
+        final Map<String, Object> configuration = new HashMap<>();
+        configuration.put("ignoreAttrProb", 0.5);
+        configuration.put("maxDepth", maxDepth);
+        configuration.put("minScore", 0.00000000000001);
+        configuration.put("minCatAttrOcc", 0);
+        configuration.put("minLeafInstances", 0);
+        configuration.put("scorer", new MSEScorer(MSEScorer.CrossValidationCorrection.FALSE));
+        configuration.put("numTrees", numTrees);
+        configuration.put("bagSize", 0);
+        return configuration;
+    }
+
+    @Test
+    public void findsTheSameLossesAsInProcess() throws Exception {
+        final File file = File.createTempFile("distributed-configuration-evaluator-test", ".bin");
+        try {
+            try (BinaryInstanceWriter writer = new BinaryInstanceWriter(file)) {
+                writer.writeAll(Benchmarks.loadIrisDataset());
+            }
+            // the instances as the workers read them, so that attributes are iterated over in the same order
+            final List<Instance> instances = Lists.newArrayList(BinaryInstanceReader.map(file));
+            final StationaryCrossValidator crossValidator = new StationaryCrossValidator(4, new LogCrossValLossFunction());
+            final RandomForestBuilderBuilder builderBuilder = new RandomForestBuilderBuilder();
+            final InProcessConfigurationEvaluator inProcess = new InProcessConfigurationEvaluator(crossValidator, instances);
+
+            final Map<String, FieldValueRecommender> recommenders = new HashMap<>();
+            recommenders.put("maxDepth", new FixedOrderRecommender(2, 4, Integer.MAX_VALUE));
+            recommenders.put("numTrees", new FixedOrderRecommender(5, 10));
+
+            final Map<String, Object> inProcessOptimum;
+            final Map<String, Object> distributedOptimum;
+            try (WorkerPool workerPool = WorkerPool.startLocal(2, "-Xmx128m")) {
+                final DistributedConfigurationEvaluator distributed = new DistributedConfigurationEvaluator(workerPool,
+                        crossValidator, file);
+                for (Map<String, Object> configuration : Arrays.asList(configuration(2, 5),
+                        configuration(Integer.MAX_VALUE, 10))) {
+                    Assert.assertEquals(distributed.getCrossValidatedLoss(builderBuilder, configuration, 7L, 0),
+                            inProcess.getCrossValidatedLoss(builderBuilder, configuration, 7L, 0));
+                }
+
+                distributedOptimum = new PredictiveModelOptimizer<>(builderBuilder, instances, crossValidator, recommenders)
+                        .seed(3).configurationEvaluator(distributed).determineOptimalConfiguration(configuration(2, 5));
+            }
+            inProcessOptimum = new PredictiveModelOptimizer<>(builderBuilder, instances, crossValidator, recommenders)
+                    .seed(3).determineOptimalConfiguration(configuration(2, 5));
+            Assert.assertEquals(distributedOptimum.get("maxDepth"), inProcessOptimum.get("maxDepth"));
+            Assert.assertEquals(distributedOptimum.get("numTrees"), inProcessOptimum.get("numTrees"));
+        } finally {
+            file.delete();
+        }
+    }
+}
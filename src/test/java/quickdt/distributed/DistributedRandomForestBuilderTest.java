@@ -0,0 +1,54 @@
+package quickdt.distributed;
+
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import quickdt.data.Instance;
+import quickdt.predictiveModels.decisionTree.TreeBuilder;
+import quickdt.predictiveModels.randomForest.RandomForest;
+import quickdt.predictiveModels.randomForest.RandomForestBuilder;
+import quickdt.syntheticData.SyntheticDataGenerator;
+
+public class DistributedRandomForestBuilderTest {
+
+    private static double accuracy(RandomForest randomForest, List<Instance> instances) {
+        int correct = 0;
+        for (Instance instance : instances) {
+            if (randomForest.getClassificationByMaxProb(instance.getAttributes()).equals(instance.getClassification())) {
+                correct++;
+            }
+        }
+        return (double) correct / instances.size();
+    }
+
+    @Test
+    public void buildsTheSameForestOnAnyNumberOfWorkers() throws Exception {
+        final List<Instance> instances = new SyntheticDataGenerator().seed(5).numericAttributes(5)
+                .categoricalAttributes(3).cardinality(10, 1).signal(2, 2).generate(4000);
+        final List<Instance> training = instances.subList(0, 3000);
+        final List<Instance> test = instances.subList(3000, 4000);
+        final TreeBuilder treeBuilder = new TreeBuilder().maxDepth(6).ignoreAttributeAtNodeProbability(0.5);
+
+        final RandomForest onTwo;
+        try (WorkerPool workerPool = WorkerPool.startLocal(2, "-Xmx128m")) {
+            onTwo = new DistributedRandomForestBuilder(workerPool, treeBuilder).numTrees(6).withBagging(2000).seed(3)
+                    .buildPredictiveModel(training);
+        }
+        final RandomForest onOne;
+        try (WorkerPool workerPool = WorkerPool.startLocal(1, "-Xmx128m")) {
+            onOne = new DistributedRandomForestBuilder(workerPool, treeBuilder).numTrees(6).withBagging(2000).seed(3)
+                    .buildPredictiveModel(training);
+        }
+        Assert.assertEquals(onTwo.trees.size(), 6);
+        for (Instance instance : test) {
+            Assert.assertEquals(onTwo.getProbabilitiesByClassification(instance.getAttributes()),
+                    onOne.getProbabilitiesByClassification(instance.getAttributes()));
+        }
+
+        final RandomForest local = new RandomForestBuilder(treeBuilder).numTrees(6).withBagging(2000).seed(3)
+                .buildPredictiveModel(training);
+        Assert.assertEquals(accuracy(onTwo, test), accuracy(local, test), 0.05);
+    }
+}
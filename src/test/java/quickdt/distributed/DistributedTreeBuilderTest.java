@@ -0,0 +1,55 @@
+package quickdt.distributed;
+
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import quickdt.data.Instance;
+import quickdt.predictiveModels.decisionTree.LevelWiseTreeBuilder;
+import quickdt.predictiveModels.decisionTree.tree.Tree;
+import quickdt.syntheticData.SyntheticDataGenerator;
+
+public class DistributedTreeBuilderTest {
+
+    private static double accuracy(Tree tree, List<Instance> instances) {
+        int correct = 0;
+        for (Instance instance : instances) {
+            if (tree.getClassificationByMaxProb(instance.getAttributes()).equals(instance.getClassification())) {
+                correct++;
+            }
+        }
+        return (double) correct / instances.size();
+    }
+
+    @Test
+    public void growsTheTreeOfOneProcessFromShards() throws Exception {
+        final SyntheticDataGenerator generator = new SyntheticDataGenerator().seed(7).numericAttributes(4)
+                .categoricalAttributes(3).cardinality(10, 1).classes(3, 1).signal(2, 2);
+        // few enough rows that the shards' samples of numeric values hold all of them, so the thresholds match too
+        final List<Instance> small = generator.generate(1000);
+        final List<Instance> instances = generator.seed(8).generate(12000);
+        final List<Instance> training = instances.subList(0, 10000);
+        final List<Instance> test = instances.subList(10000, 12000);
+
+        final Tree smallTree;
+        final Tree tree;
+        try (WorkerPool workerPool = WorkerPool.startLocal(3, "-Xmx128m")) {
+            smallTree = new DistributedTreeBuilder(workerPool, new LevelWiseTreeBuilder().maxDepth(6)).seed(1)
+                    .buildPredictiveModel(small);
+            tree = new DistributedTreeBuilder(workerPool, new LevelWiseTreeBuilder().maxDepth(8)).seed(1)
+                    .buildPredictiveModel(training);
+        }
+
+        final Tree smallLocal = new LevelWiseTreeBuilder().maxDepth(6).seed(1).buildPredictiveModel(small);
+        Assert.assertEquals(smallTree.node.size(), smallLocal.node.size());
+        for (Instance instance : small) {
+            Assert.assertEquals(smallTree.getProbabilitiesByClassification(instance.getAttributes()),
+                    smallLocal.getProbabilitiesByClassification(instance.getAttributes()));
+        }
+
+        Assert.assertEquals(tree.node.getClassificationCounter().getTotal(), 10000, 0.001);
+        final Tree local = new LevelWiseTreeBuilder().maxDepth(8).seed(1).buildPredictiveModel(training);
+        Assert.assertEquals(accuracy(tree, test), accuracy(local, test), 0.03);
+    }
+}
@@ -0,0 +1,247 @@
+package quickdt.distributed;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Serializable;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.rmi.server.UID;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class WorkerPoolTest {
+
+    /**
+     * Returns the name of the worker's JVM.
+     */
+    static final class NameTask implements Task<String> {
+        @Override
+        public String run(WorkerContext context) throws Exception {
+            Thread.sleep(20);
+            return ManagementFactory.getRuntimeMXBean().getName();
+        }
+    }
+
+    /**
+     * Kills the first worker to run it, and returns the name of the second.
+     */
+    static final class DieOnceTask implements Task<String> {
+        private final String marker;
+
+        DieOnceTask(File marker) {
+            this.marker = marker.getAbsolutePath();
+        }
+
+        @Override
+        public String run(WorkerContext context) throws Exception {
+            if (new File(marker).createNewFile()) {
+                Runtime.getRuntime().halt(1);
+            }
+            return ManagementFactory.getRuntimeMXBean().getName();
+        }
+    }
+
+    static final class FailingTask implements Task<String> {
+        @Override
+        public String run(WorkerContext context) {
+            throw new IllegalStateException("expected failure");
+        }
+    }
+
+    static final class CountingTask implements Task<Integer> {
+        @Override
+        public Integer run(WorkerContext context) {
+            return (Integer) context.getState().merge("count", 1, (a, b) -> (Integer) a + (Integer) b);
+        }
+    }
+
+    static final class PaddedTask implements Task<Integer> {
+        private final byte[] padding;
+
+        PaddedTask(int bytes) {
+            padding = new byte[bytes];
+        }
+
+        @Override
+        public Integer run(WorkerContext context) {
+            return padding.length;
+        }
+    }
+
+    static final class PayloadTask implements Task<String> {
+        private final Serializable payload;
+
+        PayloadTask(Serializable payload) {
+            this.payload = payload;
+        }
+
+        @Override
+        public String run(WorkerContext context) {
+            return payload.toString();
+        }
+    }
+
+    /**
+     * Starts a worker the way it would be started on another machine.
+     */
+    private static Process startWorker(String secret, String... args) throws IOException {
+        final List<String> command = new ArrayList<>(Arrays.asList(
+                Paths.get(System.getProperty("java.home"), "bin", "java").toString(), "-Xmx64m",
+                "-cp", System.getProperty("java.class.path"), Worker.class.getName(), "0", Worker.BIND, "127.0.0.1"));
+        command.addAll(Arrays.asList(args));
+        final ProcessBuilder processBuilder = new ProcessBuilder(command).redirectErrorStream(true);
+        processBuilder.environment().put(Worker.SECRET_VARIABLE, secret);
+        return processBuilder.start();
+    }
+
+    private static List<InetSocketAddress> addressOf(Process worker) throws IOException {
+        final BufferedReader reader = new BufferedReader(
+                new InputStreamReader(worker.getInputStream(), StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null && !line.startsWith(Worker.LISTENING)) {
+            // skip the worker's log output
+        }
+        Assert.assertNotNull(line, "the worker exited before it started listening");
+        return Collections.singletonList(new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                Integer.parseInt(line.substring(Worker.LISTENING.length()).trim())));
+    }
+
+    @Test
+    public void onlyServesPoolsThatKnowTheSecret() throws Exception {
+        final Process worker = startWorker("right secret");
+        try {
+            final List<InetSocketAddress> address = addressOf(worker);
+            try {
+                WorkerPool.connect(address, "wrong secret").close();
+                Assert.fail("the worker should refuse the pool");
+            } catch (IOException e) {
+                Assert.assertTrue(e.getMessage().contains("refused the secret"), e.getMessage());
+            }
+            try (WorkerPool workerPool = WorkerPool.connect(address, "right secret")) {
+                Assert.assertNotNull(workerPool.submit(new NameTask()).get());
+            }
+        } finally {
+            worker.destroy();
+        }
+    }
+
+    @Test
+    public void refusesTasksOverTheSizeLimit() throws Exception {
+        final Process worker = startWorker("secret", Worker.MAX_TASK_BYTES, "4096");
+        try (WorkerPool workerPool = WorkerPool.connect(addressOf(worker), "secret")) {
+            Assert.assertEquals(workerPool.submit(new PaddedTask(1024)).get().intValue(), 1024);
+            try {
+                workerPool.submit(new PaddedTask(8192)).get();
+                Assert.fail("the worker should refuse the task");
+            } catch (ExecutionException e) {
+                Assert.assertEquals(workerPool.getLiveWorkers(), 0);
+            }
+        } finally {
+            worker.destroy();
+        }
+    }
+
+    @Test
+    public void onlyDeserializesQuickdtGuavaAndSomeJdkClasses() {
+        Assert.assertTrue(Worker.isDeserializable(NameTask.class.getName()));
+        Assert.assertTrue(Worker.isDeserializable("java.util.HashMap"));
+        Assert.assertTrue(Worker.isDeserializable("java.util.Collections$UnmodifiableList"));
+        Assert.assertTrue(Worker.isDeserializable("java.util.concurrent.atomic.AtomicLong"));
+        Assert.assertTrue(Worker.isDeserializable("java.lang.Double"));
+        Assert.assertTrue(Worker.isDeserializable("java.io.File"));
+        Assert.assertTrue(Worker.isDeserializable("com.google.common.collect.ImmutableList$SerializedForm"));
+        Assert.assertTrue(Worker.isDeserializable("[I"));
+        Assert.assertTrue(Worker.isDeserializable("[[Ljava.lang.String;"));
+        Assert.assertFalse(Worker.isDeserializable("org.apache.commons.collections.functors.InvokerTransformer"));
+        Assert.assertFalse(Worker.isDeserializable("[Lorg.apache.commons.collections.functors.InvokerTransformer;"));
+        Assert.assertFalse(Worker.isDeserializable("javax.management.BadAttributeValueExpException"));
+        Assert.assertFalse(Worker.isDeserializable("java.rmi.server.UnicastRef"));
+        Assert.assertFalse(Worker.isDeserializable("java.beans.EventHandler"));
+        Assert.assertFalse(Worker.isDeserializable("java.lang.invoke.SerializedLambda"));
+        Assert.assertFalse(Worker.isDeserializable("java.lang.reflect.Proxy"));
+        Assert.assertFalse(Worker.isDeserializable("java.net.URL"));
+        Assert.assertFalse(Worker.isDeserializable("[Ljava.rmi.server.UID;"));
+    }
+
+    @Test
+    public void refusesTasksMadeOfOtherJdkClasses() throws Exception {
+        try (WorkerPool workerPool = WorkerPool.startLocal(1, "-Xmx64m")) {
+            Assert.assertEquals(workerPool.submit(new PayloadTask(new File("data"))).get(), "data");
+            try {
+                workerPool.submit(new PayloadTask(new UID())).get();
+                Assert.fail("the worker should refuse the task");
+            } catch (ExecutionException e) {
+                Assert.assertTrue(e.getCause().getMessage().contains("java.rmi.server.UID"), e.getCause().getMessage());
+            }
+            Assert.assertEquals(workerPool.getLiveWorkers(), 1);
+        }
+    }
+
+    @Test
+    public void spreadsTasksOverTheWorkers() throws Exception {
+        try (WorkerPool workerPool = WorkerPool.startLocal(2, "-Xmx64m")) {
+            final List<Future<String>> futures = new ArrayList<>();
+            for (int x = 0; x < 20; x++) {
+                futures.add(workerPool.submit(new NameTask()));
+            }
+            final Set<String> workers = new HashSet<>();
+            for (Future<String> future : futures) {
+                workers.add(future.get());
+            }
+            Assert.assertEquals(workers.size(), 2);
+            Assert.assertFalse(workers.contains(ManagementFactory.getRuntimeMXBean().getName()));
+        }
+    }
+
+    @Test
+    public void reassignsTheTaskOfAWorkerThatDies() throws Exception {
+        final File marker = File.createTempFile("worker-pool-test", ".marker");
+        Assert.assertTrue(marker.delete());
+        try (WorkerPool workerPool = WorkerPool.startLocal(2, "-Xmx64m")) {
+            final Future<String> dieOnce = workerPool.submit(new DieOnceTask(marker));
+            final List<Future<String>> futures = new ArrayList<>();
+            for (int x = 0; x < 10; x++) {
+                futures.add(workerPool.submit(new NameTask()));
+            }
+            final String survivor = dieOnce.get();
+            for (Future<String> future : futures) {
+                Assert.assertNotNull(future.get());
+            }
+            Assert.assertEquals(workerPool.getLiveWorkers(), 1);
+            Assert.assertEquals(workerPool.submit(new NameTask()).get(), survivor);
+        } finally {
+            marker.delete();
+        }
+    }
+
+    @Test
+    public void reportsTaskFailuresAndKeepsState() throws Exception {
+        try (WorkerPool workerPool = WorkerPool.startLocal(2, "-Xmx64m")) {
+            try {
+                workerPool.submit(new FailingTask()).get();
+                Assert.fail("the task should fail");
+            } catch (ExecutionException e) {
+                Assert.assertTrue(e.getCause().getMessage().contains("expected failure"), e.getCause().getMessage());
+            }
+            for (int x = 1; x <= 3; x++) {
+                Assert.assertEquals(workerPool.submit(1, new CountingTask()).get().intValue(), x);
+            }
+            Assert.assertEquals(workerPool.submit(0, new CountingTask()).get().intValue(), 1);
+            Assert.assertEquals(workerPool.getLiveWorkers(), 2);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package quickdt.inspection;
+
+import com.google.common.collect.Lists;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import quickdt.data.AbstractInstance;
+import quickdt.data.Instance;
+import quickdt.predictiveModels.PredictiveModelBuilder;
+import quickdt.predictiveModels.decisionTree.TreeBuilder;
+import quickdt.predictiveModels.decisionTree.tree.Tree;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class AttributeImportanceFinderTest {
+
+    @Test
+    public void permutationImportanceTrainsOnceAndRanksTheSignalHighest() {
+        final Random random = new Random(7);
+        final List<AbstractInstance> instances = Lists.newArrayList();
+        for (int x = 0; x < 2000; x++) {
+            final double signal = random.nextDouble();
+            instances.add(Instance.create(signal > 0.5 ? 1.0 : 0.0, "signal", signal, "noise", random.nextDouble(), "constant", 1));
+        }
+
+        final AtomicInteger builds = new AtomicInteger();
+        final TreeBuilder treeBuilder = new TreeBuilder().maxDepth(4);
+        final PredictiveModelBuilder<Tree> countingBuilder = new PredictiveModelBuilder<Tree>() {
+            @Override
+            public Tree buildPredictiveModel(final Iterable<? extends AbstractInstance> trainingData) {
+                builds.incrementAndGet();
+                return treeBuilder.buildPredictiveModel(trainingData);
+            }
+
+            @Override
+            public PredictiveModelBuilder<Tree> updatable(final boolean updatable) {
+                return this;
+            }
+
+            @Override
+            public void setID(final Serializable id) {
+            }
+        };
+
+        final TreeSet<AttributeScore> scores = new AttributeImportanceFinder().executorThreadCount(3)
+                .determinePermutationImportance(countingBuilder, instances);
+
+        Assert.assertEquals(builds.get(), 1);
+        Assert.assertEquals(scores.size(), 3);
+        Assert.assertEquals(scores.last().getAttribute(), "signal");
+        Assert.assertTrue(scores.last().getScore() > scores.first().getScore());
+    }
+}
@@ -0,0 +1,121 @@
+package quickdt.inspection;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import quickdt.data.Attributes;
+import quickdt.data.Instance;
+import quickdt.predictiveModels.decisionTree.TreeBuilder;
+import quickdt.predictiveModels.decisionTree.tree.Branch;
+import quickdt.predictiveModels.decisionTree.tree.Leaf;
+import quickdt.predictiveModels.decisionTree.tree.Node;
+import quickdt.predictiveModels.decisionTree.tree.Tree;
+import quickdt.predictiveModels.randomForest.RandomForest;
+import quickdt.predictiveModels.randomForest.RandomForestBuilder;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+public class TreeShapExplainerTest {
+    private static final double EPSILON = 1e-9;
+
+    @Test
+    public void treeContributionsMatchBruteForceShapleyValues() {
+        final List<Instance> instances = getInstances();
+        final Tree tree = new TreeBuilder().maxDepth(5).buildPredictiveModel(instances);
+        final TreeShapExplainer explainer = new TreeShapExplainer(tree);
+        final List<String> attributes = Lists.newArrayList(explainer.explain(instances.get(0).getAttributes(), "yes").keySet());
+
+        for (Instance instance : instances.subList(0, 20)) {
+            final Map<String, Double> contributions = explainer.explain(instance.getAttributes(), "yes");
+            for (String attribute : attributes) {
+                Assert.assertEquals(contributions.get(attribute), bruteForceShapleyValue(tree.node, instance.getAttributes(), attribute, attributes), EPSILON);
+            }
+        }
+    }
+
+    @Test
+    public void forestContributionsAddUpToTheProbability() {
+        final List<Instance> instances = getInstances();
+        final RandomForest randomForest = new RandomForestBuilder(new TreeBuilder().maxDepth(6)).numTrees(4).buildPredictiveModel(instances);
+        final TreeShapExplainer explainer = new TreeShapExplainer(randomForest).executorThreadCount(2);
+
+        final List<Attributes> rows = Lists.newArrayList();
+        for (Instance instance : instances.subList(0, 50)) {
+            rows.add(instance.getAttributes());
+        }
+        final List<Map<String, Double>> explanations = explainer.explain(rows, "yes");
+        for (int x = 0; x < rows.size(); x++) {
+            double total = explainer.getExpectedValue("yes");
+            for (double contribution : explanations.get(x).values()) {
+                total += contribution;
+            }
+            Assert.assertEquals(total, randomForest.getProbability(rows.get(x), "yes"), EPSILON);
+            Assert.assertEquals(explanations.get(x), explainer.explain(rows.get(x), "yes"));
+        }
+    }
+
+    private static List<Instance> getInstances() {
+        final Random random = new Random(11);
+        final List<Instance> instances = Lists.newArrayList();
+        for (int x = 0; x < 1000; x++) {
+            final double a = random.nextDouble();
+            final double b = random.nextDouble();
+            final String c = "c" + random.nextInt(3);
+            final boolean positive = (a > 0.5 && b > 0.3) || (c.equals("c1") && random.nextDouble() < 0.7);
+            instances.add(Instance.create(positive ? "yes" : "no", "a", a, "b", b, "c", c));
+        }
+        return instances;
+    }
+
+    private static double bruteForceShapleyValue(Node root, Attributes attributes, String attribute, List<String> allAttributes) {
+        final Set<String> others = Sets.newHashSet(allAttributes);
+        others.remove(attribute);
+        final int m = allAttributes.size();
+        double value = 0;
+        for (Set<String> subset : Sets.powerSet(others)) {
+            final Set<String> withAttribute = Sets.newHashSet(subset);
+            withAttribute.add(attribute);
+            final double weight = factorial(subset.size()) * factorial(m - subset.size() - 1) / factorial(m);
+            value += weight * (conditionalExpectation(root, attributes, withAttribute) - conditionalExpectation(root, attributes, subset));
+        }
+        return value;
+    }
+
+    /**
+     * The expected probability given only the attributes in <code>known</code>, following the training data's
+     * proportions at splits on the other attributes.
+     */
+    private static double conditionalExpectation(Node node, Attributes attributes, Set<String> known) {
+        if (node instanceof Leaf) {
+            return ((Leaf) node).getProbability("yes");
+        }
+        final Branch branch = (Branch) node;
+        if (known.contains(branch.attribute)) {
+            return conditionalExpectation(branch.decide(attributes) ? branch.trueChild : branch.falseChild, attributes, known);
+        }
+        final double trueCover = cover(branch.trueChild);
+        final double falseCover = cover(branch.falseChild);
+        return (trueCover * conditionalExpectation(branch.trueChild, attributes, known)
+                + falseCover * conditionalExpectation(branch.falseChild, attributes, known)) / (trueCover + falseCover);
+    }
+
+    private static double cover(Node node) {
+        double cover = 0;
+        for (Leaf leaf : node.collectLeaves()) {
+            cover += leaf.exampleCount;
+        }
+        return cover;
+    }
+
+    private static double factorial(int n) {
+        double factorial = 1;
+        for (int x = 2; x <= n; x++) {
+            factorial *= x;
+        }
+        return factorial;
+    }
+}
@@ -0,0 +1,75 @@
+package quickdt.modelSerialization;
+
+import java.io.File;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.Lists;
+
+import quickdt.data.HashMapAttributes;
+import quickdt.data.Instance;
+
+public class BinaryInstanceReaderTest {
+
+    @Test
+    public void mappedListsDecodeAnyInstance() throws Exception {
+        final List<Instance> instances = createInstances();
+        final File file = write(instances);
+
+        final List<Instance> mapped = BinaryInstanceReader.mapList(file);
+        Assert.assertEquals(mapped.size(), instances.size());
+        for (int x = instances.size() - 1; x >= 0; x--) {
+            Assert.assertEquals(mapped.get(x), instances.get(x), "instance " + x);
+        }
+        Assert.assertEquals(Lists.newArrayList(BinaryInstanceReader.map(file)), mapped);
+    }
+
+    @Test
+    public void rangesHoldEachInstanceOnce() throws Exception {
+        final List<Instance> instances = createInstances();
+        final File file = write(instances);
+
+        final List<BinaryInstanceReader.Range> ranges = BinaryInstanceReader.split(file, 3);
+        Assert.assertEquals(ranges.size(), 3);
+        final List<Instance> read = new ArrayList<>();
+        for (BinaryInstanceReader.Range range : ranges) {
+            final List<Instance> rangeInstances = Lists.newArrayList(BinaryInstanceReader.read(file, range));
+            // about a third of the rows each, as the rows are about the same size
+            Assert.assertEquals(rangeInstances.size(), instances.size() / 3.0, 5);
+            read.addAll(rangeInstances);
+        }
+        Assert.assertEquals(read, instances);
+
+        final List<BinaryInstanceReader.Range> moreRangesThanRows = BinaryInstanceReader.split(write(
+                instances.subList(0, 2)), 4);
+        Assert.assertEquals(moreRangesThanRows.size(), 4);
+        Assert.assertEquals(moreRangesThanRows.get(3).getStart(), moreRangesThanRows.get(3).getEnd());
+    }
+
+    private static File write(List<Instance> instances) throws Exception {
+        final File file = File.createTempFile("instances", ".bin");
+        file.deleteOnExit();
+        try (BinaryInstanceWriter writer = new BinaryInstanceWriter(file)) {
+            writer.writeAll(instances);
+        }
+        return file;
+    }
+
+    private static List<Instance> createInstances() {
+        final List<Instance> instances = new ArrayList<>();
+        for (int x = 0; x < 100; x++) {
+            final HashMapAttributes attributes = new HashMapAttributes();
+            attributes.put("n", x);
+            attributes.put("s", "v" + (x % 7));
+            // new names keep turning up, with null, numeric and serialized values
+            attributes.put("a" + (x / 10), x % 3 == 0 ? null : x % 3 == 1 ? (Serializable) (x * 0.5) : Long.valueOf(x));
+            attributes.put("list", Lists.newArrayList(x));
+            instances.add(new Instance(attributes, x % 2 == 0 ? "even" : "odd", 1 + x % 4));
+        }
+        return instances;
+    }
+}
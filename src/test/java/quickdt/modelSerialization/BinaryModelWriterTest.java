@@ -0,0 +1,85 @@
+package quickdt.modelSerialization;
+
+import com.google.common.collect.Lists;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import quickdt.Benchmarks;
+import quickdt.data.AbstractInstance;
+import quickdt.data.Instance;
+import quickdt.predictiveModels.PredictiveModel;
+import quickdt.predictiveModels.TreeBuilderTestUtils;
+import quickdt.predictiveModels.calibratedPredictiveModel.CalibratedPredictiveModel;
+import quickdt.predictiveModels.calibratedPredictiveModel.PAVCalibrator;
+import quickdt.predictiveModels.decisionTree.TreeBuilder;
+import quickdt.predictiveModels.decisionTree.tree.Tree;
+import quickdt.predictiveModels.downsamplingPredictiveModel.DownsamplingPredictiveModel;
+import quickdt.predictiveModels.featureEngineering.AttributesEnricher;
+import quickdt.predictiveModels.featureEngineering.FeatureEngineeredPredictiveModel;
+import quickdt.predictiveModels.randomForest.RandomForest;
+import quickdt.predictiveModels.randomForest.RandomForestBuilder;
+import quickdt.predictiveModels.splitOnAttributePredictiveModel.SplitOnAttributePM;
+import quickdt.predictiveModels.splitOnAttributePredictiveModel.SplitOnAttributePMBuilder;
+import quickdt.predictiveModels.temporallyWeightPredictiveModel.TemporallyReweightedPM;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+public class BinaryModelWriterTest {
+
+    @Test
+    public void randomForestWithCategoricalSplitsRoundTrips() throws Exception {
+        final List<AbstractInstance> instances = Benchmarks.loadIrisDataset();
+        final RandomForest randomForest = new RandomForestBuilder(new TreeBuilder()).numTrees(10).buildPredictiveModel(instances);
+
+        final PredictiveModel read = BinaryModelReader.read(BinaryModelWriter.toByteArray(randomForest));
+
+        Assert.assertEquals(read, randomForest);
+        final List<Tree> readTrees = ((RandomForest) read).trees;
+        for (int x = 0; x < readTrees.size(); x++) {
+            Assert.assertEquals(readTrees.get(x).getSplitGainImportance().getTotalGain(),
+                    randomForest.trees.get(x).getSplitGainImportance().getTotalGain());
+        }
+        for (AbstractInstance instance : instances) {
+            Assert.assertEquals(read.getProbabilitiesByClassification(instance.getAttributes()),
+                    randomForest.getProbabilitiesByClassification(instance.getAttributes()));
+        }
+    }
+
+    @Test
+    public void wrapperModelsRoundTrip() throws Exception {
+        final List<Instance> instances = TreeBuilderTestUtils.getInstances(2000);
+        final SplitOnAttributePM split = new SplitOnAttributePMBuilder("gender",
+                new RandomForestBuilder(new TreeBuilder()).numTrees(5), 10, 0.1, new HashSet<String>(), 1).buildPredictiveModel(instances);
+        final List<PAVCalibrator.Observation> observations = Lists.newArrayList();
+        for (int x = 0; x <= 10; x++) {
+            observations.add(new PAVCalibrator.Observation(x / 10.0, x * x / 100.0));
+        }
+        final PredictiveModel model = new TemporallyReweightedPM(new FeatureEngineeredPredictiveModel(
+                new CalibratedPredictiveModel(new DownsamplingPredictiveModel(split, "healthy", "underweight", 0.5),
+                        new PAVCalibrator(observations), "underweight"),
+                Collections.<AttributesEnricher>emptyList()));
+
+        final PredictiveModel read = BinaryModelReader.read(BinaryModelWriter.toByteArray(model));
+
+        final PredictiveModel featureEngineered = ((TemporallyReweightedPM) read).getWrappedModel();
+        final CalibratedPredictiveModel calibrated = (CalibratedPredictiveModel) ((FeatureEngineeredPredictiveModel) featureEngineered).getWrappedModel();
+        final DownsamplingPredictiveModel downsampling = (DownsamplingPredictiveModel) calibrated.predictiveModel;
+        Assert.assertEquals(downsampling.getMinorityClassification(), "underweight");
+        final SplitOnAttributePM readSplit = (SplitOnAttributePM) downsampling.wrappedPredictiveModel;
+        Assert.assertEquals(readSplit.getAttributeKey(), "gender");
+        Assert.assertEquals(readSplit.getSplitModels(), split.getSplitModels());
+        for (Instance instance : instances) {
+            for (Serializable classification : new Serializable[]{"healthy", "underweight"}) {
+                Assert.assertEquals(read.getProbability(instance.getAttributes(), classification),
+                        model.getProbability(instance.getAttributes(), classification));
+            }
+        }
+    }
+
+    @Test(expectedExceptions = RuntimeException.class)
+    public void rejectsOtherFormats() throws Exception {
+        BinaryModelReader.read(new byte[]{(byte) 0xac, (byte) 0xed, 0, 5, 0, 0, 0, 0, 0, 0});
+    }
+}
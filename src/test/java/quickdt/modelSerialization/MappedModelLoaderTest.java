@@ -0,0 +1,75 @@
+package quickdt.modelSerialization;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import quickdt.Benchmarks;
+import quickdt.data.AbstractInstance;
+import quickdt.data.Instance;
+import quickdt.predictiveModels.PredictiveModel;
+import quickdt.predictiveModels.TreeBuilderTestUtils;
+import quickdt.predictiveModels.decisionTree.TreeBuilder;
+import quickdt.predictiveModels.downsamplingPredictiveModel.DownsamplingPredictiveModel;
+import quickdt.predictiveModels.randomForest.RandomForest;
+import quickdt.predictiveModels.randomForest.RandomForestBuilder;
+import quickdt.predictiveModels.splitOnAttributePredictiveModel.SplitOnAttributePM;
+import quickdt.predictiveModels.splitOnAttributePredictiveModel.SplitOnAttributePMBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.NotSerializableException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.List;
+
+public class MappedModelLoaderTest {
+
+    @Test
+    public void mappedForestScoresLikeTheForest() throws Exception {
+        final List<AbstractInstance> instances = Benchmarks.loadIrisDataset();
+        final RandomForest randomForest = new RandomForestBuilder(new TreeBuilder()).numTrees(10).buildPredictiveModel(instances);
+        final File file = File.createTempFile("forest", ".qdt");
+        file.deleteOnExit();
+        BinaryModelWriter.write(randomForest, file);
+
+        final MappedRandomForest mapped = (MappedRandomForest) MappedModelLoader.load(file);
+
+        for (AbstractInstance instance : instances) {
+            Assert.assertEquals(mapped.getProbabilitiesByClassification(instance.getAttributes()),
+                    randomForest.getProbabilitiesByClassification(instance.getAttributes()));
+            Assert.assertEquals(mapped.getProbability(instance.getAttributes(), instance.getClassification()),
+                    randomForest.getProbability(instance.getAttributes(), instance.getClassification()));
+            Assert.assertEquals(mapped.getClassificationByMaxProb(instance.getAttributes()),
+                    randomForest.getClassificationByMaxProb(instance.getAttributes()));
+        }
+        Assert.assertEquals(mapped.toRandomForest(), randomForest);
+    }
+
+    @Test
+    public void mappedWrapperModelsScoreLikeTheModels() throws Exception {
+        final List<Instance> instances = TreeBuilderTestUtils.getInstances(2000);
+        final SplitOnAttributePM split = new SplitOnAttributePMBuilder("gender",
+                new RandomForestBuilder(new TreeBuilder()).numTrees(5), 10, 0.1, new HashSet<String>(), 1).buildPredictiveModel(instances);
+        final PredictiveModel model = new DownsamplingPredictiveModel(split, "healthy", "underweight", 0.5);
+
+        final PredictiveModel mapped = MappedModelLoader.load(ByteBuffer.wrap(BinaryModelWriter.toByteArray(model)));
+
+        final SplitOnAttributePM mappedSplit = (SplitOnAttributePM) ((DownsamplingPredictiveModel) mapped).wrappedPredictiveModel;
+        Assert.assertEquals(mappedSplit.getSplitModels().keySet(), split.getSplitModels().keySet());
+        for (Instance instance : instances) {
+            for (Serializable classification : new Serializable[]{"healthy", "underweight"}) {
+                Assert.assertEquals(mapped.getProbability(instance.getAttributes(), classification),
+                        model.getProbability(instance.getAttributes(), classification), 1e-12);
+            }
+        }
+    }
+
+    @Test(expectedExceptions = NotSerializableException.class)
+    public void mappedModelsCantBeSerialized() throws Exception {
+        final RandomForest randomForest = new RandomForestBuilder(new TreeBuilder()).numTrees(2)
+                .buildPredictiveModel(TreeBuilderTestUtils.getInstances(100));
+        final PredictiveModel mapped = MappedModelLoader.load(ByteBuffer.wrap(BinaryModelWriter.toByteArray(randomForest)));
+        new ObjectOutputStream(new ByteArrayOutputStream()).writeObject(mapped);
+    }
+}
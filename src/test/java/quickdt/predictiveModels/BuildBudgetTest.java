@@ -0,0 +1,67 @@
+package quickdt.predictiveModels;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import quickdt.crossValidation.StationaryCrossValidator;
+import quickdt.data.Instance;
+import quickdt.predictiveModels.decisionTree.TreeBuilder;
+import quickdt.predictiveModels.decisionTree.tree.Leaf;
+import quickdt.predictiveModels.decisionTree.tree.Tree;
+import quickdt.predictiveModels.randomForest.RandomForest;
+import quickdt.predictiveModels.randomForest.RandomForestBuilder;
+
+public class BuildBudgetTest {
+
+    private static List<Instance> createInstances() {
+        final List<Instance> instances = new ArrayList<>();
+        final Random random = new Random(1);
+        for (int x = 0; x < 2000; x++) {
+            final double signal = random.nextDouble();
+            final double noise = random.nextDouble();
+            instances.add(Instance.create(signal + noise / 2 > 0.75 ? "yes" : "no", "signal", signal, "noise", noise));
+        }
+        return instances;
+    }
+
+    @Test
+    public void treeStopsAtMaxNodes() {
+        final List<Instance> instances = createInstances();
+        final Tree unlimited = new TreeBuilder().seed(1).buildPredictiveModel(instances);
+        final Tree limited = new TreeBuilder().seed(1).budget(new BuildBudget().maxNodes(10)).buildPredictiveModel(instances);
+        Assert.assertTrue(unlimited.node.size() > 20);
+        // The nodes on the path down to the node that used up the budget still have to be finished
+        Assert.assertTrue(limited.node.size() < 20, "size " + limited.node.size());
+        for (Instance instance : instances) {
+            Assert.assertTrue(limited.getProbability(instance.getAttributes(), "yes") >= 0);
+        }
+    }
+
+    @Test
+    public void cancelledTreeIsALeaf() {
+        final CancellationToken cancellationToken = new CancellationToken();
+        cancellationToken.cancel();
+        final Tree tree = new TreeBuilder().cancellationToken(cancellationToken).buildPredictiveModel(createInstances());
+        Assert.assertTrue(tree.node instanceof Leaf);
+    }
+
+    @Test
+    public void forestStopsAddingTreesAtMaxNodes() {
+        final RandomForest randomForest = new RandomForestBuilder(new TreeBuilder().maxDepth(3)).numTrees(20).seed(1)
+                .executorThreadCount(1).budget(new BuildBudget().maxNodes(40)).buildPredictiveModel(createInstances());
+        Assert.assertTrue(randomForest.trees.size() < 20, "trees " + randomForest.trees.size());
+        Assert.assertTrue(randomForest.trees.size() > 0);
+    }
+
+    @Test
+    public void crossValidationReturnsMaxValueOnceCancelled() {
+        final CancellationToken cancellationToken = new CancellationToken().cancelAfter(0, TimeUnit.NANOSECONDS);
+        final double loss = new StationaryCrossValidator(4, 1).getCrossValidatedLoss(new TreeBuilder(), createInstances(), cancellationToken);
+        Assert.assertEquals(loss, Double.MAX_VALUE);
+    }
+}
@@ -14,6 +14,7 @@ import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.Set;
 import java.util.zip.GZIPInputStream;
 
@@ -22,11 +23,18 @@ import java.util.zip.GZIPInputStream;
  */
 public class TreeBuilderTestUtils {
     public static List<Instance> getInstances(int numInstances) {
+        return getInstances(numInstances, Misc.random);
+    }
+
+    /**
+     * @param random draws the instances, so that a seeded random always gives the same ones
+     */
+    public static List<Instance> getInstances(int numInstances, Random random) {
         final List<Instance> instances = new ArrayList<>();
         for (int x = 0; x < numInstances; x++) {
-            final double height = (4 * 12) + Misc.random.nextInt(3 * 12);
-            final double weight = 120 + Misc.random.nextInt(110);
-            instances.add(Instance.create(bmiHealthy(weight, height), "weight", weight, "height", height, "gender", Misc.random.nextInt(2)));
+            final double height = (4 * 12) + random.nextInt(3 * 12);
+            final double weight = 120 + random.nextInt(110);
+            instances.add(Instance.create(bmiHealthy(weight, height), "weight", weight, "height", height, "gender", random.nextInt(2)));
         }
         return instances;
     }
@@ -0,0 +1,128 @@
+package quickdt.predictiveModels.decisionTree;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import quickdt.data.Instance;
+import quickdt.predictiveModels.BuildBudget;
+import quickdt.predictiveModels.decisionTree.tree.Leaf;
+import quickdt.predictiveModels.decisionTree.tree.Tree;
+import quickdt.syntheticData.SyntheticDataGenerator;
+
+public class LevelWiseTreeBuilderTest {
+
+    private static SyntheticDataGenerator generator(int classes) {
+        return new SyntheticDataGenerator().seed(3).numericAttributes(4).categoricalAttributes(3).cardinality(20, 1)
+                .missingRate(0.05).classes(classes, 1).signal(2, 2);
+    }
+
+    private static double accuracy(Tree tree, List<Instance> instances) {
+        int correct = 0;
+        for (Instance instance : instances) {
+            if (tree.getClassificationByMaxProb(instance.getAttributes()).equals(instance.getClassification())) {
+                correct++;
+            }
+        }
+        return (double) correct / instances.size();
+    }
+
+    @Test
+    public void makesOnePassPerLevel() {
+        final Iterable<Instance> stream = generator(2).stream(5000);
+        final int[] passes = new int[1];
+        final Iterable<Instance> countingStream = () -> {
+            passes[0]++;
+            return stream.iterator();
+        };
+        final Tree tree = new LevelWiseTreeBuilder().maxDepth(4).seed(1).buildPredictiveModel(countingStream);
+
+        // the survey, then a pass for each level but the last, whose nodes are all leaves
+        Assert.assertEquals(passes[0], 1 + 4);
+        for (Leaf leaf : tree.node.collectLeaves()) {
+            Assert.assertTrue(leaf.depth <= 4);
+        }
+        Assert.assertEquals(tree.node.getClassificationCounter().getTotal(), 5000, 0.001);
+    }
+
+    @Test
+    public void isAsAccurateAsTreeBuilder() {
+        for (int classes : new int[] {2, 3}) {
+            final List<Instance> instances = generator(classes).generate(7000);
+            final List<Instance> training = instances.subList(0, 5000);
+            final List<Instance> test = instances.subList(5000, 7000);
+            final Tree levelWise = new LevelWiseTreeBuilder().maxDepth(6).minLeafInstances(10).seed(1)
+                    .buildPredictiveModel(training);
+            final Tree depthFirst = new TreeBuilder().maxDepth(6).minLeafInstances(10).seed(1)
+                    .buildPredictiveModel(training);
+            Assert.assertEquals(accuracy(levelWise, test), accuracy(depthFirst, test), 0.05, classes + " classes");
+        }
+    }
+
+    @Test
+    public void countsRowRangesInParallel() {
+        final List<Instance> training = generator(3).generate(3000);
+        final Tree sequential = new LevelWiseTreeBuilder().maxDepth(5).seed(2).buildPredictiveModel(training);
+        final Tree parallel = new LevelWiseTreeBuilder().maxDepth(5).seed(2).executorThreadCount(3)
+                .buildPredictiveModel(training);
+        Assert.assertEquals(parallel.node.size(), sequential.node.size());
+        for (Instance instance : training) {
+            Assert.assertEquals(parallel.getProbabilitiesByClassification(instance.getAttributes()),
+                    sequential.getProbabilitiesByClassification(instance.getAttributes()));
+        }
+    }
+
+    @Test
+    public void growsTheSameTreeFromShards() {
+        // few enough rows that the shards' samples of numeric values hold all of them, so the thresholds match too
+        final List<Instance> training = generator(2).generate(900);
+        final List<LevelWiseShard> shards = new ArrayList<>();
+        for (int start = 0; start < training.size(); start += 300) {
+            shards.add(new LevelWiseShard(training.subList(start, start + 300)));
+        }
+        final Tree fromShards = new LevelWiseTreeBuilder().maxDepth(5).seed(2)
+                .buildPredictiveModel(new LevelWiseTreeBuilder.HistogramSource() {
+                    @Override
+                    public TrainingDataSummary summarize(long seed) {
+                        final TrainingDataSummary summary = shards.get(0).summarize(seed);
+                        for (int x = 1; x < shards.size(); x++) {
+                            summary.merge(shards.get(x).summarize(seed + x), seed - x);
+                        }
+                        return summary;
+                    }
+
+                    @Override
+                    public LevelHistograms count(LevelPlan plan) {
+                        final LevelHistograms histograms = shards.get(0).count(plan);
+                        for (int x = 1; x < shards.size(); x++) {
+                            histograms.merge(shards.get(x).count(plan));
+                        }
+                        return histograms;
+                    }
+                });
+        final Tree whole = new LevelWiseTreeBuilder().maxDepth(5).seed(2).buildPredictiveModel(training);
+        Assert.assertEquals(fromShards.node.size(), whole.node.size());
+        for (Instance instance : training) {
+            Assert.assertEquals(fromShards.getProbabilitiesByClassification(instance.getAttributes()),
+                    whole.getProbabilitiesByClassification(instance.getAttributes()));
+        }
+    }
+
+    @Test
+    public void budgetStopsTheTreeAtALevel() {
+        final Tree tree = new LevelWiseTreeBuilder().seed(1).budget(new BuildBudget().maxNodes(7))
+                .buildPredictiveModel(generator(2).generate(3000));
+        // the first three levels use up the 7 nodes, so the fourth level is all leaves
+        for (Leaf leaf : tree.node.collectLeaves()) {
+            Assert.assertTrue(leaf.depth <= 3, "depth " + leaf.depth);
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void emptyTrainingData() {
+        new LevelWiseTreeBuilder().buildPredictiveModel(Collections.<Instance>emptyList());
+    }
+}
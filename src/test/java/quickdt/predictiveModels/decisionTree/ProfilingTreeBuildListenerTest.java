@@ -0,0 +1,90 @@
+package quickdt.predictiveModels.decisionTree;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import javax.management.ObjectName;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import quickdt.data.Instance;
+import quickdt.predictiveModels.decisionTree.tree.Tree;
+import quickdt.predictiveModels.randomForest.RandomForest;
+import quickdt.predictiveModels.randomForest.RandomForestBuilder;
+
+public class ProfilingTreeBuildListenerTest {
+
+    @Test
+    public void countsEveryNodeAndTreeOfAForest() throws Exception {
+        final List<Instance> instances = new ArrayList<>();
+        final Random random = new Random(5);
+        for (int x = 0; x < 2000; x++) {
+            final double signal = random.nextDouble();
+            instances.add(Instance.create(signal > 0.3 ? "yes" : "no", "signal", signal, "noise", random.nextDouble(),
+                    "color", random.nextBoolean() ? "red" : "blue"));
+        }
+        final ProfilingTreeBuildListener profile = new ProfilingTreeBuildListener();
+        final RandomForest randomForest = new RandomForestBuilder(new TreeBuilder().maxDepth(4)).numTrees(6)
+                .executorThreadCount(3).seed(11).listener(profile).buildPredictiveModel(instances);
+
+        int nodes = 0;
+        int leaves = 0;
+        for (Tree tree : randomForest.trees) {
+            nodes += tree.node.size();
+            leaves += tree.node.collectLeaves().size();
+        }
+        Assert.assertEquals(profile.getBuilds(), 6);
+        Assert.assertEquals(profile.getForestTrees(), 6);
+        Assert.assertEquals(profile.getNodes(), nodes);
+        Assert.assertEquals(profile.getLeaves(), leaves);
+        Assert.assertEquals(profile.getMaxDepth(), 4);
+        Assert.assertTrue(profile.getInstancesAtNodes() > 6 * 2000);
+        Assert.assertTrue(profile.getCandidateSplits() > 0);
+        Assert.assertEquals(profile.getSplitsByAttribute().values().stream().mapToLong(Long::longValue).sum(),
+                nodes - leaves);
+        Assert.assertTrue(profile.getSplitsByAttribute().containsKey("signal"));
+        Assert.assertEquals(profile.getTreesByThread().values().stream().mapToLong(Long::longValue).sum(), 6);
+        Assert.assertTrue(profile.getReport().contains("signal"));
+
+        final RandomForest unprofiled = new RandomForestBuilder(new TreeBuilder().maxDepth(4)).numTrees(6)
+                .executorThreadCount(3).seed(11).buildPredictiveModel(instances);
+        Assert.assertEquals(unprofiled, randomForest, "profiling doesn't change the forest");
+
+        final ObjectName name = profile.registerMBean("forest");
+        Assert.assertEquals(ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Nodes"), (long) nodes);
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+
+        profile.reset();
+        Assert.assertEquals(profile.getNodes(), 0);
+        Assert.assertTrue(profile.getSplitsByAttribute().isEmpty());
+    }
+
+    @Test
+    public void reportsTheSplitOfEachNode() {
+        final List<Instance> instances = new ArrayList<>();
+        for (int x = 0; x < 100; x++) {
+            instances.add(Instance.create(x < 50 ? "yes" : "no", "x", x, "color", x % 2 == 0 ? "red" : "blue"));
+        }
+        final List<NodeStats> nodes = new ArrayList<>();
+        new TreeBuilder().maxDepth(1).listener(new TreeBuildListener() {
+            @Override
+            public void nodeBuilt(NodeStats stats) {
+                nodes.add(stats);
+            }
+        }).buildPredictiveModel(instances);
+
+        Assert.assertEquals(nodes.size(), 3);
+        final NodeStats root = nodes.get(0);
+        Assert.assertEquals(root.getDepth(), 0);
+        Assert.assertEquals(root.getInstanceCount(), 100);
+        Assert.assertEquals(root.getAttributesEvaluated(), 2);
+        Assert.assertEquals(root.getSplitAttribute(), "x");
+        Assert.assertTrue(root.getGain() > 0);
+        Assert.assertTrue(root.getCandidateSplitsByAttribute().get("x") > 0);
+        Assert.assertTrue(nodes.get(1).isLeaf());
+        Assert.assertEquals(nodes.get(1).getInstanceCount() + nodes.get(2).getInstanceCount(), 100);
+    }
+}
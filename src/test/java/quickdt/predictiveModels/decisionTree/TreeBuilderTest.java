@@ -6,15 +6,26 @@ import static junit.framework.Assert.assertFalse;
 import static junit.framework.Assert.assertTrue;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.zip.GZIPInputStream;
@@ -28,6 +39,7 @@ import org.testng.internal.annotations.Sets;
 
 import quickdt.Benchmarks;
 import quickdt.Misc;
+import quickdt.crossValidation.MSECrossValLossFunction;
 import quickdt.data.Attributes;
 import quickdt.data.HashMapAttributes;
 import quickdt.data.Instance;
@@ -36,9 +48,12 @@ import quickdt.predictiveModels.TreeBuilderTestUtils;
 import quickdt.predictiveModels.decisionTree.scorers.SplitDiffScorer;
 import quickdt.predictiveModels.decisionTree.tree.Branch;
 import quickdt.predictiveModels.decisionTree.tree.CategoricalBranch;
+import quickdt.predictiveModels.decisionTree.tree.ClassCounter;
+import quickdt.predictiveModels.decisionTree.tree.CostComplexityPruner;
 import quickdt.predictiveModels.decisionTree.tree.Leaf;
 import quickdt.predictiveModels.decisionTree.tree.Node;
 import quickdt.predictiveModels.decisionTree.tree.NumericBranch;
+import quickdt.predictiveModels.decisionTree.tree.SplitGainImportance;
 import quickdt.predictiveModels.decisionTree.tree.Tree;
 
 public class TreeBuilderTest {
@@ -309,6 +324,19 @@ public class TreeBuilderTest {
 		}
 	}
 
+	@Test
+	public void extraTreesRespectCategoricalInSetLimit() {
+		final List<Instance> instances = loadCsvDataset(1,
+				"quickdt/synthetic/basicCategorical.csv.gz", new ArrayList<>());
+		for (int n = 1; n < 10; n++) {
+			final TreeBuilder tb = new TreeBuilder().extraTrees(true).seed(n)
+					.minimumScore(1e-12).maxCategoricalInSetSize(n);
+			final Node node = tb.buildPredictiveModel(instances).node;
+			Assert.assertTrue(node instanceof Branch);
+			assertCategoricalBranchLimit((Branch) node, n + 1);
+		}
+	}
+
 	@Test
 	public void testBasicNumericSingleSplit() {
 		final List<Instance> instances = loadCsvDataset(1,
@@ -904,6 +932,54 @@ public class TreeBuilderTest {
 		assertEquals(2, tree.getLeaves().size());
 	}
 
+	@Test
+	public void pruningLeavesNoSameCategorySiblings() {
+		final List<Instance> instances = loadCsvDataset(1,
+				"quickdt/synthetic/basicLargerNumericWithMissing.csv.gz");
+		final Tree tree = new TreeBuilder().minimumScore(1e-12).buildPredictiveModel(instances)
+				.pruneSameCategoryLeaves();
+		for (Node node : tree.node.collectNodes()) {
+			if (node instanceof Branch) {
+				final Branch branch = (Branch) node;
+				assertFalse(branch.trueChild instanceof Leaf && branch.falseChild instanceof Leaf
+						&& branch.trueChild.getBestClassification()
+								.equals(branch.falseChild.getBestClassification()));
+			}
+		}
+	}
+
+	@Test
+	public void costComplexityPruningPathMatchesThePrunedTrees() {
+		final List<Instance> instances = loadCsvDataset(1,
+				"quickdt/synthetic/basicLargerNumericWithMissing.csv.gz");
+		final List<Instance> training = instances.subList(0, instances.size() / 2);
+		final List<Instance> validation = instances.subList(instances.size() / 2, instances.size());
+		final TreeBuilder tb = new TreeBuilder().minimumScore(1e-12);
+		final CostComplexityPruner pruner = new CostComplexityPruner();
+
+		final Tree tree = tb.buildPredictiveModel(training);
+		final int leafCount = tree.getLeaves().size();
+		final double unprunedLoss = new MSECrossValLossFunction().getLoss(validation, tree);
+		final CostComplexityPruner.PruningPath path = pruner.getPruningPath(tree, validation);
+
+		final double[] alphas = path.getAlphas();
+		final int[] leafCounts = path.getLeafCounts();
+		final double[] losses = path.getValidationLosses();
+		assertEquals(leafCount, leafCounts[0]);
+		assertEquals(1, leafCounts[path.getStepCount() - 1]);
+		assertEquals(unprunedLoss, losses[0], 1e-9);
+		for (int x = 1; x < path.getStepCount(); x++) {
+			assertTrue(alphas[x] >= alphas[x - 1]);
+			assertTrue(leafCounts[x] < leafCounts[x - 1]);
+			assertTrue(losses[path.getBestStep()] <= losses[x]);
+		}
+
+		final Tree pruned = pruner.prune(tree, path);
+		assertEquals(leafCounts[path.getBestStep()], pruned.getLeaves().size());
+		assertEquals(losses[path.getBestStep()],
+				new MSECrossValLossFunction().getLoss(validation, pruned), 1e-9);
+	}
+
 	@Test
 	public void testSameCategoryPruningBuilder() {
 
@@ -1002,17 +1078,274 @@ public class TreeBuilderTest {
 		Tree tree = tb.buildPredictiveModel(instances);
 
 		List<Leaf> leaves = tree.getLeaves();
-		assertEquals("{0=3, 1=3}", tb.getIdAttributeHandler().getTotalCounts().toString());
+		assertEquals("{0=3, 1=3}", tree.getIdAttributeHandler().getTotalCounts().toString());
 		for (Leaf leaf : leaves) {
 			assertEquals(Integer.valueOf(3),
-					tb.getIdAttributeHandler().getCountForLeafClass(leaf, "0"));
+					tree.getIdAttributeHandler().getCountForLeafClass(leaf, "0"));
 
 			assertEquals(Integer.valueOf(3),
-					tb.getIdAttributeHandler().getCountForMajorityClass(leaf));
+					tree.getIdAttributeHandler().getCountForMajorityClass(leaf));
 		}
 		assertEquals("CAT in [0]", tree.node.toString());
 	}
 
+	@Test
+	public void testUniqueIDHandlingWithHyperLogLog() {
+		final List<Instance> instances = loadCsvDataset(3, "quickdt/synthetic/unique_id.csv.gz");
+
+		int minLeafInstances = (int) Math.ceil(0.05 * instances.size());
+		final TreeBuilder tb = new TreeBuilder().forceSplitOnNull().maxCategoricalInSetSize(1)
+				.maxDepth(1).minInstancesPerCategoricalVariable(1)
+				.minLeafInstances(minLeafInstances).setIdAttribute("ID", 12);
+
+		Tree tree = tb.buildPredictiveModel(instances);
+
+		assertEquals("{0=3, 1=3}", tree.getIdAttributeHandler().getTotalCounts().toString());
+		for (Leaf leaf : tree.getLeaves()) {
+			assertEquals(Integer.valueOf(3), leaf.getIdAttributeCounts().get("0"));
+			assertEquals(leaf.getIdAttributeSketches().get("0").estimate(), 3);
+		}
+
+		// collapsing the leaves merges their sketches
+		Leaf root = tree.collapseDeepestLeaves(false).getLeaves().get(0);
+		assertEquals(tree.getIdAttributeHandler().getTotalCounts(), root.getIdAttributeCounts());
+	}
+
+	@Test
+	public void uniqueIdsAreCountedInTheLeavesTheyTrained() {
+		// supporting instances of the other segment are spread over the leaves at
+		// random, so routing them again would count them in other leaves
+		final TreeBuilder tb = new TreeBuilder().maxDepth(3).seed(7).setIdAttribute("ID")
+				.splitPredictiveModel("segment", Sets.<String> newHashSet());
+		final Random random = new Random(3);
+		final List<Instance> instances = new ArrayList<>();
+		for (int x = 0; x < 400; x++) {
+			final double value = random.nextDouble();
+			instances.add(Instance.create(value < 0.3 ? "low" : "high", "ID", x, "segment",
+					x % 2 == 0 ? "a" : "b", "value", value));
+		}
+
+		final Tree tree = tb.buildPredictiveModel(instances, "a");
+
+		assertTrue(tree.getLeaves().size() > 1);
+		for (Leaf leaf : tree.getLeaves()) {
+			for (Serializable classification : leaf.getClassifications()) {
+				assertEquals((int) leaf.getCountForClass(classification),
+						leaf.getIdAttributeCounts().get(classification).intValue());
+			}
+		}
+	}
+
+	@Test
+	public void uniqueIdSketchesAreNotSerialized() throws Exception {
+		final TreeBuilder tb = new TreeBuilder().maxDepth(1).setIdAttribute("ID", 16);
+		final List<Instance> instances = new ArrayList<>();
+		for (int x = 0; x < 100; x++) {
+			instances.add(Instance.create(x % 3 == 0 ? "0" : "1", "ID", x, "x", x % 3));
+		}
+		final Leaf leaf = tb.buildPredictiveModel(instances).getLeaves().get(0);
+		assertTrue(leaf.getIdAttributeSketches() != null);
+
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(leaf);
+		}
+		assertTrue(bytes.size() < 16384);
+		try (ObjectInputStream in = new ObjectInputStream(
+				new ByteArrayInputStream(bytes.toByteArray()))) {
+			final Leaf deserialized = (Leaf) in.readObject();
+			assertEquals(leaf.getIdAttributeCounts(), deserialized.getIdAttributeCounts());
+			assertEquals(null, deserialized.getIdAttributeSketches());
+		}
+	}
+
+	@Test
+	public void classificationsDoNotCarryOverBetweenBuilds() {
+		final TreeBuilder tb = new TreeBuilder().maxDepth(2).setIdAttribute("ID");
+		final List<Instance> threeClasses = new ArrayList<>();
+		final List<Instance> twoClasses = new ArrayList<>();
+		for (int x = 0; x < 300; x++) {
+			threeClasses.add(Instance.create("c" + (x % 3), "ID", x % 10, "x", x % 7));
+			twoClasses.add(Instance.create("d" + (x % 2), "ID", x % 10, "x", x % 7));
+		}
+
+		final Tree first = tb.buildPredictiveModel(threeClasses);
+		final Tree second = tb.buildPredictiveModel(twoClasses);
+
+		assertEquals("{c0=10, c1=10, c2=10}",
+				first.getIdAttributeHandler().getTotalCounts().toString());
+		assertEquals("{d0=5, d1=5}", second.getIdAttributeHandler().getTotalCounts().toString());
+	}
+
+	@Test
+	public void uniqueIdCountsReportEveryClass() {
+		final TreeBuilder tb = new TreeBuilder().maxDepth(3).setIdAttribute("ID");
+		final List<Instance> instances = new ArrayList<>();
+		for (int x = 0; x < 400; x++) {
+			instances.add(Instance.create("c" + (x % 5), "ID", x, "x", x % 5 < 2 ? x % 5 : 2));
+		}
+
+		final Tree tree = tb.buildPredictiveModel(instances);
+
+		assertEquals(5, tree.getIdAttributeHandler().getTotalCounts().size());
+		for (Leaf leaf : tree.getLeaves()) {
+			assertEquals(5, leaf.getIdAttributeCounts().size());
+		}
+	}
+
+	@Test
+	public void concurrentBuildsShareOneBuilder() throws Exception {
+		final TreeBuilder tb = new TreeBuilder().maxDepth(4);
+		final ExecutorService executorService = Executors.newFixedThreadPool(4);
+		try {
+			final List<Future<Tree>> futures = new ArrayList<>();
+			for (int build = 0; build < 8; build++) {
+				final List<Instance> instances = new ArrayList<>();
+				final int classes = 2 + build % 2;
+				for (int x = 0; x < 500; x++) {
+					instances.add(Instance.create(build + "-" + (x % classes), "x", x % 11, "y",
+							"v" + (x % 5)));
+				}
+				futures.add(executorService.submit(() -> tb.buildPredictiveModel(instances)));
+			}
+			for (int build = 0; build < futures.size(); build++) {
+				final Set<Serializable> classifications = futures.get(build).get().getClassCounter()
+						.allClassifications();
+				assertEquals(2 + build % 2, classifications.size());
+				for (Serializable classification : classifications) {
+					assertTrue(classification.toString().startsWith(build + "-"));
+				}
+			}
+		} finally {
+			executorService.shutdownNow();
+		}
+	}
+
+	@Test
+	public void leafStatisticsMatchAPerTargetComputation() {
+		final List<Instance> instances = new ArrayList<>();
+		for (int x = 0; x < 600; x++) {
+			instances.add(Instance.create("c" + (x * 7 % 5), "x", x % 13, "y", "v" + (x % 4)));
+		}
+		final Tree tree = new TreeBuilder().maxDepth(4).buildPredictiveModel(instances);
+
+		for (Serializable target : tree.getClassCounter().allClassifications()) {
+			double truePositives = 0, falsePositives = 0, falseNegatives = 0;
+			Map<Serializable, Double> falseNegativeDistribution = new HashMap<>();
+			for (Leaf leaf : tree.getLeaves()) {
+				if (leaf.getBestClassification().equals(target)) {
+					truePositives += leaf.getTruePositives();
+					falsePositives += leaf.getFalsePositives();
+				} else {
+					falseNegatives += leaf.getCountForClass(target);
+					falseNegativeDistribution.merge(leaf.getBestClassification(),
+							leaf.getCountForClass(target), Double::sum);
+				}
+			}
+			assertEquals(truePositives, tree.getTruePositiveCounts().get(target), 1e-9);
+			assertEquals(falsePositives, tree.getFalsePositiveCounts().get(target), 1e-9);
+			assertEquals(falseNegatives, tree.getFalseNegativesCounts().get(target), 1e-9);
+			assertEquals(falseNegativeDistribution,
+					tree.getFalseNegativeDistribution().get(target));
+		}
+	}
+
+	@Test
+	public void branchCountsFollowUpdatesToTheLeaves() {
+		final List<Instance> instances = TreeBuilderTestUtils.getInstances(1000);
+		final TreeBuilder tb = new TreeBuilder().maxDepth(3).updatable(true);
+		final Tree tree = tb.buildPredictiveModel(instances);
+		final Branch root = (Branch) tree.node;
+		final double countBefore = root.getClassificationCounter().getTotal();
+		final Serializable classification = instances.get(0).getClassification();
+		final double probabilityBefore = root.getProbability(classification);
+
+		final List<Instance> newInstances = new ArrayList<>();
+		for (int x = 0; x < 100; x++) {
+			newInstances.add(Instance.create(classification, "weight", 150.0, "height", 70.0));
+		}
+		tb.updatePredictiveModel(tree, newInstances, instances, false);
+
+		assertEquals(countBefore + 100, root.getClassificationCounter().getTotal(), 1e-9);
+		assertTrue(root.getProbability(classification) > probabilityBefore);
+	}
+
+	@Test
+	public void targetsFollowUpdatesToTheLeaves() {
+		final List<Instance> instances = TreeBuilderTestUtils.getInstances(1000);
+		final TreeBuilder tb = new TreeBuilder().maxDepth(3).updatable(true);
+		final Tree tree = tb.buildPredictiveModel(instances);
+		final double countBefore = tree.getClassCounter().getTotal();
+		assertFalse(tree.getRecall().containsKey("new"));
+
+		final List<Instance> newInstances = new ArrayList<>();
+		for (int x = 0; x < 100; x++) {
+			newInstances.add(Instance.create("new", "weight", 150.0, "height", 70.0));
+		}
+		tb.updatePredictiveModel(tree, newInstances, instances, false);
+
+		assertEquals(countBefore + 100, tree.getClassCounter().getTotal(), 1e-9);
+		assertEquals(100.0, tree.getClassCounter().getCount("new"), 1e-9);
+		assertTrue(tree.getRecall().containsKey("new"));
+		assertTrue(tree.getPrecision().containsKey("new"));
+	}
+
+	@Test
+	public void collapsedLeavesHaveCountsOfTheirOwn() {
+		final Tree tree = new TreeBuilder().maxDepth(3)
+				.buildPredictiveModel(TreeBuilderTestUtils.getInstances(1000));
+		final Set<ClassCounter> branchCounters = Collections.newSetFromMap(new IdentityHashMap<>());
+		for (Node node : tree.getNodes()) {
+			if (node instanceof Branch) {
+				branchCounters.add(node.getClassificationCounter());
+			}
+		}
+		final Branch root = (Branch) tree.node;
+		try {
+			root.getClassificationCounter().addClassification("other", 1);
+			Assert.fail("branch counts are shared");
+		} catch (UnsupportedOperationException expected) {
+		}
+
+		for (Leaf leaf : tree.collapseDeepestLeaves(false).getLeaves()) {
+			assertFalse(branchCounters.contains(leaf.getClassificationCounter()));
+			leaf.getClassificationCounter().addClassification("other", 0);
+		}
+	}
+
+	@Test
+	public void recordedSplitGainsAreTheGainsOfTheBranches() {
+		final Tree tree = new TreeBuilder().maxDepth(5)
+				.buildPredictiveModel(TreeBuilderTestUtils.getInstances(1000));
+		final SplitGainImportance recorded = tree.getSplitGainImportance();
+		final SplitGainImportance summed = new Tree(tree.node).getSplitGainImportance();
+		Assert.assertEquals(recorded.getAttributes(), summed.getAttributes());
+		for (String attribute : summed.getAttributes()) {
+			Assert.assertEquals(recorded.getGain(attribute), summed.getGain(attribute), attribute);
+			Assert.assertEquals(recorded.getSplitCount(attribute), summed.getSplitCount(attribute),
+					attribute);
+		}
+
+		recorded.merge(summed);
+		Assert.assertEquals(tree.getSplitGainImportance().getTotalGain(), summed.getTotalGain());
+	}
+
+	@Test
+	public void primitiveIdsAreIdsRatherThanSeeds() {
+		final List<Instance> instances = TreeBuilderTestUtils.getInstances(200);
+		final List<Serializable> ids = new ArrayList<>();
+		final TreeBuilder tb = new TreeBuilder().maxDepth(2).updatable(true)
+				.listener(new TreeBuildListener() {
+					@Override
+					public void buildStarted(Serializable id) {
+						ids.add(id);
+					}
+				});
+		final Tree tree = tb.buildPredictiveModel(instances, 5);
+		tb.updatePredictiveModel(tree, instances, instances, false, 5);
+		Assert.assertEquals(ids, Arrays.<Serializable> asList(5, 5));
+	}
+
 	@Test
 	public void testIgnoreMissing() {
 		final List<Instance> instances = loadCsvDataset(1,
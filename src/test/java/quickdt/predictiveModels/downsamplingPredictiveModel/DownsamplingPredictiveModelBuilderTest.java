@@ -87,6 +87,71 @@ public class DownsamplingPredictiveModelBuilderTest {
         org.testng.Assert.assertEquals(firstTreeNodeSize, newRandomForest.trees.get(0).node.size(), "Expected same nodes");
     }
 
+    @Test
+    public void seededDownsamplingIsStableAcrossIterations() {
+        final List<Instance> data = getImbalancedData();
+        final RecordingPredictiveModelBuilder recordingBuilder = new RecordingPredictiveModelBuilder();
+        new DownsamplingPredictiveModelBuilder(recordingBuilder, 0.2).seed(42).buildPredictiveModel(data);
+        final List<AbstractInstance> first = recordingBuilder.lastTrainingData;
+        org.testng.Assert.assertTrue(first.size() < data.size());
+
+        final DownsamplingPredictiveModelBuilder builder = new DownsamplingPredictiveModelBuilder(recordingBuilder, 0.2).seed(42);
+        builder.buildPredictiveModel(data);
+        org.testng.Assert.assertEquals(recordingBuilder.lastTrainingData, first, "The same seed should drop the same instances");
+
+        builder.buildPredictiveModel(data);
+        org.testng.Assert.assertNotEquals(recordingBuilder.lastTrainingData, first, "Each build should drop different instances");
+    }
+
+    @Test
+    public void reweightingKeepsAllInstances() {
+        final List<Instance> data = getImbalancedData();
+        final RecordingPredictiveModelBuilder recordingBuilder = new RecordingPredictiveModelBuilder();
+        final DownsamplingPredictiveModel model = new DownsamplingPredictiveModelBuilder(recordingBuilder, 0.2).reweightInsteadOfDropping().buildPredictiveModel(data);
+        final double keepProbability = 1.0 - model.getDropProbability();
+
+        org.testng.Assert.assertEquals(recordingBuilder.lastTrainingData.size(), data.size());
+        double minorityWeight = 0, majorityWeight = 0;
+        for (AbstractInstance instance : recordingBuilder.lastTrainingData) {
+            if (instance.getClassification().equals(Boolean.TRUE)) {
+                org.testng.Assert.assertEquals(instance.getWeight(), 1.0);
+                minorityWeight += instance.getWeight();
+            } else {
+                org.testng.Assert.assertEquals(instance.getWeight(), keepProbability, 1e-12);
+                majorityWeight += instance.getWeight();
+            }
+        }
+        org.testng.Assert.assertEquals(minorityWeight / (minorityWeight + majorityWeight), 0.2, 1e-9);
+    }
+
+    private static List<Instance> getImbalancedData() {
+        List<Instance> data = Lists.newArrayList();
+        for (int x=0; x<10000; x++) {
+            data.add(new Instance(new HashMapAttributes(), x % 20 == 0));
+        }
+        return data;
+    }
+
+    private static class RecordingPredictiveModelBuilder implements PredictiveModelBuilder<PredictiveModel> {
+        private List<AbstractInstance> lastTrainingData;
+
+        @Override
+        public PredictiveModel buildPredictiveModel(final Iterable<? extends AbstractInstance> trainingData) {
+            org.testng.Assert.assertTrue(trainingData instanceof List, "Downsampled data should be materialised");
+            lastTrainingData = (List<AbstractInstance>) trainingData;
+            return new SamePredictionPredictiveModel(0.5);
+        }
+
+        @Override
+        public PredictiveModelBuilder<PredictiveModel> updatable(final boolean updatable) {
+            return this;
+        }
+
+        @Override
+        public void setID(final Serializable id) {
+        }
+    }
+
     private static class SamePredictionPredictiveModel implements PredictiveModel {
 
         private static final long serialVersionUID = 8241616760952568181L;
@@ -0,0 +1,111 @@
+package quickdt.predictiveModels.instrumentedPredictiveModel;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import quickdt.data.Attributes;
+import quickdt.data.Instance;
+import quickdt.predictiveModels.PredictiveModel;
+import quickdt.predictiveModels.calibratedPredictiveModel.CalibratedPredictiveModel;
+import quickdt.predictiveModels.calibratedPredictiveModel.Calibrator;
+import quickdt.predictiveModels.decisionTree.TreeBuilder;
+import quickdt.predictiveModels.randomForest.RandomForest;
+import quickdt.predictiveModels.randomForest.RandomForestBuilder;
+
+public class InstrumentedPredictiveModelTest {
+
+    @Test
+    public void bucketsCoverEveryValueToWithinOnePercent() {
+        for (long value = 0; value < 1 << 20; value += 1 + value / 1000) {
+            final int bucket = StripedHistogram.bucketIndex(value);
+            Assert.assertTrue(StripedHistogram.lowestValue(bucket) <= value && value <= StripedHistogram.highestValue(bucket), "value " + value);
+            Assert.assertEquals(StripedHistogram.lowestValue(bucket + 1), StripedHistogram.highestValue(bucket) + 1);
+            Assert.assertTrue(StripedHistogram.highestValue(bucket) - StripedHistogram.lowestValue(bucket) <= value / 64);
+        }
+    }
+
+    @Test
+    public void percentilesFromManyThreads() throws Exception {
+        final StripedHistogram histogram = new StripedHistogram(1000000, 4);
+        final List<Thread> threads = new ArrayList<>();
+        for (int thread = 0; thread < 4; thread++) {
+            threads.add(new Thread(() -> {
+                for (long value = 1; value <= 100000; value++) {
+                    histogram.record(value);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        final HistogramSnapshot snapshot = histogram.snapshotAndReset();
+        Assert.assertEquals(snapshot.getCount(), 400000);
+        Assert.assertEquals(snapshot.getMax(), 100000);
+        Assert.assertEquals(snapshot.getMean(), 50000.5, 0.001);
+        Assert.assertEquals(snapshot.getP50(), 50000, 500);
+        Assert.assertEquals(snapshot.getP99(), 99000, 990);
+        Assert.assertEquals(snapshot.getP999(), 99900, 999);
+        Assert.assertTrue(snapshot.getThroughput() > 0);
+        Assert.assertEquals(histogram.snapshot().getCount(), 0);
+    }
+
+    @Test
+    public void recordsEachLayerAndThePathsThroughEachTree() throws Exception {
+        final List<Instance> instances = new ArrayList<>();
+        final Random random = new Random(1);
+        for (int x = 0; x < 1000; x++) {
+            final double signal = random.nextDouble();
+            instances.add(Instance.create(signal > 0.5 ? "yes" : "no", "signal", signal, "noise", random.nextDouble()));
+        }
+        final RandomForest randomForest = new RandomForestBuilder(new TreeBuilder().maxDepth(3)).numTrees(4).seed(1)
+                .buildPredictiveModel(instances);
+        final PredictiveModel calibrated = new CalibratedPredictiveModel(randomForest,
+                (Calibrator & Serializable) probability -> probability, "yes");
+
+        final ScoringMetrics metrics = new ScoringMetrics();
+        final InstrumentedPredictiveModel instrumented = InstrumentedPredictiveModel.instrumentLayers(calibrated, "v1", metrics, true);
+        for (Instance instance : instances) {
+            final Attributes attributes = instance.getAttributes();
+            Assert.assertEquals(instrumented.getProbability(attributes, "yes"), calibrated.getProbability(attributes, "yes"));
+        }
+
+        final Map<String, HistogramSnapshot> snapshots = metrics.snapshotAndReset();
+        Assert.assertEquals(snapshots.keySet(), new TreeSet<>(Arrays.asList("v1:calibrated", "v1:calibrated/randomForest")));
+        Assert.assertEquals(snapshots.get("v1:calibrated").getCount(), 1000);
+        Assert.assertEquals(snapshots.get("v1:calibrated/randomForest").getCount(), 1000);
+        Assert.assertEquals(metrics.snapshot().get("v1:calibrated").getCount(), 0);
+
+        final PathLengthStats pathLengths = metrics.getPathLengthStats().get("v1:calibrated/randomForest");
+        Assert.assertEquals(pathLengths.getTreeCount(), 4);
+        Assert.assertEquals(pathLengths.getInstances(), 1000);
+        for (int tree = 0; tree < 4; tree++) {
+            Assert.assertTrue(pathLengths.getMeanPathLength(tree) > 0);
+            Assert.assertTrue(pathLengths.getMaxPathLength(tree) <= 3);
+        }
+        Assert.assertEquals(pathLengths.getPathLengths().getCount(), 4000);
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(bytes)) {
+            objectOutputStream.writeObject(instrumented);
+        }
+        final Object deserialized = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+        Assert.assertTrue(deserialized instanceof CalibratedPredictiveModel, "instrumentation isn't serialized");
+        Assert.assertEquals(((CalibratedPredictiveModel) deserialized).predictiveModel, randomForest);
+    }
+}
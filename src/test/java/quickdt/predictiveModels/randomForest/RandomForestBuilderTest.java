@@ -1,11 +1,13 @@
 package quickdt.predictiveModels.randomForest;
 
+import com.google.common.collect.Lists;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 import quickdt.data.Attributes;
 import quickdt.data.Instance;
 import quickdt.predictiveModels.PredictiveModelWithDataBuilder;
 import quickdt.predictiveModels.TreeBuilderTestUtils;
+import quickdt.predictiveModels.decisionTree.tree.SplitGainImportance;
 import quickdt.predictiveModels.decisionTree.tree.Tree;
 import quickdt.predictiveModels.decisionTree.TreeBuilder;
 import quickdt.predictiveModels.decisionTree.scorers.SplitDiffScorer;
@@ -13,6 +15,8 @@ import quickdt.predictiveModels.decisionTree.scorers.SplitDiffScorer;
 import java.io.Serializable;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.SplittableRandom;
 
 /**
  * Created by Chris on 5/14/2014.
@@ -39,6 +43,29 @@ public class RandomForestBuilderTest {
         }
     }
 
+    @Test
+    public void splitGainImportanceIsSummedOverTrees() {
+        final List<Instance> instances = Lists.newArrayList();
+        final Random random = new Random(3);
+        for (int x = 0; x < 2000; x++) {
+            final double signal = random.nextDouble();
+            instances.add(Instance.create(signal > 0.3 ? "yes" : "no", "signal", signal, "noise", random.nextDouble()));
+        }
+        final RandomForest randomForest = new RandomForestBuilder(new TreeBuilder().maxDepth(3)).numTrees(5).buildPredictiveModel(instances);
+
+        final SplitGainImportance importance = randomForest.getSplitGainImportance();
+        double totalGain = 0;
+        int signalSplits = 0;
+        for (Tree tree : randomForest.trees) {
+            totalGain += tree.getSplitGainImportance().getTotalGain();
+            signalSplits += tree.getSplitGainImportance().getSplitCount("signal");
+        }
+        Assert.assertEquals(importance.getTotalGain(), totalGain, 1e-9);
+        Assert.assertEquals(importance.getSplitCount("signal"), signalSplits);
+        Assert.assertTrue(importance.getGain("signal") > importance.getGain("noise"));
+        Assert.assertTrue(importance.getNormalizedGains().get("signal") > 0.5);
+    }
+
     @Test
     public void simpleBmiTestSplit() throws Exception {
         final List<Instance> instances = TreeBuilderTestUtils.getInstances(10000);
@@ -101,4 +128,66 @@ public class RandomForestBuilderTest {
         Assert.assertEquals(treeSize, newRandomForest.trees.size(), "Expected same trees");
         Assert.assertEquals(firstTreeNodeSize, newRandomForest.trees.get(0).node.size(), "Expected same nodes");
     }
+
+    @Test
+    public void seededForestsDontDependOnThreads() {
+        final List<Instance> instances = TreeBuilderTestUtils.getInstances(5000);
+        final RandomForest forest = new RandomForestBuilder().withBagging(2000).numTrees(16).executorThreadCount(8)
+                .seed(42).buildPredictiveModel(instances);
+        final RandomForest sameSeed = new RandomForestBuilder().withBagging(2000).numTrees(16).executorThreadCount(1)
+                .seed(42).buildPredictiveModel(instances);
+        final RandomForest otherSeed = new RandomForestBuilder().withBagging(2000).numTrees(16).executorThreadCount(8)
+                .seed(43).buildPredictiveModel(instances);
+
+        Assert.assertEquals(sameSeed, forest);
+        Assert.assertNotEquals(otherSeed, forest);
+    }
+
+    @Test
+    public void extraTreesClassifyAsWellAsSearchedSplits() {
+        final List<Instance> instances = TreeBuilderTestUtils.getInstances(6000, new Random(11));
+        final List<Instance> trainingData = instances.subList(0, 5000);
+        final List<Instance> testData = instances.subList(5000, instances.size());
+        // extra trees choose between attributes by their random splits, so they aren't also ignored at random
+        final RandomForest forest = new RandomForestBuilder(new TreeBuilder()).numTrees(20).seed(7)
+                .buildPredictiveModel(trainingData);
+        final RandomForest extraTrees = new RandomForestBuilder(new TreeBuilder()).extraTrees(true).numTrees(20)
+                .seed(7).buildPredictiveModel(trainingData);
+        final RandomForest rebuilt = new RandomForestBuilder(new TreeBuilder()).extraTrees(true).numTrees(20)
+                .executorThreadCount(3).seed(7).buildPredictiveModel(trainingData);
+
+        Assert.assertEquals(extraTrees.trees.size(), 20);
+        for (int x = 0; x < extraTrees.trees.size(); x++) {
+            Assert.assertEquals(rebuilt.trees.get(x), extraTrees.trees.get(x), "tree " + x);
+        }
+        Assert.assertNotEquals(forest, extraTrees);
+        Assert.assertTrue(accuracy(extraTrees, testData) > accuracy(forest, testData) - 0.02,
+                "Extra trees should be about as accurate as a forest of searched splits");
+    }
+
+    @Test
+    public void treesOfASeededForestAreBuiltAsIfAlone() {
+        final List<Instance> trainingData = TreeBuilderTestUtils.getInstances(2000, new Random(13));
+        final RandomForest extraTrees = new RandomForestBuilder(new TreeBuilder()).extraTrees(true).numTrees(8)
+                .executorThreadCount(8).seed(7).buildPredictiveModel(trainingData);
+
+        // each tree is seeded from a split of the forest's generator, and shares nothing with the trees built with it
+        final SplittableRandom random = new SplittableRandom(7);
+        Assert.assertEquals(extraTrees.trees.size(), 8);
+        for (int x = 0; x < extraTrees.trees.size(); x++) {
+            final Tree alone = new TreeBuilder().extraTrees(true).buildSeededPredictiveModel(trainingData, null,
+                    random.split().nextLong());
+            Assert.assertEquals(extraTrees.trees.get(x), alone, "tree " + x);
+        }
+    }
+
+    private static double accuracy(RandomForest forest, List<Instance> testData) {
+        int correct = 0;
+        for (Instance instance : testData) {
+            if (instance.getClassification().equals(forest.getClassificationByMaxProb(instance.getAttributes()))) {
+                correct++;
+            }
+        }
+        return (double) correct / testData.size();
+    }
 }
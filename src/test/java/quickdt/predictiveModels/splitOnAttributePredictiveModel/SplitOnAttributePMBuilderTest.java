@@ -1,20 +1,36 @@
 package quickdt.predictiveModels.splitOnAttributePredictiveModel;
 
 
+import com.google.common.collect.Sets;
 import org.testng.Assert;
 import org.testng.annotations.Test;
+import quickdt.data.AbstractInstance;
 import quickdt.data.Instance;
+import quickdt.predictiveModels.PredictiveModel;
+import quickdt.predictiveModels.PredictiveModelBuilder;
 import quickdt.predictiveModels.PredictiveModelWithDataBuilder;
 import quickdt.predictiveModels.TreeBuilderTestUtils;
+import quickdt.predictiveModels.UpdatablePredictiveModelBuilder;
 import quickdt.predictiveModels.decisionTree.tree.Tree;
 import quickdt.predictiveModels.decisionTree.TreeBuilder;
 import quickdt.predictiveModels.decisionTree.scorers.SplitDiffScorer;
+import quickdt.predictiveModels.downsamplingPredictiveModel.DownsamplingPredictiveModel;
+import quickdt.predictiveModels.downsamplingPredictiveModel.DownsamplingPredictiveModelBuilder;
 import quickdt.predictiveModels.randomForest.RandomForest;
 import quickdt.predictiveModels.randomForest.RandomForestBuilder;
 
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Created by Chris on 5/14/2014.
@@ -89,6 +105,246 @@ public class SplitOnAttributePMBuilderTest {
         Assert.assertEquals(firstTreeNodeSize, newRandomForest.trees.get(0).node.size(), "Expected same nodes");
     }
 
+    @Test
+    public void segmentsAreBuiltConcurrentlyWithTheirOwnId() throws Exception {
+        final List<Instance> instances = TreeBuilderTestUtils.getInstances(2000);
+        final Map<String, Integer> instancesInSegmentById = new ConcurrentHashMap<>();
+        // the default model and both segments must be building at the same time to get past the latch
+        final CountDownLatch allBuilding = new CountDownLatch(3);
+        final PredictiveModelBuilder<PredictiveModel> recordingBuilder = new SegmentRecordingBuilder() {
+            @Override
+            void record(Iterable<? extends AbstractInstance> trainingData, Serializable id) throws InterruptedException {
+                allBuilding.countDown();
+                Assert.assertTrue(allBuilding.await(10, TimeUnit.SECONDS), "Segment " + id + " was not built concurrently");
+                int instancesInSegment = 0;
+                for (AbstractInstance instance : trainingData) {
+                    if (id == null || id.equals(instance.getAttributes().get("gender"))) {
+                        instancesInSegment++;
+                    }
+                }
+                instancesInSegmentById.put(String.valueOf(id), instancesInSegment);
+            }
+        };
+
+        final SplitOnAttributePMBuilder builder = new SplitOnAttributePMBuilder("gender", recordingBuilder, 10, 0.1, new HashSet<String>(), 1).executorThreadCount(3);
+        final SplitOnAttributePM splitOnAttributePM = builder.buildPredictiveModel(instances);
+
+        Assert.assertEquals(splitOnAttributePM.getSplitModels().size(), 2);
+        Assert.assertEquals(instancesInSegmentById.keySet(), Sets.newHashSet("0", "1", "null"));
+        Assert.assertEquals(instancesInSegmentById.get("null").intValue(), instances.size());
+        Assert.assertEquals(instancesInSegmentById.get("0") + instancesInSegmentById.get("1"), instances.size());
+    }
+
+    @Test
+    public void largestSegmentsAreBuiltFirst() throws Exception {
+        final List<Instance> instances = segmentedInstances("small", 100, "large", 300, "medium", 200);
+        final List<String> buildOrder = new CopyOnWriteArrayList<>();
+        final PredictiveModelBuilder<PredictiveModel> recordingBuilder = new SegmentRecordingBuilder() {
+            @Override
+            void record(Iterable<? extends AbstractInstance> trainingData, Serializable id) {
+                buildOrder.add(String.valueOf(id));
+            }
+        };
+
+        new SplitOnAttributePMBuilder("segment", recordingBuilder, 0, 0, new HashSet<String>(), 0).executorThreadCount(1)
+                .buildPredictiveModel(instances);
+
+        Assert.assertEquals(buildOrder, Arrays.asList("null", "large", "medium", "small"));
+    }
+
+    @Test
+    public void segmentsAreUpdatedWithTheirOwnId() throws Exception {
+        final List<Instance> instances = segmentedInstances("a", 100, "b", 100);
+        final List<Instance> newInstances = segmentedInstances("a", 10, "c", 10);
+        final Set<String> builtIds = Sets.newConcurrentHashSet();
+        final Set<String> updatedIds = Sets.newConcurrentHashSet();
+        final SegmentRecordingBuilder recordingBuilder = new SegmentRecordingBuilder() {
+            @Override
+            void record(Iterable<? extends AbstractInstance> trainingData, Serializable id) {
+                builtIds.add(String.valueOf(id));
+            }
+
+            @Override
+            void recordUpdate(Iterable<? extends AbstractInstance> newData, Serializable id) {
+                updatedIds.add(String.valueOf(id));
+            }
+        };
+        final SplitOnAttributePMBuilder builder = new SplitOnAttributePMBuilder("segment", recordingBuilder, 0, 0, new HashSet<String>(), 0);
+        final SplitOnAttributePM splitOnAttributePM = builder.buildPredictiveModel(instances);
+        builtIds.clear();
+
+        builder.updatePredictiveModel(splitOnAttributePM, newInstances, instances, false);
+
+        Assert.assertEquals(builtIds, Sets.newHashSet("c"));
+        Assert.assertEquals(updatedIds, Sets.newHashSet("a", "null"));
+    }
+
+    @Test
+    public void wrappingBuildersPassTheSegmentIdOn() throws Exception {
+        final List<Instance> instances = segmentedInstances("a", 100, "b", 100);
+        final List<String> builtIds = new CopyOnWriteArrayList<>();
+        final List<String> updatedIds = new CopyOnWriteArrayList<>();
+        final SegmentRecordingBuilder recordingBuilder = new SegmentRecordingBuilder() {
+            @Override
+            void record(Iterable<? extends AbstractInstance> trainingData, Serializable id) {
+                builtIds.add(String.valueOf(id));
+            }
+
+            @Override
+            void recordUpdate(Iterable<? extends AbstractInstance> newData, Serializable id) {
+                updatedIds.add(String.valueOf(id));
+            }
+        };
+
+        final DownsamplingPredictiveModelBuilder downsamplingBuilder = new DownsamplingPredictiveModelBuilder(recordingBuilder, 0.1);
+        final DownsamplingPredictiveModel downsamplingPM = downsamplingBuilder.buildPredictiveModel(instances, "a");
+        downsamplingBuilder.updatePredictiveModel(downsamplingPM, instances, instances, false, "a");
+        final PredictiveModelWithDataBuilder<PredictiveModel> withDataBuilder = new PredictiveModelWithDataBuilder<>(recordingBuilder);
+        withDataBuilder.buildPredictiveModel(instances, "b");
+        withDataBuilder.buildPredictiveModel(instances, "b");
+
+        Assert.assertEquals(builtIds, Arrays.asList("a", "b"));
+        Assert.assertEquals(updatedIds, Arrays.asList("a", "b"));
+    }
+
+    @Test
+    public void theDefaultIdOverloadsResetTheId() throws Exception {
+        final List<Instance> instances = segmentedInstances("a", 10);
+        final IdSettingBuilder idSettingBuilder = new IdSettingBuilder();
+
+        idSettingBuilder.buildPredictiveModel(instances, "a");
+        idSettingBuilder.buildPredictiveModel(instances);
+        idSettingBuilder.updatePredictiveModel(null, instances, instances, false, "b");
+        idSettingBuilder.updatePredictiveModel(null, instances, instances, false);
+
+        Assert.assertEquals(idSettingBuilder.idsSeen, Arrays.asList("a", "null", "b", "null"));
+    }
+
+    @Test
+    public void supportingInstancesOnlyExposeWhiteListedAttributes() throws Exception {
+        final List<Instance> instances = TreeBuilderTestUtils.getInstances(2000);
+        final Set<String> whiteList = Sets.newHashSet("weight");
+        final Map<String, Integer> supportingInstancesById = new ConcurrentHashMap<>();
+        final PredictiveModelBuilder<PredictiveModel> recordingBuilder = new SegmentRecordingBuilder() {
+            @Override
+            void record(Iterable<? extends AbstractInstance> trainingData, Serializable id) {
+                if (id == null) {
+                    return;
+                }
+                int supportingInstances = 0;
+                for (AbstractInstance instance : trainingData) {
+                    if (!instance.getAttributes().containsKey("gender")) {
+                        Assert.assertEquals(instance.getAttributes().keySet(), whiteList);
+                        Assert.assertNull(instance.getAttributes().get("height"));
+                        supportingInstances++;
+                    }
+                }
+                supportingInstancesById.put(String.valueOf(id), supportingInstances);
+            }
+        };
+
+        new SplitOnAttributePMBuilder("gender", recordingBuilder, 10, 0.1, whiteList, 1).buildPredictiveModel(instances);
+
+        Assert.assertEquals(supportingInstancesById.keySet(), Sets.newHashSet("0", "1"));
+        for (int supportingInstances : supportingInstancesById.values()) {
+            // 10% of a segment of roughly 1000 instances
+            Assert.assertTrue(supportingInstances >= 80 && supportingInstances <= 120, "Unexpected amount of cross data: " + supportingInstances);
+        }
+    }
+
+    /**
+     * Instances of the given segments and sizes, alternating between two classifications.
+     */
+    private static List<Instance> segmentedInstances(Serializable... segmentsAndSizes) {
+        final Random random = new Random(5);
+        final List<Instance> instances = new ArrayList<>();
+        for (int x = 0; x < segmentsAndSizes.length; x += 2) {
+            for (int y = 0; y < (Integer) segmentsAndSizes[x + 1]; y++) {
+                instances.add(Instance.create(y % 2 == 0 ? "yes" : "no", "segment", segmentsAndSizes[x], "value", random.nextDouble()));
+            }
+        }
+        return instances;
+    }
+
+    private static abstract class SegmentRecordingBuilder implements UpdatablePredictiveModelBuilder<PredictiveModel> {
+        abstract void record(Iterable<? extends AbstractInstance> trainingData, Serializable id) throws InterruptedException;
+
+        void recordUpdate(Iterable<? extends AbstractInstance> newData, Serializable id) {
+        }
+
+        @Override
+        public PredictiveModel buildPredictiveModel(Iterable<? extends AbstractInstance> trainingData) {
+            throw new IllegalStateException("The segment id should be passed with the build");
+        }
+
+        @Override
+        public PredictiveModel buildPredictiveModel(Iterable<? extends AbstractInstance> trainingData, Serializable id) {
+            try {
+                record(trainingData, id);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            return new RandomForestBuilder().numTrees(1).buildPredictiveModel(trainingData);
+        }
+
+        @Override
+        public void updatePredictiveModel(PredictiveModel predictiveModel, Iterable<? extends AbstractInstance> newData, List<? extends AbstractInstance> trainingData, boolean splitNodes) {
+            throw new IllegalStateException("The segment id should be passed with the update");
+        }
+
+        @Override
+        public void updatePredictiveModel(PredictiveModel predictiveModel, Iterable<? extends AbstractInstance> newData, List<? extends AbstractInstance> trainingData, boolean splitNodes, Serializable id) {
+            recordUpdate(newData, id);
+        }
+
+        @Override
+        public void stripData(PredictiveModel predictiveModel) {
+        }
+
+        @Override
+        public PredictiveModelBuilder<PredictiveModel> updatable(boolean updatable) {
+            return this;
+        }
+
+        @Override
+        public void setID(Serializable id) {
+            throw new IllegalStateException("The segment id should not be set on a shared builder");
+        }
+    }
+
+    /**
+     * Relies on the default id overloads, which set the id on the builder.
+     */
+    private static final class IdSettingBuilder implements UpdatablePredictiveModelBuilder<PredictiveModel> {
+        private final List<String> idsSeen = new ArrayList<>();
+        private Serializable id;
+
+        @Override
+        public PredictiveModel buildPredictiveModel(Iterable<? extends AbstractInstance> trainingData) {
+            idsSeen.add(String.valueOf(id));
+            return null;
+        }
+
+        @Override
+        public void updatePredictiveModel(PredictiveModel predictiveModel, Iterable<? extends AbstractInstance> newData, List<? extends AbstractInstance> trainingData, boolean splitNodes) {
+            idsSeen.add(String.valueOf(id));
+        }
+
+        @Override
+        public void stripData(PredictiveModel predictiveModel) {
+        }
+
+        @Override
+        public PredictiveModelBuilder<PredictiveModel> updatable(boolean updatable) {
+            return this;
+        }
+
+        @Override
+        public void setID(Serializable id) {
+            this.id = id;
+        }
+    }
+
     private PredictiveModelWithDataBuilder<SplitOnAttributePM > getWrappedUpdatablePredictiveModelBuilder() {
         Set<String> whiteList = new HashSet<>();
         whiteList.add("weight");
@@ -1,13 +1,21 @@
 package quickdt.predictiveModels.temporallyWeightPredictiveModel;
 
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
 import org.testng.Assert;
 import org.testng.annotations.Test;
+import quickdt.crossValidation.DateTimeExtractor;
 import quickdt.crossValidation.SampleDateTimeExtractor;
+import quickdt.data.AbstractInstance;
 import quickdt.data.Instance;
 import quickdt.predictiveModels.TreeBuilderTestUtils;
+import quickdt.predictiveModels.UpdatablePredictiveModelBuilder;
 import quickdt.predictiveModels.decisionTree.TreeBuilder;
 import quickdt.predictiveModels.decisionTree.scorers.SplitDiffScorer;
+import quickdt.predictiveModels.decisionTree.tree.Tree;
 
+import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -39,4 +47,113 @@ public class TemporallyReweightedPMBuilderTest {
         Assert.assertTrue((System.currentTimeMillis() - startTime) < 20000,"Building this node should take far less than 20 seconds");
     }
 
+    @Test
+    public void updateDecaysExistingWeights() throws Exception {
+        final DateTimeExtractor dateTimeExtractor = instance -> new DateTime(((Number) instance.getAttributes().get("time")).longValue(), DateTimeZone.UTC);
+        final RecordingTreeBuilder recordingBuilder = new RecordingTreeBuilder();
+        final TemporallyReweightedPMBuilder builder = new TemporallyReweightedPMBuilder(recordingBuilder, dateTimeExtractor)
+                .halfLifeOfPositive(1).halfLifeOfNegative(2);
+
+        final List<Instance> trainingData = new ArrayList<>();
+        trainingData.addAll(instancesForHours(0, 10));
+        final TemporallyReweightedPM model = builder.buildPredictiveModel(trainingData);
+        assertDecayedTo(recordingBuilder.lastTrainingData, 9);
+
+        final List<Instance> newData = instancesForHours(10, 20);
+        trainingData.addAll(newData);
+        builder.updatePredictiveModel(model, newData, trainingData, false);
+        Assert.assertEquals(recordingBuilder.lastNewData.size(), newData.size());
+        assertDecayedTo(recordingBuilder.lastTrainingData, 19);
+
+        final List<Instance> moreData = instancesForHours(20, 25);
+        trainingData.addAll(moreData);
+        builder.updatePredictiveModel(model, moreData, trainingData, false);
+        assertDecayedTo(recordingBuilder.lastTrainingData, 24);
+        assertSameInstances(recordingBuilder.lastTrainingData, trainingData);
+    }
+
+    @Test
+    public void updateOfOtherTrainingDataIsWeightedAfresh() throws Exception {
+        final DateTimeExtractor dateTimeExtractor = instance -> new DateTime(((Number) instance.getAttributes().get("time")).longValue(), DateTimeZone.UTC);
+        final RecordingTreeBuilder recordingBuilder = new RecordingTreeBuilder();
+        final TemporallyReweightedPMBuilder builder = new TemporallyReweightedPMBuilder(recordingBuilder, dateTimeExtractor)
+                .halfLifeOfPositive(1).halfLifeOfNegative(2);
+        final List<Instance> trainingData = instancesForHours(0, 10);
+        final TemporallyReweightedPM model = builder.buildPredictiveModel(trainingData);
+        final List<Instance> newData = instancesForHours(10, 20);
+        trainingData.addAll(newData);
+        builder.updatePredictiveModel(model, newData, trainingData, false);
+
+        // the same length as before, but other instances
+        final List<Instance> otherTrainingData = instancesForHours(0, 20);
+        final List<Instance> otherNewData = instancesForHours(20, 25);
+        otherTrainingData.addAll(otherNewData);
+        builder.updatePredictiveModel(model, otherNewData, otherTrainingData, false);
+        assertDecayedTo(recordingBuilder.lastTrainingData, 24);
+        assertSameInstances(recordingBuilder.lastTrainingData, otherTrainingData);
+
+        // new data that isn't part of the training data is weighted after it
+        final List<Instance> separateNewData = instancesForHours(25, 30);
+        builder.updatePredictiveModel(model, separateNewData, otherTrainingData, false);
+        assertDecayedTo(recordingBuilder.lastTrainingData, 29);
+        Assert.assertEquals(recordingBuilder.lastNewData.size(), separateNewData.size());
+    }
+
+    private static void assertSameInstances(List<? extends AbstractInstance> reweighted, List<Instance> instances) {
+        Assert.assertEquals(reweighted.size(), instances.size());
+        for (int i = 0; i < instances.size(); i++) {
+            Assert.assertSame(reweighted.get(i).getAttributes(), instances.get(i).getAttributes());
+        }
+    }
+
+    private static List<Instance> instancesForHours(int fromHour, int toHour) {
+        final List<Instance> instances = new ArrayList<>();
+        for (int hour = fromHour; hour < toHour; hour++) {
+            instances.add(Instance.create(hour % 2 == 0 ? 1.0 : 0.0, "time", hour * 3600000L));
+        }
+        return instances;
+    }
+
+    private static void assertDecayedTo(List<? extends AbstractInstance> instances, int mostRecentHour) {
+        Assert.assertEquals(instances.size(), mostRecentHour + 1);
+        for (AbstractInstance instance : instances) {
+            final long hour = (Long) instance.getAttributes().get("time") / 3600000L;
+            final double halfLifeInHours = instance.getClassification().equals(1.0) ? 24 : 48;
+            Assert.assertEquals(instance.getWeight(), Math.pow(0.5, (mostRecentHour - hour) / halfLifeInHours), 1e-9);
+        }
+    }
+
+    private static class RecordingTreeBuilder implements UpdatablePredictiveModelBuilder<Tree> {
+        private final TreeBuilder treeBuilder = new TreeBuilder();
+        private List<? extends AbstractInstance> lastTrainingData;
+        private List<AbstractInstance> lastNewData;
+
+        @Override
+        public Tree buildPredictiveModel(Iterable<? extends AbstractInstance> trainingData) {
+            lastTrainingData = (List<? extends AbstractInstance>) trainingData;
+            return treeBuilder.buildPredictiveModel(trainingData);
+        }
+
+        @Override
+        public void updatePredictiveModel(Tree predictiveModel, Iterable<? extends AbstractInstance> newData, List<? extends AbstractInstance> trainingData, boolean splitNodes) {
+            lastNewData = new ArrayList<>();
+            for (AbstractInstance instance : newData) {
+                lastNewData.add(instance);
+            }
+            lastTrainingData = trainingData;
+        }
+
+        @Override
+        public void stripData(Tree predictiveModel) {
+        }
+
+        @Override
+        public RecordingTreeBuilder updatable(boolean updatable) {
+            return this;
+        }
+
+        @Override
+        public void setID(Serializable id) {
+        }
+    }
 }
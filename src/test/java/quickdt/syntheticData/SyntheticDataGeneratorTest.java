@@ -0,0 +1,80 @@
+package quickdt.syntheticData;
+
+import java.io.File;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.Lists;
+
+import quickdt.data.Instance;
+import quickdt.modelSerialization.BinaryInstanceReader;
+
+public class SyntheticDataGeneratorTest {
+
+    @Test
+    public void sameSeedGeneratesTheSameInstancesInAnyRange() {
+        final SyntheticDataGenerator generator = new SyntheticDataGenerator().seed(7).missingRate(0.2);
+        final List<Instance> instances = generator.generate(1000);
+
+        Assert.assertEquals(new SyntheticDataGenerator().seed(7).missingRate(0.2).generate(1000), instances);
+        Assert.assertEquals(Lists.newArrayList(generator.stream(500, 500)), instances.subList(500, 1000));
+        Assert.assertNotEquals(new SyntheticDataGenerator().seed(8).missingRate(0.2).generate(1000), instances);
+    }
+
+    @Test
+    public void distributionsFollowTheSettings() {
+        final SyntheticDataGenerator generator = new SyntheticDataGenerator().numericAttributes(5).categoricalAttributes(5)
+                .cardinality(1000, 1.2).missingRate(0.1).classes(3, 10).signal(2, 0);
+        final int count = 20000;
+        int present = 0;
+        final Map<Object, Integer> valueCounts = new HashMap<>();
+        final Map<Object, Integer> classCounts = new HashMap<>();
+        for (Instance instance : generator.stream(count)) {
+            present += instance.getAttributes().size();
+            valueCounts.merge(instance.getAttributes().get("c0"), 1, Integer::sum);
+            classCounts.merge(instance.getClassification(), 1, Integer::sum);
+        }
+
+        Assert.assertEquals(present / (10.0 * count), 0.9, 0.01);
+        // with no signal the classes follow the prior, 1 : 10^-0.5 : 0.1
+        Assert.assertEquals(classCounts.get("class0") / (double) classCounts.get("class2"), 10, 1.5);
+        Assert.assertEquals(classCounts.get("class0") / (double) classCounts.get("class1"), Math.sqrt(10), 0.4);
+        // Zipfian values, v1 is 2^1.2 times less common than v0
+        Assert.assertEquals(valueCounts.get("v0") / (double) valueCounts.get("v1"), Math.pow(2, 1.2), 0.3);
+        Assert.assertTrue(valueCounts.get("v1") > valueCounts.get("v10"));
+    }
+
+    @Test
+    public void writesCsvAndBinaryFiles() throws Exception {
+        final SyntheticDataGenerator generator = new SyntheticDataGenerator().numericAttributes(1).categoricalAttributes(1)
+                .missingRate(0.3).seed(3);
+        final List<Instance> instances = generator.generate(200);
+
+        final File file = File.createTempFile("instances", ".bin");
+        file.deleteOnExit();
+        generator.writeBinary(200, file);
+        final Iterable<Instance> read = BinaryInstanceReader.read(file);
+        Assert.assertEquals(Lists.newArrayList(read), instances);
+        Assert.assertEquals(Lists.newArrayList(read), instances, "files can be iterated over repeatedly");
+
+        final StringWriter csv = new StringWriter();
+        generator.writeCsv(200, csv);
+        final String[] lines = csv.toString().split("\r\n");
+        Assert.assertEquals(lines.length, 201);
+        Assert.assertEquals(lines[0], "n0,c0,classification");
+        final List<String> expected = new ArrayList<>();
+        final Instance first = instances.get(0);
+        for (String name : generator.getAttributeNames()) {
+            final Object value = first.getAttributes().get(name);
+            expected.add(value == null ? "" : value.toString());
+        }
+        expected.add(first.getClassification().toString());
+        Assert.assertEquals(lines[1], String.join(",", expected));
+    }
+}